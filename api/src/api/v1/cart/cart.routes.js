@@ -18,7 +18,20 @@ router.post('/:cartId/items', async (req, res, next) => {
             throw new CartError('Item name is required');
         }
         const cart = await cartService.getCart(req.params.cartId);
-        const updatedCart = await cartService.addItem(cart.id, req.body.itemName);
+        const updatedCart = await cartService.addItem(cart.id, req.body.itemName, req.body.quantity);
+        res.json(updatedCart);
+    } catch (error) {
+        next(error);
+    }
+});
+
+router.put('/:cartId/items/:itemName', async (req, res, next) => {
+    try {
+        if (!Number.isInteger(req.body.quantity) || req.body.quantity < 0) {
+            throw new CartError('Quantity must be a non-negative integer');
+        }
+        const cart = await cartService.getCart(req.params.cartId);
+        const updatedCart = await cartService.setItemQuantity(cart.id, req.params.itemName, req.body.quantity);
         res.json(updatedCart);
     } catch (error) {
         next(error);
@@ -1,8 +1,12 @@
+const crypto = require('crypto');
 const fetch = require('node-fetch');
 const config = require('../../../../config/default');
 const logger = require('../../../common/utils/logger');
 const { CartError } = require('../../../common/utils/errors');
 
+// Carts whose last GET body is kept for conditional requests
+const MAX_CACHED_CARTS = 1000;
+
 class CartService {
     constructor() {
         this.baseUrl = config.javaBackend.baseUrl;
@@ -10,6 +14,7 @@ class CartService {
         this.pendingOperations = new Map();
         this.lastKnownVersion = 0;
         this.wsConnections = new Map();
+        this.cartCache = new Map();
     }
 
     async createCart() {
@@ -47,10 +52,11 @@ class CartService {
         }
     }
 
-    async addItem(cartId, item) {
+    async addItem(cartId, item, quantity = 1) {
         try {
             const response = await this._makeRequest('POST', `${this.baseUrl}/cart/${cartId}/items`, {
                 itemName: item,
+                quantity,
                 clientVersion: this.lastKnownVersion
             });
             this.lastKnownVersion = response.version;
@@ -63,11 +69,51 @@ class CartService {
 
     async getCart(cartId) {
         try {
-            const response = await this._makeRequest('GET', `${this.baseUrl}/cart/${cartId}`);
+            // Revalidate with the last ETag; an unchanged cart comes back as an empty 304
+            const cached = this.cartCache.get(cartId);
+            const response = await fetch(`${this.baseUrl}/cart/${cartId}`, {
+                method: 'GET',
+                headers: cached ? { 'If-None-Match': cached.etag } : {}
+            });
+
+            let data;
+            if (response.status === 304 && cached) {
+                data = cached.data;
+            } else {
+                data = await response.json();
+                if (!response.ok) {
+                    throw new CartError(data.message || 'Operation failed', null, response.status);
+                }
+                this._cacheCart(cartId, response.headers.get('etag'), data);
+            }
+            this.lastKnownVersion = data.version;
+            return data;
+        } catch (error) {
+            throw new CartError('Failed to retrieve cart', error);
+        }
+    }
+
+    _cacheCart(cartId, etag, data) {
+        this.cartCache.delete(cartId);
+        if (!etag) {
+            return;
+        }
+        if (this.cartCache.size >= MAX_CACHED_CARTS) {
+            this.cartCache.delete(this.cartCache.keys().next().value);
+        }
+        this.cartCache.set(cartId, { etag, data });
+    }
+
+    async setItemQuantity(cartId, itemName, quantity) {
+        try {
+            const response = await this._makeRequest('PUT',
+                `${this.baseUrl}/cart/${cartId}/items/${itemName}`,
+                { quantity, clientVersion: this.lastKnownVersion }
+            );
             this.lastKnownVersion = response.version;
             return response;
         } catch (error) {
-            throw new CartError('Failed to retrieve cart', error);
+            throw new CartError('Failed to update item quantity', error);
         }
     }
 
@@ -150,6 +196,7 @@ class CartService {
         
         const operations = this.pendingOperations.get(cartId);
         operations.push({ 
+            operationId: crypto.randomUUID(),
             operation, 
             item, 
             timestamp: new Date().toISOString(),
@@ -169,35 +216,47 @@ class CartService {
             return;
         }
 
+        // The whole queue goes to the backend in one batch; it skips ids it has
+        // already applied, so resending after a lost response is safe
         const operations = this.pendingOperations.get(cartId);
-        while (operations.length > 0 && navigator.onLine) {
-            const op = operations[0];
-            try {
-                let response;
-                switch (op.operation) {
-                    case 'ADD':
-                        response = await this.addItem(cartId, op.item);
-                        break;
-                    case 'REMOVE':
-                        response = await this.removeItem(cartId, op.item);
-                        break;
-                    case 'CLEAR':
-                        response = await this.clearCart(cartId);
-                        break;
-                    default:
-                        throw new CartError(`Invalid operation type: ${op.operation}`);
-                }
-                this.lastKnownVersion = response.version;
-                operations.shift();
-            } catch (error) {
-                if (!navigator.onLine) break;
-                throw error;
-            }
+        const batch = operations.slice();
+        let response;
+        try {
+            response = await this._makeRequest('POST', `${this.baseUrl}/cart/${cartId}/sync`, {
+                operations: batch.map(op => ({
+                    operationId: op.operationId,
+                    type: op.operation,
+                    item: op.item,
+                    quantity: op.quantity,
+                    clientVersion: op.clientVersion,
+                    timestamp: op.timestamp
+                }))
+            });
+        } catch (error) {
+            if (!navigator.onLine) return;
+            throw new CartError('Failed to sync pending operations', error);
         }
 
-        if (operations.length === 0) {
+        // Resume from the per-operation report: anything the backend applied,
+        // skipped or rejected is settled; only unreported operations stay queued
+        const settled = new Set();
+        (response.results || []).forEach(result => {
+            const op = batch[result.index];
+            if (!op) return;
+            if (result.status === 'REJECTED') {
+                logger.warn(`Sync rejected ${op.operation} for cart ${cartId}: ${result.reason}`);
+            }
+            settled.add(op);
+        });
+        const remaining = operations.filter(op => !settled.has(op));
+        this.lastKnownVersion = response.version;
+
+        if (remaining.length === 0) {
             this.pendingOperations.delete(cartId);
+        } else {
+            this.pendingOperations.set(cartId, remaining);
         }
+        return response;
     }
 
     async _makeRequest(method, url, body = null) {
@@ -234,6 +293,7 @@ class CartService {
     close() {
         this.wsConnections.forEach(ws => ws.close());
         this.wsConnections.clear();
+        this.cartCache.clear();
     }
 }
 
@@ -75,23 +75,58 @@ describe('CartService', () => {
 
         test('should sync pending operations when online', async () => {
             await cartService.handleOfflineOperation('123', 'ADD', 'APPLE');
-            
+            await cartService.handleOfflineOperation('123', 'REMOVE', 'BANANA');
+            const queued = cartService.pendingOperations.get('123');
+
             global.navigator.onLine = true;
             const mockResponse = {
                 ok: true,
                 status: 200,
-                json: () => Promise.resolve({ 
-                    cartId: '123', 
-                    items: [{ name: 'APPLE' }],
-                    version: 1
+                json: () => Promise.resolve({
+                    status: 'success',
+                    version: 2,
+                    syncedOperations: 2,
+                    results: [
+                        { index: 0, operationId: queued[0].operationId, status: 'APPLIED' },
+                        { index: 1, operationId: queued[1].operationId, status: 'APPLIED' }
+                    ]
                 })
             };
-            
+
             fetch.mockResolvedValueOnce(mockResponse);
 
             await cartService.syncPendingOperations('123');
-            const remainingOps = cartService.pendingOperations.get('123') || [];
-            expect(remainingOps).toHaveLength(0);
+            expect(fetch).toHaveBeenCalledTimes(1);
+            const [url, options] = fetch.mock.calls[0];
+            expect(url).toMatch(/\/cart\/123\/sync$/);
+            expect(options.method).toBe('POST');
+            const body = JSON.parse(options.body);
+            expect(body.operations.map(op => op.type)).toEqual(['ADD', 'REMOVE']);
+            expect(body.operations[0].operationId).toBe(queued[0].operationId);
+            expect(cartService.pendingOperations.has('123')).toBe(false);
+            expect(cartService.lastKnownVersion).toBe(2);
+        });
+
+        test('should keep operations the sync report does not cover', async () => {
+            await cartService.handleOfflineOperation('123', 'ADD', 'APPLE');
+            await cartService.handleOfflineOperation('123', 'ADD', 'BANANA');
+
+            global.navigator.onLine = true;
+            fetch.mockResolvedValueOnce({
+                ok: true,
+                status: 200,
+                json: () => Promise.resolve({
+                    status: 'success',
+                    version: 1,
+                    syncedOperations: 1,
+                    results: [{ index: 0, status: 'APPLIED' }]
+                })
+            });
+
+            await cartService.syncPendingOperations('123');
+            const remainingOps = cartService.pendingOperations.get('123');
+            expect(remainingOps).toHaveLength(1);
+            expect(remainingOps[0].item).toBe('BANANA');
         });
     });
 
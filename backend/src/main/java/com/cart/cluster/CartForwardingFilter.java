@@ -0,0 +1,173 @@
+package com.cart.cluster;
+
+import com.cart.config.CartClusterProperties;
+import com.cart.exception.GlobalExceptionHandler.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Forwards cart API requests for carts owned by another node to that node and
+ * relays the response unchanged. The request thread is released while the
+ * owner answers; the response is written from the HTTP client's thread.
+ * <p>
+ * One {@link HttpClient} is shared by all requests and keeps persistent
+ * connections to each node open for reuse.
+ */
+@Slf4j
+@Component
+public class CartForwardingFilter extends OncePerRequestFilter implements DisposableBean {
+    private static final String CART_PATH = "/api/v1/cart/";
+    private static final List<String> REQUEST_HEADERS = List.of(
+        HttpHeaders.CONTENT_TYPE, HttpHeaders.ACCEPT, HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MATCH);
+    // Hop-by-hop headers, and the length the container sets from the body itself
+    private static final Set<String> SKIPPED_RESPONSE_HEADERS = Set.of(
+        "connection", "keep-alive", "transfer-encoding", "content-length", "upgrade", ":status");
+
+    private final CartRouter router;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Duration forwardTimeout;
+    private final ExecutorService clientExecutor;
+    private final HttpClient httpClient;
+
+    public CartForwardingFilter(CartRouter router, CartClusterProperties properties, ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry) {
+        this.router = router;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.forwardTimeout = Duration.ofMillis(properties.getForwardTimeoutMs());
+        AtomicInteger counter = new AtomicInteger();
+        this.clientExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "cart-forward-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                                    .version(HttpClient.Version.HTTP_1_1)
+                                    .connectTimeout(Duration.ofMillis(properties.getConnectTimeoutMs()))
+                                    .executor(clientExecutor)
+                                    .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !router.isEnabled()
+            || request.getHeader(CartRouter.FORWARDED_HEADER) != null
+            || cartId(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+        throws ServletException, IOException {
+        String cartId = cartId(request);
+        String owner = router.ownerOf(cartId);
+        if (owner.equals(router.localNodeId())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        forward(request, response, owner);
+    }
+
+    @Override
+    public void destroy() {
+        clientExecutor.shutdownNow();
+    }
+
+    private void forward(HttpServletRequest request, HttpServletResponse response, String owner)
+        throws IOException {
+        byte[] body = request.getInputStream().readAllBytes();
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String query = request.getQueryString();
+        URI target = URI.create(router.baseUrl(owner) + path + (query != null ? "?" + query : ""));
+
+        HttpRequest.Builder forwarded = HttpRequest.newBuilder(target)
+                                                   .timeout(forwardTimeout)
+                                                   .header(CartRouter.FORWARDED_HEADER, router.localNodeId());
+        for (String name : REQUEST_HEADERS) {
+            String value = request.getHeader(name);
+            if (value != null) {
+                forwarded.header(name, value);
+            }
+        }
+        forwarded.method(request.getMethod(), body.length > 0
+            ? HttpRequest.BodyPublishers.ofByteArray(body)
+            : HttpRequest.BodyPublishers.noBody());
+
+        meterRegistry.counter("cart.cluster.forwarded", "node", owner).increment();
+        AsyncContext async = request.startAsync();
+        async.setTimeout(0);
+        httpClient.sendAsync(forwarded.build(), HttpResponse.BodyHandlers.ofByteArray())
+                  .whenComplete((reply, error) -> {
+                      try {
+                          if (error != null) {
+                              log.warn("Forwarding {} {} to node {} failed: {}", request.getMethod(), path, owner,
+                                       error.toString());
+                              writeError(response, owner);
+                          } else {
+                              writeReply(response, reply);
+                          }
+                      } catch (IOException | RuntimeException e) {
+                          log.error("Failed to relay response from node {}", owner, e);
+                      } finally {
+                          async.complete();
+                      }
+                  });
+    }
+
+    private static void writeReply(HttpServletResponse response, HttpResponse<byte[]> reply) throws IOException {
+        response.setStatus(reply.statusCode());
+        reply.headers().map().forEach((name, values) -> {
+            if (!SKIPPED_RESPONSE_HEADERS.contains(name.toLowerCase())) {
+                values.forEach(value -> response.addHeader(name, value));
+            }
+        });
+        byte[] body = reply.body();
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private void writeError(HttpServletResponse response, String owner) throws IOException {
+        byte[] body = objectMapper.writeValueAsBytes(new ErrorResponse("Cart owner " + owner + " is unavailable"));
+        response.setStatus(HttpStatus.BAD_GATEWAY.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * The cart id of a {@code /api/v1/cart/{cartId}/...} request, or null for
+     * other paths such as cart creation.
+     */
+    static String cartId(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.startsWith(CART_PATH) || path.length() == CART_PATH.length()) {
+            return null;
+        }
+        int end = path.indexOf('/', CART_PATH.length());
+        return path.substring(CART_PATH.length(), end < 0 ? path.length() : end);
+    }
+}
@@ -0,0 +1,96 @@
+package com.cart.cluster;
+
+import com.cart.config.CartClusterProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Maps each cart id to the node that owns it, using a consistent-hash ring
+ * over the statically configured members. With clustering disabled every
+ * cart is local.
+ * <p>
+ * New cart ids are drawn until one hashes to this node, so a cart is created
+ * where it will live and needs no forwarding until a client talks to another
+ * node.
+ */
+@Slf4j
+@Component
+public class CartRouter {
+    /**
+     * Marks a request or WebSocket handshake forwarded by another node, which
+     * is then always served locally so a disagreement cannot loop.
+     */
+    public static final String FORWARDED_HEADER = "X-Cart-Forwarded-By";
+
+    private final boolean enabled;
+    private final String localNodeId;
+    private final Map<String, URI> nodes = new LinkedHashMap<>();
+    private final HashRing ring;
+
+    public CartRouter(CartClusterProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.localNodeId = properties.getNodeId();
+        if (!enabled) {
+            this.ring = null;
+            return;
+        }
+        if (properties.getNodes().isEmpty()) {
+            throw new IllegalArgumentException("Cluster mode needs at least one node in cart.cluster.nodes");
+        }
+        if (localNodeId == null || !properties.getNodes().containsKey(localNodeId)) {
+            throw new IllegalArgumentException("cart.cluster.nodeId must name one of " + properties.getNodes().keySet());
+        }
+        properties.getNodes().forEach((id, url) -> nodes.put(id, URI.create(stripTrailingSlash(url))));
+        this.ring = new HashRing(nodes.keySet(), properties.getVirtualNodes());
+        log.info("Cluster node {} of {}", localNodeId, nodes.keySet());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String localNodeId() {
+        return localNodeId;
+    }
+
+    public String ownerOf(String cartId) {
+        return enabled ? ring.ownerOf(cartId) : localNodeId;
+    }
+
+    public boolean isLocal(String cartId) {
+        return !enabled || localNodeId.equals(ring.ownerOf(cartId));
+    }
+
+    /**
+     * Base URL of a member, without a trailing slash.
+     */
+    public URI baseUrl(String nodeId) {
+        URI url = nodes.get(nodeId);
+        if (url == null) {
+            throw new IllegalArgumentException("Unknown cluster node: " + nodeId);
+        }
+        return url;
+    }
+
+    /**
+     * A random cart id owned by this node; takes as many draws on average as
+     * there are nodes.
+     */
+    public String newCartId() {
+        while (true) {
+            String cartId = UUID.randomUUID().toString();
+            if (isLocal(cartId)) {
+                return cartId;
+            }
+        }
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
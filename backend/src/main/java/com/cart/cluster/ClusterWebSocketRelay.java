@@ -0,0 +1,188 @@
+package com.cart.cluster;
+
+import com.cart.config.WebSocketProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.WebSocketClient;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Routes cart subscriptions to the cart's owner. A client subscribed on a
+ * node that does not own the cart is connected through: this node opens the
+ * same subscription on the owner and relays every frame the owner sends,
+ * including the initial state. Subscriptions to local carts, and those
+ * already relayed by another node, go straight to the wrapped handler.
+ * <p>
+ * Frames are written to the client through a
+ * {@link ConcurrentWebSocketSessionDecorator} bounded by the usual WebSocket
+ * send time and buffer limits, so a slow client cannot stall the relay.
+ */
+@Slf4j
+public class ClusterWebSocketRelay extends WebSocketHandlerDecorator {
+    private static final String RELAY_ATTRIBUTE = ClusterWebSocketRelay.class.getName();
+    private static final CloseStatus OWNER_UNAVAILABLE = CloseStatus.SERVER_ERROR.withReason("Cart owner unavailable");
+
+    private final CartRouter router;
+    private final WebSocketProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final WebSocketClient client;
+
+    public ClusterWebSocketRelay(WebSocketHandler delegate, CartRouter router, WebSocketProperties properties,
+                                 MeterRegistry meterRegistry) {
+        super(delegate);
+        this.router = router;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.client = new StandardWebSocketClient();
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        String cartId = cartId(session);
+        if (session.getHandshakeHeaders().containsKey(CartRouter.FORWARDED_HEADER) || router.isLocal(cartId)) {
+            super.afterConnectionEstablished(session);
+            return;
+        }
+        relay(session, cartId, router.ownerOf(cartId));
+    }
+
+    @Override
+    public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+        // Clients only listen; nothing they send on a relayed session is meaningful to the owner
+        if (!isRelayed(session)) {
+            super.handleMessage(session, message);
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        if (!isRelayed(session)) {
+            super.afterConnectionClosed(session, closeStatus);
+            return;
+        }
+        WebSocketSession upstream = ((Relay) session.getAttributes().get(RELAY_ATTRIBUTE)).detach();
+        if (upstream != null) {
+            close(upstream, closeStatus);
+        }
+    }
+
+    private void relay(WebSocketSession session, String cartId, String owner) {
+        Relay relay = new Relay();
+        session.getAttributes().put(RELAY_ATTRIBUTE, relay);
+        WebSocketSession downstream = new ConcurrentWebSocketSessionDecorator(
+            session, (int) properties.getSendTimeLimitMs(), properties.getBufferSizeLimit(),
+            properties.getOverflowPolicy() == WebSocketProperties.OverflowPolicy.CLOSE
+                ? ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE
+                : ConcurrentWebSocketSessionDecorator.OverflowStrategy.DROP);
+
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        headers.add(CartRouter.FORWARDED_HEADER, router.localNodeId());
+        String protocol = session.getAcceptedProtocol();
+        if (protocol != null && !protocol.isEmpty()) {
+            headers.setSecWebSocketProtocol(protocol);
+        }
+        URI ownerUri = ownerUri(owner, cartId);
+        meterRegistry.counter("cart.cluster.ws.relayed", "node", owner).increment();
+
+        client.doHandshake(new UpstreamHandler(downstream), headers, ownerUri).addCallback(
+            upstream -> {
+                if (relay.attach(upstream)) {
+                    log.debug("Relaying cart {} subscription to node {}", cartId, owner);
+                } else {
+                    close(upstream, CloseStatus.NORMAL);
+                }
+            },
+            error -> {
+                log.warn("Could not relay cart {} subscription to node {}: {}", cartId, owner, error.toString());
+                close(session, OWNER_UNAVAILABLE);
+            });
+    }
+
+    private URI ownerUri(String owner, String cartId) {
+        URI base = router.baseUrl(owner);
+        String scheme = "https".equalsIgnoreCase(base.getScheme()) ? "wss" : "ws";
+        return URI.create(scheme + base.toString().substring(base.getScheme().length()) + "/cart-ws/" + cartId);
+    }
+
+    private static boolean isRelayed(WebSocketSession session) {
+        return session.getAttributes().containsKey(RELAY_ATTRIBUTE);
+    }
+
+    private static String cartId(WebSocketSession session) {
+        String path = session.getUri().getPath();
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private static void close(WebSocketSession session, CloseStatus status) {
+        if (!session.isOpen()) {
+            return;
+        }
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            log.debug("Error closing relayed WebSocket session", e);
+        }
+    }
+
+    /**
+     * The owner-side session of a relayed subscription. The client may
+     * disconnect before the owner's handshake completes, in which case the
+     * late upstream is refused and closed.
+     */
+    private static final class Relay {
+        private WebSocketSession upstream;
+        private boolean detached;
+
+        synchronized boolean attach(WebSocketSession upstream) {
+            if (detached) {
+                return false;
+            }
+            this.upstream = upstream;
+            return true;
+        }
+
+        synchronized WebSocketSession detach() {
+            detached = true;
+            return upstream;
+        }
+    }
+
+    /**
+     * Receives the owner's frames and passes them on to the client.
+     */
+    private static final class UpstreamHandler extends AbstractWebSocketHandler {
+        private final WebSocketSession downstream;
+
+        private UpstreamHandler(WebSocketSession downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void handleMessage(WebSocketSession upstream, WebSocketMessage<?> message) throws Exception {
+            if (downstream.isOpen()) {
+                downstream.sendMessage(message);
+            }
+        }
+
+        @Override
+        public void handleTransportError(WebSocketSession upstream, Throwable exception) {
+            close(downstream, OWNER_UNAVAILABLE);
+        }
+
+        @Override
+        public void afterConnectionClosed(WebSocketSession upstream, CloseStatus status) {
+            close(downstream, status);
+        }
+    }
+}
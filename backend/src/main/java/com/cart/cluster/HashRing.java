@@ -0,0 +1,81 @@
+package com.cart.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Consistent-hash ring. Each node is placed at {@code virtualNodes} points and
+ * a key belongs to the first point at or after its hash, wrapping around, so
+ * adding or removing a node only moves the keys next to its points.
+ * <p>
+ * Immutable; points are kept in sorted parallel arrays and looked up by
+ * binary search.
+ */
+public final class HashRing {
+    private final long[] points;
+    private final String[] owners;
+
+    public HashRing(Collection<String> nodeIds, int virtualNodes) {
+        if (nodeIds.isEmpty()) {
+            throw new IllegalArgumentException("Hash ring needs at least one node");
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual nodes must be positive");
+        }
+        List<String> nodes = List.copyOf(nodeIds);
+        int count = nodes.size() * virtualNodes;
+        long[] hashes = new long[count];
+        for (int n = 0; n < nodes.size(); n++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                int index = n * virtualNodes + v;
+                hashes[index] = hash(nodes.get(n) + "#" + v);
+            }
+        }
+        // Sort point indexes by hash; ties (vanishingly rare) go to the lower index
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int byHash = Long.compare(hashes[a], hashes[b]);
+            return byHash != 0 ? byHash : Integer.compare(a, b);
+        });
+        this.points = new long[count];
+        this.owners = new String[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = hashes[order[i]];
+            owners[i] = nodes.get(order[i] / virtualNodes);
+        }
+    }
+
+    public String ownerOf(String key) {
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+            if (index == points.length) {
+                index = 0;
+            }
+        }
+        return owners[index];
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes with a murmur3 finalizer, so ids that
+     * differ in a few characters still land far apart.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,43 @@
+package com.cart.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cart.cluster")
+public class CartClusterProperties {
+    /**
+     * Partition carts across the nodes below; otherwise this node holds every cart.
+     */
+    private boolean enabled = false;
+
+    /**
+     * This node's key in {@link #nodes}.
+     */
+    private String nodeId;
+
+    /**
+     * Static membership: node id to the base URL other nodes reach it on, e.g. http://10.0.0.5:8080.
+     */
+    private Map<String, String> nodes = new LinkedHashMap<>();
+
+    /**
+     * Points per node on the hash ring; more points spread carts more evenly.
+     */
+    private int virtualNodes = 160;
+
+    /**
+     * Timeout for opening a connection to another node.
+     */
+    private long connectTimeoutMs = 1_000;
+
+    /**
+     * Timeout for a forwarded request, from sending it to receiving the response.
+     */
+    private long forwardTimeoutMs = 5_000;
+}
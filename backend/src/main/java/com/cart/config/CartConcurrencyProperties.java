@@ -0,0 +1,38 @@
+package com.cart.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cart.concurrency")
+public class CartConcurrencyProperties {
+    /**
+     * How cart operations are serialized: STRIPED runs them on the calling
+     * thread under a lock stripe, SHARDED hands them to a single-writer thread
+     * per shard.
+     */
+    private Mode mode = Mode.STRIPED;
+
+    /**
+     * Number of lock stripes used to serialize cart mutations. Rounded up to a power of two.
+     */
+    private int stripes = 1024;
+
+    /**
+     * Number of shard threads in SHARDED mode (0 = one per processor).
+     */
+    private int shards = 0;
+
+    /**
+     * Re-apply idempotent operations (remove, clear) against the latest version
+     * instead of rejecting them when the client's version is stale.
+     */
+    private boolean retryIdempotentOnConflict = false;
+
+    public enum Mode {
+        STRIPED,
+        SHARDED
+    }
+}
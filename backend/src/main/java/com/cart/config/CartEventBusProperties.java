@@ -0,0 +1,71 @@
+package com.cart.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cart.event-bus")
+public class CartEventBusProperties {
+    /**
+     * How cart events reach other instances: LOOPBACK keeps them in this JVM,
+     * TCP connects the instances listed in {@link #members} directly.
+     */
+    private Type type = Type.LOOPBACK;
+
+    /**
+     * This instance's key in {@link #members}.
+     */
+    private String nodeId = "node-1";
+
+    /**
+     * Every instance, this one included: node id to the host:port its bus
+     * listens on. Only used by the TCP bus.
+     */
+    private Map<String, String> members = new LinkedHashMap<>();
+
+    /**
+     * How long events wait to be batched with others before they are sent.
+     */
+    private long flushIntervalMs = 5;
+
+    /**
+     * Most events sent to a peer in one batch.
+     */
+    private int maxBatchEvents = 1024;
+
+    /**
+     * Batches encoding to at least this many bytes are deflated.
+     */
+    private int compressThresholdBytes = 512;
+
+    /**
+     * Events queued per peer beyond this are dropped until the peer catches up.
+     */
+    private int maxQueuedEvents = 65_536;
+
+    /**
+     * Batches waiting for a TCP peer's writer. A peer that falls this far
+     * behind is disconnected and redialed.
+     */
+    private int maxQueuedFrames = 64;
+
+    /**
+     * Connecting to another member.
+     */
+    private int connectTimeoutMs = 1_000;
+
+    /**
+     * Delay between attempts to reach members that are not connected.
+     */
+    private long reconnectIntervalMs = 1_000;
+
+    public enum Type {
+        LOOPBACK,
+        TCP
+    }
+}
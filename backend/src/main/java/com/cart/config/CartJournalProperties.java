@@ -0,0 +1,56 @@
+package com.cart.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cart.journal")
+public class CartJournalProperties {
+    /**
+     * Record every cart mutation in an append-only journal.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Directory holding the journal segments.
+     */
+    private String directory = "data/journal";
+
+    /**
+     * Size of each memory-mapped segment file.
+     */
+    private int segmentSizeBytes = 64 * 1024 * 1024;
+
+    /**
+     * When a mutation counts as durable.
+     */
+    private Durability durability = Durability.INTERVAL;
+
+    /**
+     * Flush interval for {@link Durability#INTERVAL}.
+     */
+    private long flushIntervalMs = 10;
+
+    /**
+     * Threads completing {@link Durability#SYNC} waits and running what the
+     * waiters chained onto them, so that work stays off the flusher thread.
+     */
+    private int completionThreads = 2;
+
+    public enum Durability {
+        /**
+         * Requests wait for their entry to be flushed; concurrent requests share one flush.
+         */
+        SYNC,
+        /**
+         * Flushed every {@code flushIntervalMs}; a power loss may drop that window.
+         */
+        INTERVAL,
+        /**
+         * Never flushed explicitly; survives a process crash but not a power loss.
+         */
+        ASYNC
+    }
+}
@@ -0,0 +1,26 @@
+package com.cart.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cart.reprice")
+public class CartRepriceProperties {
+    /**
+     * Fork-join workers repricing carts after a pricing reload; 0 uses one per processor.
+     */
+    private int parallelism = 0;
+
+    /**
+     * Carts a worker reprices before it stops splitting the remaining work.
+     */
+    private int batchSize = 1_024;
+
+    /**
+     * File the last reloaded pricing is written to and loaded from at startup,
+     * in place of the application config; blank keeps reloads in memory only.
+     */
+    private String pricingFile;
+}
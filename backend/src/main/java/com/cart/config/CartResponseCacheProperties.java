@@ -0,0 +1,20 @@
+package com.cart.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cart.response-cache")
+public class CartResponseCacheProperties {
+    /**
+     * Slots holding serialized GET responses, one cart per slot. 0 disables the cache.
+     */
+    private int slots = 16_384;
+
+    /**
+     * Responses larger than this are served but not cached.
+     */
+    private int maxEntryBytes = 8_192;
+}
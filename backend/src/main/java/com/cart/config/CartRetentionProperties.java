@@ -0,0 +1,30 @@
+package com.cart.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cart.retention")
+public class CartRetentionProperties {
+    /**
+     * Evict a cart that has not been read or written for this long. 0 disables.
+     */
+    private long idleTtlMs = 30 * 60 * 1000L;
+
+    /**
+     * Evict a cart this long after it was created, however active. 0 disables.
+     */
+    private long absoluteTtlMs = 24 * 60 * 60 * 1000L;
+
+    /**
+     * Maximum carts held; the least recently used of a small sample is evicted beyond it. 0 disables.
+     */
+    private int maxCarts = 100_000;
+
+    /**
+     * Resolution of the expiry timer wheel.
+     */
+    private long tickMs = 1_000;
+}
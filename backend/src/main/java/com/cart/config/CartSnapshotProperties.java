@@ -0,0 +1,36 @@
+package com.cart.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cart.snapshot")
+public class CartSnapshotProperties {
+    /**
+     * Periodically write every stored cart to a snapshot file and load the
+     * latest one on startup.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Directory holding the snapshot files.
+     */
+    private String directory = "data/snapshots";
+
+    /**
+     * Delay between the end of one snapshot and the start of the next.
+     */
+    private long intervalMs = 300_000;
+
+    /**
+     * Carts per chunk; chunks are the unit of parallel loading.
+     */
+    private int chunkCarts = 65_536;
+
+    /**
+     * Threads loading chunks on startup; 0 uses one per available processor.
+     */
+    private int loadThreads = 0;
+}
@@ -0,0 +1,36 @@
+package com.cart.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cart.store")
+public class CartStoreProperties {
+    /**
+     * Where carts are kept. Retention limits only apply to the heap store.
+     */
+    private Type type = Type.HEAP;
+
+    /**
+     * Bytes of direct memory reserved per slab by the off-heap store.
+     */
+    private int slabSizeBytes = 1024 * 1024;
+
+    /**
+     * Initial number of index slots in the off-heap store; grows as carts are added.
+     */
+    private int initialCapacity = 1024;
+
+    /**
+     * Independently locked segments of the off-heap index, rounded up to a power
+     * of two. Carts in different segments are read and written in parallel.
+     */
+    private int indexSegments = 64;
+
+    public enum Type {
+        HEAP,
+        OFFHEAP
+    }
+}
@@ -0,0 +1,21 @@
+package com.cart.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cart.sync")
+public class CartSyncProperties {
+    /**
+     * Apply an offline queue as one net change (one save, one event) instead of
+     * replaying each operation through the regular add/remove/clear path.
+     */
+    private boolean batch = true;
+
+    /**
+     * Number of recent operation ids remembered per cart for deduplicating retried syncs.
+     */
+    private int dedupWindow = 256;
+}
@@ -0,0 +1,15 @@
+package com.cart.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cart.totals")
+public class CartTotalsProperties {
+    /**
+     * Re-sum a cart's lines every N versions to verify the running total. 0 disables.
+     */
+    private int verifyInterval = 1000;
+}
@@ -0,0 +1,19 @@
+package com.cart.config;
+
+import com.cart.model.domain.ItemIds;
+import com.cart.service.pricing.PricingCatalog;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PricingConfig {
+
+    /**
+     * The catalog's item registry, for components that map item ids to names
+     * and unit prices but do not price anything themselves.
+     */
+    @Bean
+    public ItemIds itemIds(PricingCatalog pricingCatalog) {
+        return pricingCatalog.getItemIds();
+    }
+}
@@ -15,6 +15,17 @@ public class PricingProperties {
     private Map<String, ItemConfig> items;
     private int defaultPriority = 100;
 
+    /**
+     * Largest quantity a single cart line may hold; bulk adds past it are rejected.
+     */
+    private int maxQuantity = 10_000;
+
+    /**
+     * Line totals for quantities 0..N are precomputed per item at startup;
+     * larger quantities are priced live. 0 precomputes only the empty line.
+     */
+    private int priceTableMaxQuantity = 1_000;
+
     @Data
     public static class ItemConfig {
         private BigDecimal basePrice;
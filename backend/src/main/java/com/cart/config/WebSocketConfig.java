@@ -1,10 +1,16 @@
 package com.cart.config;
 
+import com.cart.cluster.CartRouter;
+import com.cart.cluster.ClusterWebSocketRelay;
+import com.cart.eventbus.CartEventBus;
 import com.cart.service.CartService;
+import com.cart.service.pricing.PricingCatalog;
 import com.cart.websocket.CartWebSocketHandler;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
@@ -15,20 +21,37 @@ public class WebSocketConfig implements WebSocketConfigurer {
 
     private final CartService cartService;
     private final ObjectMapper objectMapper;
+    private final PricingCatalog pricingCatalog;
+    private final WebSocketProperties webSocketProperties;
+    private final MeterRegistry meterRegistry;
+    private final CartRouter cartRouter;
+    private final CartEventBus cartEventBus;
 
-    public WebSocketConfig(CartService cartService, ObjectMapper objectMapper) {
+    public WebSocketConfig(CartService cartService, ObjectMapper objectMapper, PricingCatalog pricingCatalog,
+                           WebSocketProperties webSocketProperties, MeterRegistry meterRegistry,
+                           CartRouter cartRouter, CartEventBus cartEventBus) {
         this.cartService = cartService;
         this.objectMapper = objectMapper;
+        this.pricingCatalog = pricingCatalog;
+        this.webSocketProperties = webSocketProperties;
+        this.meterRegistry = meterRegistry;
+        this.cartRouter = cartRouter;
+        this.cartEventBus = cartEventBus;
     }
 
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
-        registry.addHandler(cartWebSocketHandler(), "/cart-ws/{cartId}")
+        WebSocketHandler handler = cartWebSocketHandler();
+        if (cartRouter.isEnabled()) {
+            handler = new ClusterWebSocketRelay(handler, cartRouter, webSocketProperties, meterRegistry);
+        }
+        registry.addHandler(handler, "/cart-ws/{cartId}")
                 .setAllowedOrigins("*");
     }
 
     @Bean
     public CartWebSocketHandler cartWebSocketHandler() {
-        return new CartWebSocketHandler(cartService, objectMapper);
+        return new CartWebSocketHandler(cartService, objectMapper, pricingCatalog,
+                                        webSocketProperties, meterRegistry, cartEventBus);
     }
 }
\ No newline at end of file
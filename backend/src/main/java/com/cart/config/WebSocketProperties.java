@@ -0,0 +1,52 @@
+package com.cart.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "cart.websocket")
+public class WebSocketProperties {
+    /**
+     * Threads delivering queued messages to WebSocket sessions; as many
+     * again publish and encode cart events, each serving a fixed set of carts.
+     */
+    private int dispatcherThreads = 2;
+
+    /**
+     * A session whose current send has been blocked longer than this is treated as a slow consumer.
+     */
+    private long sendTimeLimitMs = 5_000;
+
+    /**
+     * Maximum bytes queued per session before the overflow policy applies.
+     */
+    private int bufferSizeLimit = 512 * 1024;
+
+    /**
+     * What to do with a session whose queue exceeds {@link #bufferSizeLimit}.
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+    /**
+     * Merge events per cart and only deliver the newest version on each flush tick.
+     */
+    private boolean conflate = false;
+
+    /**
+     * Flush interval for conflated events.
+     */
+    private long flushIntervalMs = 50;
+
+    public enum OverflowPolicy {
+        /**
+         * Discard the oldest queued frames; clients only need the latest cart version.
+         */
+        DROP_OLDEST,
+        /**
+         * Close the session; the client reconnects and receives a fresh snapshot.
+         */
+        CLOSE
+    }
+}
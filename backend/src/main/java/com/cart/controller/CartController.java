@@ -1,93 +1,144 @@
 package com.cart.controller;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+import com.cart.cluster.CartRouter;
 import com.cart.exception.CartException;
-import com.cart.exception.VersionConflictException;
+import com.cart.exception.GlobalExceptionHandler.ErrorResponse;
 import com.cart.model.domain.Cart;
 import com.cart.model.dto.AddItemRequest;
-import com.cart.model.dto.CartResponse;
+import com.cart.model.dto.SetQuantityRequest;
 import com.cart.model.dto.SyncRequest;
 import com.cart.model.dto.SyncResponse;
+import com.cart.repository.CartUpdateResult;
 import com.cart.service.CartService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 
+/**
+ * Mutations hand off to the cart's executor and complete asynchronously, so
+ * a request thread is released rather than held while the cart is busy or
+ * the journal flushes. The response is rendered on the thread that completes
+ * the future, right after the cart was written.
+ */
 @RestController
 @RequestMapping("/api/v1/cart")
 @RequiredArgsConstructor
 @Slf4j
 public class CartController {
     private final CartService cartService;
+    private final CartResponseCache responseCache;
+    private final CartRouter cartRouter;
 
+    /**
+     * Creates the cart under an id this node owns, so later requests for it
+     * need no forwarding when they come back here.
+     */
     @PostMapping
-    public ResponseEntity<CartResponse> createCart() {
-        Cart cart = cartService.createCart();
-        return ResponseEntity.ok(CartResponse.from(cart));
+    public ResponseEntity<byte[]> createCart() {
+        return cartBody(cartService.createCart(cartRouter.newCartId()));
     }
 
     @PostMapping("/{cartId}/items")
-    public ResponseEntity<CartResponse> addItem(
+    public CompletableFuture<ResponseEntity<?>> addItem(
         @PathVariable String cartId,
         @Valid @RequestBody AddItemRequest request) {
-        try {
-            Cart cart = cartService.getCart(cartId);
-            validateVersion(cart, request.getClientVersion());
-
-            Cart updatedCart = cartService.addItem(cart, request.getItemName());
-            return ResponseEntity.ok(CartResponse.from(updatedCart));
-        } catch (VersionConflictException e) {
-            throw new CartException("Version conflict, please refresh", HttpStatus.CONFLICT);
-        }
+        return cartService.addItemAsync(cartId, request.getItemName(), request.getQuantity(),
+                                        request.getClientVersion())
+                          .thenApply(result -> toResponse(cartId, result));
+    }
+
+    /**
+     * Sets a line to an absolute quantity in one request; zero removes the line.
+     */
+    @PutMapping("/{cartId}/items/{itemName}")
+    public CompletableFuture<ResponseEntity<?>> setItemQuantity(
+        @PathVariable String cartId,
+        @PathVariable String itemName,
+        @Valid @RequestBody SetQuantityRequest request) {
+        return cartService.setItemQuantityAsync(cartId, itemName, request.getQuantity(), request.getClientVersion())
+                          .thenApply(result -> toResponse(cartId, result));
     }
 
+    /**
+     * Serves the cached body for the cart's version, or 304 when the client's
+     * {@code If-None-Match} already names that version.
+     */
     @GetMapping("/{cartId}")
-    public ResponseEntity<CartResponse> getCart(@PathVariable String cartId) {
+    public ResponseEntity<byte[]> getCart(@PathVariable String cartId, WebRequest webRequest) {
         Cart cart = cartService.getCart(cartId);
-        return ResponseEntity.ok(CartResponse.from(cart));
+        if (webRequest.checkNotModified(CartResponseCache.etag(cart.getVersion()))) {
+            return null;
+        }
+        return cartBody(cart);
     }
 
     @DeleteMapping("/{cartId}/items/{itemName}")
-    public ResponseEntity<CartResponse> removeItem(
+    public CompletableFuture<ResponseEntity<?>> removeItem(
         @PathVariable String cartId,
         @PathVariable String itemName,
         @RequestParam(required = false) Long clientVersion) {
-        Cart cart = cartService.getCart(cartId);
-        validateVersion(cart, clientVersion);
-
-        Cart updatedCart = cartService.removeItem(cart, itemName);
-        return ResponseEntity.ok(CartResponse.from(updatedCart));
+        return cartService.removeItemAsync(cartId, itemName, clientVersion)
+                          .thenApply(result -> toResponse(cartId, result));
     }
 
     @DeleteMapping("/{cartId}")
-    public ResponseEntity<Map<String, String>> clearCart(
+    public CompletableFuture<ResponseEntity<?>> clearCart(
         @PathVariable String cartId,
         @RequestParam(required = false) Long clientVersion) {
-        Cart cart = cartService.getCart(cartId);
-        validateVersion(cart, clientVersion);
-
-        cartService.clearCart(cart);
-        return ResponseEntity.ok(Map.of("status", "success"));
+        return cartService.clearCartAsync(cartId, clientVersion).thenApply(result -> {
+            checkFound(cartId, result);
+            if (result.isConflict()) {
+                return conflict();
+            }
+            return ResponseEntity.ok(Map.of("status", "success"));
+        });
     }
 
     @PostMapping("/{cartId}/sync")
-    public ResponseEntity<SyncResponse> syncOfflineOperations(
+    public CompletableFuture<ResponseEntity<SyncResponse>> syncOfflineOperations(
         @PathVariable String cartId,
-        @RequestBody SyncRequest request) {
-        SyncResponse response = cartService.syncOperations(cartId, request.getOperations());
-        return ResponseEntity.ok(response);
+        @Valid @RequestBody SyncRequest request) {
+        return cartService.syncOperationsAsync(cartId, request.getOperations()).thenApply(ResponseEntity::ok);
+    }
+
+    private ResponseEntity<?> toResponse(String cartId, CartUpdateResult result) {
+        checkFound(cartId, result);
+        if (result.isConflict()) {
+            return conflict();
+        }
+        return cartBody(result.getCart());
     }
 
-    private void validateVersion(Cart cart, Long clientVersion) {
-        if (clientVersion != null && clientVersion < cart.getVersion()) {
-            throw new VersionConflictException(cart.getVersion());
+    /**
+     * Serializes through the response cache, so the next GET of this version is a cache hit.
+     */
+    private ResponseEntity<byte[]> cartBody(Cart cart) {
+        CartResponseCache.SerializedCart response = responseCache.get(cart);
+        return ResponseEntity.ok()
+                             .eTag(CartResponseCache.etag(response.getVersion()))
+                             .contentType(MediaType.APPLICATION_JSON)
+                             .body(response.getBody());
+    }
+
+    private void checkFound(String cartId, CartUpdateResult result) {
+        if (result.isNotFound()) {
+            throw new CartException("Cart not found: " + cartId);
         }
     }
+
+    private ResponseEntity<ErrorResponse> conflict() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                             .body(new ErrorResponse("Version conflict, please refresh"));
+    }
 }
\ No newline at end of file
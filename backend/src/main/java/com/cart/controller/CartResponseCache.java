@@ -0,0 +1,98 @@
+package com.cart.controller;
+
+import com.cart.config.CartResponseCacheProperties;
+import com.cart.model.domain.Cart;
+import com.cart.model.domain.ItemIds;
+import com.cart.model.dto.CartJsonWriter;
+import com.cart.model.event.CartEvictedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Serialized {@code GET} responses keyed by cart id and version. Each cart
+ * hashes to one slot of a fixed table and a newer version or a colliding cart
+ * simply replaces the slot, so the footprint is bounded by
+ * {@code slots * maxEntryBytes} and no eviction bookkeeping is needed.
+ */
+@Component
+public class CartResponseCache {
+    private final CartJsonWriter jsonWriter;
+    private final AtomicReferenceArray<SerializedCart> slots;
+    private final int mask;
+    private final int maxEntryBytes;
+    private final Counter hits;
+    private final Counter misses;
+
+    public CartResponseCache(ObjectMapper objectMapper, ItemIds itemIds, CartResponseCacheProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.jsonWriter = new CartJsonWriter(objectMapper.getFactory(), itemIds);
+        int size = properties.getSlots() > 0 ? Integer.highestOneBit(Math.max(1, properties.getSlots() - 1)) << 1 : 0;
+        this.slots = size > 0 ? new AtomicReferenceArray<>(size) : null;
+        this.mask = size - 1;
+        this.maxEntryBytes = properties.getMaxEntryBytes();
+        this.hits = meterRegistry.counter("cart.response.cache", "result", "hit");
+        this.misses = meterRegistry.counter("cart.response.cache", "result", "miss");
+    }
+
+    /**
+     * Strong entity tag for a cart version; every mutation bumps the version.
+     */
+    public static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Returns the response body for the cart's current version, serializing it
+     * only on a miss. A body is cached only if the cart's version did not move
+     * while it was being built, so a cached body always matches its version.
+     */
+    public SerializedCart get(Cart cart) {
+        long version = cart.getVersion();
+        int index = slots != null ? index(cart.getId()) : -1;
+        if (index >= 0) {
+            SerializedCart cached = slots.get(index);
+            if (cached != null && cached.version == version && cached.cartId.equals(cart.getId())) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+
+        SerializedCart serialized = new SerializedCart(cart.getId(), version, jsonWriter.write(cart));
+        if (index >= 0 && cart.getVersion() == version && serialized.body.length <= maxEntryBytes) {
+            slots.set(index, serialized);
+        }
+        return serialized;
+    }
+
+    @EventListener
+    public void handleCartEvicted(CartEvictedEvent event) {
+        if (slots != null) {
+            int index = index(event.getCartId());
+            SerializedCart cached = slots.get(index);
+            if (cached != null && cached.cartId.equals(event.getCartId())) {
+                slots.compareAndSet(index, cached, null);
+            }
+        }
+    }
+
+    private int index(String cartId) {
+        int hash = cartId.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static final class SerializedCart {
+        private final String cartId;
+        private final long version;
+        private final byte[] body;
+    }
+}
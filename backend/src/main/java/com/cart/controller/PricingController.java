@@ -0,0 +1,29 @@
+package com.cart.controller;
+
+import com.cart.config.PricingProperties;
+import com.cart.model.dto.RepriceReport;
+import com.cart.service.PricingReloadService;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/pricing")
+@RequiredArgsConstructor
+public class PricingController {
+    private final PricingReloadService pricingReloadService;
+
+    /**
+     * Replaces the pricing config with the body, shaped like the {@code shopping}
+     * block of the application config, and reprices the affected live carts.
+     * The new config outlives a restart when {@code cart.reprice.pricingFile}
+     * is set. Answers 409 in cluster mode, where a reload would reach only
+     * this node.
+     */
+    @PutMapping
+    public ResponseEntity<RepriceReport> reloadPricing(@RequestBody PricingProperties pricingProperties) {
+        return ResponseEntity.ok(pricingReloadService.reload(pricingProperties));
+    }
+}
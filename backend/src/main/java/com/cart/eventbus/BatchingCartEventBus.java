@@ -0,0 +1,281 @@
+package com.cart.eventbus;
+
+import com.cart.config.CartEventBusProperties;
+import com.cart.model.event.CartEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * The transport-independent half of a {@link CartEventBus}. It keeps, per
+ * connected peer, the carts that peer subscribes to and a queue of events
+ * and interest changes bound for it. A flush runs one interval after the
+ * first queued item and sends each peer its backlog as
+ * {@link EventBatchCodec} batches, so a burst of events costs one frame.
+ * <p>
+ * Subclasses move frames: they report peers coming and going, pass on every
+ * frame a peer sends and implement {@link #send}.
+ */
+@Slf4j
+public abstract class BatchingCartEventBus implements CartEventBus, DisposableBean {
+    private static final Consumer<CartEvent> NO_RECEIVER = event -> { };
+
+    private final String localNodeId;
+    private final int maxBatchEvents;
+    private final int maxQueuedEvents;
+    private final long flushIntervalMs;
+    private final EventBatchCodec codec;
+    private final Map<String, Peer> peers = new ConcurrentHashMap<>();
+    // Carts with local subscribers; changes and peer arrivals are serialized so every peer sees them in order
+    private final Set<String> localInterest = ConcurrentHashMap.newKeySet();
+    private final Object interestLock = new Object();
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    // One flush at a time, so batches leave in the order their events were queued
+    private final Object flushLock = new Object();
+    private final Counter eventsSent;
+    private final Counter eventsReceived;
+    private final Counter eventsDropped;
+    private final Counter bytesSent;
+    private volatile Consumer<CartEvent> receiver = NO_RECEIVER;
+
+    protected BatchingCartEventBus(CartEventBusProperties properties, MeterRegistry meterRegistry) {
+        this.localNodeId = properties.getNodeId();
+        this.maxBatchEvents = properties.getMaxBatchEvents();
+        this.maxQueuedEvents = properties.getMaxQueuedEvents();
+        this.flushIntervalMs = properties.getFlushIntervalMs();
+        this.codec = new EventBatchCodec(properties.getCompressThresholdBytes());
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-bus-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.eventsSent = meterRegistry.counter("cart.bus.events", "direction", "sent");
+        this.eventsReceived = meterRegistry.counter("cart.bus.events", "direction", "received");
+        this.eventsDropped = meterRegistry.counter("cart.bus.events", "direction", "dropped");
+        this.bytesSent = meterRegistry.counter("cart.bus.bytes.sent");
+    }
+
+    @Override
+    public void publish(CartEvent event) {
+        for (Peer peer : peers.values()) {
+            if (peer.interest.contains(event.getCartId())) {
+                if (peer.offer(event)) {
+                    scheduleFlush();
+                } else {
+                    eventsDropped.increment();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(String cartId) {
+        synchronized (interestLock) {
+            if (localInterest.add(cartId)) {
+                announce(cartId, true);
+            }
+        }
+    }
+
+    @Override
+    public void unsubscribe(String cartId) {
+        synchronized (interestLock) {
+            if (localInterest.remove(cartId)) {
+                announce(cartId, false);
+            }
+        }
+    }
+
+    @Override
+    public void setReceiver(Consumer<CartEvent> receiver) {
+        this.receiver = receiver != null ? receiver : NO_RECEIVER;
+    }
+
+    public String localNodeId() {
+        return localNodeId;
+    }
+
+    public Set<String> connectedPeers() {
+        return Collections.unmodifiableSet(peers.keySet());
+    }
+
+    /**
+     * Whether the peer has told this instance it subscribes to the cart.
+     */
+    public boolean isPeerInterested(String peerId, String cartId) {
+        Peer peer = peers.get(peerId);
+        return peer != null && peer.interest.contains(cartId);
+    }
+
+    /**
+     * Sends every peer its backlog now.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            flushScheduled.set(false);
+            for (Peer peer : peers.values()) {
+                drainTo(peer);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        flusher.shutdownNow();
+        flush();
+    }
+
+    /**
+     * A connection to the peer is up. Everything it knew of this instance is
+     * reset, so it is sent the full local interest again.
+     */
+    protected final void peerConnected(String peerId) {
+        synchronized (interestLock) {
+            Peer peer = new Peer(peerId);
+            for (String cartId : localInterest) {
+                peer.interestChanged(cartId, true);
+            }
+            peers.put(peerId, peer);
+        }
+        scheduleFlush();
+        log.info("Event bus {} connected to {}", localNodeId, peerId);
+    }
+
+    protected final void peerDisconnected(String peerId) {
+        if (peers.remove(peerId) != null) {
+            log.info("Event bus {} lost {}", localNodeId, peerId);
+        }
+    }
+
+    /**
+     * Applies a frame the peer sent: its interest changes, then its events.
+     */
+    protected final void receive(String peerId, byte[] frame) {
+        Peer peer = peers.get(peerId);
+        if (peer == null) {
+            return;
+        }
+        EventBatchCodec.Batch batch = codec.decode(frame);
+        batch.interest.forEach((cartId, interested) -> {
+            if (interested) {
+                peer.interest.add(cartId);
+            } else {
+                peer.interest.remove(cartId);
+            }
+        });
+        Consumer<CartEvent> target = receiver;
+        for (CartEvent event : batch.events) {
+            try {
+                target.accept(event);
+            } catch (RuntimeException e) {
+                log.error("Failed to deliver cart event from {}", peerId, e);
+            }
+        }
+        eventsReceived.increment(batch.events.size());
+    }
+
+    /**
+     * Hands one encoded batch to the peer. Every peer is sent to from the one
+     * flush thread, so this must not block on a slow peer. Failures are
+     * reported by throwing; the batch is dropped, and the transport decides
+     * whether the peer is gone.
+     */
+    protected abstract void send(String peerId, byte[] frame) throws IOException;
+
+    private void announce(String cartId, boolean interested) {
+        for (Peer peer : peers.values()) {
+            peer.interestChanged(cartId, interested);
+        }
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                flusher.schedule(this::flush, flushIntervalMs, TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                // Shutting down; destroy() sends what is left
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    private void drainTo(Peer peer) {
+        Map<String, Boolean> interest = peer.drainInterest();
+        List<CartEvent> events = peer.drainEvents(maxBatchEvents);
+        while (!interest.isEmpty() || !events.isEmpty()) {
+            try {
+                byte[] frame = codec.encode(interest, events);
+                send(peer.id, frame);
+                eventsSent.increment(events.size());
+                bytesSent.increment(frame.length);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to send {} cart events to {}: {}", events.size(), peer.id, e.toString());
+                eventsDropped.increment(events.size());
+                return;
+            }
+            interest = Collections.emptyMap();
+            events = peer.drainEvents(maxBatchEvents);
+        }
+    }
+
+    private final class Peer {
+        private final String id;
+        private final Set<String> interest = ConcurrentHashMap.newKeySet();
+        private final ConcurrentLinkedQueue<CartEvent> events = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        // Latest change per cart since the last flush; guarded by this peer
+        private Map<String, Boolean> pendingInterest = new LinkedHashMap<>();
+
+        private Peer(String id) {
+            this.id = id;
+        }
+
+        boolean offer(CartEvent event) {
+            if (queued.incrementAndGet() > maxQueuedEvents) {
+                queued.decrementAndGet();
+                return false;
+            }
+            events.offer(event);
+            return true;
+        }
+
+        synchronized void interestChanged(String cartId, boolean interested) {
+            pendingInterest.put(cartId, interested);
+        }
+
+        synchronized Map<String, Boolean> drainInterest() {
+            Map<String, Boolean> drained = pendingInterest;
+            pendingInterest = new LinkedHashMap<>();
+            return drained;
+        }
+
+        List<CartEvent> drainEvents(int max) {
+            List<CartEvent> drained = new ArrayList<>(Math.min(max, queued.get()));
+            CartEvent event;
+            while (drained.size() < max && (event = events.poll()) != null) {
+                drained.add(event);
+            }
+            queued.addAndGet(-drained.size());
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.cart.eventbus;
+
+import com.cart.model.event.CartEvent;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries cart events between backend instances, so a subscriber connected
+ * to one instance sees changes made on another.
+ * <p>
+ * Routing is by interest: an instance announces the carts it has local
+ * subscribers for, and events are only sent to the instances that announced
+ * their cart. Events are never echoed back to the instance that published
+ * them; local delivery stays with the caller.
+ */
+public interface CartEventBus {
+
+    /**
+     * Sends a locally published event to every other instance interested in
+     * its cart. Must not block; may be called under the cart's lock.
+     */
+    void publish(CartEvent event);
+
+    /**
+     * Announces that this instance has subscribers for the cart.
+     */
+    void subscribe(String cartId);
+
+    /**
+     * Withdraws the interest announced by {@link #subscribe}.
+     */
+    void unsubscribe(String cartId);
+
+    /**
+     * Where events published by other instances are handed over. Called from
+     * the bus's own threads.
+     */
+    void setReceiver(Consumer<CartEvent> receiver);
+}
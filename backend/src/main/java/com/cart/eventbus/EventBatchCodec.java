@@ -0,0 +1,275 @@
+package com.cart.eventbus;
+
+import com.cart.model.domain.Money;
+import com.cart.model.event.CartEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes what one instance sends another per flush: changes to its cart
+ * interest and a run of events. Integers are unsigned LEB128 varints, totals
+ * are minor units, and strings are a varint of length + 1 (0 for null)
+ * followed by UTF-8. Bodies of at least the threshold are deflated; batches
+ * repeat cart ids and item names a lot and shrink well.
+ *
+ * <pre>
+ * batch: flags [rawLength] body                   flags bit 0: body is deflated, rawLength given
+ * body:  interestCount (cartId interested)* eventCount event*
+ * event: cartId type itemName quantity total version [lineCount (itemName quantity lineTotal)*]
+ * </pre>
+ *
+ * The lines are present for the event types that carry them; like a string
+ * length, their count is sent plus one, with 0 for an event without lines.
+ */
+final class EventBatchCodec {
+    static final int DEFLATED = 0x01;
+
+    private static final CartEvent.CartEventType[] TYPES = CartEvent.CartEventType.values();
+
+    private final int compressThreshold;
+
+    EventBatchCodec(int compressThreshold) {
+        this.compressThreshold = compressThreshold;
+    }
+
+    byte[] encode(Map<String, Boolean> interest, List<CartEvent> events) {
+        Writer body = new Writer(16 + interest.size() * 40 + events.size() * 64);
+        body.writeVarLong(interest.size());
+        interest.forEach((cartId, interested) -> {
+            body.writeString(cartId);
+            body.writeByte(interested ? 1 : 0);
+        });
+        body.writeVarLong(events.size());
+        for (CartEvent event : events) {
+            body.writeString(event.getCartId());
+            body.writeVarLong(event.getType().ordinal());
+            body.writeString(event.getItemName());
+            body.writeVarLong(event.getQuantity());
+            body.writeVarLong(Money.toCents(event.getTotal()));
+            body.writeVarLong(event.getVersion());
+            if (event.getType().carriesLines()) {
+                List<CartEvent.Line> lines = event.getLines();
+                body.writeVarLong(lines == null ? 0 : lines.size() + 1L);
+                if (lines != null) {
+                    for (CartEvent.Line line : lines) {
+                        body.writeString(line.getItemName());
+                        body.writeVarLong(line.getQuantity());
+                        body.writeVarLong(line.getLineTotalCents());
+                    }
+                }
+            }
+        }
+
+        if (body.position < compressThreshold) {
+            Writer out = new Writer(body.position + 1);
+            out.writeByte(0);
+            out.writeBytes(body.buffer, 0, body.position);
+            return out.toByteArray();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.position / 2 + 16);
+        Writer header = new Writer(11);
+        header.writeByte(DEFLATED);
+        header.writeVarLong(body.position);
+        out.write(header.buffer, 0, header.position);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(body.buffer, 0, body.position);
+            deflater.finish();
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(chunk);
+                out.write(chunk, 0, length);
+            }
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    Batch decode(byte[] frame) {
+        Reader in = new Reader(frame, 0, frame.length);
+        int flags = in.readByte();
+        if ((flags & DEFLATED) != 0) {
+            in = new Reader(inflate(frame, in), 0, -1);
+        }
+
+        int interestCount = in.readCount();
+        Map<String, Boolean> interest = new LinkedHashMap<>(interestCount * 2);
+        for (int i = 0; i < interestCount; i++) {
+            interest.put(in.readString(), in.readByte() != 0);
+        }
+        int eventCount = in.readCount();
+        List<CartEvent> events = new ArrayList<>(eventCount);
+        for (int i = 0; i < eventCount; i++) {
+            String cartId = in.readString();
+            int type = in.readCount();
+            if (type >= TYPES.length) {
+                throw new IllegalArgumentException("Unknown cart event type: " + type);
+            }
+            CartEvent event = new CartEvent(cartId, TYPES[type], in.readString(), in.readCount(),
+                                            Money.toAmount(in.readVarLong()), in.readVarLong());
+            int lineCount = event.getType().carriesLines() ? in.readCount() - 1 : -1;
+            if (lineCount >= 0) {
+                List<CartEvent.Line> lines = new ArrayList<>(Math.min(lineCount, 1024));
+                for (int l = 0; l < lineCount; l++) {
+                    lines.add(new CartEvent.Line(in.readString(), in.readCount(), in.readVarLong()));
+                }
+                event.setLines(lines);
+            }
+            events.add(event);
+        }
+        return new Batch(interest, events);
+    }
+
+    private static byte[] inflate(byte[] frame, Reader header) {
+        int rawLength = header.readCount();
+        byte[] body = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(frame, header.position, frame.length - header.position);
+            int length = 0;
+            while (length < rawLength) {
+                int read = inflater.inflate(body, length, rawLength - length);
+                if (read == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                length += read;
+            }
+            if (length != rawLength) {
+                throw new IllegalArgumentException("Truncated event batch");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt event batch", e);
+        } finally {
+            inflater.end();
+        }
+        return body;
+    }
+
+    /**
+     * A decoded batch: the sender's interest changes, one per cart, and its events in publication order.
+     */
+    static final class Batch {
+        final Map<String, Boolean> interest;
+        final List<CartEvent> events;
+
+        Batch(Map<String, Boolean> interest, List<CartEvent> events) {
+            this.interest = interest;
+            this.events = events;
+        }
+    }
+
+    private static final class Writer {
+        private byte[] buffer;
+        private int position;
+
+        Writer(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, offset, buffer, position, length);
+            position += length;
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length + 1L);
+            writeBytes(utf8, 0, utf8.length);
+        }
+
+        void writeVarLong(long value) {
+            if (value < 0) {
+                throw new IllegalArgumentException("Negative value in event batch: " + value);
+            }
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buffer;
+        private final int limit;
+        private int position;
+
+        Reader(byte[] buffer, int offset, int length) {
+            this.buffer = buffer;
+            this.position = offset;
+            this.limit = length < 0 ? buffer.length : offset + length;
+        }
+
+        int readByte() {
+            if (position >= limit) {
+                throw new IllegalArgumentException("Truncated event batch");
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in event batch");
+        }
+
+        int readCount() {
+            long value = readVarLong();
+            if (value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Count out of range in event batch: " + value);
+            }
+            return (int) value;
+        }
+
+        String readString() {
+            int length = readCount();
+            if (length == 0) {
+                return null;
+            }
+            length--;
+            if (length > limit - position) {
+                throw new IllegalArgumentException("Truncated event batch");
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
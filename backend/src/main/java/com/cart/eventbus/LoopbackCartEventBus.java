@@ -0,0 +1,74 @@
+package com.cart.eventbus;
+
+import com.cart.config.CartEventBusProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link CartEventBus} between instances in one JVM. Buses that share a
+ * {@link Hub} are each other's peers and exchange the same encoded batches
+ * the TCP bus sends, handed over by reference. The application's own bus
+ * gets a hub of its own, so a single instance publishes nowhere.
+ */
+@Component
+@ConditionalOnProperty(prefix = "cart.event-bus", name = "type", havingValue = "loopback", matchIfMissing = true)
+public class LoopbackCartEventBus extends BatchingCartEventBus {
+    private final Hub hub;
+
+    @Autowired
+    public LoopbackCartEventBus(CartEventBusProperties properties, MeterRegistry meterRegistry) {
+        this(new Hub(), properties, meterRegistry);
+    }
+
+    public LoopbackCartEventBus(Hub hub, CartEventBusProperties properties, MeterRegistry meterRegistry) {
+        super(properties, meterRegistry);
+        this.hub = hub;
+        hub.join(this);
+    }
+
+    @Override
+    protected void send(String peerId, byte[] frame) throws IOException {
+        LoopbackCartEventBus peer = hub.members.get(peerId);
+        if (peer == null) {
+            throw new IOException("No bus " + peerId + " on the hub");
+        }
+        peer.receive(localNodeId(), frame);
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        hub.leave(this);
+    }
+
+    /**
+     * The buses that see each other's events, keyed by node id.
+     */
+    public static final class Hub {
+        private final Map<String, LoopbackCartEventBus> members = new ConcurrentHashMap<>();
+
+        private synchronized void join(LoopbackCartEventBus bus) {
+            if (members.putIfAbsent(bus.localNodeId(), bus) != null) {
+                throw new IllegalArgumentException("Node " + bus.localNodeId() + " is already on the hub");
+            }
+            members.forEach((nodeId, member) -> {
+                if (member != bus) {
+                    member.peerConnected(bus.localNodeId());
+                    bus.peerConnected(nodeId);
+                }
+            });
+        }
+
+        private synchronized void leave(LoopbackCartEventBus bus) {
+            if (members.remove(bus.localNodeId(), bus)) {
+                members.values().forEach(member -> member.peerDisconnected(bus.localNodeId()));
+            }
+        }
+    }
+}
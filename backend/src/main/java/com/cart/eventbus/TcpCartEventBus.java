@@ -0,0 +1,300 @@
+package com.cart.eventbus;
+
+import com.cart.config.CartEventBusProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CartEventBus} over direct TCP connections between the configured
+ * members; no broker is involved. Each pair of members shares one
+ * connection, dialed by the member whose id sorts first and kept up by
+ * redialing. Frames are a 4-byte length and a payload: the dialer's node id
+ * first, {@link EventBatchCodec} batches from then on in both directions.
+ * <p>
+ * The bus listens on, and dials from, the host configured for this member,
+ * and only accepts a member's connection from that member's host. Each
+ * connection has its own writer thread, so a peer that stops reading holds
+ * up only its own batches; once {@code maxQueuedFrames} are waiting it is
+ * disconnected.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "cart.event-bus", name = "type", havingValue = "tcp")
+public class TcpCartEventBus extends BatchingCartEventBus {
+    private static final int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+    // Queued behind a connection's last batch to stop its writer
+    private static final byte[] END_OF_STREAM = new byte[0];
+
+    private final Map<String, InetSocketAddress> members = new LinkedHashMap<>();
+    private final Set<InetAddress> memberHosts = new HashSet<>();
+    private final Map<String, Connection> connections = new ConcurrentHashMap<>();
+    private final InetAddress localHost;
+    private final int connectTimeoutMs;
+    private final int maxQueuedFrames;
+    private final ServerSocket server;
+    private final Thread acceptor;
+    private final ScheduledExecutorService dialer;
+    private volatile boolean running = true;
+
+    @Autowired
+    public TcpCartEventBus(CartEventBusProperties properties, MeterRegistry meterRegistry) {
+        super(properties, meterRegistry);
+        properties.getMembers().forEach((nodeId, address) -> members.put(nodeId, parseAddress(address)));
+        InetSocketAddress local = members.get(localNodeId());
+        if (local == null) {
+            throw new IllegalArgumentException("cart.eventBus.nodeId must name one of " + members.keySet());
+        }
+        if (local.isUnresolved()) {
+            throw new IllegalArgumentException("Cannot resolve event bus host " + local.getHostString());
+        }
+        members.values().forEach(address -> {
+            if (!address.isUnresolved()) {
+                memberHosts.add(address.getAddress());
+            }
+        });
+        this.localHost = local.getAddress();
+        this.connectTimeoutMs = properties.getConnectTimeoutMs();
+        this.maxQueuedFrames = Math.max(1, properties.getMaxQueuedFrames());
+        try {
+            this.server = new ServerSocket(local.getPort(), 50, localHost);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot listen for event bus peers on " + local, e);
+        }
+        this.acceptor = new Thread(this::accept, "cart-bus-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        this.dialer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-bus-dial");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dialer.scheduleWithFixedDelay(this::dialMissing, 0, properties.getReconnectIntervalMs(),
+                                      TimeUnit.MILLISECONDS);
+        log.info("Event bus {} listening on {} for {}", localNodeId(), server.getLocalSocketAddress(),
+                 members.keySet());
+    }
+
+    @Override
+    protected void send(String peerId, byte[] frame) throws IOException {
+        Connection connection = connections.get(peerId);
+        if (connection == null) {
+            throw new IOException("Not connected to " + peerId);
+        }
+        if (!connection.outbound.offer(frame)) {
+            disconnect(connection);
+            throw new IOException(peerId + " fell " + maxQueuedFrames + " batches behind; disconnected");
+        }
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        running = false;
+        dialer.shutdownNow();
+        closeQuietly(server);
+        // Let each writer send what the final flush queued, but not wait on a peer that stopped reading
+        connections.values().forEach(connection -> connection.outbound.offer(END_OF_STREAM));
+        for (Connection connection : connections.values()) {
+            try {
+                connection.writer.join(connectTimeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            disconnect(connection);
+        }
+    }
+
+    private void dialMissing() {
+        members.forEach((nodeId, address) -> {
+            // The member whose id sorts first dials, so a pair never holds two connections
+            if (!running || localNodeId().compareTo(nodeId) >= 0 || connections.containsKey(nodeId)) {
+                return;
+            }
+            Socket socket = new Socket();
+            try {
+                // From this member's own host, which is what the peer checks
+                socket.bind(new InetSocketAddress(localHost, 0));
+                socket.connect(address, connectTimeoutMs);
+                if (socket.getLocalSocketAddress().equals(socket.getRemoteSocketAddress())) {
+                    // A TCP self-connect: the ephemeral port picked was the absent peer's
+                    throw new IOException("Connected to itself");
+                }
+                Connection connection = new Connection(nodeId, socket);
+                connection.writeFrame(localNodeId().getBytes(StandardCharsets.UTF_8));
+                register(connection);
+            } catch (IOException e) {
+                log.debug("Event bus peer {} at {} is not reachable: {}", nodeId, address, e.toString());
+                closeQuietly(socket);
+            }
+        });
+    }
+
+    private void accept() {
+        while (running) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Event bus stopped accepting peers", e);
+                }
+                return;
+            }
+            try {
+                // Nothing is read from a host that is not a member
+                if (!memberHosts.contains(socket.getInetAddress())) {
+                    throw new IOException("Not a member host");
+                }
+                socket.setSoTimeout(connectTimeoutMs);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                String nodeId = new String(readFrame(in), StandardCharsets.UTF_8);
+                InetSocketAddress member = members.get(nodeId);
+                if (member == null || nodeId.equals(localNodeId())) {
+                    throw new IOException("Unknown event bus member " + nodeId);
+                }
+                if (!socket.getInetAddress().equals(member.getAddress())) {
+                    throw new IOException("Member " + nodeId + " is configured at " + member.getHostString());
+                }
+                socket.setSoTimeout(0);
+                register(new Connection(nodeId, socket, in));
+            } catch (IOException e) {
+                log.warn("Rejected event bus connection from {}: {}", socket.getRemoteSocketAddress(), e.toString());
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    private void register(Connection connection) throws IOException {
+        connection.socket.setTcpNoDelay(true);
+        Connection previous = connections.put(connection.peerId, connection);
+        if (previous != null) {
+            // The peer restarted; its old connection is dead or about to be
+            closeQuietly(previous.socket);
+        }
+        peerConnected(connection.peerId);
+        Thread reader = new Thread(() -> read(connection), "cart-bus-read-" + connection.peerId);
+        reader.setDaemon(true);
+        reader.start();
+        connection.writer.start();
+    }
+
+    private void read(Connection connection) {
+        try {
+            while (running) {
+                receive(connection.peerId, readFrame(connection.in));
+            }
+        } catch (IOException | RuntimeException e) {
+            if (running) {
+                log.debug("Event bus connection to {} closed: {}", connection.peerId, e.toString());
+            }
+        } finally {
+            disconnect(connection);
+        }
+    }
+
+    private void write(Connection connection) {
+        try {
+            byte[] frame;
+            while ((frame = connection.outbound.take()) != END_OF_STREAM) {
+                connection.writeFrame(frame);
+            }
+        } catch (IOException e) {
+            log.debug("Event bus connection to {} failed: {}", connection.peerId, e.toString());
+            disconnect(connection);
+        } catch (InterruptedException e) {
+            // Disconnected; the socket is already closed
+        }
+    }
+
+    private void disconnect(Connection connection) {
+        closeQuietly(connection.socket);
+        if (Thread.currentThread() != connection.writer) {
+            connection.writer.interrupt();
+        }
+        if (connections.remove(connection.peerId, connection)) {
+            peerDisconnected(connection.peerId);
+        }
+    }
+
+    private static byte[] readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_FRAME_BYTES) {
+            throw new IOException("Bad event bus frame length " + length);
+        }
+        byte[] frame = new byte[length];
+        in.readFully(frame);
+        return frame;
+    }
+
+    private static InetSocketAddress parseAddress(String address) {
+        int colon = address.lastIndexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Event bus member address must be host:port, was " + address);
+        }
+        return new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            log.debug("Error closing event bus socket", e);
+        }
+    }
+
+    private final class Connection {
+        private final String peerId;
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final BlockingQueue<byte[]> outbound = new ArrayBlockingQueue<>(maxQueuedFrames);
+        private final Thread writer;
+
+        private Connection(String peerId, Socket socket) throws IOException {
+            this(peerId, socket, new DataInputStream(new BufferedInputStream(socket.getInputStream())));
+        }
+
+        private Connection(String peerId, Socket socket, DataInputStream in) throws IOException {
+            this.peerId = peerId;
+            this.socket = socket;
+            this.in = in;
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            this.writer = new Thread(() -> write(this), "cart-bus-write-" + peerId);
+            writer.setDaemon(true);
+        }
+
+        /**
+         * Called by the dialer for the handshake, then only by the writer thread.
+         */
+        void writeFrame(byte[] frame) throws IOException {
+            out.writeInt(frame.length);
+            out.write(frame);
+            out.flush();
+        }
+    }
+}
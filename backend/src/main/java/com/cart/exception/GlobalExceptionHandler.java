@@ -7,6 +7,8 @@ import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
@@ -25,20 +27,22 @@ public class GlobalExceptionHandler {
         );
     }
 
-    @ExceptionHandler(VersionConflictException.class)
-    public ResponseEntity<ErrorResponse> handleVersionConflict(VersionConflictException ex) {
-        log.error("Version conflict: {}", ex.getMessage());
+    @ExceptionHandler({IllegalArgumentException.class})
+    public ResponseEntity<ErrorResponse> handleIllegalArgument(IllegalArgumentException ex) {
+        log.error("Validation error: {}", ex.getMessage());
         return new ResponseEntity<>(
             new ErrorResponse(ex.getMessage()),
-            HttpStatus.CONFLICT
+            HttpStatus.BAD_REQUEST
         );
     }
 
-    @ExceptionHandler({IllegalArgumentException.class})
-    public ResponseEntity<ErrorResponse> handleIllegalArgument(IllegalArgumentException ex) {
-        log.error("Validation error: {}", ex.getMessage());
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidRequest(MethodArgumentNotValidException ex) {
+        FieldError error = ex.getBindingResult().getFieldError();
+        String message = error != null ? error.getDefaultMessage() : "Invalid request";
+        log.error("Validation error: {}", message);
         return new ResponseEntity<>(
-            new ErrorResponse(ex.getMessage()),
+            new ErrorResponse(message),
             HttpStatus.BAD_REQUEST
         );
     }
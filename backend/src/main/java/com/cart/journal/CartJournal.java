@@ -0,0 +1,47 @@
+package com.cart.journal;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Append-only log of cart mutations. The implementation is chosen with
+ * {@code cart.journal.enabled}.
+ */
+public interface CartJournal {
+
+    /**
+     * Appends an entry and returns the journal position just past it.
+     */
+    long append(JournalEntry entry);
+
+    /**
+     * Position just past the last appended entry.
+     */
+    long position();
+
+    /**
+     * Blocks until everything up to {@code position} is durable under the
+     * configured durability mode. Returns immediately for modes that do not wait.
+     */
+    void awaitDurable(long position);
+
+    /**
+     * Non-blocking form of {@link #awaitDurable}: the future completes once
+     * everything up to {@code position} is durable. Stages chained onto it must
+     * not run on a thread that flushes. The default waits on the calling thread.
+     */
+    default CompletableFuture<Void> whenDurable(long position) {
+        awaitDurable(position);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Starts a new segment and returns its index. Every entry appended before
+     * the call lies in an earlier segment.
+     */
+    long rollSegment();
+
+    /**
+     * Deletes the segments before {@code segmentIndex}, once a snapshot covers them.
+     */
+    void deleteSegmentsBefore(long segmentIndex);
+}
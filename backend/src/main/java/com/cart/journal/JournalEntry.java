@@ -0,0 +1,86 @@
+package com.cart.journal;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One journaled cart mutation. Entries carry resulting state rather than
+ * deltas, so replaying an entry twice gives the same cart.
+ */
+@Data
+@AllArgsConstructor
+public class JournalEntry {
+    private Type type;
+    private String cartId;
+    private String itemName;
+    /**
+     * Line quantity after an ADD.
+     */
+    private int quantity;
+    /**
+     * Line total in minor units after an ADD.
+     */
+    private long lineTotalCents;
+    /**
+     * Cart version after the mutation.
+     */
+    private long version;
+    /**
+     * Every line of the cart after a SYNC; empty for other types.
+     */
+    private List<Line> lines;
+    /**
+     * Client operation ids the mutation applied, so recovery can rebuild the
+     * cart's sync dedup window along with its lines.
+     */
+    private List<String> operationIds;
+
+    public enum Type {
+        CREATE,
+        ADD,
+        REMOVE,
+        CLEAR,
+        DELETE,
+        /**
+         * The whole line set after an offline sync batch, replacing the cart's lines.
+         */
+        SYNC
+    }
+
+    /**
+     * One line of a SYNC entry.
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Line {
+        private String itemName;
+        private int quantity;
+        private long lineTotalCents;
+    }
+
+    public static JournalEntry create(String cartId, long version) {
+        return new JournalEntry(Type.CREATE, cartId, null, 0, 0L, version, List.of(), List.of());
+    }
+
+    public static JournalEntry add(String cartId, String itemName, int quantity, long lineTotalCents, long version) {
+        return new JournalEntry(Type.ADD, cartId, itemName, quantity, lineTotalCents, version, List.of(), List.of());
+    }
+
+    public static JournalEntry remove(String cartId, String itemName, long version) {
+        return new JournalEntry(Type.REMOVE, cartId, itemName, 0, 0L, version, List.of(), List.of());
+    }
+
+    public static JournalEntry clear(String cartId, long version) {
+        return new JournalEntry(Type.CLEAR, cartId, null, 0, 0L, version, List.of(), List.of());
+    }
+
+    public static JournalEntry delete(String cartId) {
+        return new JournalEntry(Type.DELETE, cartId, null, 0, 0L, 0L, List.of(), List.of());
+    }
+
+    public static JournalEntry sync(String cartId, List<Line> lines, List<String> operationIds, long version) {
+        return new JournalEntry(Type.SYNC, cartId, null, 0, 0L, version, lines, operationIds);
+    }
+}
@@ -0,0 +1,156 @@
+package com.cart.journal;
+
+import com.cart.exception.CartException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk record layout:
+ * <pre>
+ * int payloadLength, int crc32(payload),
+ * payload: byte type, long version, int quantity, long lineTotalCents,
+ *          ushort cartIdLength, cartId, ushort itemLength (0xFFFF for none), item
+ *          [int lineCount, (ushort itemLength, item, int quantity, long lineTotalCents)*,
+ *           int operationCount, (ushort operationIdLength, operationId)*]
+ * </pre>
+ * The bracketed trailer is only written when an entry has lines or operation
+ * ids, so older records decode unchanged. Segments are zero-filled, so a zero
+ * length marks the end of the written data. String lengths are unsigned;
+ * {@link #encode} rejects a string that does not fit rather than write a
+ * record that cannot be replayed.
+ */
+final class JournalFormat {
+    static final int HEADER_BYTES = 2 * Integer.BYTES;
+    static final int MAX_STRING_BYTES = 0xFFFE;
+    private static final int NO_STRING = 0xFFFF;
+    private static final JournalEntry.Type[] TYPES = JournalEntry.Type.values();
+
+    private JournalFormat() {
+    }
+
+    static byte[] encode(JournalEntry entry) {
+        byte[] cartId = utf8(entry.getCartId());
+        byte[] item = entry.getItemName() != null ? utf8(entry.getItemName()) : null;
+        boolean trailer = !entry.getLines().isEmpty() || !entry.getOperationIds().isEmpty();
+        byte[][] lineItems = new byte[entry.getLines().size()][];
+        byte[][] operationIds = new byte[entry.getOperationIds().size()][];
+        int payloadLength = 1 + Long.BYTES + Integer.BYTES + Long.BYTES
+            + Short.BYTES + cartId.length + Short.BYTES + (item != null ? item.length : 0);
+        if (trailer) {
+            payloadLength += 2 * Integer.BYTES;
+            for (int i = 0; i < lineItems.length; i++) {
+                lineItems[i] = utf8(entry.getLines().get(i).getItemName());
+                payloadLength += Short.BYTES + lineItems[i].length + Integer.BYTES + Long.BYTES;
+            }
+            for (int i = 0; i < operationIds.length; i++) {
+                operationIds[i] = utf8(entry.getOperationIds().get(i));
+                payloadLength += Short.BYTES + operationIds[i].length;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payloadLength);
+        buffer.putInt(payloadLength);
+        buffer.putInt(0);
+        buffer.put((byte) entry.getType().ordinal());
+        buffer.putLong(entry.getVersion());
+        buffer.putInt(entry.getQuantity());
+        buffer.putLong(entry.getLineTotalCents());
+        buffer.putShort((short) cartId.length);
+        buffer.put(cartId);
+        buffer.putShort((short) (item != null ? item.length : NO_STRING));
+        if (item != null) {
+            buffer.put(item);
+        }
+        if (trailer) {
+            buffer.putInt(lineItems.length);
+            for (int i = 0; i < lineItems.length; i++) {
+                JournalEntry.Line line = entry.getLines().get(i);
+                buffer.putShort((short) lineItems[i].length);
+                buffer.put(lineItems[i]);
+                buffer.putInt(line.getQuantity());
+                buffer.putLong(line.getLineTotalCents());
+            }
+            buffer.putInt(operationIds.length);
+            for (byte[] operationId : operationIds) {
+                buffer.putShort((short) operationId.length);
+                buffer.put(operationId);
+            }
+        }
+
+        byte[] record = buffer.array();
+        buffer.putInt(Integer.BYTES, crc(record, HEADER_BYTES, payloadLength));
+        return record;
+    }
+
+    /**
+     * Decodes the record at the buffer's position and advances past it. Returns
+     * {@code null}, leaving the position unchanged, at the end of the data or at
+     * a torn or corrupt record.
+     */
+    static JournalEntry decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < HEADER_BYTES) {
+            return null;
+        }
+        int payloadLength = buffer.getInt(start);
+        if (payloadLength <= 0 || payloadLength > buffer.remaining() - HEADER_BYTES) {
+            return null;
+        }
+        byte[] payload = new byte[payloadLength];
+        ((ByteBuffer) buffer.duplicate().position(start + HEADER_BYTES)).get(payload);
+        if (crc(payload, 0, payloadLength) != buffer.getInt(start + Integer.BYTES)) {
+            return null;
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(payload);
+        JournalEntry.Type type = TYPES[in.get()];
+        long version = in.getLong();
+        int quantity = in.getInt();
+        long lineTotalCents = in.getLong();
+        String cartId = readString(in, Short.toUnsignedInt(in.getShort()));
+        int itemLength = Short.toUnsignedInt(in.getShort());
+        String itemName = itemLength != NO_STRING ? readString(in, itemLength) : null;
+        List<JournalEntry.Line> lines = List.of();
+        List<String> operationIds = List.of();
+        if (in.hasRemaining()) {
+            int lineCount = in.getInt();
+            lines = new ArrayList<>(lineCount);
+            for (int i = 0; i < lineCount; i++) {
+                lines.add(new JournalEntry.Line(readString(in, Short.toUnsignedInt(in.getShort())), in.getInt(),
+                                                in.getLong()));
+            }
+            int operationCount = in.getInt();
+            operationIds = new ArrayList<>(operationCount);
+            for (int i = 0; i < operationCount; i++) {
+                operationIds.add(readString(in, Short.toUnsignedInt(in.getShort())));
+            }
+        }
+
+        buffer.position(start + HEADER_BYTES + payloadLength);
+        return new JournalEntry(type, cartId, itemName, quantity, lineTotalCents, version, lines, operationIds);
+    }
+
+    private static byte[] utf8(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new CartException("Journal entry field exceeds " + MAX_STRING_BYTES + " bytes");
+        }
+        return bytes;
+    }
+
+    private static String readString(ByteBuffer in, int length) {
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+}
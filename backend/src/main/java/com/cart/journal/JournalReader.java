@@ -0,0 +1,84 @@
+package com.cart.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads journal segments back in append order.
+ */
+public final class JournalReader {
+    static final String SEGMENT_PREFIX = "journal-";
+    static final String SEGMENT_SUFFIX = ".log";
+
+    private JournalReader() {
+    }
+
+    /**
+     * Hands every intact entry to {@code consumer}, oldest first, stopping each
+     * segment at its end of data or at a torn record. Returns the entry count.
+     */
+    public static long replay(Path directory, Consumer<JournalEntry> consumer) {
+        return replay(directory, 0L, consumer);
+    }
+
+    /**
+     * Replays only the segments from {@code fromSegment} on.
+     */
+    public static long replay(Path directory, long fromSegment, Consumer<JournalEntry> consumer) {
+        long count = 0;
+        for (Path segment : segments(directory)) {
+            if (segmentIndex(segment) < fromSegment) {
+                continue;
+            }
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                JournalEntry entry;
+                while ((entry = JournalFormat.decode(buffer)) != null) {
+                    consumer.accept(entry);
+                    count++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read journal segment " + segment, e);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Segment files in the directory, oldest first.
+     */
+    static List<Path> segments(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                            String name = path.getFileName().toString();
+                            return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                        })
+                        .sorted()
+                        .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list journal directory " + directory, e);
+        }
+    }
+
+    static long segmentIndex(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    static Path segmentPath(Path directory, long index) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+}
@@ -0,0 +1,362 @@
+package com.cart.journal;
+
+import com.cart.config.CartJournalProperties;
+import com.cart.config.CartJournalProperties.Durability;
+import com.cart.exception.CartException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Journal backed by fixed-size, memory-mapped segment files. An append encodes
+ * the entry outside the lock and only copies bytes into the mapping under it,
+ * so the request thread never makes a system call.
+ * <p>
+ * Flushing is a group commit: a single flusher thread forces the mapping and
+ * everything appended before the force becomes durable together. In
+ * {@link Durability#SYNC} mode callers wake the flusher and wait for it;
+ * in {@link Durability#INTERVAL} mode it runs on a timer; in
+ * {@link Durability#ASYNC} mode the page cache is left to write back on its own.
+ * <p>
+ * Futures from {@link #whenDurable} are completed on a small pool of their
+ * own: whatever a waiter chained onto its future runs there, not on the
+ * flusher, which would otherwise serialize every request's response behind
+ * the next force.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "cart.journal", name = "enabled", havingValue = "true")
+public class MappedCartJournal implements CartJournal, DisposableBean {
+    private final Path directory;
+    private final int segmentSize;
+    private final Durability durability;
+    private final long flushIntervalNanos;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Object durableMonitor = new Object();
+    // Futures from whenDurable, ordered by position; guarded by durableMonitor
+    private final PriorityQueue<PendingDurable> pendingDurable = new PriorityQueue<>();
+    private final Thread flusher;
+    private final ExecutorService completer;
+    private volatile boolean running = true;
+    private Timer flushTimer;
+
+    private volatile MappedByteBuffer segment;
+    private long segmentIndex;
+    private int offset;
+    private volatile long written;
+    private volatile long durable;
+
+    public MappedCartJournal(CartJournalProperties properties) {
+        this.directory = Paths.get(properties.getDirectory());
+        this.segmentSize = properties.getSegmentSizeBytes();
+        this.durability = properties.getDurability();
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, properties.getFlushIntervalMs()));
+        recover();
+
+        if (durability != Durability.ASYNC) {
+            flusher = new Thread(this::flushLoop, "cart-journal-flush");
+            flusher.setDaemon(true);
+            flusher.start();
+        } else {
+            flusher = null;
+        }
+        if (durability == Durability.SYNC) {
+            AtomicInteger counter = new AtomicInteger();
+            completer = Executors.newFixedThreadPool(Math.max(1, properties.getCompletionThreads()), runnable -> {
+                Thread thread = new Thread(runnable, "cart-journal-complete-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            completer = null;
+        }
+    }
+
+    @Autowired
+    public MappedCartJournal(CartJournalProperties properties, MeterRegistry meterRegistry) {
+        this(properties);
+        this.flushTimer = Timer.builder("cart.journal.flush.latency")
+                               .description("Time spent forcing journal pages to disk")
+                               .register(meterRegistry);
+        meterRegistry.gauge("cart.journal.unflushed.bytes", List.of(), this, j -> j.written - j.durable);
+    }
+
+    @Override
+    public long append(JournalEntry entry) {
+        byte[] record = JournalFormat.encode(entry);
+        if (record.length >= segmentSize) {
+            throw new CartException("Journal entry exceeds segment size", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+
+        long position;
+        appendLock.lock();
+        try {
+            if (offset + record.length >= segment.capacity()) {
+                rotate();
+            }
+            segment.position(offset);
+            segment.put(record);
+            offset += record.length;
+            position = written + record.length;
+            written = position;
+        } finally {
+            appendLock.unlock();
+        }
+
+        if (durability == Durability.SYNC) {
+            LockSupport.unpark(flusher);
+        }
+        return position;
+    }
+
+    @Override
+    public long position() {
+        return written;
+    }
+
+    @Override
+    public void awaitDurable(long position) {
+        if (durability != Durability.SYNC || durable >= position) {
+            return;
+        }
+        LockSupport.unpark(flusher);
+        synchronized (durableMonitor) {
+            while (durable < position && running) {
+                try {
+                    durableMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CartException("Interrupted waiting for journal flush", HttpStatus.SERVICE_UNAVAILABLE);
+                }
+            }
+        }
+    }
+
+    /**
+     * Completes once the group commit covering {@code position} has forced
+     * the mapping, on one of the {@code cart-journal-complete-N} threads
+     * rather than the flusher, so work chained onto the future does not
+     * delay the next force.
+     */
+    @Override
+    public CompletableFuture<Void> whenDurable(long position) {
+        if (durability != Durability.SYNC || durable >= position) {
+            return CompletableFuture.completedFuture(null);
+        }
+        PendingDurable pending = new PendingDurable(position);
+        synchronized (durableMonitor) {
+            if (durable >= position || !running) {
+                return CompletableFuture.completedFuture(null);
+            }
+            pendingDurable.add(pending);
+        }
+        LockSupport.unpark(flusher);
+        return pending.future;
+    }
+
+    @Override
+    public long rollSegment() {
+        appendLock.lock();
+        try {
+            rotate();
+            return segmentIndex;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @Override
+    public void deleteSegmentsBefore(long index) {
+        for (Path path : JournalReader.segments(directory)) {
+            if (JournalReader.segmentIndex(path) >= index) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(path);
+                log.debug("Deleted compacted journal segment {}", path.getFileName());
+            } catch (IOException e) {
+                log.warn("Failed to delete journal segment {}", path, e);
+            }
+        }
+    }
+
+    /**
+     * Forces everything appended so far. Reading the target before the segment
+     * is safe: a rotation in between has already forced the older segment.
+     */
+    void flush() {
+        long target = written;
+        if (target <= durable) {
+            return;
+        }
+        long start = System.nanoTime();
+        segment.force();
+        if (flushTimer != null) {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        List<PendingDurable> completed;
+        synchronized (durableMonitor) {
+            if (target > durable) {
+                durable = target;
+            }
+            durableMonitor.notifyAll();
+            completed = takeDurable(durable);
+        }
+        completed.forEach(pending -> pending.future.completeAsync(() -> null, completer));
+    }
+
+    private List<PendingDurable> takeDurable(long position) {
+        List<PendingDurable> completed = new ArrayList<>();
+        while (!pendingDurable.isEmpty() && pendingDurable.peek().position <= position) {
+            completed.add(pendingDurable.poll());
+        }
+        return completed;
+    }
+
+    private void flushLoop() {
+        while (running) {
+            if (durability == Durability.SYNC) {
+                if (durable >= written) {
+                    LockSupport.park(this);
+                }
+            } else {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Journal flush failed", e);
+            }
+        }
+    }
+
+    /**
+     * Opens the newest segment and positions the append offset after its last
+     * intact record, zeroing a record torn by a crash so it cannot be misread later.
+     */
+    private void recover() {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create journal directory " + directory, e);
+        }
+        List<Path> segments = JournalReader.segments(directory);
+        if (segments.isEmpty()) {
+            segmentIndex = 0;
+            segment = map(JournalReader.segmentPath(directory, segmentIndex));
+            offset = 0;
+            return;
+        }
+
+        Path last = segments.get(segments.size() - 1);
+        segmentIndex = JournalReader.segmentIndex(last);
+        segment = map(last);
+        ByteBuffer scan = segment.duplicate();
+        scan.position(0);
+        while (JournalFormat.decode(scan) != null) {
+            // advance to the end of the intact records
+        }
+        offset = scan.position();
+
+        if (segment.capacity() - offset >= Integer.BYTES) {
+            int tornLength = segment.getInt(offset);
+            if (tornLength != 0) {
+                int end = tornLength > 0
+                    ? (int) Math.min(segment.capacity(), (long) offset + JournalFormat.HEADER_BYTES + tornLength)
+                    : segment.capacity();
+                for (int i = offset; i < end; i++) {
+                    segment.put(i, (byte) 0);
+                }
+                segment.force();
+                log.warn("Discarded torn journal record at {}:{}", last.getFileName(), offset);
+            }
+        }
+        log.info("Journal opened at segment {} offset {}", segmentIndex, offset);
+    }
+
+    private void rotate() {
+        segment.force();
+        segmentIndex++;
+        segment = map(JournalReader.segmentPath(directory, segmentIndex));
+        offset = 0;
+    }
+
+    private MappedByteBuffer map(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = Math.max(channel.size(), segmentSize);
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map journal segment " + path, e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        appendLock.lock();
+        try {
+            segment.force();
+            durable = written;
+        } finally {
+            appendLock.unlock();
+        }
+        List<PendingDurable> completed;
+        synchronized (durableMonitor) {
+            durableMonitor.notifyAll();
+            completed = takeDurable(Long.MAX_VALUE);
+        }
+        completed.forEach(pending -> pending.future.complete(null));
+        if (completer != null) {
+            completer.shutdown();
+        }
+    }
+
+    private static final class PendingDurable implements Comparable<PendingDurable> {
+        private final long position;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingDurable(long position) {
+            this.position = position;
+        }
+
+        @Override
+        public int compareTo(PendingDurable other) {
+            return Long.compare(position, other.position);
+        }
+    }
+}
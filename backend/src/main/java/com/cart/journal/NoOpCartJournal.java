@@ -0,0 +1,35 @@
+package com.cart.journal;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Journal used when journaling is disabled; carts live only in the store.
+ */
+@Component
+@ConditionalOnProperty(prefix = "cart.journal", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class NoOpCartJournal implements CartJournal {
+
+    @Override
+    public long append(JournalEntry entry) {
+        return 0L;
+    }
+
+    @Override
+    public long position() {
+        return 0L;
+    }
+
+    @Override
+    public void awaitDurable(long position) {
+    }
+
+    @Override
+    public long rollSegment() {
+        return 0L;
+    }
+
+    @Override
+    public void deleteSegmentsBefore(long segmentIndex) {
+    }
+}
@@ -1,54 +1,263 @@
 package com.cart.model.domain;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import java.math.BigDecimal;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
 
+/**
+ * Mutations are expected to run under the cart's {@code CartExecutor}. Lines
+ * live in one packed {@code long[]} that is replaced on every change, so an
+ * unlocked reader always sees a consistent set of lines.
+ * <p>
+ * The running total is adjusted by the delta of each line that changes, so
+ * lines are only modified through {@link #putLine}, {@link #removeLine} and
+ * {@link #clearLines}; {@link #getItems} is a read-only snapshot.
+ */
 @Data
 public class Cart {
+    private static final long[] NO_LINES = new long[0];
+
     private final String id;
-    private Map<String, CartItem> items;
-    private BigDecimal total;
-    private long version;
+    // Pairs of (itemId << 32 | quantity, line total in minor units), sorted by item id
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile long[] lines;
+    @Setter(AccessLevel.NONE)
+    private volatile long totalCents;
+    private volatile long version;
+
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private OperationWindow recentOperations;
 
     public Cart() {
         this.id = UUID.randomUUID().toString();
-        this.items = new HashMap<>();
-        this.total = BigDecimal.ZERO;
+        this.lines = NO_LINES;
+        this.totalCents = 0L;
         this.version = 1L;
     }
 
+    /**
+     * Empty cart with a known id, for rebuilding carts from the journal or
+     * creating one under an id chosen by the cluster router.
+     */
+    public Cart(String id) {
+        this(id, NO_LINES, 0L, 1L, null);
+    }
+
+    /**
+     * Rebuilds a cart from stored state; {@code lines} is taken as-is.
+     */
+    Cart(String id, long[] lines, long totalCents, long version, OperationWindow recentOperations) {
+        this.id = id;
+        this.lines = lines;
+        this.totalCents = totalCents;
+        this.version = version;
+        this.recentOperations = recentOperations;
+    }
+
+    /**
+     * Builds a name-keyed view of the lines, naming and pricing items through
+     * {@code itemIds}. Allocates; meant for responses and tests rather than the
+     * mutation path.
+     */
+    public Map<String, CartItem> getItems(ItemIds itemIds) {
+        long[] snapshot = lines;
+        Map<String, CartItem> items = new LinkedHashMap<>();
+        for (int i = 0; i < snapshot.length; i += 2) {
+            int itemId = itemIdAt(snapshot, i);
+            String name = itemIds.name(itemId);
+            items.put(name, new CartItem(name, quantityAt(snapshot, i), itemIds.unitPrice(itemId), snapshot[i + 1]));
+        }
+        return Collections.unmodifiableMap(items);
+    }
+
+    /**
+     * Visits one consistent snapshot of the lines in item id order without
+     * allocating, for serializers that write lines straight to the output.
+     */
+    public <E extends Exception> void forEachLine(LineVisitor<E> visitor) throws E {
+        long[] snapshot = lines;
+        for (int i = 0; i < snapshot.length; i += 2) {
+            visitor.visit(itemIdAt(snapshot, i), quantityAt(snapshot, i), snapshot[i + 1]);
+        }
+    }
+
+    public int lineCount() {
+        return lines.length / 2;
+    }
+
+    long[] packedLines() {
+        return lines;
+    }
+
+    /**
+     * A detached copy of the cart's state, for putting it back with {@link #restore}.
+     */
+    public Cart copy() {
+        return new Cart(id, lines, totalCents, version, recentOperations != null ? recentOperations.copy() : null);
+    }
+
+    /**
+     * Puts back the state of a {@link #copy} of this cart, for a mutation that
+     * could not be recorded.
+     */
+    public void restore(Cart saved) {
+        lines = saved.lines;
+        totalCents = saved.totalCents;
+        version = saved.version;
+        recentOperations = saved.recentOperations;
+    }
+
     public void incrementVersion() {
         this.version++;
     }
 
-    @Data
-    public static class CartItem {
-        private final String name;
-        private int quantity;
-        private BigDecimal unitPrice;
-        private BigDecimal totalPrice;
+    public BigDecimal getTotal() {
+        return Money.toAmount(totalCents);
+    }
 
-        public CartItem(String name, BigDecimal unitPrice) {
-            this.name = name;
-            this.quantity = 0;
-            this.unitPrice = unitPrice;
-            this.totalPrice = BigDecimal.ZERO;
+    /**
+     * Returns the cart's sync dedup window, allocating it on first use so carts
+     * that never sync pay nothing for it.
+     */
+    public OperationWindow operationWindow(int capacity) {
+        if (recentOperations == null) {
+            recentOperations = new OperationWindow(capacity);
         }
+        return recentOperations;
+    }
 
-        public void incrementQuantity() {
-            this.quantity += 1;
+    public int quantityOf(int itemId) {
+        long[] snapshot = lines;
+        int index = indexOf(snapshot, itemId);
+        return index >= 0 ? quantityAt(snapshot, index) : 0;
+    }
+
+    public long lineTotalCents(int itemId) {
+        long[] snapshot = lines;
+        int index = indexOf(snapshot, itemId);
+        return index >= 0 ? snapshot[index + 1] : 0L;
+    }
+
+    /**
+     * Adds or replaces a line and moves the cart total by the change in its total.
+     */
+    public void putLine(int itemId, int quantity, long lineTotalCents) {
+        long[] current = lines;
+        int index = indexOf(current, itemId);
+        long[] next;
+        long delta;
+        if (index >= 0) {
+            next = current.clone();
+            delta = lineTotalCents - current[index + 1];
+        } else {
+            int insertAt = -(index + 1);
+            next = new long[current.length + 2];
+            System.arraycopy(current, 0, next, 0, insertAt);
+            System.arraycopy(current, insertAt, next, insertAt + 2, current.length - insertAt);
+            index = insertAt;
+            delta = lineTotalCents;
+        }
+        next[index] = ((long) itemId << 32) | (quantity & 0xFFFFFFFFL);
+        next[index + 1] = lineTotalCents;
+        lines = next;
+        totalCents += delta;
+    }
+
+    /**
+     * Removes a line and subtracts its total. Returns {@code false} if absent.
+     */
+    public boolean removeLine(int itemId) {
+        long[] current = lines;
+        int index = indexOf(current, itemId);
+        if (index < 0) {
+            return false;
+        }
+        long[] next = new long[current.length - 2];
+        System.arraycopy(current, 0, next, 0, index);
+        System.arraycopy(current, index + 2, next, index, current.length - index - 2);
+        lines = next;
+        totalCents -= current[index + 1];
+        return true;
+    }
+
+    public void clearLines() {
+        lines = NO_LINES;
+        totalCents = 0L;
+    }
+
+    /**
+     * Re-sums every line and resets the running total to the result.
+     *
+     * @return the drift that was corrected (recomputed minus running total)
+     */
+    public long recomputeTotal() {
+        long[] snapshot = lines;
+        long sum = 0L;
+        for (int i = 1; i < snapshot.length; i += 2) {
+            sum += snapshot[i];
         }
+        long drift = sum - totalCents;
+        totalCents = sum;
+        return drift;
+    }
 
-        public void updatePrice(BigDecimal newTotalPrice) {
-            this.totalPrice = newTotalPrice;
+    /**
+     * Binary search over the packed pairs. Returns the pair's array index, or
+     * {@code -(insertion index) - 1} if the item has no line.
+     */
+    private static int indexOf(long[] lines, int itemId) {
+        int low = 0;
+        int high = lines.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = itemIdAt(lines, mid * 2);
+            if (midId < itemId) {
+                low = mid + 1;
+            } else if (midId > itemId) {
+                high = mid - 1;
+            } else {
+                return mid * 2;
+            }
         }
+        return -(low * 2) - 1;
+    }
+
+    private static int itemIdAt(long[] lines, int index) {
+        return (int) (lines[index] >>> 32);
+    }
+
+    private static int quantityAt(long[] lines, int index) {
+        return (int) lines[index];
+    }
+
+    @FunctionalInterface
+    public interface LineVisitor<E extends Exception> {
+        void visit(int itemId, int quantity, long lineTotalCents) throws E;
     }
 
-    public CartItem addItem(String itemName, BigDecimal unitPrice) {
-        return items.computeIfAbsent(itemName,
-                                     k -> new CartItem(k, unitPrice));
+    /**
+     * Immutable view of one line.
+     */
+    @Data
+    public static class CartItem {
+        private final String name;
+        private final int quantity;
+        private final BigDecimal unitPrice;
+        private final long totalPriceCents;
+
+        public BigDecimal getTotalPrice() {
+            return Money.toAmount(totalPriceCents);
+        }
     }
 }
@@ -0,0 +1,206 @@
+package com.cart.model.domain;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Flat binary layout of a {@link Cart} for stores that keep carts outside the
+ * Java heap. All access is absolute, so concurrent readers can share a buffer.
+ *
+ * <pre>
+ * short idLength, id (UTF-8), long version, long totalCents,
+ * int lineCount, long[2 * lineCount] lines,
+ * int windowCapacity, int windowNext, long[windowCapacity] fingerprints
+ * </pre>
+ */
+public final class CartRecord {
+    private CartRecord() {
+    }
+
+    public static byte[] idBytes(String cartId) {
+        return cartId.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Size of the record for a cart only the caller mutates; see {@link #image} otherwise.
+     */
+    public static int size(Cart cart, byte[] idBytes) {
+        return size(idBytes, cart.packedLines(), cart.getRecentOperations());
+    }
+
+    public static void write(Cart cart, byte[] idBytes, ByteBuffer buffer, int offset) {
+        write(cart, idBytes, cart.packedLines(), cart.getRecentOperations(), buffer, offset);
+    }
+
+    /**
+     * Reads the cart's lines and dedup window once, so the record's size and
+     * its bytes agree even if another thread changes the cart in between.
+     */
+    public static Image image(Cart cart, byte[] idBytes) {
+        return new Image(cart, idBytes, cart.packedLines(), cart.getRecentOperations());
+    }
+
+    private static int size(byte[] idBytes, long[] lines, OperationWindow window) {
+        return Short.BYTES + idBytes.length
+            + 2 * Long.BYTES
+            + Integer.BYTES + lines.length * Long.BYTES
+            + 2 * Integer.BYTES + (window != null ? window.capacity() * Long.BYTES : 0);
+    }
+
+    private static void write(Cart cart, byte[] idBytes, long[] lines, OperationWindow window,
+                              ByteBuffer buffer, int offset) {
+        int at = offset;
+        buffer.putShort(at, (short) idBytes.length);
+        at += Short.BYTES;
+        for (byte b : idBytes) {
+            buffer.put(at++, b);
+        }
+        buffer.putLong(at, cart.getVersion());
+        at += Long.BYTES;
+        buffer.putLong(at, cart.getTotalCents());
+        at += Long.BYTES;
+
+        buffer.putInt(at, lines.length / 2);
+        at += Integer.BYTES;
+        for (long value : lines) {
+            buffer.putLong(at, value);
+            at += Long.BYTES;
+        }
+
+        int capacity = window != null ? window.capacity() : 0;
+        buffer.putInt(at, capacity);
+        at += Integer.BYTES;
+        buffer.putInt(at, window != null ? window.nextIndex() : 0);
+        at += Integer.BYTES;
+        for (int i = 0; i < capacity; i++) {
+            buffer.putLong(at, window.fingerprintAt(i));
+            at += Long.BYTES;
+        }
+    }
+
+    public static Cart read(ByteBuffer buffer, int offset) {
+        return read(buffer, offset, null);
+    }
+
+    /**
+     * Reads a record written by another process, translating its item ids with
+     * {@code itemRemap} (old id to current id, {@link ItemIds#UNKNOWN} to drop
+     * the line). Dropping lines leaves the total stale; callers recompute it.
+     */
+    public static Cart read(ByteBuffer buffer, int offset, int[] itemRemap) {
+        int idLength = buffer.getShort(offset);
+        byte[] idBytes = new byte[idLength];
+        int at = offset + Short.BYTES;
+        for (int i = 0; i < idLength; i++) {
+            idBytes[i] = buffer.get(at++);
+        }
+        long version = buffer.getLong(at);
+        at += Long.BYTES;
+        long totalCents = buffer.getLong(at);
+        at += Long.BYTES;
+
+        int lineCount = buffer.getInt(at);
+        at += Integer.BYTES;
+        long[] lines = new long[lineCount * 2];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = buffer.getLong(at);
+            at += Long.BYTES;
+        }
+
+        int capacity = buffer.getInt(at);
+        at += Integer.BYTES;
+        int next = buffer.getInt(at);
+        at += Integer.BYTES;
+        OperationWindow window = null;
+        if (capacity > 0) {
+            long[] fingerprints = new long[capacity];
+            for (int i = 0; i < capacity; i++) {
+                fingerprints[i] = buffer.getLong(at);
+                at += Long.BYTES;
+            }
+            window = new OperationWindow(fingerprints, next);
+        }
+        if (itemRemap != null) {
+            lines = remap(lines, itemRemap);
+        }
+        return new Cart(new String(idBytes, StandardCharsets.UTF_8), lines, totalCents, version, window);
+    }
+
+    /**
+     * Byte length of the record at {@code offset}.
+     */
+    public static int sizeAt(ByteBuffer buffer, int offset) {
+        int at = offset + Short.BYTES + buffer.getShort(offset) + 2 * Long.BYTES;
+        at += Integer.BYTES + buffer.getInt(at) * 2 * Long.BYTES;
+        at += 2 * Integer.BYTES + buffer.getInt(at) * Long.BYTES;
+        return at - offset;
+    }
+
+    private static long[] remap(long[] lines, int[] itemRemap) {
+        long[] mapped = new long[lines.length];
+        int count = 0;
+        for (int i = 0; i < lines.length; i += 2) {
+            int oldId = (int) (lines[i] >>> 32);
+            int newId = oldId < itemRemap.length ? itemRemap[oldId] : ItemIds.UNKNOWN;
+            if (newId == ItemIds.UNKNOWN) {
+                continue;
+            }
+            long key = (long) newId << 32 | (lines[i] & 0xFFFFFFFFL);
+            long cents = lines[i + 1];
+            // Insertion sort keeps the pairs ordered by the new ids; carts hold few lines
+            int j = count;
+            while (j > 0 && (mapped[j - 2] >>> 32) > newId) {
+                mapped[j] = mapped[j - 2];
+                mapped[j + 1] = mapped[j - 1];
+                j -= 2;
+            }
+            mapped[j] = key;
+            mapped[j + 1] = cents;
+            count += 2;
+        }
+        return count == lines.length ? mapped : Arrays.copyOf(mapped, count);
+    }
+
+    /**
+     * A cart's record as of one read of its lines. The version and total are
+     * read when it is written; readers of a record recompute the total.
+     */
+    public static final class Image {
+        private final Cart cart;
+        private final byte[] idBytes;
+        private final long[] lines;
+        private final OperationWindow window;
+
+        private Image(Cart cart, byte[] idBytes, long[] lines, OperationWindow window) {
+            this.cart = cart;
+            this.idBytes = idBytes;
+            this.lines = lines;
+            this.window = window;
+        }
+
+        public int size() {
+            return CartRecord.size(idBytes, lines, window);
+        }
+
+        public void write(ByteBuffer buffer, int offset) {
+            CartRecord.write(cart, idBytes, lines, window, buffer, offset);
+        }
+    }
+
+    /**
+     * True if the record at {@code offset} belongs to the cart with {@code idBytes}.
+     */
+    public static boolean hasId(ByteBuffer buffer, int offset, byte[] idBytes) {
+        if (buffer.getShort(offset) != idBytes.length) {
+            return false;
+        }
+        int at = offset + Short.BYTES;
+        for (byte b : idBytes) {
+            if (buffer.get(at++) != b) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,80 @@
+package com.cart.model.domain;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Interns item names to dense {@code int} ids so carts can hold their lines in
+ * primitive arrays. One registry belongs to the {@code PricingCatalog}, which
+ * registers every item at startup and answers {@link #unitPrice} from its
+ * current pipelines, so a unit price is held once per item instead of once
+ * per cart line and changes together with the rest of the item's pricing.
+ * <p>
+ * Names are published as a new array on every change and never written after
+ * publication, so a reader that loaded the array sees all of it.
+ */
+public final class ItemIds {
+    public static final int UNKNOWN = -1;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final IntFunction<BigDecimal> unitPrices;
+    private volatile String[] names = new String[0];
+
+    /**
+     * A registry without unit prices; {@link #unitPrice} returns {@code null}.
+     */
+    public ItemIds() {
+        this(id -> null);
+    }
+
+    public ItemIds(IntFunction<BigDecimal> unitPrices) {
+        this.unitPrices = unitPrices;
+    }
+
+    /**
+     * Returns the id for {@code name}, assigning the next free one on first use.
+     */
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(name);
+            if (id == null) {
+                id = names.length;
+                String[] grown = Arrays.copyOf(names, id + 1);
+                grown[id] = name;
+                // The name first: a reader that finds the id also finds its name
+                names = grown;
+                ids.put(name, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Returns the id of {@code name}, or {@link #UNKNOWN} if it was never interned.
+     */
+    public int find(String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : UNKNOWN;
+    }
+
+    /**
+     * Number of interned items; ids run from 0 to {@code size() - 1}.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    public BigDecimal unitPrice(int id) {
+        return unitPrices.apply(id);
+    }
+}
@@ -0,0 +1,51 @@
+package com.cart.model.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Helpers for amounts held as {@code long} minor units (pence). Arithmetic here
+ * is allocation-free; {@link BigDecimal} is only produced when an amount leaves
+ * the domain model.
+ */
+public final class Money {
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    /**
+     * Converts minor units to a two-decimal amount. Zero maps to {@link BigDecimal#ZERO}.
+     */
+    public static BigDecimal toAmount(long cents) {
+        return cents == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * Converts an amount to minor units, rounding {@code HALF_UP} like the pricing strategies do.
+     */
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * True if {@code amount} has no digits below the minor unit.
+     */
+    public static boolean isWholeCents(BigDecimal amount) {
+        return amount.stripTrailingZeros().scale() <= SCALE;
+    }
+
+    /**
+     * Computes {@code value * numerator / denominator} rounded {@code HALF_UP}
+     * (ties away from zero), matching {@code BigDecimal.setScale(.., HALF_UP)}.
+     */
+    public static long mulDivHalfUp(long value, long numerator, long denominator) {
+        long product = Math.multiplyExact(value, numerator);
+        long quotient = product / denominator;
+        long remainder = product % denominator;
+        if (Math.abs(remainder) * 2 >= Math.abs(denominator)) {
+            quotient += (product < 0) == (denominator < 0) ? 1 : -1;
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,69 @@
+package com.cart.model.domain;
+
+/**
+ * Bounded memory of the most recent client operation ids applied to a cart,
+ * used to make offline sync retries idempotent. Ids are reduced to 64-bit
+ * fingerprints in a fixed ring; once the ring wraps, the oldest ids are
+ * forgotten.
+ */
+public final class OperationWindow {
+    private static final long EMPTY = 0L;
+
+    private final long[] fingerprints;
+    private int next;
+
+    public OperationWindow(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.fingerprints = new long[capacity];
+    }
+
+    OperationWindow(long[] fingerprints, int next) {
+        this.fingerprints = fingerprints;
+        this.next = next;
+    }
+
+    public boolean contains(String operationId) {
+        long fingerprint = fingerprint(operationId);
+        for (long candidate : fingerprints) {
+            if (candidate == fingerprint) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void record(String operationId) {
+        fingerprints[next] = fingerprint(operationId);
+        next = (next + 1) % fingerprints.length;
+    }
+
+    OperationWindow copy() {
+        return new OperationWindow(fingerprints.clone(), next);
+    }
+
+    public int capacity() {
+        return fingerprints.length;
+    }
+
+    long fingerprintAt(int index) {
+        return fingerprints[index];
+    }
+
+    int nextIndex() {
+        return next;
+    }
+
+    /**
+     * 64-bit FNV-1a over the id's chars. Zero is reserved for empty slots.
+     */
+    static long fingerprint(String operationId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < operationId.length(); i++) {
+            hash ^= operationId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash == EMPTY ? 1L : hash;
+    }
+}
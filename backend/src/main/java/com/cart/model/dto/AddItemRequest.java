@@ -7,5 +7,9 @@ import javax.validation.constraints.NotBlank;
 public class AddItemRequest {
     @NotBlank(message = "Item name is required")
     private String itemName;
+    /**
+     * Units to add in one step; the line is repriced once at its new quantity.
+     */
+    private int quantity = 1;
     private Long clientVersion;
-}
\ No newline at end of file
+}
@@ -0,0 +1,207 @@
+package com.cart.model.dto;
+
+import com.cart.model.domain.Cart;
+import com.cart.model.domain.ItemIds;
+import com.cart.model.event.CartEvent;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Writes a {@link Cart} as a {@link CartResponse} and a {@link CartEvent}
+ * straight to a {@link JsonGenerator}, without building DTOs or going through
+ * bean introspection. The output is byte-for-byte what {@code ObjectMapper}
+ * produces for the DTOs with default settings.
+ * <p>
+ * Field names are pre-encoded once; item names and unit prices are pre-encoded
+ * per item id and re-encoded only if the item's unit price changes. Each thread
+ * reuses its own output buffer.
+ */
+public final class CartJsonWriter {
+    private static final SerializedString CART_ID = new SerializedString("cartId");
+    private static final SerializedString ITEMS = new SerializedString("items");
+    private static final SerializedString TOTAL = new SerializedString("total");
+    private static final SerializedString VERSION = new SerializedString("version");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString QUANTITY = new SerializedString("quantity");
+    private static final SerializedString UNIT_PRICE = new SerializedString("unitPrice");
+    private static final SerializedString TOTAL_PRICE = new SerializedString("totalPrice");
+    private static final SerializedString TYPE = new SerializedString("type");
+    private static final SerializedString ITEM_NAME = new SerializedString("itemName");
+    private static final SerializedString[] EVENT_TYPES = Arrays.stream(CartEvent.CartEventType.values())
+                                                                .map(type -> new SerializedString(type.name()))
+                                                                .toArray(SerializedString[]::new);
+
+    private final JsonFactory jsonFactory;
+    private final ItemIds itemIds;
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+    private volatile EncodedItem[] items = new EncodedItem[16];
+
+    public CartJsonWriter(JsonFactory jsonFactory, ItemIds itemIds) {
+        this.jsonFactory = jsonFactory;
+        this.itemIds = itemIds;
+    }
+
+    public byte[] write(Cart cart) {
+        Buffers state = buffers.get();
+        try (JsonGenerator generator = jsonFactory.createGenerator(state.bytes, JsonEncoding.UTF8)) {
+            write(cart, generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return state.drain();
+    }
+
+    public byte[] write(CartEvent event) {
+        Buffers state = buffers.get();
+        try (JsonGenerator generator = jsonFactory.createGenerator(state.bytes, JsonEncoding.UTF8)) {
+            write(event, generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return state.drain();
+    }
+
+    public void write(Cart cart, JsonGenerator generator) throws IOException {
+        char[] digits = buffers.get().digits;
+        generator.writeStartObject();
+        generator.writeFieldName(CART_ID);
+        generator.writeString(cart.getId());
+        generator.writeFieldName(ITEMS);
+        generator.writeStartArray();
+        cart.forEachLine((itemId, quantity, lineTotalCents) -> {
+            EncodedItem item = item(itemId);
+            generator.writeStartObject();
+            generator.writeFieldName(NAME);
+            generator.writeString(item.name);
+            generator.writeFieldName(QUANTITY);
+            generator.writeNumber(quantity);
+            generator.writeFieldName(UNIT_PRICE);
+            if (item.unitPrice != null) {
+                generator.writeNumber(item.unitPriceText);
+            } else {
+                generator.writeNull();
+            }
+            generator.writeFieldName(TOTAL_PRICE);
+            writeAmount(generator, lineTotalCents, digits);
+            generator.writeEndObject();
+        });
+        generator.writeEndArray();
+        generator.writeFieldName(TOTAL);
+        writeAmount(generator, cart.getTotalCents(), digits);
+        generator.writeFieldName(VERSION);
+        generator.writeNumber(cart.getVersion());
+        generator.writeEndObject();
+    }
+
+    public void write(CartEvent event, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(CART_ID);
+        writeNullable(generator, event.getCartId());
+        generator.writeFieldName(TYPE);
+        if (event.getType() != null) {
+            generator.writeString(EVENT_TYPES[event.getType().ordinal()]);
+        } else {
+            generator.writeNull();
+        }
+        generator.writeFieldName(ITEM_NAME);
+        writeNullable(generator, event.getItemName());
+        generator.writeFieldName(QUANTITY);
+        generator.writeNumber(event.getQuantity());
+        generator.writeFieldName(TOTAL);
+        if (event.getTotal() != null) {
+            generator.writeNumber(event.getTotal());
+        } else {
+            generator.writeNull();
+        }
+        generator.writeFieldName(VERSION);
+        generator.writeNumber(event.getVersion());
+        generator.writeEndObject();
+    }
+
+    private static void writeNullable(JsonGenerator generator, String value) throws IOException {
+        if (value != null) {
+            generator.writeString(value);
+        } else {
+            generator.writeNull();
+        }
+    }
+
+    /**
+     * Writes minor units as {@code Money.toAmount(cents).toString()} would:
+     * {@code 0} for zero, otherwise two decimals.
+     */
+    private static void writeAmount(JsonGenerator generator, long cents, char[] digits) throws IOException {
+        if (cents == 0) {
+            generator.writeNumber(0);
+            return;
+        }
+        long magnitude = Math.abs(cents);
+        int at = digits.length;
+        for (int i = 0; i < 2; i++) {
+            digits[--at] = (char) ('0' + magnitude % 10);
+            magnitude /= 10;
+        }
+        digits[--at] = '.';
+        do {
+            digits[--at] = (char) ('0' + magnitude % 10);
+            magnitude /= 10;
+        } while (magnitude > 0);
+        if (cents < 0) {
+            digits[--at] = '-';
+        }
+        generator.writeNumber(digits, at, digits.length - at);
+    }
+
+    private EncodedItem item(int itemId) {
+        EncodedItem[] current = items;
+        BigDecimal unitPrice = itemIds.unitPrice(itemId);
+        if (itemId < current.length) {
+            EncodedItem item = current[itemId];
+            if (item != null && item.unitPrice == unitPrice) {
+                return item;
+            }
+        }
+        EncodedItem item = new EncodedItem(itemIds.name(itemId), unitPrice);
+        synchronized (this) {
+            EncodedItem[] updated = items;
+            if (itemId >= updated.length) {
+                updated = Arrays.copyOf(updated, Math.max(itemId + 1, updated.length * 2));
+            }
+            updated[itemId] = item;
+            items = updated;
+        }
+        return item;
+    }
+
+    private static final class EncodedItem {
+        private final SerializableString name;
+        private final BigDecimal unitPrice;
+        private final String unitPriceText;
+
+        EncodedItem(String name, BigDecimal unitPrice) {
+            this.name = new SerializedString(name);
+            this.unitPrice = unitPrice;
+            this.unitPriceText = unitPrice != null ? unitPrice.toString() : null;
+        }
+    }
+
+    private static final class Buffers {
+        private final ByteArrayBuilder bytes = new ByteArrayBuilder(512);
+        private final char[] digits = new char[24];
+
+        byte[] drain() {
+            byte[] result = bytes.toByteArray();
+            bytes.reset();
+            return result;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.cart.model.dto;
 
 import com.cart.model.domain.Cart;
+import com.cart.model.domain.ItemIds;
 import lombok.Data;
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -31,7 +32,7 @@ public class CartResponse {
         }
     }
 
-    public static CartResponse from(Cart cart) {
+    public static CartResponse from(Cart cart, ItemIds itemIds) {
         if (cart == null) {
             return new CartResponse();
         }
@@ -41,11 +42,9 @@ public class CartResponse {
         response.setTotal(cart.getTotal());
         response.setVersion(cart.getVersion());
 
-        if (cart.getItems() != null) {
-            response.setItems(cart.getItems().values().stream()
-                                  .map(CartItemDTO::from)
-                                  .collect(Collectors.toList()));
-        }
+        response.setItems(cart.getItems(itemIds).values().stream()
+                              .map(CartItemDTO::from)
+                              .collect(Collectors.toList()));
 
         return response;
     }
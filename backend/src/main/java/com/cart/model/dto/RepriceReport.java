@@ -0,0 +1,15 @@
+package com.cart.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class RepriceReport {
+    private List<String> changedItems;
+    private long cartsMatched;
+    private long cartsRepriced;
+    private long durationMs;
+}
@@ -0,0 +1,16 @@
+package com.cart.model.dto;
+
+import lombok.Data;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+@Data
+public class SetQuantityRequest {
+    /**
+     * Quantity the line should end up with; zero removes the line.
+     */
+    @NotNull(message = "Quantity is required")
+    @Min(value = 0, message = "Quantity must not be negative")
+    private Integer quantity;
+    private Long clientVersion;
+}
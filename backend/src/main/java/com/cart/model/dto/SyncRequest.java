@@ -3,14 +3,34 @@ package com.cart.model.dto;
 import java.util.List;
 
 import lombok.Data;
+import javax.validation.Valid;
+import javax.validation.constraints.Size;
+
 @Data
 public class SyncRequest {
+    /**
+     * Longest client operation id accepted; ids are journaled with the cart.
+     */
+    public static final int MAX_OPERATION_ID_LENGTH = 128;
+
+    @Valid
     private List<PendingOperation> operations;
 
     @Data
     public static class PendingOperation {
+        /**
+         * Client-generated id. Operations carrying an id that the cart has
+         * recently applied are skipped, so a retried sync is a no-op.
+         */
+        @Size(min = 1, max = MAX_OPERATION_ID_LENGTH,
+              message = "Operation id must be 1 to " + MAX_OPERATION_ID_LENGTH + " characters")
+        private String operationId;
         private String type;
         private String item;
+        /**
+         * Units an ADD contributes; defaults to one.
+         */
+        private Integer quantity;
         private long clientVersion;
         private String timestamp;
     }
@@ -3,10 +3,28 @@ package com.cart.model.dto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 @AllArgsConstructor
 public class SyncResponse {
     private String status;
     private long version;
     private int syncedOperations;
+    private List<OperationResult> results;
+
+    public enum OperationStatus {
+        APPLIED,
+        SKIPPED,
+        REJECTED
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class OperationResult {
+        private int index;
+        private String operationId;
+        private OperationStatus status;
+        private String reason;
+    }
 }
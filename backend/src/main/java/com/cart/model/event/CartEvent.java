@@ -1,8 +1,12 @@
 package com.cart.model.event;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Value;
+
 import java.math.BigDecimal;
+import java.util.List;
 
 @Data
 @AllArgsConstructor
@@ -14,10 +18,40 @@ public class CartEvent {
     private BigDecimal total;
     private long version;
 
+    /**
+     * Every line of the cart after the event, for the types that change more
+     * than one line ({@link CartEventType#carriesLines}); null for the others.
+     * Binary and bus frames carry them; JSON clients read the cart instead.
+     */
+    @JsonIgnore
+    private List<Line> lines;
+
+    public CartEvent(String cartId, CartEventType type, String itemName, int quantity, BigDecimal total,
+                     long version) {
+        this(cartId, type, itemName, quantity, total, version, null);
+    }
+
+    @Value
+    public static class Line {
+        String itemName;
+        int quantity;
+        long lineTotalCents;
+    }
+
     public enum CartEventType {
         ITEM_ADDED,
         ITEM_REMOVED,
         CART_CLEARED,
-        PRICE_UPDATED
+        PRICE_UPDATED,
+        CART_SYNCED,
+        // A line set to a new quantity; appended last so wire ordinals stay stable
+        ITEM_UPDATED;
+
+        /**
+         * Whether events of this type carry the cart's lines rather than the one line they changed.
+         */
+        public boolean carriesLines() {
+            return this == CART_CLEARED || this == PRICE_UPDATED || this == CART_SYNCED;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,17 @@
+package com.cart.model.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CartEvictedEvent {
+    private String cartId;
+    private Reason reason;
+
+    public enum Reason {
+        IDLE,
+        EXPIRED,
+        CAPACITY
+    }
+}
@@ -0,0 +1,12 @@
+package com.cart.repository;
+
+import com.cart.model.domain.Cart;
+
+/**
+ * In-place change applied to a stored cart by {@link CartRepository#update}.
+ * Returns {@code true} if the cart was modified.
+ */
+@FunctionalInterface
+public interface CartMutation {
+    boolean apply(Cart cart);
+}
@@ -1,28 +1,42 @@
 package com.cart.repository;
 
 import com.cart.model.domain.Cart;
-import org.springframework.stereotype.Repository;
+
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Cart storage. The implementation is chosen with {@code cart.store.type}.
+ */
+public interface CartRepository {
+
+    /**
+     * Stores a new cart, or replaces the stored one wholesale, e.g. during
+     * recovery. Changes to a stored cart go through {@link #update} instead:
+     * a save has no way to tell that the cart was evicted meanwhile and would
+     * store it again.
+     */
+    Cart save(Cart cart);
+
+    Optional<Cart> findById(String id);
 
-@Repository
-public class CartRepository {
-    private final ConcurrentHashMap<String, Cart> carts = new ConcurrentHashMap<>();
+    /**
+     * Applies {@code mutation} to the stored cart only if {@code expectedVersion}
+     * is not behind the stored version, and stores the result. A {@code null}
+     * expected version skips the check.
+     */
+    CartUpdateResult update(String id, Long expectedVersion, CartMutation mutation);
 
-    public Cart save(Cart cart) {
-        carts.put(cart.getId(), cart);
-        return cart;
-    }
+    void deleteById(String id);
 
-    public Optional<Cart> findById(String id) {
-        return Optional.ofNullable(carts.get(id));
-    }
+    boolean exists(String id);
 
-    public void deleteById(String id) {
-        carts.remove(id);
-    }
+    int count();
 
-    public boolean exists(String id) {
-        return carts.containsKey(id);
-    }
-}
\ No newline at end of file
+    /**
+     * Visits the stored carts without blocking writers for the whole pass.
+     * Every cart stored throughout the pass is visited at least once; carts
+     * added or changed meanwhile may be visited in either state, or twice.
+     */
+    void forEach(Consumer<Cart> action);
+}
@@ -0,0 +1,55 @@
+package com.cart.repository;
+
+import com.cart.model.domain.Cart;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Outcome of a versioned {@link CartRepository#update}. Conflicts are reported
+ * as a value rather than an exception so the caller decides how to respond.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class CartUpdateResult {
+    private static final CartUpdateResult NOT_FOUND = new CartUpdateResult(Status.NOT_FOUND, null, 0L);
+
+    private final Status status;
+    private final Cart cart;
+    private final long currentVersion;
+
+    public enum Status {
+        APPLIED,
+        UNCHANGED,
+        CONFLICT,
+        NOT_FOUND
+    }
+
+    public static CartUpdateResult applied(Cart cart) {
+        return new CartUpdateResult(Status.APPLIED, cart, cart.getVersion());
+    }
+
+    public static CartUpdateResult unchanged(Cart cart) {
+        return new CartUpdateResult(Status.UNCHANGED, cart, cart.getVersion());
+    }
+
+    public static CartUpdateResult conflict(Cart cart) {
+        return new CartUpdateResult(Status.CONFLICT, cart, cart.getVersion());
+    }
+
+    public static CartUpdateResult notFound() {
+        return NOT_FOUND;
+    }
+
+    public boolean isApplied() {
+        return status == Status.APPLIED;
+    }
+
+    public boolean isConflict() {
+        return status == Status.CONFLICT;
+    }
+
+    public boolean isNotFound() {
+        return status == Status.NOT_FOUND;
+    }
+}
@@ -0,0 +1,316 @@
+package com.cart.repository;
+
+import com.cart.config.CartRetentionProperties;
+import com.cart.model.domain.Cart;
+import com.cart.model.event.CartEvictedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * On-heap cart store. With retention configured, reads and writes only stamp
+ * the entry's last access time; a timer wheel fires at the earliest possible
+ * expiry and the entry is either evicted or re-armed at its real deadline.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(prefix = "cart.store", name = "type", havingValue = "heap", matchIfMissing = true)
+public class HeapCartRepository implements CartRepository, DisposableBean {
+    private static final int EVICTION_SAMPLE_SIZE = 8;
+
+    private final ConcurrentHashMap<String, StoredCart> carts = new ConcurrentHashMap<>();
+    private final CartRetentionProperties retention;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LongSupplier nanoTime;
+    private final long tickNanos;
+    private final TimerWheel<StoredCart> wheel;
+    private final Map<CartEvictedEvent.Reason, Counter> evictions;
+    private final ScheduledExecutorService evictor;
+    private Iterator<StoredCart> sampleCursor;
+
+    /**
+     * Unbounded store without expiry.
+     */
+    public HeapCartRepository() {
+        this(unbounded(), null, null, System::nanoTime);
+    }
+
+    @Autowired
+    public HeapCartRepository(CartRetentionProperties retention, ApplicationEventPublisher eventPublisher,
+                          MeterRegistry meterRegistry) {
+        this(retention, eventPublisher, meterRegistry, System::nanoTime);
+        if (expires()) {
+            evictor.scheduleWithFixedDelay(this::evictExpired, retention.getTickMs(),
+                                           retention.getTickMs(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    HeapCartRepository(CartRetentionProperties retention, ApplicationEventPublisher eventPublisher,
+                   MeterRegistry meterRegistry, LongSupplier nanoTime) {
+        this.retention = retention;
+        this.eventPublisher = eventPublisher;
+        this.nanoTime = nanoTime;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(retention.getTickMs());
+        this.wheel = new TimerWheel<>(Math.floorDiv(nanoTime.getAsLong(), tickNanos));
+        this.evictions = new EnumMap<>(CartEvictedEvent.Reason.class);
+        if (meterRegistry != null) {
+            meterRegistry.gaugeMapSize("cart.count", List.of(), carts);
+            for (CartEvictedEvent.Reason reason : CartEvictedEvent.Reason.values()) {
+                evictions.put(reason, meterRegistry.counter("cart.evictions",
+                                                            "reason", reason.name().toLowerCase()));
+            }
+        }
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public Cart save(Cart cart) {
+        long now = nanoTime.getAsLong();
+        StoredCart[] created = new StoredCart[1];
+        StoredCart[] replaced = new StoredCart[1];
+        carts.compute(cart.getId(), (id, existing) -> {
+            if (existing != null && existing.cart == cart) {
+                existing.lastAccessNanos = now;
+                return existing;
+            }
+            replaced[0] = existing;
+            created[0] = new StoredCart(cart, now);
+            return created[0];
+        });
+        if (created[0] != null) {
+            if (replaced[0] != null) {
+                unschedule(replaced[0]);
+            }
+            if (expires()) {
+                synchronized (wheel) {
+                    wheel.schedule(created[0].timer, toTick(deadline(created[0])));
+                }
+            }
+            if (retention.getMaxCarts() > 0 && carts.size() > retention.getMaxCarts()) {
+                evictOverCapacity();
+            }
+        }
+        return cart;
+    }
+
+    @Override
+    public Optional<Cart> findById(String id) {
+        StoredCart stored = carts.get(id);
+        if (stored == null) {
+            return Optional.empty();
+        }
+        stored.lastAccessNanos = nanoTime.getAsLong();
+        return Optional.of(stored.cart);
+    }
+
+    /**
+     * The version check and the mutation happen as one atomic step on the map entry.
+     */
+    @Override
+    public CartUpdateResult update(String id, Long expectedVersion, CartMutation mutation) {
+        CartUpdateResult[] result = new CartUpdateResult[1];
+        carts.computeIfPresent(id, (key, stored) -> {
+            Cart cart = stored.cart;
+            stored.lastAccessNanos = nanoTime.getAsLong();
+            if (expectedVersion != null && expectedVersion < cart.getVersion()) {
+                result[0] = CartUpdateResult.conflict(cart);
+            } else if (mutation.apply(cart)) {
+                result[0] = CartUpdateResult.applied(cart);
+            } else {
+                result[0] = CartUpdateResult.unchanged(cart);
+            }
+            return stored;
+        });
+        return result[0] != null ? result[0] : CartUpdateResult.notFound();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        StoredCart removed = carts.remove(id);
+        if (removed != null) {
+            unschedule(removed);
+        }
+    }
+
+    @Override
+    public boolean exists(String id) {
+        return carts.containsKey(id);
+    }
+
+    @Override
+    public int count() {
+        return carts.size();
+    }
+
+    @Override
+    public void forEach(Consumer<Cart> action) {
+        carts.values().forEach(stored -> action.accept(stored.cart));
+    }
+
+    /**
+     * Advances the timer wheel to now and evicts carts past their idle or
+     * absolute TTL. Entries touched since they were armed are re-armed instead.
+     * Returns the number of carts evicted.
+     */
+    public int evictExpired() {
+        long now = nanoTime.getAsLong();
+        List<StoredCart> due = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(Math.floorDiv(now, tickNanos), node -> due.add(node.getValue()));
+        }
+
+        int evicted = 0;
+        for (StoredCart stored : due) {
+            CartEvictedEvent.Reason[] reason = new CartEvictedEvent.Reason[1];
+            carts.computeIfPresent(stored.cart.getId(), (id, current) -> {
+                if (current != stored) {
+                    return current;
+                }
+                reason[0] = expiryReason(current, now);
+                return reason[0] != null ? null : current;
+            });
+            if (reason[0] != null) {
+                evicted++;
+                onEvicted(stored, reason[0]);
+            } else if (carts.get(stored.cart.getId()) == stored) {
+                synchronized (wheel) {
+                    wheel.schedule(stored.timer, toTick(deadline(stored)));
+                }
+            }
+        }
+        return evicted;
+    }
+
+    @Override
+    public void destroy() {
+        evictor.shutdownNow();
+    }
+
+    /**
+     * Evicts the least recently used of a few sampled carts until the store is
+     * back within {@code maxCarts}. Sampling walks the map with a persistent
+     * cursor so successive rounds look at different entries.
+     */
+    private void evictOverCapacity() {
+        while (carts.size() > retention.getMaxCarts()) {
+            StoredCart victim = null;
+            synchronized (this) {
+                for (int i = 0; i < EVICTION_SAMPLE_SIZE; i++) {
+                    if (sampleCursor == null || !sampleCursor.hasNext()) {
+                        sampleCursor = carts.values().iterator();
+                        if (!sampleCursor.hasNext()) {
+                            return;
+                        }
+                    }
+                    StoredCart candidate = sampleCursor.next();
+                    if (victim == null || candidate.lastAccessNanos < victim.lastAccessNanos) {
+                        victim = candidate;
+                    }
+                }
+            }
+            if (carts.remove(victim.cart.getId(), victim)) {
+                unschedule(victim);
+                onEvicted(victim, CartEvictedEvent.Reason.CAPACITY);
+            }
+        }
+    }
+
+    private void onEvicted(StoredCart stored, CartEvictedEvent.Reason reason) {
+        log.debug("Evicted cart: {} ({})", stored.cart.getId(), reason);
+        Counter counter = evictions.get(reason);
+        if (counter != null) {
+            counter.increment();
+        }
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(new CartEvictedEvent(stored.cart.getId(), reason));
+        }
+    }
+
+    private void unschedule(StoredCart stored) {
+        synchronized (wheel) {
+            wheel.cancel(stored.timer);
+        }
+    }
+
+    private CartEvictedEvent.Reason expiryReason(StoredCart stored, long now) {
+        if (retention.getAbsoluteTtlMs() > 0
+            && now - stored.createdNanos >= TimeUnit.MILLISECONDS.toNanos(retention.getAbsoluteTtlMs())) {
+            return CartEvictedEvent.Reason.EXPIRED;
+        }
+        if (retention.getIdleTtlMs() > 0
+            && now - stored.lastAccessNanos >= TimeUnit.MILLISECONDS.toNanos(retention.getIdleTtlMs())) {
+            return CartEvictedEvent.Reason.IDLE;
+        }
+        return null;
+    }
+
+    /**
+     * Earliest time the entry can expire given its current access stamp.
+     */
+    private long deadline(StoredCart stored) {
+        long deadline = Long.MAX_VALUE;
+        if (retention.getIdleTtlMs() > 0) {
+            deadline = stored.lastAccessNanos + TimeUnit.MILLISECONDS.toNanos(retention.getIdleTtlMs());
+        }
+        if (retention.getAbsoluteTtlMs() > 0) {
+            deadline = Math.min(deadline,
+                                stored.createdNanos + TimeUnit.MILLISECONDS.toNanos(retention.getAbsoluteTtlMs()));
+        }
+        return deadline;
+    }
+
+    /**
+     * Rounds up so an entry never fires before its deadline.
+     */
+    private long toTick(long nanos) {
+        return Math.floorDiv(nanos, tickNanos) + (Math.floorMod(nanos, tickNanos) == 0 ? 0 : 1);
+    }
+
+    private static CartRetentionProperties unbounded() {
+        CartRetentionProperties retention = new CartRetentionProperties();
+        retention.setIdleTtlMs(0);
+        retention.setAbsoluteTtlMs(0);
+        retention.setMaxCarts(0);
+        return retention;
+    }
+
+    private boolean expires() {
+        return retention.getIdleTtlMs() > 0 || retention.getAbsoluteTtlMs() > 0;
+    }
+
+    private static final class StoredCart {
+        private final Cart cart;
+        private final long createdNanos;
+        private volatile long lastAccessNanos;
+        private final TimerWheel.Node<StoredCart> timer;
+
+        StoredCart(Cart cart, long now) {
+            this.cart = cart;
+            this.createdNanos = now;
+            this.lastAccessNanos = now;
+            this.timer = new TimerWheel.Node<>(this);
+        }
+    }
+}
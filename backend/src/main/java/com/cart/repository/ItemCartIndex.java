@@ -0,0 +1,254 @@
+package com.cart.repository;
+
+import com.cart.model.domain.ItemIds;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Secondary index from item id to the carts holding that item, so item-wide
+ * work such as repricing touches only the carts involved.
+ * <p>
+ * Each cart that holds a line gets a dense slot, recycled when the cart is
+ * emptied or evicted. Each item keeps a bitmap of slots split into lazily
+ * allocated 64K-slot containers, one bit per cart. An update is a map lookup
+ * and one CAS on a bitmap word; memory is one bit per item and slot.
+ * <p>
+ * Updates for one cart are expected to run under that cart's
+ * {@code CartExecutor}. Readers are weakly consistent: a cart changed during
+ * an iteration may or may not be reported.
+ */
+@Slf4j
+@Component
+public class ItemCartIndex implements SmartInitializingSingleton {
+    private static final int CONTAINER_SHIFT = 16;
+    private static final int CONTAINER_SLOTS = 1 << CONTAINER_SHIFT;
+
+    private final CartRepository cartRepository;
+    private final ItemIds itemIds;
+    private final ConcurrentHashMap<String, Integer> slots = new ConcurrentHashMap<>();
+    private volatile String[][] cartIds = new String[0][];
+    private volatile SlotSet[] items = new SlotSet[0];
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int nextSlot;
+
+    public ItemCartIndex(CartRepository cartRepository, ItemIds itemIds) {
+        this.cartRepository = cartRepository;
+        this.itemIds = itemIds;
+    }
+
+    /**
+     * Indexes the carts already in the store, i.e. those recovered on startup.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        cartRepository.forEach(cart -> cart.forEachLine((itemId, quantity, lineTotalCents) -> add(cart.getId(), itemId)));
+        log.info("Indexed items of {} carts in {} ms", slots.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void add(String cartId, int itemId) {
+        Integer slot = slots.get(cartId);
+        if (slot == null) {
+            slot = slots.computeIfAbsent(cartId, this::allocateSlot);
+        }
+        items(itemId).add(slot);
+    }
+
+    public void remove(String cartId, int itemId) {
+        Integer slot = slots.get(cartId);
+        SlotSet set = existing(itemId);
+        if (slot != null && set != null) {
+            set.remove(slot);
+        }
+    }
+
+    /**
+     * Drops the cart from every item and releases its slot.
+     */
+    public void removeCart(String cartId) {
+        Integer slot = slots.remove(cartId);
+        if (slot == null) {
+            return;
+        }
+        for (SlotSet set : items) {
+            if (set != null) {
+                set.remove(slot);
+            }
+        }
+        releaseSlot(slot);
+    }
+
+    /**
+     * Number of carts holding the item.
+     */
+    public int count(int itemId) {
+        SlotSet set = existing(itemId);
+        return set != null ? set.size() : 0;
+    }
+
+    public int count(String itemName) {
+        return count(itemIds.find(itemName));
+    }
+
+    /**
+     * Visits the id of every cart holding the item, in slot order.
+     */
+    public void forEachCart(int itemId, Consumer<String> action) {
+        SlotSet set = existing(itemId);
+        if (set == null) {
+            return;
+        }
+        set.forEach(slot -> {
+            String cartId = cartIdAt(slot);
+            if (cartId != null) {
+                action.accept(cartId);
+            }
+        });
+    }
+
+    public void forEachCart(String itemName, Consumer<String> action) {
+        forEachCart(itemIds.find(itemName), action);
+    }
+
+    /**
+     * Number of carts holding at least one indexed item.
+     */
+    public int cartCount() {
+        return slots.size();
+    }
+
+    private String cartIdAt(int slot) {
+        String[][] chunks = cartIds;
+        int chunk = slot >>> CONTAINER_SHIFT;
+        return chunk < chunks.length ? chunks[chunk][slot & (CONTAINER_SLOTS - 1)] : null;
+    }
+
+    private synchronized int allocateSlot(String cartId) {
+        int slot = freeCount > 0 ? freeSlots[--freeCount] : nextSlot++;
+        int chunk = slot >>> CONTAINER_SHIFT;
+        if (chunk >= cartIds.length) {
+            String[][] grown = Arrays.copyOf(cartIds, chunk + 1);
+            grown[chunk] = new String[CONTAINER_SLOTS];
+            cartIds = grown;
+        }
+        cartIds[chunk][slot & (CONTAINER_SLOTS - 1)] = cartId;
+        return slot;
+    }
+
+    private synchronized void releaseSlot(int slot) {
+        cartIds[slot >>> CONTAINER_SHIFT][slot & (CONTAINER_SLOTS - 1)] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private SlotSet existing(int itemId) {
+        SlotSet[] current = items;
+        return itemId >= 0 && itemId < current.length ? current[itemId] : null;
+    }
+
+    private SlotSet items(int itemId) {
+        SlotSet[] current = items;
+        if (itemId < current.length && current[itemId] != null) {
+            return current[itemId];
+        }
+        synchronized (this) {
+            SlotSet[] grown = Arrays.copyOf(items, Math.max(items.length, itemId + 1));
+            if (grown[itemId] == null) {
+                grown[itemId] = new SlotSet();
+                items = grown;
+            }
+            return items[itemId];
+        }
+    }
+
+    /**
+     * Concurrent bitmap of slots in 64K-slot containers allocated on first use.
+     */
+    private static final class SlotSet {
+        private static final int WORDS = CONTAINER_SLOTS / Long.SIZE;
+
+        private volatile AtomicLongArray[] containers = new AtomicLongArray[0];
+        private final AtomicInteger size = new AtomicInteger();
+
+        void add(int slot) {
+            AtomicLongArray container = container(slot >>> CONTAINER_SHIFT);
+            int word = (slot & (CONTAINER_SLOTS - 1)) >>> 6;
+            long bit = 1L << slot;
+            long current;
+            do {
+                current = container.get(word);
+                if ((current & bit) != 0) {
+                    return;
+                }
+            } while (!container.compareAndSet(word, current, current | bit));
+            size.incrementAndGet();
+        }
+
+        void remove(int slot) {
+            AtomicLongArray[] current = containers;
+            int index = slot >>> CONTAINER_SHIFT;
+            if (index >= current.length || current[index] == null) {
+                return;
+            }
+            AtomicLongArray container = current[index];
+            int word = (slot & (CONTAINER_SLOTS - 1)) >>> 6;
+            long bit = 1L << slot;
+            long value;
+            do {
+                value = container.get(word);
+                if ((value & bit) == 0) {
+                    return;
+                }
+            } while (!container.compareAndSet(word, value, value & ~bit));
+            size.decrementAndGet();
+        }
+
+        int size() {
+            return size.get();
+        }
+
+        void forEach(IntConsumer action) {
+            AtomicLongArray[] current = containers;
+            for (int index = 0; index < current.length; index++) {
+                AtomicLongArray container = current[index];
+                if (container == null) {
+                    continue;
+                }
+                int base = index << CONTAINER_SHIFT;
+                for (int word = 0; word < WORDS; word++) {
+                    long bits = container.get(word);
+                    while (bits != 0) {
+                        action.accept(base + (word << 6) + Long.numberOfTrailingZeros(bits));
+                        bits &= bits - 1;
+                    }
+                }
+            }
+        }
+
+        private AtomicLongArray container(int index) {
+            AtomicLongArray[] current = containers;
+            if (index < current.length && current[index] != null) {
+                return current[index];
+            }
+            synchronized (this) {
+                AtomicLongArray[] grown = Arrays.copyOf(containers, Math.max(containers.length, index + 1));
+                if (grown[index] == null) {
+                    grown[index] = new AtomicLongArray(WORDS);
+                    containers = grown;
+                }
+                return containers[index];
+            }
+        }
+    }
+}
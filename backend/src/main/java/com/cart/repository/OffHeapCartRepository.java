@@ -0,0 +1,345 @@
+package com.cart.repository;
+
+import com.cart.config.CartStoreProperties;
+import com.cart.model.domain.Cart;
+import com.cart.model.domain.CartRecord;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Keeps cart records in direct-memory slabs so live carts add nothing to the
+ * heap the collector has to trace. An open-addressing index of primitive
+ * arrays maps a hash of the cart id to the record's slot; a {@link Cart} is
+ * only materialized when a request reads or mutates it, and written back on save.
+ * <p>
+ * The index is split into segments chosen by the high bits of the id hash,
+ * each with its own table and read-write lock. Reads share their segment's
+ * lock; writes, which may move a record to a larger slot or grow the
+ * segment's table, hold it exclusively. Carts in other segments are not held up.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(prefix = "cart.store", name = "type", havingValue = "offheap")
+public class OffHeapCartRepository implements CartRepository {
+    private static final long EMPTY = 0L;
+    private static final double MAX_LOAD = 0.6;
+    private static final int ITERATION_BATCH = 4096;
+    private static final int MAX_SEGMENTS = 1 << 16;
+
+    private final SlabAllocator allocator;
+    private final Segment[] segments;
+
+    public OffHeapCartRepository(CartStoreProperties properties) {
+        this.allocator = new SlabAllocator(properties.getSlabSizeBytes());
+        int segmentCount = powerOfTwoAtLeast(Math.min(Math.max(1, properties.getIndexSegments()), MAX_SEGMENTS));
+        int capacity = powerOfTwoAtLeast(Math.max(16, properties.getInitialCapacity() / segmentCount));
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(capacity);
+        }
+    }
+
+    @Autowired
+    public OffHeapCartRepository(CartStoreProperties properties, MeterRegistry meterRegistry) {
+        this(properties);
+        meterRegistry.gauge("cart.count", List.of(), this, OffHeapCartRepository::count);
+        meterRegistry.gauge("cart.store.offheap.reserved", List.of(), this, OffHeapCartRepository::reservedBytes);
+    }
+
+    @Override
+    public Cart save(Cart cart) {
+        byte[] idBytes = CartRecord.idBytes(cart.getId());
+        long hash = hash(idBytes);
+        Segment segment = segmentFor(hash);
+        segment.lock.writeLock().lock();
+        try {
+            segment.store(cart, idBytes, hash, segment.find(hash, idBytes));
+            return cart;
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Cart> findById(String id) {
+        byte[] idBytes = CartRecord.idBytes(id);
+        long hash = hash(idBytes);
+        Segment segment = segmentFor(hash);
+        segment.lock.readLock().lock();
+        try {
+            int slot = segment.find(hash, idBytes);
+            return slot >= 0 ? Optional.of(materialize(segment.addresses[slot])) : Optional.empty();
+        } finally {
+            segment.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Materializes the cart, applies the mutation and writes the record back,
+     * all under the write lock of the cart's segment. The result carries the
+     * materialized cart.
+     */
+    @Override
+    public CartUpdateResult update(String id, Long expectedVersion, CartMutation mutation) {
+        byte[] idBytes = CartRecord.idBytes(id);
+        long hash = hash(idBytes);
+        Segment segment = segmentFor(hash);
+        segment.lock.writeLock().lock();
+        try {
+            int slot = segment.find(hash, idBytes);
+            if (slot < 0) {
+                return CartUpdateResult.notFound();
+            }
+            Cart cart = materialize(segment.addresses[slot]);
+            if (expectedVersion != null && expectedVersion < cart.getVersion()) {
+                return CartUpdateResult.conflict(cart);
+            }
+            if (!mutation.apply(cart)) {
+                return CartUpdateResult.unchanged(cart);
+            }
+            segment.store(cart, idBytes, hash, slot);
+            return CartUpdateResult.applied(cart);
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteById(String id) {
+        byte[] idBytes = CartRecord.idBytes(id);
+        long hash = hash(idBytes);
+        Segment segment = segmentFor(hash);
+        segment.lock.writeLock().lock();
+        try {
+            int slot = segment.find(hash, idBytes);
+            if (slot >= 0) {
+                allocator.free(segment.addresses[slot]);
+                segment.removeSlot(slot);
+            }
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean exists(String id) {
+        byte[] idBytes = CartRecord.idBytes(id);
+        long hash = hash(idBytes);
+        Segment segment = segmentFor(hash);
+        segment.lock.readLock().lock();
+        try {
+            return segment.find(hash, idBytes) >= 0;
+        } finally {
+            segment.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int count() {
+        int count = 0;
+        for (Segment segment : segments) {
+            segment.lock.readLock().lock();
+            try {
+                count += segment.size;
+            } finally {
+                segment.lock.readLock().unlock();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Materializes carts a batch of slots at a time, one segment after another,
+     * under the segment's read lock. A batch always ends before an empty slot:
+     * backward-shift deletion never moves an entry across one, so no cart can
+     * slip behind the cursor. A resize restarts the segment, which may visit
+     * some of its carts twice.
+     */
+    @Override
+    public void forEach(Consumer<Cart> action) {
+        List<Cart> batch = new ArrayList<>(ITERATION_BATCH);
+        for (Segment segment : segments) {
+            long[] table = null;
+            int from = 0;
+            while (true) {
+                segment.lock.readLock().lock();
+                try {
+                    if (table != segment.hashes) {
+                        table = segment.hashes;
+                        from = 0;
+                    }
+                    if (from >= table.length) {
+                        break;
+                    }
+                    int to = Math.min(from + ITERATION_BATCH, table.length);
+                    while (to < table.length && table[to] != EMPTY) {
+                        to++;
+                    }
+                    for (int i = from; i < to; i++) {
+                        if (table[i] != EMPTY) {
+                            batch.add(materialize(segment.addresses[i]));
+                        }
+                    }
+                    from = to;
+                } finally {
+                    segment.lock.readLock().unlock();
+                }
+                batch.forEach(action);
+                batch.clear();
+            }
+        }
+    }
+
+    public long reservedBytes() {
+        return allocator.reservedBytes();
+    }
+
+    private Segment segmentFor(long hash) {
+        // High bits pick the segment; the segment's table probes from the low bits
+        return segments[(int) (hash >>> 48) & (segments.length - 1)];
+    }
+
+    private Cart materialize(long address) {
+        return CartRecord.read(allocator.buffer(address), allocator.offset(address));
+    }
+
+    /**
+     * 64-bit FNV-1a of the id bytes; zero is reserved for empty slots.
+     */
+    private static long hash(byte[] idBytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : idBytes) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash == EMPTY ? 1L : hash;
+    }
+
+    private static int spread(long hash) {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static int powerOfTwoAtLeast(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /**
+     * One independently locked part of the index. Its arrays and size are
+     * guarded by {@link #lock}.
+     */
+    private final class Segment {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private long[] hashes;
+        private long[] addresses;
+        private int size;
+
+        Segment(int capacity) {
+            this.hashes = new long[capacity];
+            this.addresses = new long[capacity];
+        }
+
+        /**
+         * Writes the record in place when it still fits its slot, otherwise moves it
+         * to a slot of the right size class. A negative {@code slot} inserts.
+         */
+        void store(Cart cart, byte[] idBytes, long hash, int slot) {
+            int recordSize = CartRecord.size(cart, idBytes);
+            long address;
+            if (slot >= 0 && allocator.capacity(addresses[slot]) >= recordSize
+                && allocator.capacity(addresses[slot]) <= Math.max(recordSize * 2, SlabAllocator.MIN_SLOT_BYTES)) {
+                address = addresses[slot];
+            } else {
+                address = allocator.allocate(recordSize);
+                if (slot >= 0) {
+                    allocator.free(addresses[slot]);
+                    addresses[slot] = address;
+                } else {
+                    insert(hash, address);
+                }
+            }
+            CartRecord.write(cart, idBytes, allocator.buffer(address), allocator.offset(address));
+        }
+
+        /**
+         * Linear probe for the id. Returns the index slot, or -1 if absent.
+         */
+        int find(long hash, byte[] idBytes) {
+            int mask = hashes.length - 1;
+            for (int i = spread(hash) & mask; hashes[i] != EMPTY; i = (i + 1) & mask) {
+                if (hashes[i] == hash) {
+                    long address = addresses[i];
+                    if (CartRecord.hasId(allocator.buffer(address), allocator.offset(address), idBytes)) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private void insert(long hash, long address) {
+            if (size + 1 > hashes.length * MAX_LOAD) {
+                resize();
+            }
+            int mask = hashes.length - 1;
+            int i = spread(hash) & mask;
+            while (hashes[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            hashes[i] = hash;
+            addresses[i] = address;
+            size++;
+        }
+
+        /**
+         * Backward-shift deletion: later entries of the probe run move up into the
+         * gap, so the table never needs tombstones.
+         */
+        void removeSlot(int slot) {
+            int mask = hashes.length - 1;
+            int gap = slot;
+            int i = (slot + 1) & mask;
+            while (hashes[i] != EMPTY) {
+                int home = spread(hashes[i]) & mask;
+                // Move the entry if its home is not cyclically within (gap, i]
+                if (((i - home) & mask) >= ((i - gap) & mask)) {
+                    hashes[gap] = hashes[i];
+                    addresses[gap] = addresses[i];
+                    gap = i;
+                }
+                i = (i + 1) & mask;
+            }
+            hashes[gap] = EMPTY;
+            addresses[gap] = 0L;
+            size--;
+        }
+
+        private void resize() {
+            long[] oldHashes = hashes;
+            long[] oldAddresses = addresses;
+            hashes = new long[oldHashes.length * 2];
+            addresses = new long[oldAddresses.length * 2];
+            int mask = hashes.length - 1;
+            for (int j = 0; j < oldHashes.length; j++) {
+                if (oldHashes[j] != EMPTY) {
+                    int i = spread(oldHashes[j]) & mask;
+                    while (hashes[i] != EMPTY) {
+                        i = (i + 1) & mask;
+                    }
+                    hashes[i] = oldHashes[j];
+                    addresses[i] = oldAddresses[j];
+                }
+            }
+            log.debug("Resized off-heap cart index segment to {} slots", hashes.length);
+        }
+    }
+}
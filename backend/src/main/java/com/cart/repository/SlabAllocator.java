@@ -0,0 +1,122 @@
+package com.cart.repository;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Hands out fixed-size slots carved from direct-memory slabs. Slot sizes are
+ * powers of two from {@link #MIN_SLOT_BYTES} up to the slab size; each size
+ * class keeps its own slabs and a stack of freed slots, so allocation and
+ * release are O(1) and never fragment a slab.
+ * <p>
+ * An address packs the size class, slab and slot index into one {@code long}.
+ * Allocation and release lock their size class only, and a new slab is
+ * published as a new slab array, so {@link #buffer} needs no lock. Callers
+ * serialize access to the bytes of any one slot.
+ */
+class SlabAllocator {
+    static final int MIN_SLOT_BYTES = 64;
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_SLOT_BYTES);
+
+    private final int slabSizeBytes;
+    private final SizeClass[] classes;
+
+    SlabAllocator(int slabSizeBytes) {
+        if (Integer.bitCount(slabSizeBytes) != 1 || slabSizeBytes < MIN_SLOT_BYTES) {
+            throw new IllegalArgumentException("Slab size must be a power of two of at least "
+                                               + MIN_SLOT_BYTES + " bytes: " + slabSizeBytes);
+        }
+        this.slabSizeBytes = slabSizeBytes;
+        this.classes = new SizeClass[Integer.numberOfTrailingZeros(slabSizeBytes) - MIN_SHIFT + 1];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = new SizeClass(MIN_SLOT_BYTES << i);
+        }
+    }
+
+    /**
+     * Returns the address of a free slot of at least {@code bytes}.
+     */
+    long allocate(int bytes) {
+        if (bytes > slabSizeBytes) {
+            throw new IllegalArgumentException("Record of " + bytes + " bytes exceeds slab size " + slabSizeBytes);
+        }
+        int sizeClass = sizeClassOf(bytes);
+        return address(sizeClass, classes[sizeClass].allocate());
+    }
+
+    void free(long address) {
+        classes[sizeClass(address)].free((int) address);
+    }
+
+    ByteBuffer buffer(long address) {
+        SizeClass sizeClass = classes[sizeClass(address)];
+        return sizeClass.slabs[((int) address) / sizeClass.slotsPerSlab];
+    }
+
+    int offset(long address) {
+        SizeClass sizeClass = classes[sizeClass(address)];
+        return (((int) address) % sizeClass.slotsPerSlab) * sizeClass.slotBytes;
+    }
+
+    int capacity(long address) {
+        return classes[sizeClass(address)].slotBytes;
+    }
+
+    /**
+     * Direct memory reserved across all slabs.
+     */
+    long reservedBytes() {
+        long total = 0;
+        for (SizeClass sizeClass : classes) {
+            total += (long) sizeClass.slabs.length * slabSizeBytes;
+        }
+        return total;
+    }
+
+    private static int sizeClassOf(int bytes) {
+        int rounded = Math.max(bytes, MIN_SLOT_BYTES);
+        return 32 - Integer.numberOfLeadingZeros(rounded - 1) - MIN_SHIFT;
+    }
+
+    private static long address(int sizeClass, int slot) {
+        return ((long) sizeClass << 32) | (slot & 0xFFFFFFFFL);
+    }
+
+    private static int sizeClass(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private final class SizeClass {
+        private final int slotBytes;
+        private final int slotsPerSlab;
+        // Replaced, never written, when a slab is added
+        private volatile ByteBuffer[] slabs = new ByteBuffer[0];
+        private int[] freeSlots = new int[16];
+        private int freeCount;
+        private int nextUnused;
+
+        SizeClass(int slotBytes) {
+            this.slotBytes = slotBytes;
+            this.slotsPerSlab = slabSizeBytes / slotBytes;
+        }
+
+        synchronized int allocate() {
+            if (freeCount > 0) {
+                return freeSlots[--freeCount];
+            }
+            if (nextUnused == slabs.length * slotsPerSlab) {
+                ByteBuffer[] grown = Arrays.copyOf(slabs, slabs.length + 1);
+                grown[slabs.length] = ByteBuffer.allocateDirect(slabSizeBytes);
+                slabs = grown;
+            }
+            return nextUnused++;
+        }
+
+        synchronized void free(int slot) {
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+        }
+    }
+}
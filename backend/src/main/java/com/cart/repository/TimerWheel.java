@@ -0,0 +1,172 @@
+package com.cart.repository;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical hashed timer wheel. Scheduling and cancelling are O(1); each tick
+ * only touches the bucket that is due, plus a coarser bucket being cascaded down
+ * once every 64, 4096 or 262144 ticks. Deadlines beyond the top level are clamped
+ * and re-placed when they come due.
+ * <p>
+ * Not thread-safe; callers serialize access.
+ */
+class TimerWheel<T> {
+    private static final int BITS = 6;
+    private static final int BUCKETS = 1 << BITS;
+    private static final int MASK = BUCKETS - 1;
+    private static final int LEVELS = 4;
+    private static final long SPAN = 1L << (BITS * LEVELS);
+
+    private final Node<T>[][] wheel;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TimerWheel(long startTick) {
+        this.wheel = new Node[LEVELS][BUCKETS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int i = 0; i < BUCKETS; i++) {
+                Node<T> sentinel = new Node<>(null);
+                sentinel.prev = sentinel;
+                sentinel.next = sentinel;
+                wheel[level][i] = sentinel;
+            }
+        }
+        this.currentTick = startTick;
+    }
+
+    /**
+     * Schedules {@code node} to fire at {@code deadlineTick}, moving it if it is
+     * already scheduled. Past deadlines fire on the next tick.
+     */
+    void schedule(Node<T> node, long deadlineTick) {
+        cancel(node);
+        node.deadlineTick = deadlineTick;
+        place(node, currentTick + 1);
+        size++;
+    }
+
+    void cancel(Node<T> node) {
+        if (node.next != null) {
+            unlink(node);
+            size--;
+        }
+    }
+
+    /**
+     * Processes every tick up to {@code nowTick}, handing nodes that are due to
+     * {@code expired}. Fired nodes are unscheduled and may be scheduled again.
+     */
+    void advance(long nowTick, Consumer<Node<T>> expired) {
+        while (currentTick < nowTick) {
+            long tick = currentTick + 1;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((tick & ((1L << (BITS * level)) - 1)) == 0) {
+                    Node<T> node = detach(wheel[level][index(tick, level)]);
+                    while (node != null) {
+                        Node<T> next = node.next;
+                        place(node, tick);
+                        node = next;
+                    }
+                }
+            }
+            Node<T> node = detach(wheel[0][index(tick, 0)]);
+            currentTick = tick;
+            while (node != null) {
+                Node<T> next = node.next;
+                if (node.deadlineTick > tick) {
+                    // Clamped far deadline; not actually due yet
+                    place(node, tick + 1);
+                } else {
+                    node.next = null;
+                    node.prev = null;
+                    size--;
+                    expired.accept(node);
+                }
+                node = next;
+            }
+        }
+    }
+
+    long getCurrentTick() {
+        return currentTick;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Empties a bucket, returning its nodes as a list chained through {@code next}
+     * and terminated by {@code null}.
+     */
+    private Node<T> detach(Node<T> sentinel) {
+        if (sentinel.next == sentinel) {
+            return null;
+        }
+        Node<T> first = sentinel.next;
+        sentinel.prev.next = null;
+        sentinel.next = sentinel;
+        sentinel.prev = sentinel;
+        return first;
+    }
+
+    /**
+     * Links {@code node} into the bucket for its deadline, where {@code base} is
+     * the earliest tick that has not fired yet.
+     */
+    private void place(Node<T> node, long base) {
+        long deadline = Math.max(node.deadlineTick, base);
+        long delta = deadline - base;
+        if (delta >= SPAN) {
+            deadline = base + SPAN - 1;
+            delta = SPAN - 1;
+        }
+        int level = 0;
+        while (delta >= (1L << (BITS * (level + 1)))) {
+            level++;
+        }
+        link(wheel[level][index(deadline, level)], node);
+    }
+
+    private static int index(long tick, int level) {
+        return (int) ((tick >>> (BITS * level)) & MASK);
+    }
+
+    private static <T> void link(Node<T> sentinel, Node<T> node) {
+        node.prev = sentinel.prev;
+        node.next = sentinel;
+        sentinel.prev.next = node;
+        sentinel.prev = node;
+    }
+
+    private static <T> void unlink(Node<T> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.next = null;
+        node.prev = null;
+    }
+
+    static final class Node<T> {
+        private final T value;
+        private long deadlineTick;
+        private Node<T> prev;
+        private Node<T> next;
+
+        Node(T value) {
+            this.value = value;
+        }
+
+        T getValue() {
+            return value;
+        }
+
+        long getDeadlineTick() {
+            return deadlineTick;
+        }
+
+        boolean isScheduled() {
+            return next != null;
+        }
+    }
+}
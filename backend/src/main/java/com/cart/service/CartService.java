@@ -1,39 +1,80 @@
 package com.cart.service;
 
-import com.cart.config.PricingProperties;
+import com.cart.config.CartConcurrencyProperties;
+import com.cart.config.CartSyncProperties;
+import com.cart.config.CartTotalsProperties;
 import com.cart.exception.CartException;
+import com.cart.journal.CartJournal;
+import com.cart.journal.JournalEntry;
 import com.cart.model.domain.Cart;
+import com.cart.model.domain.ItemIds;
+import com.cart.model.domain.OperationWindow;
 import com.cart.model.dto.SyncRequest;
 import com.cart.model.dto.SyncResponse;
 import com.cart.model.event.CartEvent;
+import com.cart.model.event.CartEvictedEvent;
+import com.cart.repository.CartMutation;
 import com.cart.repository.CartRepository;
-import com.cart.service.pricing.PricingStrategy;
+import com.cart.repository.CartUpdateResult;
+import com.cart.repository.ItemCartIndex;
+import com.cart.service.concurrency.CartExecutor;
+import com.cart.service.pricing.PricingCatalog;
+import com.cart.service.pricing.PricingPipeline;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class CartService {
+    private static final Set<String> SYNC_OPERATION_TYPES = Set.of("ADD", "REMOVE", "CLEAR");
+
     private final CartRepository cartRepository;
-    private final Map<String, PricingStrategy> pricingStrategies;
-    private final PricingProperties pricingProperties;
+    private final PricingCatalog pricingCatalog;
     private final ApplicationEventPublisher eventPublisher;
+    private final CartExecutor cartExecutor;
+    private final CartConcurrencyProperties concurrencyProperties;
+    private final CartTotalsProperties totalsProperties;
+    private final CartSyncProperties syncProperties;
+    private final CartJournal cartJournal;
+    private final ItemCartIndex itemIndex;
 
     public Cart createCart() {
-        Cart cart = new Cart();
+        return createCart(new Cart());
+    }
+
+    /**
+     * Creates an empty cart under a caller-chosen id, e.g. one owned by this
+     * cluster node.
+     */
+    public Cart createCart(String cartId) {
+        return createCart(new Cart(cartId));
+    }
+
+    private Cart createCart(Cart cart) {
         log.debug("Created new cart: {}", cart.getId());
-        return cartRepository.save(cart);
+        cart = cartRepository.save(cart);
+        long position;
+        try {
+            position = cartJournal.append(JournalEntry.create(cart.getId(), cart.getVersion()));
+        } catch (RuntimeException e) {
+            cartRepository.deleteById(cart.getId());
+            throw e;
+        }
+        cartJournal.awaitDurable(position);
+        return cart;
     }
 
     public Cart getCart(String cartId) {
@@ -42,110 +83,605 @@ public class CartService {
     }
 
     public Cart addItem(Cart cart, String itemName) {
-        validateItem(itemName);
+        return requireCart(cart.getId(), addItem(cart.getId(), itemName, null));
+    }
 
-        var itemConfig = pricingProperties.getItems().get(itemName);
-        Cart.CartItem cartItem = cart.addItem(itemName, itemConfig.getBasePrice());
-        cartItem.incrementQuantity();
+    public CartUpdateResult addItem(String cartId, String itemName, Long clientVersion) {
+        return addItem(cartId, itemName, 1, clientVersion);
+    }
 
-        BigDecimal itemTotal = calculateItemPrice(itemName, cartItem.getQuantity());
-        cartItem.updatePrice(itemTotal);
+    /**
+     * Adds {@code quantity} units in one step: one reprice at the final
+     * quantity, one version bump, one journal entry and one event.
+     */
+    public CartUpdateResult addItem(String cartId, String itemName, int quantity, Long clientVersion) {
+        resolveItem(itemName);
+        checkAddQuantity(quantity);
+        return update(cartId, clientVersion, false,
+                      cart -> applyAdd(cart, resolveItem(itemName), quantity),
+                      CartEvent.CartEventType.ITEM_ADDED, itemName);
+    }
 
-        updateCartTotal(cart);
-        cart = cartRepository.save(cart);
+    /**
+     * {@link #addItem(String, String, int, Long)} without holding the calling
+     * thread: completes once the add is applied and durable.
+     */
+    public CompletableFuture<CartUpdateResult> addItemAsync(String cartId, String itemName, int quantity,
+                                                            Long clientVersion) {
+        resolveItem(itemName);
+        checkAddQuantity(quantity);
+        return updateAsync(cartId, clientVersion, false,
+                           cart -> applyAdd(cart, resolveItem(itemName), quantity),
+                           CartEvent.CartEventType.ITEM_ADDED, itemName);
+    }
 
-        publishEvent(cart, CartEvent.CartEventType.ITEM_ADDED, itemName);
+    /**
+     * Sets the line to exactly {@code quantity}; zero removes it. Setting is
+     * idempotent, so a stale version is retried like a remove.
+     */
+    public CartUpdateResult setItemQuantity(String cartId, String itemName, int quantity, Long clientVersion) {
+        if (quantity < 0) {
+            throw new CartException("Quantity must not be negative: " + quantity);
+        }
+        if (quantity == 0) {
+            return removeItem(cartId, itemName, clientVersion);
+        }
+        checkLineQuantity(resolveItem(itemName), quantity);
+        return update(cartId, clientVersion, true,
+                      cart -> applySet(cart, resolveItem(itemName), quantity),
+                      CartEvent.CartEventType.ITEM_UPDATED, itemName);
+    }
 
-        return cart;
+    public CompletableFuture<CartUpdateResult> setItemQuantityAsync(String cartId, String itemName, int quantity,
+                                                                    Long clientVersion) {
+        if (quantity < 0) {
+            throw new CartException("Quantity must not be negative: " + quantity);
+        }
+        if (quantity == 0) {
+            return removeItemAsync(cartId, itemName, clientVersion);
+        }
+        checkLineQuantity(resolveItem(itemName), quantity);
+        return updateAsync(cartId, clientVersion, true,
+                           cart -> applySet(cart, resolveItem(itemName), quantity),
+                           CartEvent.CartEventType.ITEM_UPDATED, itemName);
     }
 
     public Cart removeItem(Cart cart, String itemName) {
-        Cart.CartItem item = cart.getItems().remove(itemName);
-        if (item != null) {
-            updateCartTotal(cart);
-            cart = cartRepository.save(cart);
-            publishEvent(cart, CartEvent.CartEventType.ITEM_REMOVED, itemName);
-        }
-        return cart;
+        return requireCart(cart.getId(), removeItem(cart.getId(), itemName, null));
+    }
+
+    public CartUpdateResult removeItem(String cartId, String itemName, Long clientVersion) {
+        return update(cartId, clientVersion, true,
+                      cart -> applyRemove(cart, itemName), CartEvent.CartEventType.ITEM_REMOVED, itemName);
+    }
+
+    public CompletableFuture<CartUpdateResult> removeItemAsync(String cartId, String itemName, Long clientVersion) {
+        return updateAsync(cartId, clientVersion, true,
+                           cart -> applyRemove(cart, itemName), CartEvent.CartEventType.ITEM_REMOVED, itemName);
     }
 
     public void clearCart(Cart cart) {
-        cart.getItems().clear();
-        updateCartTotal(cart);
-        cart = cartRepository.save(cart);
-        publishEvent(cart, CartEvent.CartEventType.CART_CLEARED, null);
+        requireCart(cart.getId(), clearCart(cart.getId(), null));
+    }
+
+    public CartUpdateResult clearCart(String cartId, Long clientVersion) {
+        return update(cartId, clientVersion, true,
+                      this::applyClear, CartEvent.CartEventType.CART_CLEARED, null);
     }
 
+    public CompletableFuture<CartUpdateResult> clearCartAsync(String cartId, Long clientVersion) {
+        return updateAsync(cartId, clientVersion, true,
+                           this::applyClear, CartEvent.CartEventType.CART_CLEARED, null);
+    }
+
+    /**
+     * Reprices the cart's lines for {@code changedItems} with the current
+     * pipelines, bumps the version and publishes {@code PRICE_UPDATED}.
+     * Unlike other mutations this does not wait for the journal, so a caller
+     * repricing many carts can wait once at the end.
+     *
+     * @return {@code true} if the cart held any of the items
+     */
+    public boolean repriceCart(String cartId, BitSet changedItems) {
+        return cartExecutor.execute(cartId, () -> {
+            Cart[] before = new Cart[1];
+            CartUpdateResult result = updateSaving(cartId, null, cart -> applyReprice(cart, changedItems), before);
+            if (result.isApplied()) {
+                recordOrRestore(before[0], () ->
+                    recordMutation(result.getCart(), CartEvent.CartEventType.PRICE_UPDATED, null));
+            }
+            return result.isApplied();
+        });
+    }
+
+    /**
+     * Journals evictions so recovery does not bring evicted carts back, and
+     * drops the cart from the item index under its lock so a racing mutation
+     * cannot re-index it afterwards. Nothing waits for the index update, so
+     * an eviction never blocks on another cart's executor.
+     */
+    @EventListener
+    public void handleCartEvicted(CartEvictedEvent event) {
+        cartJournal.append(JournalEntry.delete(event.getCartId()));
+        cartExecutor.submit(event.getCartId(), () -> {
+            itemIndex.removeCart(event.getCartId());
+            return null;
+        });
+    }
+
+    /**
+     * Recomputes the cart total from its lines and returns the drift that was corrected.
+     */
+    public long verifyTotal(String cartId) {
+        long[] drift = new long[1];
+        CartUpdateResult result = cartExecutor.execute(cartId, () -> cartRepository.update(cartId, null, cart -> {
+            drift[0] = reconcileTotal(cart);
+            return drift[0] != 0;
+        }));
+        if (result.isNotFound()) {
+            throw new CartException("Cart not found: " + cartId);
+        }
+        return drift[0];
+    }
+
+    /**
+     * Applies an offline queue. Operations whose id is in the cart's recent
+     * window are skipped, invalid ones are rejected, and the rest are applied;
+     * the response reports the outcome of each so a client can resume.
+     */
     public SyncResponse syncOperations(String cartId, List<SyncRequest.PendingOperation> operations) {
-        Cart cart = getCart(cartId);
-        int syncedCount = 0;
-
-        for (SyncRequest.PendingOperation op : operations) {
-            try {
-                switch (op.getType()) {
-                    case "ADD":
-                        cart = addItem(cart, op.getItem());
-                        syncedCount++;
-                        break;
-                    case "REMOVE":
-                        cart = removeItem(cart, op.getItem());
-                        syncedCount++;
-                        break;
-                    case "CLEAR":
-                        clearCart(cart);
-                        syncedCount++;
-                        break;
-                    default:
-                        log.warn("Unknown operation type: {}", op.getType());
-                }
-            } catch (Exception e) {
-                log.error("Failed to sync operation: {}", op, e);
-                throw new CartException("Sync failed at operation " + syncedCount);
+        return executeDurably(cartId, syncTask(cartId, operations));
+    }
+
+    public CompletableFuture<SyncResponse> syncOperationsAsync(String cartId,
+                                                               List<SyncRequest.PendingOperation> operations) {
+        return executeDurablyAsync(cartId, syncTask(cartId, operations));
+    }
+
+    private Supplier<SyncResponse> syncTask(String cartId, List<SyncRequest.PendingOperation> operations) {
+        if (syncProperties.isBatch()) {
+            return () -> applyBatch(cartId, operations);
+        }
+        return () -> replayOperations(cartId, operations);
+    }
+
+    /**
+     * Folds the accepted operations into a {@link SyncPlan} and applies it
+     * with a single version bump, store update and event. Like every other
+     * mutation it runs inside {@link CartRepository#update}, so a cart evicted
+     * meanwhile is reported missing instead of being stored again.
+     */
+    private SyncResponse applyBatch(String cartId, List<SyncRequest.PendingOperation> operations) {
+        SyncReport[] report = new SyncReport[1];
+        boolean[] changed = new boolean[1];
+        long epoch = pricingCatalog.getEpoch();
+        Cart[] before = new Cart[1];
+        CartUpdateResult result = updateSaving(cartId, null, cart -> {
+            SyncPlan plan = new SyncPlan(itemIds());
+            report[0] = new SyncReport(operations.size());
+            for (int i = 0; i < operations.size(); i++) {
+                processOperation(cart, i, operations.get(i), report[0], op -> {
+                    switch (op.getType()) {
+                        case "ADD":
+                            PricingPipeline pipeline = resolveItem(op.getItem());
+                            int quantity = syncQuantity(op);
+                            checkLineQuantity(pipeline, (long) plan.quantityAfter(cart, pipeline) + quantity);
+                            plan.add(pipeline, quantity);
+                            break;
+                        case "REMOVE":
+                            plan.remove(op.getItem());
+                            break;
+                        default:
+                            plan.clear();
+                    }
+                });
             }
+            changed[0] = !plan.isEmpty() && plan.applyTo(cart);
+            if (changed[0]) {
+                completeMutation(cart);
+            }
+            // Store the cart if only the dedup window changed, too
+            return changed[0] || report[0].hasApplied();
+        }, before);
+        Cart cart = requireCart(cartId, result);
+        List<String> operationIds = report[0].appliedOperationIds();
+        if (changed[0]) {
+            recordOrRestore(before[0], () ->
+                recordMutation(result.getCart(), CartEvent.CartEventType.CART_SYNCED, null, operationIds));
+            cart = repriceIfReloaded(cart, epoch);
+        } else if (!operationIds.isEmpty()) {
+            // Only the dedup window changed; journal it so a retry after a restart is still skipped
+            recordOrRestore(before[0], () -> cartJournal.append(syncEntry(result.getCart(), operationIds)));
         }
+        return report[0].toResponse(cart.getVersion());
+    }
 
-        return new SyncResponse("success", cart.getVersion(), syncedCount);
+    /**
+     * Applies the operations one store update at a time, journaling and
+     * publishing each like the matching single-item call would.
+     */
+    private SyncResponse replayOperations(String cartId, List<SyncRequest.PendingOperation> operations) {
+        SyncReport report = new SyncReport(operations.size());
+        Cart cart = null;
+        for (int i = 0; i < operations.size(); i++) {
+            int index = i;
+            SyncRequest.PendingOperation operation = operations.get(i);
+            boolean[] changed = new boolean[1];
+            long epoch = pricingCatalog.getEpoch();
+            Cart[] before = new Cart[1];
+            CartUpdateResult result = updateSaving(cartId, null, current ->
+                processOperation(current, index, operation, report, op -> changed[0] = replayStep(current, op)),
+                before);
+            cart = requireCart(cartId, result);
+            List<String> operationIds = operation.getOperationId() != null && result.isApplied()
+                ? List.of(operation.getOperationId()) : List.of();
+            if (changed[0]) {
+                recordOrRestore(before[0], () ->
+                    recordMutation(result.getCart(), replayEventType(operation), operation.getItem(), operationIds));
+                cart = repriceIfReloaded(cart, epoch);
+            } else if (!operationIds.isEmpty()) {
+                recordOrRestore(before[0], () -> cartJournal.append(syncEntry(result.getCart(), operationIds)));
+            }
+        }
+        return report.toResponse(cart != null ? cart.getVersion() : getCart(cartId).getVersion());
     }
 
-    private void validateItem(String itemName) {
-        if (!pricingProperties.getItems().containsKey(itemName)) {
-            throw new CartException("Invalid item: " + itemName);
+    private boolean replayStep(Cart cart, SyncRequest.PendingOperation op) {
+        switch (op.getType()) {
+            case "ADD":
+                return applyAdd(cart, resolveItem(op.getItem()), syncQuantity(op));
+            case "REMOVE":
+                return applyRemove(cart, op.getItem());
+            default:
+                return applyClear(cart);
         }
     }
 
-    private void updateCartTotal(Cart cart) {
-        BigDecimal total = cart.getItems().values().stream()
-                               .map(Cart.CartItem::getTotalPrice)
-                               .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private static CartEvent.CartEventType replayEventType(SyncRequest.PendingOperation op) {
+        switch (op.getType()) {
+            case "ADD":
+                return CartEvent.CartEventType.ITEM_ADDED;
+            case "REMOVE":
+                return CartEvent.CartEventType.ITEM_REMOVED;
+            default:
+                return CartEvent.CartEventType.CART_CLEARED;
+        }
+    }
 
-        cart.setTotal(total.setScale(2, RoundingMode.HALF_UP));
-        cart.incrementVersion();
+    /**
+     * Skips, rejects or applies one operation and records the outcome.
+     * Returns whether it was applied, i.e. whether the cart's dedup window or
+     * lines may have changed.
+     */
+    private boolean processOperation(Cart cart, int index, SyncRequest.PendingOperation op, SyncReport report,
+                                     Consumer<SyncRequest.PendingOperation> step) {
+        OperationWindow window = cart.operationWindow(syncProperties.getDedupWindow());
+        String operationId = op.getOperationId();
+        if (operationId != null && window.contains(operationId)) {
+            report.skipped(index, op);
+            return false;
+        }
+        if (!SYNC_OPERATION_TYPES.contains(String.valueOf(op.getType()))) {
+            log.warn("Unknown operation type: {}", op.getType());
+            report.rejected(index, op, "Unknown operation type: " + op.getType());
+            return false;
+        }
+        try {
+            step.accept(op);
+        } catch (CartException e) {
+            log.warn("Rejected sync operation {}: {}", op, e.getMessage());
+            report.rejected(index, op, e.getMessage());
+            return false;
+        }
+        if (operationId != null) {
+            window.record(operationId);
+        }
+        report.applied(index, op);
+        return true;
     }
 
-    private BigDecimal calculateItemPrice(String itemName, int quantity) {
-        var itemConfig = pricingProperties.getItems().get(itemName);
-        if (itemConfig == null) {
-            throw new CartException("Invalid item: " + itemName);
+    private ItemIds itemIds() {
+        return pricingCatalog.getItemIds();
+    }
+
+    private static Cart requireCart(String cartId, CartUpdateResult result) {
+        if (result.isNotFound()) {
+            throw new CartException("Cart not found: " + cartId);
         }
+        return result.getCart();
+    }
 
-        List<PricingProperties.StrategyConfig> strategies =
-            pricingProperties.getItemStrategies(itemName);
-        BigDecimal currentPrice = itemConfig.getBasePrice();
+    /**
+     * Version-checked mutation of a stored cart. Idempotent operations may be
+     * re-applied against the latest version when the client's version is stale.
+     */
+    private CartUpdateResult update(String cartId, Long clientVersion, boolean idempotent,
+                                    CartMutation mutation, CartEvent.CartEventType eventType, String itemName) {
+        return executeDurably(cartId, updateTask(cartId, clientVersion, idempotent, mutation, eventType, itemName));
+    }
 
-        // Sort strategies by priority and apply each one
-        List<PricingProperties.StrategyConfig> sortedStrategies = strategies.stream()
-                                                                            .sorted(
-                                                                                Comparator.comparing(PricingProperties.StrategyConfig::getPriority))
-                                                                            .collect(Collectors.toList());
+    private CompletableFuture<CartUpdateResult> updateAsync(String cartId, Long clientVersion, boolean idempotent,
+                                                            CartMutation mutation, CartEvent.CartEventType eventType,
+                                                            String itemName) {
+        return executeDurablyAsync(cartId,
+                                   updateTask(cartId, clientVersion, idempotent, mutation, eventType, itemName));
+    }
+
+    private Supplier<CartUpdateResult> updateTask(String cartId, Long clientVersion, boolean idempotent,
+                                                  CartMutation mutation, CartEvent.CartEventType eventType,
+                                                  String itemName) {
+        return () -> {
+            long epoch = pricingCatalog.getEpoch();
+            Cart[] before = new Cart[1];
+            CartUpdateResult result = updateSaving(cartId, clientVersion, mutation, before);
+            if (result.isConflict() && idempotent && concurrencyProperties.isRetryIdempotentOnConflict()) {
+                log.debug("Retrying idempotent {} on cart {} at version {}",
+                          eventType, cartId, result.getCurrentVersion());
+                result = updateSaving(cartId, result.getCurrentVersion(), mutation, before);
+            }
+            if (result.isApplied()) {
+                Cart applied = result.getCart();
+                recordOrRestore(before[0], () -> recordMutation(applied, eventType, itemName));
+                result = CartUpdateResult.applied(repriceIfReloaded(applied, epoch));
+            }
+            return result;
+        };
+    }
+
+    private boolean applyAdd(Cart cart, PricingPipeline pipeline, int added) {
+        int current = cart.quantityOf(pipeline.getItemId());
+        checkLineQuantity(pipeline, (long) current + added);
+        int quantity = current + added;
+        cart.putLine(pipeline.getItemId(), quantity, pipeline.calculatePriceCents(quantity));
+
+        completeMutation(cart);
+        return true;
+    }
 
-        for (PricingProperties.StrategyConfig strategyConfig : sortedStrategies) {
-            PricingStrategy strategy = pricingStrategies.get(strategyConfig.getType());
-            if (strategy != null) {
-                currentPrice = strategy.calculatePrice(quantity, currentPrice);
+    private boolean applySet(Cart cart, PricingPipeline pipeline, int quantity) {
+        if (cart.quantityOf(pipeline.getItemId()) == quantity) {
+            return false;
+        }
+        cart.putLine(pipeline.getItemId(), quantity, pipeline.calculatePriceCents(quantity));
+
+        completeMutation(cart);
+        return true;
+    }
+
+    private boolean applyRemove(Cart cart, String itemName) {
+        int itemId = itemIds().find(itemName);
+        if (itemId == ItemIds.UNKNOWN || !cart.removeLine(itemId)) {
+            return false;
+        }
+        completeMutation(cart);
+        return true;
+    }
+
+    /**
+     * The version is bumped even if no line total moves: the unit prices in the
+     * cart's representation changed.
+     */
+    private boolean applyReprice(Cart cart, BitSet changedItems) {
+        boolean[] touched = new boolean[1];
+        cart.forEachLine((itemId, quantity, lineTotalCents) -> {
+            if (!changedItems.get(itemId)) {
+                return;
+            }
+            touched[0] = true;
+            PricingPipeline pipeline = pricingCatalog.get(itemIds().name(itemId));
+            if (pipeline != null) {
+                cart.putLine(itemId, quantity, pipeline.calculatePriceCents(quantity));
             }
+        });
+        if (!touched[0]) {
+            return false;
+        }
+        completeMutation(cart);
+        return true;
+    }
+
+    /**
+     * A reload swaps pipelines, then reads the item index to find the carts to
+     * reprice. A mutation that resolved a pipeline before the swap but indexed
+     * its line after that read is missed, so the mutation checks the epoch it
+     * read before resolving once its lines are indexed, and reprices every
+     * line itself if a reload came in between. Runs under the cart's lock.
+     *
+     * @return the cart as it is now stored
+     */
+    private Cart repriceIfReloaded(Cart cart, long epoch) {
+        if (pricingCatalog.getEpoch() == epoch) {
+            return cart;
+        }
+        BitSet lines = new BitSet();
+        cart.forEachLine((itemId, quantity, lineTotalCents) -> lines.set(itemId));
+        Cart[] before = new Cart[1];
+        CartUpdateResult result = updateSaving(cart.getId(), null, current -> applyReprice(current, lines), before);
+        if (!result.isApplied()) {
+            return cart;
+        }
+        recordOrRestore(before[0], () -> recordMutation(result.getCart(), CartEvent.CartEventType.PRICE_UPDATED, null));
+        return result.getCart();
+    }
+
+    /**
+     * {@link CartRepository#update} that keeps a copy of the cart as it was
+     * before the mutation in {@code before}, for {@link #recordOrRestore}.
+     */
+    private CartUpdateResult updateSaving(String cartId, Long expectedVersion, CartMutation mutation,
+                                          Cart[] before) {
+        return cartRepository.update(cartId, expectedVersion, cart -> {
+            before[0] = cart.copy();
+            return mutation.apply(cart);
+        });
+    }
+
+    /**
+     * Records an applied mutation. If that throws, typically because the
+     * journal rejected the entry, the cart is put back to {@code before} so
+     * the store never holds a change the journal does not. Nothing is indexed
+     * or published before the journal accepts the entry.
+     */
+    private void recordOrRestore(Cart before, Runnable record) {
+        try {
+            record.run();
+        } catch (RuntimeException e) {
+            cartRepository.update(before.getId(), null, cart -> {
+                cart.restore(before);
+                return true;
+            });
+            throw e;
+        }
+    }
+
+    private boolean applyClear(Cart cart) {
+        cart.clearLines();
+        completeMutation(cart);
+        return true;
+    }
+
+    private void checkAddQuantity(long quantity) {
+        if (quantity < 1) {
+            throw new CartException("Quantity must be positive: " + quantity);
+        }
+    }
+
+    private void checkLineQuantity(PricingPipeline pipeline, long quantity) {
+        if (quantity > pricingCatalog.getMaxQuantity()) {
+            throw new CartException("Quantity of " + pipeline.getItemName() + " cannot exceed "
+                                    + pricingCatalog.getMaxQuantity());
+        }
+    }
+
+    private int syncQuantity(SyncRequest.PendingOperation op) {
+        int quantity = op.getQuantity() != null ? op.getQuantity() : 1;
+        checkAddQuantity(quantity);
+        return quantity;
+    }
+
+    /**
+     * Public entry points call this up front to reject unknown items early, and
+     * mutations call it again under the cart's lock so a line added while a
+     * pricing reload is repricing carts is priced by the new pipeline.
+     */
+    private PricingPipeline resolveItem(String itemName) {
+        PricingPipeline pipeline = pricingCatalog.get(itemName);
+        if (pipeline == null) {
+            throw new CartException("Invalid item: " + itemName);
         }
+        return pipeline;
+    }
+
+    /**
+     * Bumps the version and, every {@code verifyInterval} versions, re-sums the
+     * lines to catch any drift in the running total.
+     */
+    private void completeMutation(Cart cart) {
+        cart.incrementVersion();
+        int interval = totalsProperties.getVerifyInterval();
+        if (interval > 0 && cart.getVersion() % interval == 0) {
+            reconcileTotal(cart);
+        }
+    }
+
+    private long reconcileTotal(Cart cart) {
+        long drift = cart.recomputeTotal();
+        if (drift != 0) {
+            log.warn("Corrected running total drift of {} on cart {}", drift, cart.getId());
+        }
+        return drift;
+    }
 
-        return currentPrice.setScale(2, RoundingMode.HALF_UP);
+    /**
+     * Runs a mutation under the cart's lock, then waits outside the lock until
+     * its journal entries are durable so other carts' writes can share the flush.
+     */
+    private <T> T executeDurably(String cartId, Supplier<T> task) {
+        long[] position = new long[1];
+        T result = cartExecutor.execute(cartId, () -> {
+            T value = task.get();
+            position[0] = cartJournal.position();
+            return value;
+        });
+        cartJournal.awaitDurable(position[0]);
+        return result;
+    }
+
+    /**
+     * Like {@link #executeDurably}, but hands the task to the executor and
+     * chains the journal wait instead of blocking on either.
+     */
+    private <T> CompletableFuture<T> executeDurablyAsync(String cartId, Supplier<T> task) {
+        long[] position = new long[1];
+        return cartExecutor.submit(cartId, () -> {
+            T value = task.get();
+            position[0] = cartJournal.position();
+            return value;
+        }).thenCompose(value -> cartJournal.whenDurable(position[0]).thenApply(durable -> value));
+    }
+
+    private void recordMutation(Cart cart, CartEvent.CartEventType type, String itemName) {
+        recordMutation(cart, type, itemName, List.of());
+    }
+
+    /**
+     * Journals the mutation's resulting state, updates the item index, then
+     * publishes it. Adds and quantity changes are journaled as the line's new
+     * state, a reprice as the state of every line; a sync batch is journaled
+     * as one entry holding every remaining line. The entry also carries the
+     * client operation ids the mutation applied.
+     */
+    private void recordMutation(Cart cart, CartEvent.CartEventType type, String itemName,
+                                List<String> operationIds) {
+        String cartId = cart.getId();
+        long version = cart.getVersion();
+        switch (type) {
+            case ITEM_ADDED:
+            case ITEM_UPDATED:
+                int itemId = itemIds().find(itemName);
+                JournalEntry added = JournalEntry.add(cartId, itemName, cart.quantityOf(itemId),
+                                                      cart.lineTotalCents(itemId), version);
+                added.setOperationIds(operationIds);
+                cartJournal.append(added);
+                itemIndex.add(cartId, itemId);
+                break;
+            case ITEM_REMOVED:
+                JournalEntry removed = JournalEntry.remove(cartId, itemName, version);
+                removed.setOperationIds(operationIds);
+                cartJournal.append(removed);
+                if (cart.lineCount() == 0) {
+                    itemIndex.removeCart(cartId);
+                } else {
+                    itemIndex.remove(cartId, itemIds().find(itemName));
+                }
+                break;
+            case CART_CLEARED:
+                JournalEntry cleared = JournalEntry.clear(cartId, version);
+                cleared.setOperationIds(operationIds);
+                cartJournal.append(cleared);
+                itemIndex.removeCart(cartId);
+                break;
+            case PRICE_UPDATED:
+                cart.forEachLine((lineItemId, quantity, lineTotalCents) ->
+                    cartJournal.append(JournalEntry.add(cartId, itemIds().name(lineItemId), quantity,
+                                                        lineTotalCents, version)));
+                break;
+            case CART_SYNCED:
+                cartJournal.append(syncEntry(cart, operationIds));
+                itemIndex.removeCart(cartId);
+                cart.forEachLine((lineItemId, quantity, lineTotalCents) -> itemIndex.add(cartId, lineItemId));
+                break;
+            default:
+                break;
+        }
+        publishEvent(cart, type, itemName);
+    }
+
+    private JournalEntry syncEntry(Cart cart, List<String> operationIds) {
+        List<JournalEntry.Line> lines = new ArrayList<>(cart.lineCount());
+        cart.forEachLine((itemId, quantity, lineTotalCents) ->
+            lines.add(new JournalEntry.Line(itemIds().name(itemId), quantity, lineTotalCents)));
+        return JournalEntry.sync(cart.getId(), lines, operationIds, cart.getVersion());
     }
 
     private void publishEvent(Cart cart, CartEvent.CartEventType type, String itemName) {
@@ -153,10 +689,26 @@ public class CartService {
             cart.getId(),
             type,
             itemName,
-            itemName != null ? cart.getItems().get(itemName).getQuantity() : 0,
+            quantityOf(cart, itemName),
             cart.getTotal(),
-            cart.getVersion()
+            cart.getVersion(),
+            type.carriesLines() ? eventLines(cart) : null
         );
         eventPublisher.publishEvent(event);
     }
+
+    private List<CartEvent.Line> eventLines(Cart cart) {
+        List<CartEvent.Line> lines = new ArrayList<>(cart.lineCount());
+        cart.forEachLine((itemId, quantity, lineTotalCents) ->
+            lines.add(new CartEvent.Line(itemIds().name(itemId), quantity, lineTotalCents)));
+        return lines;
+    }
+
+    private int quantityOf(Cart cart, String itemName) {
+        if (itemName == null) {
+            return 0;
+        }
+        int itemId = itemIds().find(itemName);
+        return itemId != ItemIds.UNKNOWN ? cart.quantityOf(itemId) : 0;
+    }
 }
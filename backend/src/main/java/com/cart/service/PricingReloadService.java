@@ -0,0 +1,173 @@
+package com.cart.service;
+
+import com.cart.config.CartClusterProperties;
+import com.cart.config.CartRepriceProperties;
+import com.cart.config.PricingProperties;
+import com.cart.exception.CartException;
+import com.cart.journal.CartJournal;
+import com.cart.model.dto.RepriceReport;
+import com.cart.repository.ItemCartIndex;
+import com.cart.service.pricing.PricingCatalog;
+import com.cart.service.pricing.PricingFile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Swaps in a new pricing config and reprices the live carts holding an item
+ * whose pricing changed, found through the {@link ItemCartIndex}. Carts are
+ * repriced in parallel on a dedicated fork-join pool, each under its own
+ * lock, and each publishes {@code PRICE_UPDATED}.
+ * <p>
+ * Mutations resolve pipelines under the cart lock, so a cart changed while
+ * the reload runs ends up priced by the new config whether it is repriced
+ * before or after that change. A line priced by the old config but indexed
+ * only after the scan below is repriced by the mutation itself, which sees
+ * the catalog's epoch move.
+ * <p>
+ * The reloaded config is persisted through {@link PricingFile}, so a restart
+ * keeps pricing carts the way their recovered totals were priced. Reloads are
+ * rejected when {@code cart.cluster.enabled} is set: they would swap pricing
+ * on the receiving node only. A cluster changes pricing in the application
+ * config of every node and restarts them.
+ */
+@Slf4j
+@Service
+public class PricingReloadService implements DisposableBean {
+    private final PricingCatalog pricingCatalog;
+    private final CartService cartService;
+    private final ItemCartIndex itemIndex;
+    private final CartJournal cartJournal;
+    private final PricingFile pricingFile;
+    private final boolean clustered;
+    private final int batchSize;
+    private final ForkJoinPool pool;
+    private final Timer repriceTimer;
+    private final Counter repricedCarts;
+
+    public PricingReloadService(PricingCatalog pricingCatalog, CartService cartService, ItemCartIndex itemIndex,
+                                CartJournal cartJournal, PricingFile pricingFile,
+                                CartRepriceProperties properties, CartClusterProperties clusterProperties,
+                                MeterRegistry meterRegistry) {
+        this.pricingCatalog = pricingCatalog;
+        this.cartService = cartService;
+        this.itemIndex = itemIndex;
+        this.cartJournal = cartJournal;
+        this.pricingFile = pricingFile;
+        this.clustered = clusterProperties.isEnabled();
+        this.batchSize = Math.max(properties.getBatchSize(), 1);
+        int parallelism = properties.getParallelism() > 0
+            ? properties.getParallelism()
+            : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("cart-reprice-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        this.repriceTimer = Timer.builder("cart.reprice.duration")
+                                 .description("Time taken to reprice live carts after a pricing reload")
+                                 .register(meterRegistry);
+        this.repricedCarts = Counter.builder("cart.reprice.carts")
+                                    .description("Carts repriced after pricing reloads")
+                                    .register(meterRegistry);
+    }
+
+    /**
+     * Reloads pricing, then returns once every affected cart is repriced and
+     * its journal entries are durable. Reloads run one at a time.
+     */
+    public synchronized RepriceReport reload(PricingProperties pricingProperties) {
+        if (clustered) {
+            throw new CartException("Pricing cannot be reloaded in cluster mode; update every node's config",
+                                    HttpStatus.CONFLICT);
+        }
+        Path staged = pricingFile.stage(pricingProperties);
+        BitSet changed;
+        try {
+            changed = pricingCatalog.reload(pricingProperties);
+        } catch (IllegalStateException e) {
+            pricingFile.discard(staged);
+            throw new CartException(e.getMessage());
+        }
+        pricingFile.commit(staged);
+        List<String> changedItems = new ArrayList<>();
+        changed.stream().forEach(itemId -> changedItems.add(pricingCatalog.getItemIds().name(itemId)));
+        if (changed.isEmpty()) {
+            return new RepriceReport(changedItems, 0, 0, 0);
+        }
+
+        long start = System.nanoTime();
+        Set<String> matched = new LinkedHashSet<>();
+        changed.stream().forEach(itemId -> itemIndex.forEachCart(itemId, matched::add));
+        List<String> cartIds = new ArrayList<>(matched);
+
+        LongAdder repriced = new LongAdder();
+        pool.invoke(new RepriceTask(cartIds, 0, cartIds.size(), changed, repriced));
+        cartJournal.awaitDurable(cartJournal.position());
+
+        long elapsed = System.nanoTime() - start;
+        repriceTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        repricedCarts.increment(repriced.sum());
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsed);
+        log.info("Repriced {} of {} matched carts for {} in {} ms ({} carts/s)", repriced.sum(), cartIds.size(),
+                 changedItems, elapsedMs, elapsed > 0 ? repriced.sum() * 1_000_000_000L / elapsed : 0);
+        return new RepriceReport(changedItems, cartIds.size(), repriced.sum(), elapsedMs);
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Splits the cart id range in halves until a range fits in one batch.
+     */
+    private final class RepriceTask extends RecursiveAction {
+        private final List<String> cartIds;
+        private final int from;
+        private final int to;
+        private final BitSet changed;
+        private final LongAdder repriced;
+
+        private RepriceTask(List<String> cartIds, int from, int to, BitSet changed, LongAdder repriced) {
+            this.cartIds = cartIds;
+            this.from = from;
+            this.to = to;
+            this.changed = changed;
+            this.repriced = repriced;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= batchSize) {
+                for (int i = from; i < to; i++) {
+                    // Carts deleted or emptied since the scan are simply skipped
+                    if (cartService.repriceCart(cartIds.get(i), changed)) {
+                        repriced.increment();
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RepriceTask(cartIds, from, middle, changed, repriced),
+                      new RepriceTask(cartIds, middle, to, changed, repriced));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.cart.service;
+
+import com.cart.model.domain.Cart;
+import com.cart.model.domain.ItemIds;
+import com.cart.service.pricing.PricingPipeline;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Net effect of a run of offline operations, folded so it can be applied to a
+ * cart in one pass. Applying the plan leaves the cart's lines and total exactly
+ * as replaying the operations one by one would.
+ */
+final class SyncPlan {
+    private final ItemIds itemIds;
+    private final Map<String, LineChange> lines = new LinkedHashMap<>();
+    private boolean clearFirst;
+    private boolean hasWrites;
+
+    SyncPlan(ItemIds itemIds) {
+        this.itemIds = itemIds;
+    }
+
+    private static final class LineChange {
+        private final String itemName;
+        private PricingPipeline pipeline;
+        private boolean removeFirst;
+        private int added;
+
+        private LineChange(String itemName) {
+            this.itemName = itemName;
+        }
+    }
+
+    void add(PricingPipeline pipeline, int quantity) {
+        LineChange change = lines.computeIfAbsent(pipeline.getItemName(), LineChange::new);
+        change.pipeline = pipeline;
+        change.added += quantity;
+        hasWrites = true;
+    }
+
+    void remove(String itemName) {
+        LineChange change = lines.computeIfAbsent(itemName, LineChange::new);
+        change.removeFirst = true;
+        change.added = 0;
+    }
+
+    void clear() {
+        // Everything folded so far is wiped by the clear
+        lines.clear();
+        clearFirst = true;
+        hasWrites = true;
+    }
+
+    /**
+     * Quantity the item's line would hold if the plan were applied to {@code cart} now.
+     */
+    int quantityAfter(Cart cart, PricingPipeline pipeline) {
+        LineChange change = lines.get(pipeline.getItemName());
+        boolean reset = clearFirst || (change != null && change.removeFirst);
+        int base = reset ? 0 : cart.quantityOf(pipeline.getItemId());
+        return change != null ? base + change.added : base;
+    }
+
+    boolean isEmpty() {
+        return !clearFirst && lines.isEmpty();
+    }
+
+    /**
+     * Applies the plan without touching the version. Each touched line is priced once.
+     *
+     * @return {@code true} if the cart changed
+     */
+    boolean applyTo(Cart cart) {
+        boolean changed = hasWrites;
+        if (clearFirst) {
+            cart.clearLines();
+        }
+        for (LineChange change : lines.values()) {
+            int itemId = itemIds.find(change.itemName);
+            if (change.removeFirst && itemId != ItemIds.UNKNOWN && cart.removeLine(itemId)) {
+                changed = true;
+            }
+            if (change.added > 0) {
+                PricingPipeline pipeline = change.pipeline;
+                int quantity = cart.quantityOf(pipeline.getItemId()) + change.added;
+                cart.putLine(pipeline.getItemId(), quantity, pipeline.calculatePriceCents(quantity));
+            }
+        }
+        return changed;
+    }
+}
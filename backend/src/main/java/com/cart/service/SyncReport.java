@@ -0,0 +1,59 @@
+package com.cart.service;
+
+import com.cart.model.dto.SyncRequest;
+import com.cart.model.dto.SyncResponse;
+import com.cart.model.dto.SyncResponse.OperationStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the per-operation outcome of a sync so the client can tell which
+ * operations it still needs to resend.
+ */
+final class SyncReport {
+    private final List<SyncResponse.OperationResult> results;
+    private final List<String> appliedOperationIds = new ArrayList<>();
+    private int applied;
+    private int rejected;
+
+    SyncReport(int size) {
+        this.results = new ArrayList<>(size);
+    }
+
+    void applied(int index, SyncRequest.PendingOperation op) {
+        applied++;
+        if (op.getOperationId() != null) {
+            appliedOperationIds.add(op.getOperationId());
+        }
+        add(index, op, OperationStatus.APPLIED, null);
+    }
+
+    void skipped(int index, SyncRequest.PendingOperation op) {
+        add(index, op, OperationStatus.SKIPPED, "Already applied");
+    }
+
+    void rejected(int index, SyncRequest.PendingOperation op, String reason) {
+        rejected++;
+        add(index, op, OperationStatus.REJECTED, reason);
+    }
+
+    boolean hasApplied() {
+        return applied > 0;
+    }
+
+    /**
+     * Ids of the applied operations, in order, for the journal.
+     */
+    List<String> appliedOperationIds() {
+        return appliedOperationIds;
+    }
+
+    SyncResponse toResponse(long version) {
+        return new SyncResponse(rejected == 0 ? "success" : "partial", version, applied, results);
+    }
+
+    private void add(int index, SyncRequest.PendingOperation op, OperationStatus status, String reason) {
+        results.add(new SyncResponse.OperationResult(index, op.getOperationId(), status, reason));
+    }
+}
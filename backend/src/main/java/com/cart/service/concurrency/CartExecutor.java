@@ -0,0 +1,34 @@
+package com.cart.service.concurrency;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Serializes work against a single cart. Tasks for the same cart id never run
+ * concurrently; tasks for different carts may run in parallel.
+ */
+public interface CartExecutor {
+    <T> T execute(String cartId, Supplier<T> task);
+
+    /**
+     * Runs the task for the cart and returns a future of its result, so the
+     * caller need not wait. Runs it on the calling thread unless the executor
+     * has threads of its own.
+     */
+    default <T> CompletableFuture<T> submit(String cartId, Supplier<T> task) {
+        try {
+            return CompletableFuture.completedFuture(execute(cartId, task));
+        } catch (RuntimeException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    default void run(String cartId, Runnable task) {
+        execute(cartId, () -> {
+            task.run();
+            return null;
+        });
+    }
+}
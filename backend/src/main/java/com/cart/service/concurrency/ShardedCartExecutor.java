@@ -0,0 +1,201 @@
+package com.cart.service.concurrency;
+
+import com.cart.config.CartConcurrencyProperties;
+import com.cart.exception.CartException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * {@link CartExecutor} that hashes cart ids to a fixed set of shards, each
+ * drained by one thread of its own. Every operation on a cart runs on its
+ * shard's thread, one after another, so a cart has a single writer and its
+ * state stays in that core's cache; no locks are taken on the way.
+ * <p>
+ * Callers hand tasks over through the shard's lock-free queue and either get
+ * a future back from {@link #submit} or wait in {@link #execute}. A task
+ * already running on the cart's shard executes nested work inline.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "cart.concurrency", name = "mode", havingValue = "sharded")
+public class ShardedCartExecutor implements CartExecutor, DisposableBean {
+    // Spinning only pays off when producers have cores of their own meanwhile
+    private static final int SPINS_BEFORE_PARK = Runtime.getRuntime().availableProcessors() > 1 ? 100 : 0;
+
+    private final Shard[] shards;
+    private volatile boolean running = true;
+
+    @Autowired
+    public ShardedCartExecutor(CartConcurrencyProperties properties) {
+        this(properties.getShards() > 0 ? properties.getShards() : Runtime.getRuntime().availableProcessors());
+    }
+
+    public ShardedCartExecutor(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive");
+        }
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard("cart-shard-" + i);
+        }
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+        log.info("Started {} cart shards", shardCount);
+    }
+
+    @Override
+    public <T> T execute(String cartId, Supplier<T> task) {
+        Shard shard = shardFor(cartId);
+        if (Thread.currentThread() == shard.thread) {
+            return task.get();
+        }
+        try {
+            return shard.submit(task).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Queues the task on the cart's shard. The future completes on the shard
+     * thread, so dependent stages must not block.
+     */
+    @Override
+    public <T> CompletableFuture<T> submit(String cartId, Supplier<T> task) {
+        Shard shard = shardFor(cartId);
+        if (Thread.currentThread() == shard.thread) {
+            return CartExecutor.super.submit(cartId, task);
+        }
+        return shard.submit(task);
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    int shardIndex(String cartId) {
+        int h = cartId.hashCode();
+        // Same spreading as the lock stripes, so UUID-like ids don't cluster
+        return Math.floorMod(h ^ (h >>> 16), shards.length);
+    }
+
+    private Shard shardFor(String cartId) {
+        return shards[shardIndex(cartId)];
+    }
+
+    /**
+     * Stops the shard threads after they drain what is already queued; tasks
+     * submitted afterwards fail.
+     */
+    @Override
+    public void destroy() {
+        running = false;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.thread);
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            shard.failPending();
+        }
+    }
+
+    private final class Shard {
+        private final ConcurrentLinkedQueue<Task<?>> queue = new ConcurrentLinkedQueue<>();
+        private final Thread thread;
+        // Set by the shard thread before it parks; producers only unpark when it is set
+        private volatile boolean parked;
+
+        private Shard(String name) {
+            this.thread = new Thread(this::drain, name);
+            thread.setDaemon(true);
+        }
+
+        private <T> CompletableFuture<T> submit(Supplier<T> task) {
+            Task<T> queued = new Task<>(task);
+            if (!running) {
+                queued.fail();
+                return queued.future;
+            }
+            queue.offer(queued);
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+            return queued.future;
+        }
+
+        private void drain() {
+            int idle = 0;
+            while (running || !queue.isEmpty()) {
+                Task<?> task = queue.poll();
+                if (task != null) {
+                    task.run();
+                    idle = 0;
+                } else if (++idle <= SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    parked = true;
+                    // Re-check after publishing the flag: a producer that missed it has already enqueued
+                    if (queue.isEmpty() && running) {
+                        LockSupport.park(this);
+                    }
+                    parked = false;
+                    idle = 0;
+                }
+            }
+        }
+
+        private void failPending() {
+            Task<?> task;
+            while ((task = queue.poll()) != null) {
+                task.fail();
+            }
+        }
+    }
+
+    private static final class Task<T> {
+        private final Supplier<T> supplier;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Task(Supplier<T> supplier) {
+            this.supplier = supplier;
+        }
+
+        void run() {
+            T result;
+            try {
+                result = supplier.get();
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+                return;
+            }
+            future.complete(result);
+        }
+
+        void fail() {
+            future.completeExceptionally(new CartException("Cart executor is shut down",
+                                                           HttpStatus.SERVICE_UNAVAILABLE));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.cart.service.concurrency;
+
+import com.cart.config.CartConcurrencyProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * {@link CartExecutor} backed by a fixed array of locks. A cart id always maps
+ * to the same stripe, so writes to one cart are serialized while writes to
+ * carts on other stripes proceed without contention.
+ */
+@Component
+@ConditionalOnProperty(prefix = "cart.concurrency", name = "mode", havingValue = "striped", matchIfMissing = true)
+public class StripedCartExecutor implements CartExecutor {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    @Autowired
+    public StripedCartExecutor(CartConcurrencyProperties properties) {
+        this(properties.getStripes());
+    }
+
+    public StripedCartExecutor(int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive");
+        }
+        int size = Integer.highestOneBit(stripeCount - 1) << 1;
+        if (size <= 0) {
+            size = 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    @Override
+    public <T> T execute(String cartId, Supplier<T> task) {
+        ReentrantLock lock = lockFor(cartId);
+        lock.lock();
+        try {
+            return task.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    int stripeIndex(String cartId) {
+        int h = cartId.hashCode();
+        // Spread high bits down so UUID-like ids don't cluster on low stripes
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private ReentrantLock lockFor(String cartId) {
+        return stripes[stripeIndex(cartId)];
+    }
+}
@@ -17,4 +17,14 @@ public class BOGOPricingStrategy implements PricingStrategy {
         return basePrice.multiply(BigDecimal.valueOf(itemsToPay))
                         .setScale(2, RoundingMode.HALF_UP);
     }
+
+    @Override
+    public long calculatePriceCents(int quantity, long baseCents) {
+        if (quantity == 0) {
+            return 0L;
+        }
+
+        int itemsToPay = (quantity + 1) / 2;
+        return Math.multiplyExact(baseCents, (long) itemsToPay);
+    }
 }
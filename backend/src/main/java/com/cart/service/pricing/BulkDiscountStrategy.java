@@ -1,5 +1,7 @@
 package com.cart.service.pricing;
 
+import com.cart.model.domain.Money;
+
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 
@@ -8,6 +10,7 @@ import org.springframework.stereotype.Component;
 public class BulkDiscountStrategy implements PricingStrategy {
     private static final int MIN_QUANTITY = 5;
     private static final BigDecimal DISCOUNT = new BigDecimal("0.90"); // 10% off
+    private static final long DISCOUNT_PERCENT = 90;
 
     @Override
     public BigDecimal calculatePrice(int quantity, BigDecimal basePrice) {
@@ -21,5 +24,17 @@ public class BulkDiscountStrategy implements PricingStrategy {
         }
         return total.setScale(2, RoundingMode.HALF_UP);
     }
-}
 
+    @Override
+    public long calculatePriceCents(int quantity, long baseCents) {
+        if (quantity == 0) {
+            return 0L;
+        }
+
+        long total = Math.multiplyExact(baseCents, (long) quantity);
+        if (quantity >= MIN_QUANTITY) {
+            return Money.mulDivHalfUp(total, DISCOUNT_PERCENT, 100);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,199 @@
+package com.cart.service.pricing;
+
+import com.cart.config.PricingProperties;
+import com.cart.model.domain.ItemIds;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles {@link PricingProperties} into one {@link PricingPipeline} per item.
+ * Misconfigured items (unknown strategy types, no strategies) fail here at
+ * startup rather than on the request path.
+ * <p>
+ * The compiled pipelines can be replaced at runtime with {@link #reload}.
+ * Pipelines by name, by id and the quantity limit are swapped in as one
+ * object, so readers see either the old pricing or the new one, never a mix.
+ * <p>
+ * The catalog owns the {@link ItemIds} registry its items are interned in;
+ * everything that maps item ids to names or unit prices uses this one. Unit
+ * prices are read from the current pipelines.
+ * <p>
+ * Reloaded pricing is persisted by {@link PricingFile} and takes the place of
+ * the application config on the next start.
+ */
+@Slf4j
+@Component
+public class PricingCatalog {
+    private final Map<String, PricingStrategy> pricingStrategies;
+    private final ItemIds itemIds = new ItemIds(this::unitPrice);
+    private volatile Pricing pricing;
+
+    /**
+     * Starts from the pricing a reload last persisted, if any, so carts
+     * recovered with reloaded totals keep matching their pipelines.
+     */
+    @Autowired
+    public PricingCatalog(PricingProperties pricingProperties, Map<String, PricingStrategy> pricingStrategies,
+                          PricingFile pricingFile) {
+        this(pricingFile.load().orElse(pricingProperties), pricingStrategies);
+    }
+
+    public PricingCatalog(PricingProperties pricingProperties, Map<String, PricingStrategy> pricingStrategies) {
+        this.pricingStrategies = pricingStrategies;
+        this.pricing = compile(pricingProperties, 0);
+        log.debug("Compiled pricing pipelines for {} items", pricing.byName.size());
+    }
+
+    /**
+     * Returns the pipeline for {@code itemName}, or {@code null} if the item is not sold.
+     */
+    public PricingPipeline get(String itemName) {
+        return pricing.byName.get(itemName);
+    }
+
+    public boolean contains(String itemName) {
+        return pricing.byName.containsKey(itemName);
+    }
+
+    public Map<String, PricingPipeline> getPipelines() {
+        return pricing.byName;
+    }
+
+    public ItemIds getItemIds() {
+        return itemIds;
+    }
+
+    /**
+     * Base price of the item in the current pipelines, or {@code null} if it is not sold.
+     */
+    public BigDecimal unitPrice(int itemId) {
+        PricingPipeline[] byId = pricing.byId;
+        return itemId >= 0 && itemId < byId.length && byId[itemId] != null ? byId[itemId].getBasePrice() : null;
+    }
+
+    /**
+     * Counts the reloads swapped in so far. A mutation that reads it before
+     * resolving pipelines and again after indexing its lines knows whether a
+     * reload may have missed it.
+     */
+    public long getEpoch() {
+        return pricing.epoch;
+    }
+
+    /**
+     * Largest quantity a cart line may hold.
+     */
+    public int getMaxQuantity() {
+        return pricing.maxQuantity;
+    }
+
+    /**
+     * Compiles {@code pricingProperties} and swaps the result in. A config that
+     * fails to compile leaves the catalog untouched. The set of items must stay
+     * the same: item ids and the binary wire dictionary are fixed at startup.
+     *
+     * @return ids of the items whose base price or strategies changed
+     */
+    public synchronized BitSet reload(PricingProperties pricingProperties) {
+        Pricing previous = pricing;
+        Map<String, PricingPipeline> current = previous.byName;
+        Map<String, PricingProperties.ItemConfig> items = pricingProperties.getItems();
+        if (items == null || !items.keySet().equals(current.keySet())) {
+            throw new IllegalStateException("Pricing reload must keep the same items: " + current.keySet());
+        }
+
+        Pricing compiled = compile(pricingProperties, previous.epoch + 1);
+        BitSet changed = new BitSet();
+        compiled.byName.forEach((itemName, pipeline) -> {
+            if (!pipeline.hasSamePricing(current.get(itemName))) {
+                changed.set(pipeline.getItemId());
+            }
+        });
+        pricing = compiled;
+        log.info("Reloaded pricing for {} items, {} changed", compiled.byName.size(), changed.cardinality());
+        return changed;
+    }
+
+    /**
+     * Resolves every item's strategies before building any pipeline, so a bad
+     * item fails the whole config. Nothing is published until the result is
+     * swapped in; compiling only interns item names.
+     */
+    private Pricing compile(PricingProperties pricingProperties, long epoch) {
+        Map<String, PricingProperties.ItemConfig> items = pricingProperties.getItems();
+        if (items == null) {
+            return new Pricing(Collections.emptyMap(), new PricingPipeline[0], pricingProperties.getMaxQuantity(),
+                               epoch);
+        }
+
+        Map<String, PricingStrategy[]> resolved = new HashMap<>();
+        items.forEach((itemName, itemConfig) ->
+            resolved.put(itemName, resolveStrategies(itemName, itemConfig, pricingStrategies)));
+
+        Map<String, PricingPipeline> compiled = new HashMap<>();
+        int tableMaxQuantity = Math.min(pricingProperties.getPriceTableMaxQuantity(),
+                                        pricingProperties.getMaxQuantity());
+        items.forEach((itemName, itemConfig) ->
+            compiled.put(itemName, new PricingPipeline(itemIds, itemName, itemConfig.getBasePrice(),
+                                                       resolved.get(itemName), tableMaxQuantity)));
+        PricingPipeline[] byId = new PricingPipeline[itemIds.size()];
+        compiled.values().forEach(pipeline -> byId[pipeline.getItemId()] = pipeline);
+        return new Pricing(Collections.unmodifiableMap(compiled), byId, pricingProperties.getMaxQuantity(),
+                           epoch);
+    }
+
+    private static PricingStrategy[] resolveStrategies(String itemName,
+                                                       PricingProperties.ItemConfig itemConfig,
+                                                       Map<String, PricingStrategy> pricingStrategies) {
+        if (itemConfig.getBasePrice() == null) {
+            throw new IllegalStateException("No base price defined for item: " + itemName);
+        }
+        List<PricingProperties.StrategyConfig> configs = itemConfig.getStrategies();
+        if (configs == null || configs.isEmpty()) {
+            throw new IllegalStateException("No strategies defined for item: " + itemName);
+        }
+
+        // Stable sort keeps declaration order for equal priorities
+        List<PricingProperties.StrategyConfig> sorted = new ArrayList<>(configs);
+        sorted.sort(Comparator.comparingInt(PricingProperties.StrategyConfig::getPriority));
+
+        PricingStrategy[] strategies = new PricingStrategy[sorted.size()];
+        for (int i = 0; i < strategies.length; i++) {
+            String type = sorted.get(i).getType();
+            PricingStrategy strategy = pricingStrategies.get(type);
+            if (strategy == null) {
+                throw new IllegalStateException(
+                    "Unknown pricing strategy '" + type + "' for item: " + itemName);
+            }
+            strategies[i] = strategy;
+        }
+        return strategies;
+    }
+
+    /**
+     * One compiled config. Never modified after construction.
+     */
+    private static final class Pricing {
+        private final Map<String, PricingPipeline> byName;
+        private final PricingPipeline[] byId;
+        private final int maxQuantity;
+        private final long epoch;
+
+        Pricing(Map<String, PricingPipeline> byName, PricingPipeline[] byId, int maxQuantity, long epoch) {
+            this.byName = byName;
+            this.byId = byId;
+            this.maxQuantity = maxQuantity;
+            this.epoch = epoch;
+        }
+    }
+}
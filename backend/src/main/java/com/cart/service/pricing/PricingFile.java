@@ -0,0 +1,107 @@
+package com.cart.service.pricing;
+
+import com.cart.config.CartRepriceProperties;
+import com.cart.config.PricingProperties;
+import com.cart.exception.CartException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+/**
+ * The pricing config last applied by a reload, kept so a restart prices
+ * with it rather than reverting to the application config while recovered
+ * carts still hold the reloaded totals. Disabled, and never written, when
+ * {@code cart.reprice.pricingFile} is blank.
+ * <p>
+ * A reload is staged to a temporary file before the catalog swaps, and the
+ * staged file replaces the current one by an atomic rename only once the
+ * swap has succeeded.
+ */
+@Slf4j
+@Component
+public class PricingFile {
+    private final Path path;
+    private final ObjectMapper objectMapper;
+
+    public PricingFile(CartRepriceProperties properties, ObjectMapper objectMapper) {
+        String file = properties.getPricingFile();
+        this.path = file == null || file.isBlank() ? null : Paths.get(file);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * The persisted pricing, if a reload has written one.
+     */
+    public Optional<PricingProperties> load() {
+        if (path == null || !Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        try {
+            PricingProperties pricing = objectMapper.readValue(path.toFile(), PricingProperties.class);
+            log.info("Loaded reloaded pricing for {} items from {}", pricing.getItems().size(), path);
+            return Optional.of(pricing);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read pricing file " + path, e);
+        }
+    }
+
+    /**
+     * Writes {@code pricing} next to the current file without replacing it.
+     * Returns the staged file, or {@code null} when persistence is disabled.
+     */
+    public Path stage(PricingProperties pricing) {
+        if (path == null) {
+            return null;
+        }
+        Path staged = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Path directory = path.toAbsolutePath().getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+            objectMapper.writeValue(staged.toFile(), pricing);
+            return staged;
+        } catch (IOException e) {
+            log.error("Failed to stage pricing file {}", staged, e);
+            throw new CartException("Cannot persist pricing", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Makes a staged file the current one. Called once the catalog has
+     * swapped, so a failure here is logged rather than failing the reload.
+     */
+    public void commit(Path staged) {
+        if (staged == null) {
+            return;
+        }
+        try {
+            Files.move(staged, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Failed to replace pricing file {}; a restart will price with the previous config", path, e);
+        }
+    }
+
+    /**
+     * Drops a staged file whose pricing was not applied.
+     */
+    public void discard(Path staged) {
+        if (staged == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(staged);
+        } catch (IOException e) {
+            log.warn("Failed to delete staged pricing file {}", staged, e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.cart.service.pricing;
+
+import com.cart.model.domain.ItemIds;
+import com.cart.model.domain.Money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/**
+ * Pricing rules for a single item, resolved and ordered once so that pricing
+ * a line is a straight walk over an array of strategies.
+ * <p>
+ * Strategies are pure functions of quantity and base price, so line totals
+ * for small quantities are computed once into a table and pricing a line is
+ * an array read. The table is final and built with the pipeline, so swapping
+ * in a recompiled pipeline replaces rules and table together.
+ */
+public final class PricingPipeline {
+    private final String itemName;
+    private final int itemId;
+    private final BigDecimal basePrice;
+    private final PricingStrategy[] strategies;
+    private final long baseCents;
+    // Base prices finer than a penny can't enter the minor-unit chain without rounding
+    private final boolean wholeCents;
+    // Line totals in minor units for quantities 0..priceTable.length - 1
+    private final long[] priceTable;
+
+    PricingPipeline(ItemIds itemIds, String itemName, BigDecimal basePrice, PricingStrategy[] strategies,
+                    int tableMaxQuantity) {
+        this.itemName = itemName;
+        this.itemId = itemIds.intern(itemName);
+        this.basePrice = basePrice;
+        this.strategies = strategies;
+        this.wholeCents = Money.isWholeCents(basePrice);
+        this.baseCents = wholeCents ? Money.toCents(basePrice) : 0L;
+        this.priceTable = new long[Math.max(tableMaxQuantity, 0) + 1];
+        for (int quantity = 0; quantity < priceTable.length; quantity++) {
+            priceTable[quantity] = computePriceCents(quantity);
+        }
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public int getItemId() {
+        return itemId;
+    }
+
+    public BigDecimal getBasePrice() {
+        return basePrice;
+    }
+
+    public int size() {
+        return strategies.length;
+    }
+
+    public BigDecimal calculatePrice(int quantity) {
+        BigDecimal currentPrice = basePrice;
+        for (PricingStrategy strategy : strategies) {
+            currentPrice = strategy.calculatePrice(quantity, currentPrice);
+        }
+        return currentPrice.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Line total in minor units; equal to {@link #calculatePrice} in pence.
+     * Quantities past the precomputed table are priced live.
+     */
+    public long calculatePriceCents(int quantity) {
+        if (quantity >= 0 && quantity < priceTable.length) {
+            return priceTable[quantity];
+        }
+        return computePriceCents(quantity);
+    }
+
+    /**
+     * Largest quantity served from the precomputed table.
+     */
+    public int getTableMaxQuantity() {
+        return priceTable.length - 1;
+    }
+
+    /**
+     * Whether {@code other} prices every quantity the same way: same base price
+     * and the same strategies in the same order.
+     */
+    boolean hasSamePricing(PricingPipeline other) {
+        return other != null
+               && basePrice.equals(other.basePrice)
+               && Arrays.equals(strategies, other.strategies);
+    }
+
+    long computePriceCents(int quantity) {
+        if (!wholeCents) {
+            return Money.toCents(calculatePrice(quantity));
+        }
+        long currentCents = baseCents;
+        for (PricingStrategy strategy : strategies) {
+            currentCents = strategy.calculatePriceCents(quantity, currentCents);
+        }
+        return currentCents;
+    }
+}
@@ -1,11 +1,23 @@
 package com.cart.service.pricing;
 
+import com.cart.model.domain.Money;
+
 import java.math.BigDecimal;
 
 public interface PricingStrategy {
     BigDecimal calculatePrice(int quantity, BigDecimal basePrice);
 
+    /**
+     * Minor-unit counterpart of {@link #calculatePrice}. Implementations must
+     * return exactly the pence of the {@code BigDecimal} result, rounded
+     * {@code HALF_UP} to two places. The default delegates to the
+     * {@code BigDecimal} path; built-in strategies override it without allocating.
+     */
+    default long calculatePriceCents(int quantity, long baseCents) {
+        return Money.toCents(calculatePrice(quantity, BigDecimal.valueOf(baseCents, Money.SCALE)));
+    }
+
     default int getPriority() {
         return 100;  // Default priority
     }
-}
\ No newline at end of file
+}
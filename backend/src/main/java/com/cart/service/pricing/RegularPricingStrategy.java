@@ -21,4 +21,12 @@ public class RegularPricingStrategy implements PricingStrategy {
                         .setScale(2, RoundingMode.HALF_UP);
     }
 
-}
\ No newline at end of file
+    @Override
+    public long calculatePriceCents(int quantity, long baseCents) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative");
+        }
+
+        return Math.multiplyExact(baseCents, (long) quantity);
+    }
+}
@@ -1,5 +1,7 @@
 package com.cart.service.pricing;
 
+import com.cart.model.domain.Money;
+
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 
@@ -7,6 +9,7 @@ import org.springframework.stereotype.Component;
 @Component("SEASONAL")
 public class SeasonalDiscountStrategy implements PricingStrategy {
     private static final BigDecimal DISCOUNT = new BigDecimal("0.95"); // 5% off
+    private static final long DISCOUNT_PERCENT = 95;
 
     @Override
     public BigDecimal calculatePrice(int quantity, BigDecimal basePrice) {
@@ -17,4 +20,13 @@ public class SeasonalDiscountStrategy implements PricingStrategy {
         return basePrice.multiply(BigDecimal.valueOf(quantity))
                         .multiply(DISCOUNT).setScale(2, RoundingMode.HALF_UP);
     }
+
+    @Override
+    public long calculatePriceCents(int quantity, long baseCents) {
+        if (quantity == 0) {
+            return 0L;
+        }
+
+        return Money.mulDivHalfUp(Math.multiplyExact(baseCents, (long) quantity), DISCOUNT_PERCENT, 100);
+    }
 }
@@ -18,6 +18,17 @@ public class ThreeForTwoPricingStrategy implements PricingStrategy {
                         .setScale(2, RoundingMode.HALF_UP);
     }
 
+    @Override
+    public long calculatePriceCents(int quantity, long baseCents) {
+        if (quantity == 0) {
+            return 0L;
+        }
+
+        int sets = quantity / 3;
+        int remainder = quantity % 3;
+        return Math.multiplyExact(baseCents, (long) (sets * 2 + remainder));
+    }
+
     @Override
     public int getPriority() {
         return 1;
@@ -0,0 +1,271 @@
+package com.cart.snapshot;
+
+import com.cart.config.CartJournalProperties;
+import com.cart.config.CartSnapshotProperties;
+import com.cart.config.CartSyncProperties;
+import com.cart.journal.CartJournal;
+import com.cart.journal.JournalEntry;
+import com.cart.journal.JournalReader;
+import com.cart.model.domain.Cart;
+import com.cart.model.domain.ItemIds;
+import com.cart.model.domain.OperationWindow;
+import com.cart.repository.CartRepository;
+import com.cart.repository.CartUpdateResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Rebuilds the cart store on startup from the latest snapshot plus the journal
+ * segments written after it, and takes snapshots in the background.
+ * <p>
+ * A snapshot first rolls the journal to a new segment, then walks the store.
+ * Everything journaled before the roll is already in the store and so in the
+ * snapshot; everything after it is replayed. Journal entries carry resulting
+ * state, so replaying a change the snapshot already caught is harmless. Once
+ * the snapshot is on disk the older segments and snapshots are deleted.
+ * <p>
+ * Item ids in snapshots and journal entries are resolved against the pricing
+ * catalog's {@link ItemIds}, which holds every item once the catalog is built.
+ * Operation ids journaled with an entry go back into the cart's sync dedup
+ * window, so a client retrying a sync after a restart is not applied twice.
+ */
+@Slf4j
+@Component
+public class CartRecoveryService implements InitializingBean, DisposableBean {
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    private final CartRepository cartRepository;
+    private final ItemIds itemIds;
+    private final CartJournal cartJournal;
+    private final CartJournalProperties journalProperties;
+    private final CartSnapshotProperties snapshotProperties;
+    private final CartSyncProperties syncProperties;
+    private final Path snapshotDirectory;
+    private final Timer snapshotTimer;
+    private ScheduledExecutorService scheduler;
+
+    public CartRecoveryService(CartRepository cartRepository, ItemIds itemIds, CartJournal cartJournal,
+                               CartJournalProperties journalProperties, CartSnapshotProperties snapshotProperties,
+                               CartSyncProperties syncProperties, MeterRegistry meterRegistry) {
+        this.cartRepository = cartRepository;
+        this.itemIds = itemIds;
+        this.cartJournal = cartJournal;
+        this.journalProperties = journalProperties;
+        this.snapshotProperties = snapshotProperties;
+        this.syncProperties = syncProperties;
+        this.snapshotDirectory = Paths.get(snapshotProperties.getDirectory());
+        this.snapshotTimer = Timer.builder("cart.snapshot.duration")
+                                  .description("Time taken to write a cart snapshot")
+                                  .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        recover();
+        if (snapshotProperties.isEnabled()) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "cart-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = snapshotProperties.getIntervalMs();
+            scheduler.scheduleWithFixedDelay(this::scheduledSnapshot, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Loads the latest snapshot, if snapshots are enabled, then replays the journal tail.
+     */
+    void recover() {
+        long fromSegment = 0L;
+        if (snapshotProperties.isEnabled()) {
+            Path latest = latestSnapshot();
+            if (latest != null) {
+                long start = System.nanoTime();
+                int threads = snapshotProperties.getLoadThreads() > 0
+                    ? snapshotProperties.getLoadThreads()
+                    : Runtime.getRuntime().availableProcessors();
+                SnapshotFile.Header header = SnapshotFile.read(latest, itemIds, threads, cartRepository::save);
+                fromSegment = header.getJournalSegment();
+                log.info("Loaded {} carts from {} in {} ms", header.getCartCount(), latest.getFileName(),
+                         TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        }
+        if (journalProperties.isEnabled()) {
+            long start = System.nanoTime();
+            long entries = JournalReader.replay(Paths.get(journalProperties.getDirectory()), fromSegment, this::apply);
+            log.info("Replayed {} journal entries from segment {} in {} ms", entries, fromSegment,
+                     TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Writes a snapshot of the whole store and compacts what it supersedes.
+     * Returns the number of carts written.
+     */
+    public synchronized long snapshot() {
+        long start = System.nanoTime();
+        long segment = cartJournal.rollSegment();
+        Path target = snapshotDirectory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, segment, SNAPSHOT_SUFFIX));
+        Path temp = snapshotDirectory.resolve(target.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(snapshotDirectory);
+            long carts = SnapshotFile.write(temp, segment, cartRepository, itemIds,
+                                             snapshotProperties.getChunkCarts());
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // The rename must be durable before the snapshot and segments it replaces are deleted
+            forceDirectory(snapshotDirectory);
+
+            for (Path older : snapshots()) {
+                if (!older.equals(target)) {
+                    Files.deleteIfExists(older);
+                }
+            }
+            cartJournal.deleteSegmentsBefore(segment);
+
+            long elapsed = System.nanoTime() - start;
+            snapshotTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("Wrote snapshot of {} carts to {} in {} ms", carts, target.getFileName(),
+                     TimeUnit.NANOSECONDS.toMillis(elapsed));
+            return carts;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write snapshot " + target, e);
+        }
+    }
+
+    private static void forceDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private void scheduledSnapshot() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.error("Scheduled snapshot failed", e);
+        }
+    }
+
+    private void apply(JournalEntry entry) {
+        String cartId = entry.getCartId();
+        switch (entry.getType()) {
+            case CREATE:
+                if (!cartRepository.exists(cartId)) {
+                    Cart cart = new Cart(cartId);
+                    cart.setVersion(entry.getVersion());
+                    cartRepository.save(cart);
+                }
+                break;
+            case DELETE:
+                cartRepository.deleteById(cartId);
+                break;
+            default:
+                CartUpdateResult result = cartRepository.update(cartId, null, cart -> applyLine(cart, entry));
+                if (result.isNotFound()) {
+                    Cart cart = new Cart(cartId);
+                    applyLine(cart, entry);
+                    cartRepository.save(cart);
+                }
+        }
+    }
+
+    /**
+     * Sets the line state an entry recorded and remembers its operation ids.
+     * Items no longer in the catalog are dropped.
+     */
+    private boolean applyLine(Cart cart, JournalEntry entry) {
+        int itemId = entry.getItemName() != null ? itemIds.find(entry.getItemName()) : ItemIds.UNKNOWN;
+        switch (entry.getType()) {
+            case ADD:
+                if (itemId != ItemIds.UNKNOWN) {
+                    cart.putLine(itemId, entry.getQuantity(), entry.getLineTotalCents());
+                }
+                break;
+            case REMOVE:
+                if (itemId != ItemIds.UNKNOWN) {
+                    cart.removeLine(itemId);
+                }
+                break;
+            case SYNC:
+                cart.clearLines();
+                for (JournalEntry.Line line : entry.getLines()) {
+                    int lineItemId = itemIds.find(line.getItemName());
+                    if (lineItemId != ItemIds.UNKNOWN) {
+                        cart.putLine(lineItemId, line.getQuantity(), line.getLineTotalCents());
+                    }
+                }
+                break;
+            default:
+                cart.clearLines();
+        }
+        if (!entry.getOperationIds().isEmpty()) {
+            OperationWindow window = cart.operationWindow(syncProperties.getDedupWindow());
+            for (String operationId : entry.getOperationIds()) {
+                // The snapshot may already hold it
+                if (!window.contains(operationId)) {
+                    window.record(operationId);
+                }
+            }
+        }
+        cart.setVersion(entry.getVersion());
+        return true;
+    }
+
+    private Path latestSnapshot() {
+        List<Path> snapshots = snapshots();
+        return snapshots.isEmpty() ? null : snapshots.get(snapshots.size() - 1);
+    }
+
+    private List<Path> snapshots() {
+        if (!Files.isDirectory(snapshotDirectory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(snapshotDirectory)) {
+            return files.filter(path -> {
+                            String name = path.getFileName().toString();
+                            return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+                        })
+                        .sorted()
+                        .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list snapshot directory " + snapshotDirectory, e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+            snapshot();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Snapshot on shutdown failed", e);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.cart.snapshot;
+
+import com.cart.model.domain.Cart;
+import com.cart.model.domain.CartRecord;
+import com.cart.model.domain.ItemIds;
+import com.cart.repository.CartRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Binary snapshot of a cart store:
+ * <pre>
+ * header: int magic, int format, long journalSegment, long cartCount, long indexOffset
+ * dictionary: int itemCount, (short length, name)[itemCount]   -- item id to name
+ * chunks: (int recordLength, {@link CartRecord})[]
+ * index: int chunkCount, (long offset, int length, int carts)[chunkCount]
+ * </pre>
+ * Records keep the writer's item ids; the dictionary maps them to the reader's.
+ * Chunks are mapped and decoded independently, so a load runs one chunk per thread.
+ */
+final class SnapshotFile {
+    static final int MAGIC = 0x43534E50;
+    static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES + 3 * Long.BYTES;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Writes every cart in {@code repository} to {@code file} and returns the cart count.
+     */
+    static long write(Path file, long journalSegment, CartRepository repository, ItemIds itemIds, int chunkCarts) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            ChunkWriter writer = new ChunkWriter(channel, chunkCarts);
+            writer.writeSection(dictionary(itemIds));
+            repository.forEach(writer::append);
+            writer.flushChunk();
+
+            long indexOffset = writer.position;
+            ByteBuffer index = ByteBuffer.allocate(Integer.BYTES + writer.chunks.size() * (Long.BYTES + 2 * Integer.BYTES));
+            index.putInt(writer.chunks.size());
+            for (long[] chunk : writer.chunks) {
+                index.putLong(chunk[0]).putInt((int) chunk[1]).putInt((int) chunk[2]);
+            }
+            index.flip();
+            writer.writeSection(index);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(FORMAT).putLong(journalSegment).putLong(writer.carts).putLong(indexOffset);
+            header.flip();
+            writer.writeFully(header, 0);
+            channel.force(true);
+            return writer.carts;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Decodes every cart in {@code file} on {@code threads} threads and hands it
+     * to {@code consumer}, which must be thread safe. Item ids are mapped to
+     * those of {@code itemIds}. Returns the header.
+     */
+    static Header read(Path file, ItemIds itemIds, int threads, Consumer<Cart> consumer) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (head.getInt(0) != MAGIC || head.getInt(Integer.BYTES) != FORMAT) {
+                throw new IllegalStateException("Not a cart snapshot: " + file);
+            }
+            Header header = new Header(head.getLong(8), head.getLong(16));
+            long indexOffset = head.getLong(24);
+
+            int[] remap = readDictionary(channel, indexOffset, itemIds);
+            ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, channel.size() - indexOffset);
+            int chunkCount = index.getInt();
+            List<long[]> chunks = new ArrayList<>(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                chunks.add(new long[] {index.getLong(), index.getInt(), index.getInt()});
+            }
+
+            AtomicLong loaded = new AtomicLong();
+            ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, chunkCount)), r -> {
+                Thread thread = new Thread(r, "cart-snapshot-load");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<?>> tasks = new ArrayList<>(chunkCount);
+                for (long[] chunk : chunks) {
+                    tasks.add(pool.submit(() -> {
+                        loaded.addAndGet(readChunk(channel, chunk[0], (int) chunk[1], remap, consumer));
+                        return null;
+                    }));
+                }
+                for (Future<?> task : tasks) {
+                    task.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted loading snapshot " + file, e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Failed to load snapshot " + file, e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+            if (loaded.get() != header.getCartCount()) {
+                throw new IllegalStateException("Snapshot " + file + " holds " + loaded.get()
+                                                + " carts, header says " + header.getCartCount());
+            }
+            return header;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read snapshot " + file, e);
+        }
+    }
+
+    private static int readChunk(FileChannel channel, long offset, int length, int[] remap,
+                                 Consumer<Cart> consumer) throws IOException {
+        MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        int carts = 0;
+        for (int at = 0; at < length; ) {
+            int recordLength = chunk.getInt(at);
+            Cart cart = CartRecord.read(chunk, at + Integer.BYTES, remap);
+            cart.recomputeTotal();
+            consumer.accept(cart);
+            at += Integer.BYTES + recordLength;
+            carts++;
+        }
+        return carts;
+    }
+
+    private static ByteBuffer dictionary(ItemIds itemIds) {
+        int size = itemIds.size();
+        List<byte[]> names = new ArrayList<>(size);
+        int bytes = Integer.BYTES;
+        for (int id = 0; id < size; id++) {
+            byte[] name = itemIds.name(id).getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            bytes += Short.BYTES + name.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        buffer.putInt(size);
+        for (byte[] name : names) {
+            buffer.putShort((short) name.length).put(name);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Maps the writer's item ids to this process's, or returns {@code null} when they already agree.
+     */
+    private static int[] readDictionary(FileChannel channel, long limit, ItemIds itemIds) throws IOException {
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, limit - HEADER_BYTES);
+        int size = buffer.getInt();
+        int[] remap = new int[size];
+        boolean identity = true;
+        for (int id = 0; id < size; id++) {
+            byte[] name = new byte[buffer.getShort()];
+            buffer.get(name);
+            remap[id] = itemIds.find(new String(name, StandardCharsets.UTF_8));
+            identity &= remap[id] == id;
+        }
+        return identity ? null : remap;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static final class Header {
+        /**
+         * First journal segment not covered by the snapshot.
+         */
+        private final long journalSegment;
+        private final long cartCount;
+    }
+
+    /**
+     * Packs records into a heap buffer and writes each full chunk with one call.
+     */
+    private static final class ChunkWriter {
+        private final FileChannel channel;
+        private final int chunkCarts;
+        private final List<long[]> chunks = new ArrayList<>();
+        private ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        private long position = HEADER_BYTES;
+        private int chunkSize;
+        private long carts;
+
+        ChunkWriter(FileChannel channel, int chunkCarts) {
+            this.channel = channel;
+            this.chunkCarts = Math.max(1, chunkCarts);
+        }
+
+        /**
+         * Appends a live cart; it may be changed while it is encoded, so its
+         * lines are read once for both the length prefix and the record.
+         */
+        void append(Cart cart) {
+            CartRecord.Image image = CartRecord.image(cart, CartRecord.idBytes(cart.getId()));
+            int size = image.size();
+            ensureCapacity(Integer.BYTES + size);
+            int at = buffer.position();
+            buffer.putInt(at, size);
+            image.write(buffer, at + Integer.BYTES);
+            buffer.position(at + Integer.BYTES + size);
+            carts++;
+            if (++chunkSize == chunkCarts) {
+                flushChunk();
+            }
+        }
+
+        void writeSection(ByteBuffer section) {
+            int length = section.remaining();
+            writeFully(section, position);
+            position += length;
+        }
+
+        void flushChunk() {
+            if (chunkSize == 0) {
+                return;
+            }
+            buffer.flip();
+            chunks.add(new long[] {position, buffer.remaining(), chunkSize});
+            writeSection(buffer);
+            buffer.clear();
+            chunkSize = 0;
+        }
+
+        void writeFully(ByteBuffer source, long at) {
+            try {
+                long offset = at;
+                while (source.hasRemaining()) {
+                    offset += channel.write(source, offset);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void ensureCapacity(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.cart.websocket;
+
+import com.cart.model.event.CartEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Latest-state-wins slot per cart. Events published between flush ticks are
+ * merged, so a burst of mutations is serialized and sent once with the newest version.
+ */
+@Slf4j
+class CartEventConflator {
+    private final ConcurrentHashMap<String, CartEvent> pending = new ConcurrentHashMap<>();
+    private final Consumer<CartEvent> sink;
+    private final WebSocketMetrics metrics;
+
+    CartEventConflator(Consumer<CartEvent> sink, WebSocketMetrics metrics) {
+        this.sink = sink;
+        this.metrics = metrics;
+    }
+
+    void submit(CartEvent event) {
+        pending.merge(event.getCartId(), event, (queued, incoming) -> {
+            metrics.conflated();
+            return incoming.getVersion() >= queued.getVersion() ? incoming : queued;
+        });
+    }
+
+    /**
+     * Hands the newest pending event of every cart to the sink. Events arriving
+     * during the flush land in a fresh slot and go out on the next tick.
+     */
+    void flush() {
+        for (String cartId : pending.keySet()) {
+            CartEvent event = pending.remove(cartId);
+            if (event == null) {
+                continue;
+            }
+            try {
+                sink.accept(event);
+            } catch (RuntimeException e) {
+                log.error("Failed to flush conflated event for cart: {}", cartId, e);
+            }
+        }
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+}
@@ -1,14 +1,21 @@
 package com.cart.websocket;
 
+import com.cart.config.WebSocketProperties;
+import com.cart.eventbus.CartEventBus;
 import com.cart.model.domain.Cart;
-import com.cart.model.dto.CartResponse;
+import com.cart.model.dto.CartJsonWriter;
 import com.cart.model.event.CartEvent;
+import com.cart.model.event.CartEvictedEvent;
 import com.cart.service.CartService;
+import com.cart.service.pricing.PricingCatalog;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
@@ -16,23 +23,92 @@ import org.springframework.web.socket.handler.TextWebSocketHandler;
 import org.springframework.context.event.EventListener;
 
 import java.io.IOException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
-public class CartWebSocketHandler extends TextWebSocketHandler {
+public class CartWebSocketHandler extends TextWebSocketHandler implements SubProtocolCapable, DisposableBean {
+    private static final String OUTBOX_ATTRIBUTE = SessionOutbox.class.getName();
+    private static final CloseStatus CART_GONE = CloseStatus.NORMAL.withReason("Cart expired");
+    private static final List<String> SUBPROTOCOLS = List.of(CartWireCodec.SUBPROTOCOL);
+
     private final CartService cartService;
-    private final ObjectMapper objectMapper;
-    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private final CartJsonWriter jsonWriter;
+    private final WebSocketProperties properties;
+    private final WebSocketMetrics metrics;
+    private final CartWireCodec wireCodec;
+    private final ExecutorService dispatcher;
+    private final ExecutorService[] eventLanes;
+    private final CartEventBus eventBus;
+    private final SubscriptionRegistry subscriptions;
+    private final CartEventConflator conflator;
+    private final ScheduledExecutorService flusher;
+    private final ScheduledExecutorService watchdog;
+
+    public CartWebSocketHandler(CartService cartService, ObjectMapper objectMapper, PricingCatalog pricingCatalog,
+                                WebSocketProperties properties, MeterRegistry meterRegistry,
+                                CartEventBus eventBus) {
+        this.cartService = cartService;
+        this.jsonWriter = new CartJsonWriter(objectMapper.getFactory(), pricingCatalog.getItemIds());
+        this.properties = properties;
+        this.metrics = new WebSocketMetrics(meterRegistry);
+        this.wireCodec = new CartWireCodec(pricingCatalog.getPipelines().keySet(), pricingCatalog.getItemIds());
+        this.dispatcher = Executors.newFixedThreadPool(properties.getDispatcherThreads(),
+                                                       dispatcherThreadFactory());
+        // One thread per lane keeps a cart's events in order; a cart always uses the same lane
+        this.eventLanes = new ExecutorService[Math.max(1, properties.getDispatcherThreads())];
+        for (int i = 0; i < eventLanes.length; i++) {
+            String name = "cart-ws-event-" + (i + 1);
+            eventLanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        if (properties.isConflate()) {
+            this.conflator = new CartEventConflator(this::deliver, metrics);
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cart-ws-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(conflator::flush, properties.getFlushIntervalMs(),
+                                           properties.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+        } else {
+            this.conflator = null;
+            this.flusher = null;
+        }
+        this.eventBus = eventBus;
+        this.subscriptions = new SubscriptionRegistry(eventBus::subscribe, eventBus::unsubscribe);
+        // Finds sends stuck on unread sockets and closes them; dispatcher threads may be the ones stuck
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-ws-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long checkIntervalMs = Math.max(10, properties.getSendTimeLimitMs() / 2);
+        watchdog.scheduleWithFixedDelay(this::closeStalledSessions, checkIntervalMs, checkIntervalMs,
+                                        TimeUnit.MILLISECONDS);
+        eventBus.setReceiver(this::dispatch);
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
         try {
             String cartId = extractCartId(session);
-            sessions.put(cartId, session);
-            sendInitialState(cartId, session);
+            SessionOutbox outbox = new SessionOutbox(session, dispatcher, watchdog, properties, metrics);
+            session.getAttributes().put(OUTBOX_ATTRIBUTE, outbox);
+            subscriptions.add(cartId, outbox);
+            sendInitialState(cartId, outbox);
             log.debug("WebSocket connection established for cart: {}", cartId);
         } catch (Exception e) {
             log.error("Failed to establish WebSocket connection", e);
@@ -43,23 +119,168 @@ public class CartWebSocketHandler extends TextWebSocketHandler {
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
         String cartId = extractCartId(session);
-        sessions.remove(cartId);
+        SessionOutbox outbox = (SessionOutbox) session.getAttributes().remove(OUTBOX_ATTRIBUTE);
+        if (outbox != null) {
+            subscriptions.remove(cartId, outbox);
+        }
         log.debug("WebSocket connection closed for cart: {}", cartId);
     }
 
+    /**
+     * Queues a locally published event on its cart's lane, which passes it to
+     * other instances with subscribers for the cart and dispatches it to this
+     * instance's own. Listeners run on the mutating thread, under the cart
+     * lock, so nothing is encoded or published here.
+     */
     @EventListener
     public void handleCartEvent(CartEvent event) {
-        WebSocketSession session = sessions.get(event.getCartId());
-        if (session != null && session.isOpen()) {
+        try {
+            eventLanes[laneIndex(event.getCartId())].execute(() -> publishAndDispatch(event));
+        } catch (RejectedExecutionException e) {
+            log.debug("Dropped cart event {} for cart {} during shutdown", event.getType(), event.getCartId());
+        }
+    }
+
+    private void publishAndDispatch(CartEvent event) {
+        try {
+            eventBus.publish(event);
+            dispatch(event);
+        } catch (RuntimeException e) {
+            log.error("Failed to dispatch cart event {} for cart {}", event.getType(), event.getCartId(), e);
+        }
+    }
+
+    private int laneIndex(String cartId) {
+        int h = cartId.hashCode();
+        return ((h ^ (h >>> 16)) & Integer.MAX_VALUE) % eventLanes.length;
+    }
+
+    /**
+     * Delivers the event now, or parks it in the cart's conflation slot until the
+     * next flush tick when conflation is enabled.
+     */
+    private void dispatch(CartEvent event) {
+        if (conflator != null) {
+            if (subscriptions.hasSubscribers(event.getCartId())) {
+                conflator.submit(event);
+            }
+            return;
+        }
+        deliver(event);
+    }
+
+    @Override
+    public List<String> getSubProtocols() {
+        return SUBPROTOCOLS;
+    }
+
+    /**
+     * Serializes the event at most once per wire format and hands the same frame
+     * to every subscriber's outbox; socket writes happen on the dispatcher.
+     */
+    private void deliver(CartEvent event) {
+        Set<SessionOutbox> outboxes = subscriptions.subscribers(event.getCartId());
+        if (outboxes.isEmpty()) {
+            return;
+        }
+        WebSocketMessage<?> json = null;
+        WebSocketMessage<?> binary = null;
+        // A format that failed to encode is skipped for the rest of this event; the other may still work
+        boolean jsonFailed = false;
+        boolean binaryFailed = false;
+        for (SessionOutbox outbox : outboxes) {
+            WebSocketSession session = outbox.getSession();
+            if (!session.isOpen()) {
+                continue;
+            }
+            boolean binarySession = isBinary(session);
+            if (binarySession ? binaryFailed : jsonFailed) {
+                continue;
+            }
+            WebSocketMessage<?> message;
+            try {
+                if (binarySession) {
+                    message = binary != null ? binary : (binary = new BinaryMessage(wireCodec.encodeEvent(event)));
+                } else {
+                    message = json != null ? json : (json = new TextMessage(jsonWriter.write(event)));
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to serialize cart event {} for cart {} as {}", event.getType(), event.getCartId(),
+                          binarySession ? CartWireCodec.SUBPROTOCOL : "JSON", e);
+                if (binarySession) {
+                    binaryFailed = true;
+                } else {
+                    jsonFailed = true;
+                }
+                continue;
+            }
+            outbox.offer(message, conflator != null);
+        }
+        log.debug("Queued cart event: {} for cart: {} to {} sessions",
+                  event.getType(), event.getCartId(), outboxes.size());
+    }
+
+    /**
+     * Disconnects every session watching a cart that was evicted from the store.
+     */
+    @EventListener
+    public void handleCartEvicted(CartEvictedEvent event) {
+        Set<SessionOutbox> outboxes = subscriptions.subscribers(event.getCartId());
+        for (SessionOutbox outbox : outboxes) {
+            outbox.close(CART_GONE);
+        }
+        if (!outboxes.isEmpty()) {
+            log.debug("Closed {} sessions of evicted cart: {}", outboxes.size(), event.getCartId());
+        }
+    }
+
+    public WebSocketMetrics getMetrics() {
+        return metrics;
+    }
+
+    public SubscriptionRegistry getSubscriptions() {
+        return subscriptions;
+    }
+
+    /**
+     * Waits for the events queued so far to be dispatched, then flushes
+     * pending conflated events immediately.
+     */
+    public void flush() {
+        for (ExecutorService lane : eventLanes) {
             try {
-                WebSocketMessage<?> message = new TextMessage(objectMapper.writeValueAsString(event));
-                session.sendMessage(message);
-                log.debug("Sent cart event: {} to cart: {}", event.getType(), event.getCartId());
-            } catch (IOException e) {
-                log.error("Failed to send cart event", e);
-                closeSession(session);
+                lane.submit(() -> { }).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | RejectedExecutionException e) {
+                log.debug("Event lane not drained: {}", e.toString());
             }
         }
+        if (conflator != null) {
+            conflator.flush();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        watchdog.shutdownNow();
+        for (ExecutorService lane : eventLanes) {
+            lane.shutdownNow();
+        }
+        dispatcher.shutdownNow();
+    }
+
+    private void closeStalledSessions() {
+        try {
+            subscriptions.forEachSubscriber(SessionOutbox::closeIfSendStalled);
+        } catch (RuntimeException e) {
+            // An exception would cancel the periodic check
+            log.error("Failed to check WebSocket sessions for stalled sends", e);
+        }
     }
 
     private String extractCartId(WebSocketSession session) {
@@ -68,17 +289,24 @@ public class CartWebSocketHandler extends TextWebSocketHandler {
         );
     }
 
-    private void sendInitialState(String cartId, WebSocketSession session) {
+    private void sendInitialState(String cartId, SessionOutbox outbox) {
         try {
             Cart cart = cartService.getCart(cartId);
-            CartResponse response = CartResponse.from(cart);
-            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(response)));
+            if (isBinary(outbox.getSession())) {
+                outbox.offer(new BinaryMessage(wireCodec.encodeSnapshot(cart)));
+            } else {
+                outbox.offer(new TextMessage(jsonWriter.write(cart)));
+            }
         } catch (Exception e) {
             log.error("Error sending initial state for cart: {}", cartId, e);
-            closeSession(session);
+            closeSession(outbox.getSession());
         }
     }
 
+    private static boolean isBinary(WebSocketSession session) {
+        return CartWireCodec.SUBPROTOCOL.equals(session.getAcceptedProtocol());
+    }
+
     private void closeSession(WebSocketSession session) {
         try {
             session.close();
@@ -86,4 +314,13 @@ public class CartWebSocketHandler extends TextWebSocketHandler {
             log.error("Error closing WebSocket session", e);
         }
     }
+
+    private static ThreadFactory dispatcherThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "cart-ws-dispatch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
 }
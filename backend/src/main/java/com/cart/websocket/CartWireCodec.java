@@ -0,0 +1,162 @@
+package com.cart.websocket;
+
+import com.cart.model.domain.Cart;
+import com.cart.model.domain.ItemIds;
+import com.cart.model.domain.Money;
+import com.cart.model.event.CartEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding for sessions that negotiate {@link #SUBPROTOCOL}.
+ * Integers are unsigned LEB128 varints, amounts are minor units and items are
+ * referred to by dense ids whose names are sent once in the snapshot.
+ *
+ * <pre>
+ * snapshot: 0x01 version total itemCount (nameLength nameUtf8)* lineCount (itemId quantity unitPrice lineTotal)*
+ * event:    0x02 version eventType itemId quantity total [lineCount (itemId quantity lineTotal)*]
+ * </pre>
+ *
+ * Item ids start at 1; 0 means the event has no item. Most event frames only
+ * carry the line they changed, with that line's new quantity. Frames for the
+ * types that change several lines at once ({@code CART_CLEARED},
+ * {@code PRICE_UPDATED}, {@code CART_SYNCED}) end with every line of the cart
+ * after the event, which replace the client's lines; a cleared cart has none.
+ */
+public final class CartWireCodec {
+    public static final String SUBPROTOCOL = "cart.binary.v1";
+
+    static final byte SNAPSHOT_FRAME = 0x01;
+    static final byte EVENT_FRAME = 0x02;
+
+    private final List<String> itemNames;
+    private final Map<String, Integer> itemIds;
+    private final byte[] dictionary;
+    private final ItemIds catalogItems;
+
+    /**
+     * Wire ids are assigned to {@code itemNames} in sorted order;
+     * {@code catalogItems} names and prices the lines of snapshots.
+     */
+    public CartWireCodec(Collection<String> itemNames, ItemIds catalogItems) {
+        this.catalogItems = catalogItems;
+        this.itemNames = new ArrayList<>(itemNames);
+        this.itemNames.sort(null);
+        this.itemIds = new HashMap<>();
+        for (int i = 0; i < this.itemNames.size(); i++) {
+            itemIds.put(this.itemNames.get(i), i + 1);
+        }
+        this.dictionary = encodeDictionary(this.itemNames);
+    }
+
+    public byte[] encodeSnapshot(Cart cart) {
+        Collection<Cart.CartItem> lines = cart.getItems(catalogItems).values();
+        WireWriter out = new WireWriter(16 + dictionary.length + lines.size() * 12);
+        out.writeByte(SNAPSHOT_FRAME);
+        out.writeVarLong(cart.getVersion());
+        out.writeVarLong(cart.getTotalCents());
+        out.writeBytes(dictionary);
+        out.writeVarLong(lines.size());
+        for (Cart.CartItem line : lines) {
+            out.writeVarLong(itemId(line.getName()));
+            out.writeVarLong(line.getQuantity());
+            out.writeVarLong(Money.toCents(line.getUnitPrice()));
+            out.writeVarLong(line.getTotalPriceCents());
+        }
+        return out.toByteArray();
+    }
+
+    public byte[] encodeEvent(CartEvent event) {
+        WireWriter out = new WireWriter(24);
+        out.writeByte(EVENT_FRAME);
+        out.writeVarLong(event.getVersion());
+        out.writeVarLong(event.getType().ordinal());
+        out.writeVarLong(event.getItemName() == null ? 0 : itemId(event.getItemName()));
+        out.writeVarLong(event.getQuantity());
+        out.writeVarLong(Money.toCents(event.getTotal()));
+        if (event.getType().carriesLines()) {
+            List<CartEvent.Line> lines = event.getLines();
+            if (lines == null) {
+                throw new IllegalArgumentException("No lines on " + event.getType() + " event");
+            }
+            out.writeVarLong(lines.size());
+            for (CartEvent.Line line : lines) {
+                out.writeVarLong(itemId(line.getItemName()));
+                out.writeVarLong(line.getQuantity());
+                out.writeVarLong(line.getLineTotalCents());
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public List<String> getItemNames() {
+        return itemNames;
+    }
+
+    private int itemId(String itemName) {
+        Integer id = itemIds.get(itemName);
+        if (id == null) {
+            throw new IllegalArgumentException("No wire id for item: " + itemName);
+        }
+        return id;
+    }
+
+    private static byte[] encodeDictionary(List<String> itemNames) {
+        WireWriter out = new WireWriter(itemNames.size() * 8 + 4);
+        out.writeVarLong(itemNames.size());
+        for (String name : itemNames) {
+            byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+            out.writeVarLong(utf8.length);
+            out.writeBytes(utf8);
+        }
+        return out.toByteArray();
+    }
+
+    private static final class WireWriter {
+        private byte[] buffer;
+        private int position;
+
+        WireWriter(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeVarLong(long value) {
+            if (value < 0) {
+                throw new IllegalArgumentException("Negative value on the wire: " + value);
+            }
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.cart.websocket;
+
+import com.cart.config.WebSocketProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded outbound queue for one WebSocket session. Producers only enqueue;
+ * frames are written by at most one dispatcher thread at a time, so a slow
+ * client never blocks the thread that published the event.
+ * <p>
+ * A send can block its dispatcher thread for as long as the client stops
+ * reading, so stalled sessions are found by a watchdog calling
+ * {@link #closeIfSendStalled()} and closed on the closer, never on the
+ * dispatcher they are holding up.
+ */
+@Slf4j
+public class SessionOutbox {
+    private final WebSocketSession session;
+    private final Executor dispatcher;
+    private final Executor closer;
+    private final WebSocketProperties properties;
+    private final WebSocketMetrics metrics;
+
+    private final Deque<WebSocketMessage<?>> queue = new ArrayDeque<>();
+    private int queuedBytes;
+    private WebSocketMessage<?> replaceableTail;
+    private boolean draining;
+    private boolean closed;
+    private volatile long sendStartedNanos;
+
+    public SessionOutbox(WebSocketSession session, Executor dispatcher, Executor closer,
+                         WebSocketProperties properties, WebSocketMetrics metrics) {
+        this.session = session;
+        this.dispatcher = dispatcher;
+        this.closer = closer;
+        this.properties = properties;
+        this.metrics = metrics;
+    }
+
+    public WebSocketSession getSession() {
+        return session;
+    }
+
+    /**
+     * Queues a frame for delivery. Returns {@code false} if the session is closed
+     * or was closed as a slow consumer.
+     */
+    public boolean offer(WebSocketMessage<?> message) {
+        return offer(message, false);
+    }
+
+    /**
+     * Queues a frame; a replaceable frame supersedes a replaceable frame that is
+     * still waiting at the tail, so a busy socket only receives the newest state
+     * once it becomes writable again.
+     */
+    public boolean offer(WebSocketMessage<?> message, boolean replaceable) {
+        if (isSendStalled()) {
+            closeAsSlowConsumer("send blocked longer than " + properties.getSendTimeLimitMs() + "ms");
+            return false;
+        }
+
+        boolean schedule;
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            if (replaceable && replaceableTail != null && queue.peekLast() == replaceableTail) {
+                queue.pollLast();
+                queuedBytes -= replaceableTail.getPayloadLength();
+                metrics.queued(-1);
+                metrics.conflated();
+            }
+            queue.addLast(message);
+            queuedBytes += message.getPayloadLength();
+            replaceableTail = replaceable ? message : null;
+            metrics.queued(1);
+            if (queuedBytes > properties.getBufferSizeLimit() && !applyOverflowPolicy()) {
+                return false;
+            }
+            schedule = !draining;
+            draining = true;
+        }
+        if (schedule) {
+            dispatcher.execute(this::drain);
+        }
+        return true;
+    }
+
+    public synchronized int depth() {
+        return queue.size();
+    }
+
+    /**
+     * Closes the session as a slow consumer if its current send has been
+     * blocked longer than the send time limit. Returns whether it did.
+     */
+    public boolean closeIfSendStalled() {
+        if (!isSendStalled()) {
+            return false;
+        }
+        return closeAsSlowConsumer("send blocked longer than " + properties.getSendTimeLimitMs() + "ms");
+    }
+
+    public void close(CloseStatus status) {
+        discardQueued();
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            log.error("Error closing WebSocket session", e);
+        }
+    }
+
+    /**
+     * Must hold the monitor. Returns {@code false} if the session was closed.
+     */
+    private boolean applyOverflowPolicy() {
+        if (properties.getOverflowPolicy() == WebSocketProperties.OverflowPolicy.CLOSE) {
+            closeAsSlowConsumer("outbound buffer exceeded");
+            return false;
+        }
+        // Keep the newest frame; older cart states are superseded by it
+        while (queuedBytes > properties.getBufferSizeLimit() && queue.size() > 1) {
+            WebSocketMessage<?> dropped = queue.pollFirst();
+            queuedBytes -= dropped.getPayloadLength();
+            metrics.queued(-1);
+            metrics.dropped();
+        }
+        return true;
+    }
+
+    private void drain() {
+        while (true) {
+            WebSocketMessage<?> message;
+            synchronized (this) {
+                message = queue.pollFirst();
+                if (message == null || closed) {
+                    draining = false;
+                    return;
+                }
+                if (message == replaceableTail) {
+                    replaceableTail = null;
+                }
+                queuedBytes -= message.getPayloadLength();
+                metrics.queued(-1);
+            }
+            if (!send(message)) {
+                synchronized (this) {
+                    draining = false;
+                }
+                return;
+            }
+        }
+    }
+
+    private boolean send(WebSocketMessage<?> message) {
+        long start = System.nanoTime();
+        sendStartedNanos = start;
+        try {
+            session.sendMessage(message);
+            metrics.recordSend(System.nanoTime() - start);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to send message to session {}", session.getId(), e);
+            close(CloseStatus.SERVER_ERROR);
+            return false;
+        } finally {
+            sendStartedNanos = 0L;
+        }
+    }
+
+    private boolean isSendStalled() {
+        long started = sendStartedNanos;
+        return started != 0L
+            && System.nanoTime() - started > TimeUnit.MILLISECONDS.toNanos(properties.getSendTimeLimitMs());
+    }
+
+    /**
+     * Marks the outbox closed and closes the session on the closer: the close
+     * handshake may block on the same stalled socket, and the dispatcher may be
+     * stuck behind it. Returns {@code false} if the outbox was already closed.
+     */
+    private boolean closeAsSlowConsumer(String reason) {
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+        }
+        log.warn("Closing slow WebSocket session {}: {}", session.getId(), reason);
+        metrics.slowConsumerClosed();
+        closer.execute(() -> close(CloseStatus.SESSION_NOT_RELIABLE));
+        return true;
+    }
+
+    private void discardQueued() {
+        synchronized (this) {
+            closed = true;
+            metrics.queued(-queue.size());
+            queue.clear();
+            replaceableTail = null;
+            queuedBytes = 0;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.cart.websocket;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Tracks every open session subscribed to each cart. A cart can be watched by
+ * any number of tabs or devices; adding and removing a subscriber is a single
+ * atomic operation on the cart's entry, and the entry disappears with its
+ * last subscriber.
+ * <p>
+ * The first subscriber of a cart and the departure of its last are reported
+ * while the entry is still locked, so the reports for one cart arrive in the
+ * order the changes happened.
+ */
+public class SubscriptionRegistry {
+    private final ConcurrentHashMap<String, Set<SessionOutbox>> subscribers = new ConcurrentHashMap<>();
+    private final Consumer<String> onFirstSubscriber;
+    private final Consumer<String> onLastUnsubscribed;
+
+    public SubscriptionRegistry() {
+        this(cartId -> { }, cartId -> { });
+    }
+
+    public SubscriptionRegistry(Consumer<String> onFirstSubscriber, Consumer<String> onLastUnsubscribed) {
+        this.onFirstSubscriber = onFirstSubscriber;
+        this.onLastUnsubscribed = onLastUnsubscribed;
+    }
+
+    public void add(String cartId, SessionOutbox outbox) {
+        subscribers.compute(cartId, (key, set) -> {
+            Set<SessionOutbox> target = set;
+            if (target == null) {
+                target = ConcurrentHashMap.newKeySet();
+                onFirstSubscriber.accept(key);
+            }
+            target.add(outbox);
+            return target;
+        });
+    }
+
+    public void remove(String cartId, SessionOutbox outbox) {
+        subscribers.computeIfPresent(cartId, (key, set) -> {
+            set.remove(outbox);
+            if (!set.isEmpty()) {
+                return set;
+            }
+            onLastUnsubscribed.accept(key);
+            return null;
+        });
+    }
+
+    /**
+     * Live, weakly consistent view of the cart's subscribers; empty if none.
+     */
+    public Set<SessionOutbox> subscribers(String cartId) {
+        Set<SessionOutbox> set = subscribers.get(cartId);
+        return set != null ? set : Collections.emptySet();
+    }
+
+    public int subscriberCount(String cartId) {
+        return subscribers(cartId).size();
+    }
+
+    public boolean hasSubscribers(String cartId) {
+        return subscribers.containsKey(cartId);
+    }
+
+    /**
+     * Visits every subscribed session, weakly consistent like {@link #subscribers}.
+     */
+    public void forEachSubscriber(Consumer<SessionOutbox> action) {
+        subscribers.values().forEach(set -> set.forEach(action));
+    }
+
+    public Set<String> cartIds() {
+        return Collections.unmodifiableSet(subscribers.keySet());
+    }
+}
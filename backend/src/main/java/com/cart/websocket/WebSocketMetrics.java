@@ -0,0 +1,53 @@
+package com.cart.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Meters for outbound WebSocket delivery.
+ */
+public class WebSocketMetrics {
+    private final AtomicLong queuedMessages = new AtomicLong();
+    private final Timer sendLatency;
+    private final Counter dropped;
+    private final Counter slowConsumersClosed;
+    private final Counter conflated;
+
+    public WebSocketMetrics(MeterRegistry registry) {
+        registry.gauge("cart.ws.queue.depth", queuedMessages);
+        this.sendLatency = Timer.builder("cart.ws.send.latency")
+                                .description("Time to write one frame to a session")
+                                .register(registry);
+        this.dropped = registry.counter("cart.ws.messages.dropped");
+        this.slowConsumersClosed = registry.counter("cart.ws.sessions.slow.closed");
+        this.conflated = registry.counter("cart.ws.events.conflated");
+    }
+
+    void queued(int messages) {
+        queuedMessages.addAndGet(messages);
+    }
+
+    void recordSend(long nanos) {
+        sendLatency.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void dropped() {
+        dropped.increment();
+    }
+
+    void slowConsumerClosed() {
+        slowConsumersClosed.increment();
+    }
+
+    void conflated() {
+        conflated.increment();
+    }
+
+    public long getQueueDepth() {
+        return queuedMessages.get();
+    }
+}
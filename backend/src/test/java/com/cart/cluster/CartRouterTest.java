@@ -0,0 +1,76 @@
+package com.cart.cluster;
+
+import com.cart.config.CartClusterProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartRouterTest {
+
+    @Test
+    void everyCartShouldBeLocalWithoutClustering() {
+        CartRouter router = new CartRouter(new CartClusterProperties());
+
+        assertFalse(router.isEnabled());
+        assertTrue(router.isLocal("any-cart"));
+        assertNotNull(router.newCartId());
+    }
+
+    @Test
+    void newCartIdsShouldBeOwnedByTheLocalNode() {
+        Map<String, CartRouter> routers = new LinkedHashMap<>();
+        for (String node : new String[] {"node-1", "node-2", "node-3"}) {
+            routers.put(node, new CartRouter(cluster(node)));
+        }
+
+        for (Map.Entry<String, CartRouter> entry : routers.entrySet()) {
+            for (int i = 0; i < 100; i++) {
+                String cartId = entry.getValue().newCartId();
+                for (CartRouter router : routers.values()) {
+                    assertEquals(entry.getKey(), router.ownerOf(cartId));
+                }
+            }
+        }
+    }
+
+    @Test
+    void baseUrlShouldDropTrailingSlash() {
+        CartRouter router = new CartRouter(cluster("node-1"));
+
+        assertEquals(URI.create("http://localhost:9002"), router.baseUrl("node-2"));
+        assertThrows(IllegalArgumentException.class, () -> router.baseUrl("node-9"));
+    }
+
+    @Test
+    void shouldRejectALocalNodeOutsideTheMembership() {
+        assertThrows(IllegalArgumentException.class, () -> new CartRouter(cluster("node-9")));
+        CartClusterProperties noNodes = cluster("node-1");
+        noNodes.getNodes().clear();
+        assertThrows(IllegalArgumentException.class, () -> new CartRouter(noNodes));
+    }
+
+    @Test
+    void forwardingShouldOnlyConsiderPerCartPaths() {
+        assertEquals("c-1", CartForwardingFilter.cartId(new MockHttpServletRequest("GET", "/api/v1/cart/c-1")));
+        assertEquals("c-1", CartForwardingFilter.cartId(
+            new MockHttpServletRequest("PUT", "/api/v1/cart/c-1/items/APPLE")));
+        assertNull(CartForwardingFilter.cartId(new MockHttpServletRequest("POST", "/api/v1/cart")));
+        assertNull(CartForwardingFilter.cartId(new MockHttpServletRequest("POST", "/api/v1/cart/")));
+        assertNull(CartForwardingFilter.cartId(new MockHttpServletRequest("PUT", "/api/v1/pricing")));
+    }
+
+    private static CartClusterProperties cluster(String nodeId) {
+        CartClusterProperties properties = new CartClusterProperties();
+        properties.setEnabled(true);
+        properties.setNodeId(nodeId);
+        properties.getNodes().put("node-1", "http://localhost:9001");
+        properties.getNodes().put("node-2", "http://localhost:9002/");
+        properties.getNodes().put("node-3", "http://localhost:9003");
+        return properties;
+    }
+}
@@ -0,0 +1,67 @@
+package com.cart.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashRingTest {
+    private static final int KEYS = 100_000;
+
+    @Test
+    void shouldSpreadKeysEvenlyAcrossNodes() {
+        HashRing ring = new HashRing(List.of("a", "b", "c"), 160);
+        Map<String, Integer> owned = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            owned.merge(ring.ownerOf(UUID.randomUUID().toString()), 1, Integer::sum);
+        }
+
+        assertEquals(3, owned.size());
+        owned.values().forEach(count -> assertEquals(KEYS / 3.0, count, KEYS / 3.0 * 0.15));
+    }
+
+    @Test
+    void addingANodeShouldOnlyMoveKeysToIt() {
+        HashRing before = new HashRing(List.of("a", "b", "c"), 160);
+        HashRing after = new HashRing(List.of("a", "b", "c", "d"), 160);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "cart-" + i;
+            String was = before.ownerOf(key);
+            String is = after.ownerOf(key);
+            if (!was.equals(is)) {
+                assertEquals("d", is);
+                moved++;
+            }
+        }
+        assertEquals(KEYS / 4.0, moved, KEYS / 4.0 * 0.2);
+    }
+
+    @Test
+    void ownershipShouldNotDependOnMemberOrder() {
+        HashRing ring = new HashRing(List.of("a", "b", "c"), 64);
+        HashRing reordered = new HashRing(List.of("c", "a", "b"), 64);
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(ring.ownerOf("cart-" + i), reordered.ownerOf("cart-" + i));
+        }
+    }
+
+    @Test
+    void singleNodeShouldOwnEverything() {
+        HashRing ring = new HashRing(List.of("solo"), 8);
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals("solo", ring.ownerOf(UUID.randomUUID().toString()));
+        }
+    }
+
+    @Test
+    void shouldRejectEmptyMembership() {
+        assertThrows(IllegalArgumentException.class, () -> new HashRing(List.of(), 160));
+        assertThrows(IllegalArgumentException.class, () -> new HashRing(List.of("a"), 0));
+    }
+}
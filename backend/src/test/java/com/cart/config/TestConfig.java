@@ -1,9 +1,12 @@
 package com.cart.config;
 
+import com.cart.eventbus.CartEventBus;
 import com.cart.service.CartService;
+import com.cart.service.pricing.PricingCatalog;
 import com.cart.websocket.CartWebSocketHandler;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.mockito.Mockito;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
@@ -28,7 +31,10 @@ public class TestConfig {
 
     @Bean
     @Primary
-    public CartWebSocketHandler cartWebSocketHandler(CartService cartService, ObjectMapper objectMapper) {
-        return new CartWebSocketHandler(cartService, objectMapper);
+    public CartWebSocketHandler cartWebSocketHandler(CartService cartService, ObjectMapper objectMapper,
+                                                     PricingCatalog pricingCatalog) {
+        return new CartWebSocketHandler(cartService, objectMapper, pricingCatalog,
+                                        new WebSocketProperties(), new SimpleMeterRegistry(),
+                                        Mockito.mock(CartEventBus.class));
     }
 }
@@ -0,0 +1,113 @@
+package com.cart.controller;
+
+import com.cart.config.CartResponseCacheProperties;
+import com.cart.model.domain.Cart;
+import com.cart.model.domain.ItemIds;
+import com.cart.model.dto.CartResponse;
+import com.cart.model.event.CartEvictedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartResponseCacheTest {
+    private static final Map<Integer, BigDecimal> UNIT_PRICES = new ConcurrentHashMap<>();
+    private static final ItemIds ITEM_IDS = new ItemIds(UNIT_PRICES::get);
+    private static final int APPLE = item("APPLE", "0.35");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private CartResponseCacheProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CartResponseCacheProperties();
+    }
+
+    @Test
+    void sameVersionShouldBeServedFromCache() throws Exception {
+        CartResponseCache cache = new CartResponseCache(objectMapper, ITEM_IDS, properties, registry);
+        Cart cart = new Cart();
+        cart.putLine(APPLE, 2, 70);
+
+        CartResponseCache.SerializedCart first = cache.get(cart);
+        CartResponseCache.SerializedCart second = cache.get(cart);
+
+        assertSame(first, second);
+        CartResponse decoded = objectMapper.readValue(first.getBody(), CartResponse.class);
+        assertEquals(cart.getId(), decoded.getCartId());
+        assertEquals(new BigDecimal("0.70"), decoded.getTotal());
+        assertEquals(1.0, registry.counter("cart.response.cache", "result", "hit").count());
+        assertEquals(1.0, registry.counter("cart.response.cache", "result", "miss").count());
+    }
+
+    @Test
+    void newVersionShouldReplaceCachedBody() {
+        CartResponseCache cache = new CartResponseCache(objectMapper, ITEM_IDS, properties, registry);
+        Cart cart = new Cart();
+        CartResponseCache.SerializedCart before = cache.get(cart);
+
+        cart.putLine(APPLE, 1, 35);
+        cart.incrementVersion();
+        CartResponseCache.SerializedCart after = cache.get(cart);
+
+        assertNotSame(before, after);
+        assertEquals(2, after.getVersion());
+        assertSame(after, cache.get(cart));
+    }
+
+    @Test
+    void collidingCartsShouldNeverServeEachOthersBody() {
+        properties.setSlots(1);
+        CartResponseCache cache = new CartResponseCache(objectMapper, ITEM_IDS, properties, registry);
+        Cart first = new Cart();
+        Cart second = new Cart();
+
+        cache.get(first);
+        cache.get(second);
+
+        assertEquals(first.getId(), cache.get(first).getCartId());
+        assertEquals(second.getId(), cache.get(second).getCartId());
+    }
+
+    @Test
+    void oversizedOrDisabledEntriesShouldNotBeCached() {
+        properties.setMaxEntryBytes(16);
+        CartResponseCache small = new CartResponseCache(objectMapper, ITEM_IDS, properties, registry);
+        Cart cart = new Cart();
+        assertNotSame(small.get(cart), small.get(cart));
+
+        properties.setMaxEntryBytes(8_192);
+        properties.setSlots(0);
+        CartResponseCache disabled = new CartResponseCache(objectMapper, ITEM_IDS, properties, registry);
+        assertNotSame(disabled.get(cart), disabled.get(cart));
+    }
+
+    @Test
+    void evictedCartShouldBeDropped() {
+        CartResponseCache cache = new CartResponseCache(objectMapper, ITEM_IDS, properties, registry);
+        Cart cart = new Cart();
+        CartResponseCache.SerializedCart cached = cache.get(cart);
+
+        cache.handleCartEvicted(new CartEvictedEvent(cart.getId(), CartEvictedEvent.Reason.IDLE));
+
+        assertNotSame(cached, cache.get(cart));
+    }
+
+    @Test
+    void etagShouldBeQuotedVersion() {
+        assertEquals("\"7\"", CartResponseCache.etag(7));
+    }
+
+    private static int item(String name, String unitPrice) {
+        int id = ITEM_IDS.intern(name);
+        UNIT_PRICES.put(id, new BigDecimal(unitPrice));
+        return id;
+    }
+}
@@ -0,0 +1,77 @@
+package com.cart.eventbus;
+
+import com.cart.model.domain.Money;
+import com.cart.model.event.CartEvent;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventBatchCodecTest {
+    private final EventBatchCodec codec = new EventBatchCodec(512);
+
+    @Test
+    void shouldRoundTripInterestAndEvents() {
+        Map<String, Boolean> interest = new LinkedHashMap<>();
+        interest.put("cart-1", true);
+        interest.put("cart-2", false);
+        List<CartEvent> events = List.of(
+            new CartEvent("cart-1", CartEvent.CartEventType.ITEM_ADDED, "APPLE", 3, new BigDecimal("1.05"), 4),
+            new CartEvent("cart-1", CartEvent.CartEventType.CART_CLEARED, null, 0, BigDecimal.ZERO, 5));
+
+        byte[] frame = codec.encode(interest, events);
+        EventBatchCodec.Batch batch = codec.decode(frame);
+
+        assertEquals(0, frame[0] & EventBatchCodec.DEFLATED);
+        assertEquals(interest, batch.interest);
+        assertEquals(events, batch.events);
+    }
+
+    @Test
+    void multiLineEventsShouldRoundTripTheirLines() {
+        List<CartEvent> events = List.of(
+            new CartEvent("cart-1", CartEvent.CartEventType.CART_SYNCED, null, 0, new BigDecimal("1.20"), 6,
+                          List.of(new CartEvent.Line("APPLE", 2, 70), new CartEvent.Line("MELON", 1, 50))),
+            new CartEvent("cart-1", CartEvent.CartEventType.PRICE_UPDATED, null, 0, new BigDecimal("1.10"), 7,
+                          List.of(new CartEvent.Line("APPLE", 2, 60), new CartEvent.Line("MELON", 1, 50))),
+            new CartEvent("cart-1", CartEvent.CartEventType.CART_CLEARED, null, 0, BigDecimal.ZERO, 8, List.of()));
+
+        assertEquals(events, codec.decode(codec.encode(Map.of(), events)).events);
+    }
+
+    @Test
+    void largeBatchesShouldBeDeflated() {
+        List<String> carts = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            carts.add(UUID.randomUUID().toString());
+        }
+        List<CartEvent> events = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            events.add(new CartEvent(carts.get(i % carts.size()), CartEvent.CartEventType.ITEM_ADDED,
+                                     i % 2 == 0 ? "APPLE" : "MELON", i / 50 + 1,
+                                     Money.toAmount(i), i + 2));
+        }
+
+        byte[] frame = codec.encode(Map.of(), events);
+
+        assertEquals(EventBatchCodec.DEFLATED, frame[0] & EventBatchCodec.DEFLATED);
+        // A cart id alone is 36 bytes
+        assertTrue(frame.length < events.size() * 16, "Batch took " + frame.length + " bytes");
+        assertEquals(events, codec.decode(frame).events);
+    }
+
+    @Test
+    void truncatedFramesShouldBeRejected() {
+        byte[] frame = codec.encode(Map.of("cart-1", true), List.of(
+            new CartEvent("cart-1", CartEvent.CartEventType.ITEM_ADDED, "APPLE", 1, new BigDecimal("0.35"), 2)));
+
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(Arrays.copyOf(frame, frame.length - 3)));
+    }
+}
@@ -0,0 +1,99 @@
+package com.cart.eventbus;
+
+import com.cart.config.CartEventBusProperties;
+import com.cart.model.domain.Money;
+import com.cart.model.event.CartEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Events per second and bytes per event between two TCP buses on localhost,
+ * with a tenth of the carts watched on the receiving side. Run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+class EventBusBenchmarkTest {
+    private static final List<String> ITEMS = List.of("APPLE", "BANANA", "MELON", "LIME");
+    private static final int CARTS = 10_000;
+    private static final int WATCHED_EVERY = 10;
+    private static final int EVENTS = 2_000_000;
+
+    @Test
+    void measureInterestRoutedThroughput() throws Exception {
+        String[] cartIds = new String[CARTS];
+        for (int i = 0; i < CARTS; i++) {
+            cartIds[i] = UUID.randomUUID().toString();
+        }
+        CartEvent[] events = new CartEvent[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            events[i] = new CartEvent(cartIds[i % CARTS], CartEvent.CartEventType.ITEM_ADDED,
+                                      ITEMS.get(i % ITEMS.size()), 1 + i % 12, Money.toAmount(35L * (1 + i % 12)),
+                                      2 + i / CARTS);
+        }
+
+        int[] ports = {freePort(), freePort()};
+        SimpleMeterRegistry publisherMeters = new SimpleMeterRegistry();
+        TcpCartEventBus publisher = new TcpCartEventBus(properties("node-1", ports), publisherMeters);
+        TcpCartEventBus subscriber = new TcpCartEventBus(properties("node-2", ports), new SimpleMeterRegistry());
+        try {
+            AtomicLong received = new AtomicLong();
+            subscriber.setReceiver(event -> received.incrementAndGet());
+            for (int i = 0; i < CARTS; i += WATCHED_EVERY) {
+                subscriber.subscribe(cartIds[i]);
+            }
+            for (int i = 0; i < CARTS; i += WATCHED_EVERY) {
+                while (!publisher.isPeerInterested("node-2", cartIds[i])) {
+                    Thread.sleep(5);
+                }
+            }
+
+            long start = System.nanoTime();
+            for (CartEvent event : events) {
+                publisher.publish(event);
+            }
+            long expected = EVENTS / WATCHED_EVERY;
+            while (received.get() < expected) {
+                Thread.sleep(1);
+            }
+            long nanos = System.nanoTime() - start;
+
+            double bytes = publisherMeters.counter("cart.bus.bytes.sent").count();
+            double dropped = publisherMeters.counter("cart.bus.events", "direction", "dropped").count();
+            log.info("{} events published, {} routed: {} events/s, {} bytes/routed event, {} dropped",
+                     EVENTS, expected, String.format("%,d", EVENTS * 1_000_000_000L / nanos),
+                     String.format("%.1f", bytes / expected), (long) dropped);
+            assertEquals(expected, received.get());
+        } finally {
+            publisher.destroy();
+            subscriber.destroy();
+        }
+    }
+
+    private static CartEventBusProperties properties(String nodeId, int[] ports) {
+        CartEventBusProperties properties = new CartEventBusProperties();
+        properties.setType(CartEventBusProperties.Type.TCP);
+        properties.setNodeId(nodeId);
+        properties.getMembers().put("node-1", "localhost:" + ports[0]);
+        properties.getMembers().put("node-2", "localhost:" + ports[1]);
+        properties.setMaxQueuedEvents(EVENTS);
+        properties.setReconnectIntervalMs(20);
+        return properties;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
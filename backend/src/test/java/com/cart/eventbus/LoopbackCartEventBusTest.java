@@ -0,0 +1,166 @@
+package com.cart.eventbus;
+
+import com.cart.config.CartEventBusProperties;
+import com.cart.model.event.CartEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoopbackCartEventBusTest {
+    private LoopbackCartEventBus.Hub hub;
+    private LoopbackCartEventBus first;
+    private LoopbackCartEventBus second;
+    private List<CartEvent> received;
+
+    @BeforeEach
+    void setUp() {
+        hub = new LoopbackCartEventBus.Hub();
+        first = bus("node-1");
+        second = bus("node-2");
+        received = new CopyOnWriteArrayList<>();
+        second.setReceiver(received::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        first.destroy();
+        second.destroy();
+    }
+
+    @Test
+    void eventsShouldOnlyReachPeersSubscribedToTheCart() {
+        first.publish(event("cart-1", 2));
+        first.flush();
+        assertTrue(received.isEmpty());
+
+        second.subscribe("cart-1");
+        second.flush();
+        assertTrue(first.isPeerInterested("node-2", "cart-1"));
+
+        first.publish(event("cart-1", 3));
+        first.publish(event("cart-2", 2));
+        first.flush();
+        assertEquals(List.of(event("cart-1", 3)), received);
+    }
+
+    @Test
+    void eventsShouldWaitForTheNextFlush() {
+        second.subscribe("cart-1");
+        second.flush();
+
+        for (long version = 2; version <= 100; version++) {
+            first.publish(event("cart-1", version));
+        }
+        assertTrue(received.isEmpty());
+
+        first.flush();
+        assertEquals(99, received.size());
+        assertEquals(100, received.get(98).getVersion());
+    }
+
+    @Test
+    void unsubscribingShouldStopTheEvents() {
+        second.subscribe("cart-1");
+        second.flush();
+        second.unsubscribe("cart-1");
+        second.flush();
+
+        first.publish(event("cart-1", 2));
+        first.flush();
+
+        assertFalse(first.isPeerInterested("node-2", "cart-1"));
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    void subscribeAndUnsubscribeBetweenFlushesShouldCancelOut() {
+        second.subscribe("cart-1");
+        second.unsubscribe("cart-1");
+        second.flush();
+
+        assertFalse(first.isPeerInterested("node-2", "cart-1"));
+    }
+
+    @Test
+    void aJoiningPeerShouldLearnExistingInterest() {
+        second.subscribe("cart-1");
+        second.flush();
+
+        LoopbackCartEventBus third = bus("node-3");
+        try {
+            second.flush();
+            assertTrue(third.isPeerInterested("node-2", "cart-1"));
+            assertEquals(Set.of("node-1", "node-3"), second.connectedPeers());
+        } finally {
+            third.destroy();
+        }
+        assertFalse(second.connectedPeers().contains("node-3"));
+    }
+
+    @Test
+    void eventsShouldBeSentWithoutAnExplicitFlush() throws Exception {
+        hub = new LoopbackCartEventBus.Hub();
+        LoopbackCartEventBus sender = bus("node-1", 1);
+        LoopbackCartEventBus subscriber = bus("node-2", 1);
+        try {
+            subscriber.setReceiver(received::add);
+            subscriber.subscribe("cart-1");
+            awaitTrue(() -> sender.isPeerInterested("node-2", "cart-1"));
+
+            sender.publish(event("cart-1", 2));
+
+            awaitTrue(() -> !received.isEmpty());
+            assertEquals(List.of(event("cart-1", 2)), received);
+        } finally {
+            sender.destroy();
+            subscriber.destroy();
+        }
+    }
+
+    @Test
+    void aSingleBusShouldHaveNoPeers() {
+        LoopbackCartEventBus alone = new LoopbackCartEventBus(new CartEventBusProperties(), new SimpleMeterRegistry());
+        try {
+            alone.subscribe("cart-1");
+            alone.publish(event("cart-1", 2));
+            alone.flush();
+            assertTrue(alone.connectedPeers().isEmpty());
+        } finally {
+            alone.destroy();
+        }
+    }
+
+    private LoopbackCartEventBus bus(String nodeId) {
+        // Flushed by hand unless a test waits for the timer
+        return bus(nodeId, 60_000);
+    }
+
+    private LoopbackCartEventBus bus(String nodeId, long flushIntervalMs) {
+        CartEventBusProperties properties = new CartEventBusProperties();
+        properties.setNodeId(nodeId);
+        properties.setFlushIntervalMs(flushIntervalMs);
+        return new LoopbackCartEventBus(hub, properties, new SimpleMeterRegistry());
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static CartEvent event(String cartId, long version) {
+        return new CartEvent(cartId, CartEvent.CartEventType.ITEM_ADDED, "APPLE", (int) version - 1,
+                             new BigDecimal("0.35").multiply(BigDecimal.valueOf(version - 1)), version);
+    }
+}
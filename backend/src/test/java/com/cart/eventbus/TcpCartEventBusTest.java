@@ -0,0 +1,203 @@
+package com.cart.eventbus;
+
+import com.cart.config.CartEventBusProperties;
+import com.cart.model.event.CartEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TcpCartEventBusTest {
+    private final List<TcpCartEventBus> buses = new ArrayList<>();
+    private final List<Integer> ports = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                ports.add(socket.getLocalPort());
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        buses.forEach(TcpCartEventBus::destroy);
+    }
+
+    @Test
+    void eventsShouldReachOnlyTheMembersSubscribedToTheCart() throws Exception {
+        TcpCartEventBus publisher = start("node-1");
+        TcpCartEventBus watcher = start("node-2");
+        TcpCartEventBus bystander = start("node-3");
+        List<CartEvent> watched = new CopyOnWriteArrayList<>();
+        List<CartEvent> ignored = new CopyOnWriteArrayList<>();
+        watcher.setReceiver(watched::add);
+        bystander.setReceiver(ignored::add);
+        awaitTrue(() -> publisher.connectedPeers().size() == 2 && bystander.connectedPeers().size() == 2);
+
+        watcher.subscribe("cart-1");
+        awaitTrue(() -> publisher.isPeerInterested("node-2", "cart-1"));
+        for (long version = 2; version <= 50; version++) {
+            publisher.publish(event("cart-1", version));
+            publisher.publish(event("cart-2", version));
+        }
+
+        awaitTrue(() -> watched.size() == 49);
+        assertEquals(50, watched.get(48).getVersion());
+        assertTrue(watched.stream().allMatch(event -> event.getCartId().equals("cart-1")));
+        assertTrue(ignored.isEmpty());
+    }
+
+    @Test
+    void aRestartedMemberShouldReconnectAndAnnounceItsInterestAgain() throws Exception {
+        TcpCartEventBus publisher = start("node-1");
+        TcpCartEventBus watcher = start("node-2");
+        awaitTrue(() -> publisher.connectedPeers().contains("node-2"));
+
+        watcher.destroy();
+        buses.remove(watcher);
+        awaitTrue(() -> !publisher.connectedPeers().contains("node-2"));
+
+        TcpCartEventBus restarted = start("node-2");
+        List<CartEvent> received = new CopyOnWriteArrayList<>();
+        restarted.setReceiver(received::add);
+        restarted.subscribe("cart-1");
+        awaitTrue(() -> publisher.isPeerInterested("node-2", "cart-1"));
+
+        publisher.publish(event("cart-1", 2));
+        awaitTrue(() -> received.size() == 1);
+    }
+
+    @Test
+    void aPeerThatStopsReadingShouldNotHoldUpTheOthers() throws Exception {
+        // node-2 is a socket that announces interest in cart-1 and never reads
+        try (ServerSocket stalled = new ServerSocket()) {
+            stalled.setReceiveBufferSize(4096);
+            stalled.bind(new InetSocketAddress(InetAddress.getByName("localhost"), ports.get(1)));
+            CartEventBusProperties properties = properties("node-1");
+            properties.setCompressThresholdBytes(Integer.MAX_VALUE);
+            properties.setMaxQueuedFrames(4);
+            TcpCartEventBus publisher = start(properties);
+            TcpCartEventBus watcher = start("node-3");
+            List<CartEvent> watched = new CopyOnWriteArrayList<>();
+            watcher.setReceiver(watched::add);
+            watcher.subscribe("cart-1");
+
+            try (Socket stalledPeer = stalled.accept()) {
+                new DataInputStream(stalledPeer.getInputStream()).readFully(new byte[4 + "node-1".length()]);
+                byte[] interest = new EventBatchCodec(Integer.MAX_VALUE).encode(Map.of("cart-1", true), List.of());
+                DataOutputStream out = new DataOutputStream(stalledPeer.getOutputStream());
+                out.writeInt(interest.length);
+                out.write(interest);
+                out.flush();
+                awaitTrue(() -> publisher.isPeerInterested("node-2", "cart-1")
+                                && publisher.isPeerInterested("node-3", "cart-1"));
+
+                // Far more than the stalled peer's socket buffers hold
+                String item = "X".repeat(1024);
+                for (long version = 1; version <= 10_000; version++) {
+                    publisher.publish(new CartEvent("cart-1", CartEvent.CartEventType.ITEM_ADDED, item, 1,
+                                                    BigDecimal.ONE, version));
+                }
+
+                awaitTrue(() -> watched.size() == 10_000);
+                awaitTrue(() -> !publisher.isPeerInterested("node-2", "cart-1"));
+            }
+        }
+    }
+
+    @Test
+    void busShouldListenOnItsMemberHostOnly() {
+        start("node-1");
+
+        assertThrows(IOException.class, () -> {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("127.0.0.2", ports.get(0)), 1_000);
+            }
+        });
+    }
+
+    @Test
+    void aMemberIdFromAnotherHostShouldBeRejected() throws Exception {
+        TcpCartEventBus bus = start("node-1");
+
+        try (Socket impostor = new Socket()) {
+            impostor.bind(new InetSocketAddress("127.0.0.2", 0));
+            impostor.connect(new InetSocketAddress("localhost", ports.get(0)), 1_000);
+            impostor.setSoTimeout(5_000);
+            try {
+                byte[] nodeId = "node-2".getBytes(StandardCharsets.UTF_8);
+                DataOutputStream out = new DataOutputStream(impostor.getOutputStream());
+                out.writeInt(nodeId.length);
+                out.write(nodeId);
+                out.flush();
+                assertEquals(-1, impostor.getInputStream().read());
+            } catch (SocketException e) {
+                // Closed before the handshake was even read
+            }
+        }
+        assertFalse(bus.connectedPeers().contains("node-2"));
+    }
+
+    @Test
+    void nodeIdMustBeAMember() {
+        CartEventBusProperties properties = properties("node-9");
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> new TcpCartEventBus(properties, new SimpleMeterRegistry()));
+    }
+
+    private TcpCartEventBus start(String nodeId) {
+        return start(properties(nodeId));
+    }
+
+    private TcpCartEventBus start(CartEventBusProperties properties) {
+        TcpCartEventBus bus = new TcpCartEventBus(properties, new SimpleMeterRegistry());
+        buses.add(bus);
+        return bus;
+    }
+
+    private CartEventBusProperties properties(String nodeId) {
+        CartEventBusProperties properties = new CartEventBusProperties();
+        properties.setType(CartEventBusProperties.Type.TCP);
+        properties.setNodeId(nodeId);
+        for (int i = 0; i < ports.size(); i++) {
+            properties.getMembers().put("node-" + (i + 1), "localhost:" + ports.get(i));
+        }
+        properties.setFlushIntervalMs(1);
+        properties.setReconnectIntervalMs(20);
+        return properties;
+    }
+
+    private static CartEvent event(String cartId, long version) {
+        return new CartEvent(cartId, CartEvent.CartEventType.ITEM_ADDED, "APPLE", (int) version - 1,
+                             new BigDecimal("0.35").multiply(BigDecimal.valueOf(version - 1)), version);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -2,13 +2,21 @@ package com.cart.integration;
 
 import com.cart.model.dto.AddItemRequest;
 import com.cart.model.dto.CartResponse;
+import com.cart.model.dto.SetQuantityRequest;
+import com.cart.model.dto.SyncRequest;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -41,6 +49,127 @@ class CartIntegrationTest {
         assertEquals(new BigDecimal("0.85"), cart.getTotal());
     }
 
+    @Test
+    void staleClientVersionShouldReturnConflict() {
+        String cartId = restTemplate.postForObject("/api/v1/cart", null, CartResponse.class).getCartId();
+        addItemToCart(cartId, "APPLE");
+
+        AddItemRequest request = new AddItemRequest();
+        request.setItemName("APPLE");
+        request.setClientVersion(1L);
+        ResponseEntity<String> response = restTemplate.postForEntity(
+            "/api/v1/cart/" + cartId + "/items",
+            request,
+            String.class
+        );
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals(new BigDecimal("0.35"), getCart(cartId).getTotal());
+    }
+
+    @Test
+    void unchangedCartShouldAnswerConditionalGetWithNotModified() {
+        String cartId = restTemplate.postForObject("/api/v1/cart", null, CartResponse.class).getCartId();
+        addItemToCart(cartId, "APPLE");
+
+        ResponseEntity<CartResponse> first = restTemplate.getForEntity("/api/v1/cart/" + cartId, CartResponse.class);
+        String etag = first.getHeaders().getETag();
+        assertEquals(List.of("\"2\""), first.getHeaders().get(HttpHeaders.ETAG));
+        assertEquals(2, first.getBody().getVersion());
+
+        ResponseEntity<String> unchanged = conditionalGet(cartId, etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatusCode());
+        assertNull(unchanged.getBody());
+        assertEquals(etag, unchanged.getHeaders().getETag());
+
+        addItemToCart(cartId, "APPLE");
+        ResponseEntity<String> changed = conditionalGet(cartId, etag);
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertEquals("\"3\"", changed.getHeaders().getETag());
+        assertTrue(changed.getBody().contains("\"version\":3"));
+    }
+
+    @Test
+    void quantitiesShouldBeAddedAndSetInOneRequest() {
+        String cartId = restTemplate.postForObject("/api/v1/cart", null, CartResponse.class).getCartId();
+
+        AddItemRequest add = new AddItemRequest();
+        add.setItemName("LIME");
+        add.setQuantity(6);
+        CartResponse added = restTemplate.postForObject("/api/v1/cart/" + cartId + "/items", add, CartResponse.class);
+        assertEquals(new BigDecimal("0.60"), added.getTotal());
+        assertEquals(2, added.getVersion());
+
+        SetQuantityRequest set = new SetQuantityRequest();
+        set.setQuantity(4);
+        ResponseEntity<CartResponse> updated = restTemplate.exchange(
+            "/api/v1/cart/" + cartId + "/items/LIME", HttpMethod.PUT, new HttpEntity<>(set), CartResponse.class);
+        assertEquals(HttpStatus.OK, updated.getStatusCode());
+        assertEquals(4, updated.getBody().getItems().get(0).getQuantity());
+        assertEquals(new BigDecimal("0.45"), updated.getBody().getTotal());
+
+        add.setQuantity(-1);
+        ResponseEntity<String> rejected = restTemplate.postForEntity(
+            "/api/v1/cart/" + cartId + "/items", add, String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, rejected.getStatusCode());
+    }
+
+    @Test
+    void setQuantityShouldRejectMissingOrNegativeQuantity() {
+        String cartId = restTemplate.postForObject("/api/v1/cart", null, CartResponse.class).getCartId();
+        String url = "/api/v1/cart/" + cartId + "/items/LIME";
+
+        ResponseEntity<String> missing = restTemplate.exchange(
+            url, HttpMethod.PUT, new HttpEntity<>(new SetQuantityRequest()), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, missing.getStatusCode());
+        assertTrue(missing.getBody().contains("Quantity is required"));
+
+        SetQuantityRequest negative = new SetQuantityRequest();
+        negative.setQuantity(-1);
+        ResponseEntity<String> rejected = restTemplate.exchange(
+            url, HttpMethod.PUT, new HttpEntity<>(negative), String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, rejected.getStatusCode());
+        assertEquals(1, restTemplate.getForObject("/api/v1/cart/" + cartId, CartResponse.class).getVersion());
+    }
+
+    @Test
+    void syncShouldRejectOverlongOperationIds() {
+        String cartId = restTemplate.postForObject("/api/v1/cart", null, CartResponse.class).getCartId();
+        SyncRequest.PendingOperation op = new SyncRequest.PendingOperation();
+        op.setOperationId("o".repeat(SyncRequest.MAX_OPERATION_ID_LENGTH + 1));
+        op.setType("ADD");
+        op.setItem("APPLE");
+        SyncRequest request = new SyncRequest();
+        request.setOperations(List.of(op));
+
+        ResponseEntity<String> rejected = restTemplate.postForEntity(
+            "/api/v1/cart/" + cartId + "/sync", request, String.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, rejected.getStatusCode());
+        assertTrue(rejected.getBody().contains("Operation id must be"));
+        assertEquals(1, getCart(cartId).getVersion());
+    }
+
+    @Test
+    void pricingReloadWithUnknownStrategyShouldBeRejected() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String body = "{\"items\":{\"APPLE\":{\"basePrice\":0.10,\"strategies\":[{\"type\":\"HALF_PRICE\"}]}}}";
+
+        ResponseEntity<String> response = restTemplate.exchange(
+            "/api/v1/pricing", HttpMethod.PUT, new HttpEntity<>(body, headers), String.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        String cartId = restTemplate.postForObject("/api/v1/cart", null, CartResponse.class).getCartId();
+        assertEquals(new BigDecimal("0.35"), addItemToCart(cartId, "APPLE").getBody().getTotal());
+    }
+
+    private ResponseEntity<String> conditionalGet(String cartId, String etag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        return restTemplate.exchange("/api/v1/cart/" + cartId, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
     private ResponseEntity<CartResponse> addItemToCart(String cartId, String itemName) {
         AddItemRequest request = new AddItemRequest();
         request.setItemName(itemName);
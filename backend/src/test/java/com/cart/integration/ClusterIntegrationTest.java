@@ -0,0 +1,191 @@
+package com.cart.integration;
+
+import com.cart.ShoppingCartApplication;
+import com.cart.cluster.CartRouter;
+import com.cart.model.dto.AddItemRequest;
+import com.cart.model.dto.CartResponse;
+import com.cart.repository.CartRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Three cluster members on localhost, each with its own context and port.
+ */
+class ClusterIntegrationTest {
+    private static final int NODES = 3;
+
+    private static final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+    private static final List<String> urls = new ArrayList<>();
+    private static final TestRestTemplate restTemplate = new TestRestTemplate();
+
+    @BeforeAll
+    static void startCluster() throws IOException {
+        List<Integer> ports = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                ports.add(socket.getLocalPort());
+            }
+        }
+        List<String> properties = new ArrayList<>(List.of("--cart.cluster.enabled=true"));
+        for (int i = 0; i < NODES; i++) {
+            urls.add("http://localhost:" + ports.get(i));
+            properties.add("--cart.cluster.nodes.node-" + i + "=" + urls.get(i));
+        }
+        for (int i = 0; i < NODES; i++) {
+            // Arguments, so they override the port and members from application.yml
+            List<String> nodeProperties = new ArrayList<>(properties);
+            nodeProperties.add("--cart.cluster.nodeId=node-" + i);
+            nodeProperties.add("--server.port=" + ports.get(i));
+            contexts.add(new SpringApplicationBuilder(ShoppingCartApplication.class)
+                             .initializers(context -> context.getBeanFactory().registerSingleton(
+                                 "clusterTestExcludeFilter", new TestConfigurationExcludeFilter()))
+                             .run(nodeProperties.toArray(new String[0])));
+        }
+    }
+
+    @AfterAll
+    static void stopCluster() {
+        contexts.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void cartsShouldBeCreatedOnTheNodeThatReceivedTheRequest() {
+        for (int node = 0; node < NODES; node++) {
+            String cartId = createCart(node);
+
+            for (int other = 0; other < NODES; other++) {
+                assertEquals("node-" + node, contexts.get(other).getBean(CartRouter.class).ownerOf(cartId));
+            }
+            assertStoredOnlyOn(node, cartId);
+        }
+    }
+
+    @Test
+    void anyNodeShouldServeAnyCart() {
+        String cartId = createCart(0);
+
+        addItem(1, cartId, "APPLE");
+        addItem(2, cartId, "MELON");
+        addItem(2, cartId, "MELON");
+
+        for (int node = 0; node < NODES; node++) {
+            CartResponse cart = restTemplate.getForObject(urls.get(node) + "/api/v1/cart/" + cartId,
+                                                          CartResponse.class);
+            assertEquals(new BigDecimal("0.85"), cart.getTotal());
+            assertEquals(4, cart.getVersion());
+        }
+        assertStoredOnlyOn(0, cartId);
+    }
+
+    @Test
+    void forwardedResponsesShouldKeepStatusAndHeaders() {
+        String cartId = createCart(0);
+        String remoteUrl = urls.get(1) + "/api/v1/cart/" + cartId;
+
+        ResponseEntity<CartResponse> first = restTemplate.getForEntity(remoteUrl, CartResponse.class);
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        String etag = first.getHeaders().getETag();
+        assertNotNull(etag);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        ResponseEntity<String> unchanged = restTemplate.exchange(remoteUrl, HttpMethod.GET,
+                                                                 new HttpEntity<>(headers), String.class);
+        assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatusCode());
+
+        AddItemRequest unknown = new AddItemRequest();
+        unknown.setItemName("DURIAN");
+        assertEquals(HttpStatus.BAD_REQUEST,
+                     restTemplate.postForEntity(remoteUrl + "/items", unknown, String.class).getStatusCode());
+
+        String missing = contexts.get(0).getBean(CartRouter.class).newCartId();
+        ResponseEntity<String> notFound = restTemplate.getForEntity(urls.get(1) + "/api/v1/cart/" + missing,
+                                                                    String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, notFound.getStatusCode());
+        assertTrue(notFound.getBody().contains("Cart not found"));
+    }
+
+    @Test
+    void subscriptionOnAnotherNodeShouldReceiveTheOwnersUpdates() throws Exception {
+        String cartId = createCart(0);
+        BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+        String wsUrl = urls.get(2).replace("http", "ws") + "/cart-ws/" + cartId;
+
+        WebSocketSession session = new StandardWebSocketClient().doHandshake(new TextWebSocketHandler() {
+            @Override
+            protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+                messages.offer(message.getPayload());
+            }
+        }, wsUrl).get(5, TimeUnit.SECONDS);
+        try {
+            String initial = messages.poll(5, TimeUnit.SECONDS);
+            assertNotNull(initial);
+            assertTrue(initial.contains(cartId));
+
+            addItem(1, cartId, "APPLE");
+            String update = messages.poll(5, TimeUnit.SECONDS);
+            assertNotNull(update);
+            assertTrue(update.contains("APPLE"));
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Keeps test configurations, with their mocked services, out of the
+     * nodes' component scan as {@code @SpringBootTest} would.
+     */
+    private static final class TestConfigurationExcludeFilter extends TypeExcludeFilter {
+        @Override
+        public boolean match(MetadataReader reader, MetadataReaderFactory factory) {
+            return reader.getAnnotationMetadata().hasAnnotation(TestConfiguration.class.getName());
+        }
+    }
+
+    private static String createCart(int node) {
+        return restTemplate.postForObject(urls.get(node) + "/api/v1/cart", null, CartResponse.class).getCartId();
+    }
+
+    private static void addItem(int node, String cartId, String itemName) {
+        AddItemRequest request = new AddItemRequest();
+        request.setItemName(itemName);
+        ResponseEntity<String> response = restTemplate.postForEntity(
+            urls.get(node) + "/api/v1/cart/" + cartId + "/items", request, String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    private static void assertStoredOnlyOn(int owner, String cartId) {
+        for (int node = 0; node < NODES; node++) {
+            assertEquals(node == owner, contexts.get(node).getBean(CartRepository.class).exists(cartId),
+                         "node-" + node);
+        }
+    }
+}
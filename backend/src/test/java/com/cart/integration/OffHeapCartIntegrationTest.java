@@ -0,0 +1,10 @@
+package com.cart.integration;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the cart API suite against the off-heap store.
+ */
+@TestPropertySource(properties = "cart.store.type=offheap")
+class OffHeapCartIntegrationTest extends CartIntegrationTest {
+}
@@ -0,0 +1,10 @@
+package com.cart.integration;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the cart API suite with cart operations on shard threads.
+ */
+@TestPropertySource(properties = {"cart.concurrency.mode=sharded", "cart.concurrency.shards=4"})
+class ShardedCartIntegrationTest extends CartIntegrationTest {
+}
@@ -0,0 +1,11 @@
+package com.cart.integration;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the cart API suite with the TCP event bus listening for peers.
+ */
+@TestPropertySource(properties = {"cart.event-bus.type=tcp", "cart.event-bus.node-id=node-1",
+                                  "cart.event-bus.members.node-1=localhost:0"})
+class TcpEventBusCartIntegrationTest extends CartIntegrationTest {
+}
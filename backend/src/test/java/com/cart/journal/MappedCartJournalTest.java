@@ -0,0 +1,218 @@
+package com.cart.journal;
+
+import com.cart.config.CartJournalProperties;
+import com.cart.exception.CartException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedCartJournalTest {
+    @TempDir
+    Path directory;
+
+    private final List<MappedCartJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(MappedCartJournal::destroy);
+    }
+
+    @Test
+    void appendedEntriesShouldReplayInOrder() {
+        MappedCartJournal journal = open(CartJournalProperties.Durability.INTERVAL, 4096);
+        List<JournalEntry> written = List.of(
+            JournalEntry.create("c-1", 0),
+            JournalEntry.add("c-1", "APPLE", 2, 70, 2),
+            JournalEntry.remove("c-1", "APPLE", 3),
+            JournalEntry.clear("c-1", 4),
+            JournalEntry.sync("c-1", List.of(new JournalEntry.Line("MELON", 3, 100),
+                                             new JournalEntry.Line("LIME", 1, 15)),
+                              List.of("op-1", "op-2"), 5),
+            JournalEntry.sync("c-1", List.of(), List.of("op-3"), 5)
+        );
+
+        long last = 0;
+        for (JournalEntry entry : written) {
+            long position = journal.append(entry);
+            assertTrue(position > last);
+            last = position;
+        }
+        assertEquals(last, journal.position());
+
+        assertEquals(written, replay());
+    }
+
+    @Test
+    void fullSegmentShouldRollOverToNextFile() {
+        MappedCartJournal journal = open(CartJournalProperties.Durability.ASYNC, 256);
+        for (int i = 0; i < 20; i++) {
+            journal.append(JournalEntry.add("c-" + i, "APPLE", i, i * 35L, i));
+        }
+
+        assertTrue(JournalReader.segments(directory).size() > 1);
+        List<JournalEntry> replayed = replay();
+        assertEquals(20, replayed.size());
+        assertEquals("c-19", replayed.get(19).getCartId());
+    }
+
+    @Test
+    void reopenedJournalShouldAppendAfterExistingEntries() {
+        MappedCartJournal first = open(CartJournalProperties.Durability.INTERVAL, 4096);
+        first.append(JournalEntry.create("c-1", 0));
+        first.destroy();
+        opened.remove(first);
+
+        MappedCartJournal second = open(CartJournalProperties.Durability.INTERVAL, 4096);
+        second.append(JournalEntry.create("c-2", 0));
+
+        List<JournalEntry> replayed = replay();
+        assertEquals(2, replayed.size());
+        assertEquals("c-2", replayed.get(1).getCartId());
+    }
+
+    @Test
+    void tornTailShouldBeDiscardedOnReopen() throws IOException {
+        MappedCartJournal first = open(CartJournalProperties.Durability.INTERVAL, 4096);
+        first.append(JournalEntry.create("c-1", 0));
+        long intact = first.append(JournalEntry.create("c-2", 0));
+        first.destroy();
+        opened.remove(first);
+
+        // Simulate a crash halfway through writing a third record
+        try (FileChannel channel = FileChannel.open(JournalReader.segmentPath(directory, 0), StandardOpenOption.WRITE)) {
+            ByteBuffer torn = ByteBuffer.allocate(12).putInt(40).putInt(12345).putInt(7);
+            torn.flip();
+            channel.write(torn, intact);
+        }
+        assertEquals(2, replay().size());
+
+        MappedCartJournal second = open(CartJournalProperties.Durability.INTERVAL, 4096);
+        second.append(JournalEntry.create("c-3", 0));
+
+        List<JournalEntry> replayed = replay();
+        assertEquals(3, replayed.size());
+        assertEquals("c-3", replayed.get(2).getCartId());
+    }
+
+    @Test
+    void syncDurabilityShouldShareFlushesAcrossWriters() throws Exception {
+        MappedCartJournal journal = open(CartJournalProperties.Durability.SYNC, 1 << 20);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                writers.add(pool.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        journal.awaitDurable(journal.append(JournalEntry.create("c-" + thread + "-" + i, 0)));
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(200, replay().size());
+    }
+
+    @Test
+    void whenDurableShouldCompleteAfterTheFlush() throws Exception {
+        MappedCartJournal journal = open(CartJournalProperties.Durability.SYNC, 1 << 20);
+        List<CompletableFuture<Void>> flushed = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            flushed.add(journal.whenDurable(journal.append(JournalEntry.create("c-" + i, 0))));
+        }
+
+        CompletableFuture.allOf(flushed.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        assertTrue(journal.whenDurable(journal.position()).isDone());
+        assertEquals(50, replay().size());
+    }
+
+    @Test
+    void whenDurableShouldNotRunWaitersOnTheFlusher() throws Exception {
+        MappedCartJournal journal = open(CartJournalProperties.Durability.SYNC, 1 << 20);
+        List<CompletableFuture<String>> threads = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            threads.add(journal.whenDurable(journal.append(JournalEntry.create("c-" + i, 0)))
+                               .thenApply(durable -> Thread.currentThread().getName()));
+        }
+
+        for (CompletableFuture<String> thread : threads) {
+            assertNotEquals("cart-journal-flush", thread.get(30, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void stringsLongerThanAShortShouldRoundTrip() {
+        MappedCartJournal journal = open(CartJournalProperties.Durability.ASYNC, 1 << 20);
+        String operationId = "o".repeat(40_000);
+        JournalEntry entry = JournalEntry.sync("c-1", List.of(), List.of(operationId), 1);
+
+        journal.append(entry);
+
+        assertEquals(List.of(entry), replay());
+    }
+
+    @Test
+    void oversizedStringShouldBeRejectedWithoutWritingAnything() {
+        MappedCartJournal journal = open(CartJournalProperties.Durability.ASYNC, 1 << 20);
+        long position = journal.position();
+        String operationId = "o".repeat(JournalFormat.MAX_STRING_BYTES + 1);
+
+        assertThrows(CartException.class,
+                     () -> journal.append(JournalEntry.sync("c-1", List.of(), List.of(operationId), 1)));
+        journal.append(JournalEntry.create("c-2", 0));
+
+        assertTrue(journal.position() > position);
+        assertEquals(List.of(JournalEntry.create("c-2", 0)), replay());
+    }
+
+    @Test
+    void rolledSegmentsShouldBeDeletableOnceCovered() {
+        MappedCartJournal journal = open(CartJournalProperties.Durability.ASYNC, 4096);
+        journal.append(JournalEntry.create("c-1", 0));
+        long segment = journal.rollSegment();
+        journal.append(JournalEntry.create("c-2", 0));
+
+        assertEquals(1, segment);
+        journal.deleteSegmentsBefore(segment);
+
+        assertEquals(List.of(JournalReader.segmentPath(directory, 1)), JournalReader.segments(directory));
+        assertEquals(List.of(JournalEntry.create("c-2", 0)), replay());
+    }
+
+    private MappedCartJournal open(CartJournalProperties.Durability durability, int segmentSize) {
+        CartJournalProperties properties = new CartJournalProperties();
+        properties.setDirectory(directory.toString());
+        properties.setDurability(durability);
+        properties.setSegmentSizeBytes(segmentSize);
+        properties.setFlushIntervalMs(1);
+        MappedCartJournal journal = new MappedCartJournal(properties);
+        opened.add(journal);
+        return journal;
+    }
+
+    private List<JournalEntry> replay() {
+        List<JournalEntry> entries = new ArrayList<>();
+        JournalReader.replay(directory, entries::add);
+        return entries;
+    }
+}
@@ -0,0 +1,93 @@
+package com.cart.model.domain;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Retained bytes per cart for the packed line layout versus the previous
+ * map-of-line-objects layout. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+class CartFootprintBenchmarkTest {
+    private static final ItemIds ITEM_IDS = new ItemIds();
+    private static final String[] CATALOG = {"APPLE", "BANANA", "MELON", "LIME", "MANGO", "KIWI"};
+    private static final BigDecimal[] PRICES = {
+        new BigDecimal("0.35"), new BigDecimal("0.20"), new BigDecimal("0.50"),
+        new BigDecimal("0.15"), new BigDecimal("1.00"), new BigDecimal("0.25")
+    };
+
+    @Test
+    void compareBytesPerCart() {
+        for (int lines : new int[] {1, 3, 6}) {
+            long packed = footprint(packedCart(lines));
+            long legacy = footprint(legacyCart(lines));
+            log.info("{} lines: packed {} bytes/cart, map of lines {} bytes/cart", lines, packed, legacy);
+            assertTrue(packed < legacy);
+        }
+    }
+
+    private static Cart packedCart(int lines) {
+        Cart cart = new Cart();
+        for (int i = 0; i < lines; i++) {
+            int quantity = i + 2;
+            cart.putLine(ITEM_IDS.intern(CATALOG[i]), quantity,
+                         PRICES[i].movePointRight(2).longValue() * quantity);
+        }
+        return cart;
+    }
+
+    /**
+     * The layout this replaced: one object per line with its own name and
+     * price references, held in a concurrent map keyed by name.
+     */
+    private static LegacyCart legacyCart(int lines) {
+        LegacyCart cart = new LegacyCart();
+        for (int i = 0; i < lines; i++) {
+            int quantity = i + 2;
+            // Line totals used to be BigDecimals produced per line
+            BigDecimal total = PRICES[i].multiply(BigDecimal.valueOf(quantity));
+            cart.items.put(CATALOG[i], new LegacyLine(CATALOG[i], quantity, PRICES[i], total));
+        }
+        return cart;
+    }
+
+    /**
+     * Bytes reachable from the cart, excluding the catalog's shared names and prices.
+     */
+    private static long footprint(Object cart) {
+        return GraphLayout.parseInstance(cart).subtract(GraphLayout.parseInstance((Object[]) CATALOG))
+                          .subtract(GraphLayout.parseInstance((Object[]) PRICES))
+                          .totalSize();
+    }
+
+    private static final class LegacyCart {
+        private final String id = UUID.randomUUID().toString();
+        private final Map<String, LegacyLine> items = new ConcurrentHashMap<>();
+        private volatile BigDecimal total = BigDecimal.ZERO;
+        private volatile long version = 1L;
+    }
+
+    private static final class LegacyLine {
+        private final String name;
+        private volatile int quantity;
+        private final BigDecimal unitPrice;
+        private volatile BigDecimal totalPrice;
+
+        LegacyLine(String name, int quantity, BigDecimal unitPrice, BigDecimal totalPrice) {
+            this.name = name;
+            this.quantity = quantity;
+            this.unitPrice = unitPrice;
+            this.totalPrice = totalPrice;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.cart.model.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartRecordTest {
+    private static final ItemIds ITEM_IDS = new ItemIds();
+    private static final int APPLE = ITEM_IDS.intern("APPLE");
+    private static final int MELON = ITEM_IDS.intern("MELON");
+
+    @Test
+    void shouldRoundTripCartState() {
+        Cart cart = new Cart();
+        cart.putLine(APPLE, 3, 105);
+        cart.putLine(MELON, 2, 50);
+        cart.incrementVersion();
+        byte[] idBytes = CartRecord.idBytes(cart.getId());
+        ByteBuffer buffer = ByteBuffer.allocateDirect(256);
+
+        CartRecord.write(cart, idBytes, buffer, 32);
+        Cart restored = CartRecord.read(buffer, 32);
+
+        assertEquals(cart, restored);
+        assertEquals(155, restored.getTotalCents());
+        assertEquals(2, restored.getVersion());
+        assertEquals(3, restored.quantityOf(APPLE));
+        assertNull(restored.getRecentOperations());
+    }
+
+    @Test
+    void shouldRoundTripOperationWindow() {
+        Cart cart = new Cart();
+        cart.operationWindow(4).record("op-1");
+        cart.operationWindow(4).record("op-2");
+        byte[] idBytes = CartRecord.idBytes(cart.getId());
+        ByteBuffer buffer = ByteBuffer.allocate(CartRecord.size(cart, idBytes));
+
+        CartRecord.write(cart, idBytes, buffer, 0);
+        OperationWindow window = CartRecord.read(buffer, 0).operationWindow(4);
+
+        assertTrue(window.contains("op-1"));
+        assertTrue(window.contains("op-2"));
+        assertFalse(window.contains("op-3"));
+        window.record("op-3");
+        window.record("op-4");
+        window.record("op-5");
+        assertFalse(window.contains("op-1"));
+    }
+
+    @Test
+    void sizeShouldMatchBytesWritten() {
+        Cart cart = new Cart();
+        cart.putLine(APPLE, 1, 35);
+        cart.operationWindow(8);
+        byte[] idBytes = CartRecord.idBytes(cart.getId());
+        int size = CartRecord.size(cart, idBytes);
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+
+        assertDoesNotThrow(() -> CartRecord.write(cart, idBytes, buffer, 0));
+        assertThrows(IndexOutOfBoundsException.class,
+                     () -> CartRecord.write(cart, idBytes, ByteBuffer.allocate(size - 1), 0));
+    }
+
+    @Test
+    void imageShouldKeepTheLinesItWasSizedFor() {
+        Cart cart = new Cart();
+        cart.putLine(APPLE, 1, 35);
+        byte[] idBytes = CartRecord.idBytes(cart.getId());
+        CartRecord.Image image = CartRecord.image(cart, idBytes);
+        ByteBuffer buffer = ByteBuffer.allocate(image.size());
+
+        // Changed by another thread after the image was sized
+        cart.putLine(MELON, 2, 50);
+        cart.operationWindow(8);
+        image.write(buffer, 0);
+
+        assertEquals(image.size(), CartRecord.sizeAt(buffer, 0));
+        assertEquals(1, CartRecord.read(buffer, 0).lineCount());
+    }
+
+    @Test
+    void hasIdShouldMatchOnlyItsOwnCart() {
+        Cart cart = new Cart();
+        byte[] idBytes = CartRecord.idBytes(cart.getId());
+        ByteBuffer buffer = ByteBuffer.allocate(CartRecord.size(cart, idBytes));
+        CartRecord.write(cart, idBytes, buffer, 0);
+
+        assertTrue(CartRecord.hasId(buffer, 0, idBytes));
+        assertFalse(CartRecord.hasId(buffer, 0, CartRecord.idBytes(new Cart().getId())));
+    }
+
+    @Test
+    void sizeAtShouldReadRecordLength() {
+        Cart cart = new Cart();
+        cart.putLine(APPLE, 1, 35);
+        cart.operationWindow(4);
+        byte[] idBytes = CartRecord.idBytes(cart.getId());
+        ByteBuffer buffer = ByteBuffer.allocate(CartRecord.size(cart, idBytes) + 8);
+
+        CartRecord.write(cart, idBytes, buffer, 8);
+
+        assertEquals(CartRecord.size(cart, idBytes), CartRecord.sizeAt(buffer, 8));
+    }
+
+    @Test
+    void remappedReadShouldTranslateAndReorderItemIds() {
+        Cart cart = new Cart();
+        cart.putLine(APPLE, 3, 105);
+        cart.putLine(MELON, 2, 50);
+        byte[] idBytes = CartRecord.idBytes(cart.getId());
+        ByteBuffer buffer = ByteBuffer.allocate(CartRecord.size(cart, idBytes));
+        CartRecord.write(cart, idBytes, buffer, 0);
+
+        // Swap the two ids, as if the writer had interned the items in the other order
+        int[] remap = new int[Math.max(APPLE, MELON) + 1];
+        Arrays.fill(remap, ItemIds.UNKNOWN);
+        remap[APPLE] = MELON;
+        remap[MELON] = APPLE;
+        Cart swapped = CartRecord.read(buffer, 0, remap);
+
+        assertEquals(2, swapped.quantityOf(APPLE));
+        assertEquals(3, swapped.quantityOf(MELON));
+        assertEquals(0, swapped.recomputeTotal());
+
+        remap[MELON] = ItemIds.UNKNOWN;
+        Cart dropped = CartRecord.read(buffer, 0, remap);
+        assertEquals(1, dropped.lineCount());
+        assertEquals(-50, dropped.recomputeTotal());
+    }
+}
@@ -0,0 +1,117 @@
+package com.cart.model.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartTest {
+    private static final Map<Integer, BigDecimal> UNIT_PRICES = new ConcurrentHashMap<>();
+    private static final ItemIds ITEM_IDS = new ItemIds(UNIT_PRICES::get);
+    private static final int APPLE = item("APPLE", "0.35");
+    private static final int MELON = item("MELON", "0.50");
+    private static final int LIME = item("LIME", "0.15");
+
+    @Test
+    void putLineShouldMoveTotalByDelta() {
+        Cart cart = new Cart();
+
+        cart.putLine(APPLE, 1, 35);
+        cart.putLine(MELON, 1, 50);
+        cart.putLine(APPLE, 2, 70);
+
+        assertEquals(120, cart.getTotalCents());
+        assertEquals(2, cart.quantityOf(APPLE));
+        assertEquals(70, cart.lineTotalCents(APPLE));
+        assertEquals(2, cart.lineCount());
+        assertEquals(new BigDecimal("1.20"), cart.getTotal());
+    }
+
+    @Test
+    void removeLineShouldSubtractLineTotal() {
+        Cart cart = new Cart();
+        cart.putLine(APPLE, 2, 70);
+        cart.putLine(LIME, 2, 30);
+
+        assertTrue(cart.removeLine(APPLE));
+        assertFalse(cart.removeLine(APPLE));
+
+        assertEquals(30, cart.getTotalCents());
+        assertEquals(0, cart.quantityOf(APPLE));
+        assertFalse(cart.getItems(ITEM_IDS).containsKey("APPLE"));
+    }
+
+    @Test
+    void clearLinesShouldResetTotal() {
+        Cart cart = new Cart();
+        cart.putLine(APPLE, 1, 35);
+
+        cart.clearLines();
+
+        assertTrue(cart.getItems(ITEM_IDS).isEmpty());
+        assertEquals(BigDecimal.ZERO, cart.getTotal());
+    }
+
+    @Test
+    void itemsShouldBeReadOnlySnapshotOfLines() {
+        Cart cart = new Cart();
+        cart.putLine(MELON, 3, 100);
+        cart.putLine(APPLE, 1, 35);
+
+        Cart.CartItem melon = cart.getItems(ITEM_IDS).get("MELON");
+        assertEquals(3, melon.getQuantity());
+        assertEquals(new BigDecimal("0.50"), melon.getUnitPrice());
+        assertEquals(new BigDecimal("1.00"), melon.getTotalPrice());
+        assertEquals(List.of("APPLE", "MELON"), List.copyOf(cart.getItems(ITEM_IDS).keySet()));
+        assertThrows(UnsupportedOperationException.class, () -> cart.getItems(ITEM_IDS).remove("APPLE"));
+        assertThrows(UnsupportedOperationException.class, () -> cart.getItems(ITEM_IDS).clear());
+    }
+
+    @Test
+    void linesShouldStaySortedThroughInsertsAndRemovals() {
+        Cart cart = new Cart();
+        int[] ids = new int[10];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = ITEM_IDS.intern("SORT" + i);
+        }
+        for (int i = ids.length - 1; i >= 0; i -= 2) {
+            cart.putLine(ids[i], i + 1, i * 10L);
+        }
+        for (int i = 0; i < ids.length; i += 2) {
+            cart.putLine(ids[i], i + 1, i * 10L);
+        }
+        cart.removeLine(ids[4]);
+
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(i == 4 ? 0 : i + 1, cart.quantityOf(ids[i]));
+        }
+        assertEquals(9, cart.lineCount());
+    }
+
+    @Test
+    void recomputeTotalShouldReportNoDriftForDeltaUpdates() {
+        Cart cart = new Cart();
+        int[] ids = new int[7];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = ITEM_IDS.intern("ITEM" + i);
+        }
+        for (int i = 1; i <= 100; i++) {
+            cart.putLine(ids[i % 7], i, i * 13L);
+        }
+        cart.removeLine(ids[3]);
+
+        long running = cart.getTotalCents();
+        assertEquals(0, cart.recomputeTotal());
+        assertEquals(running, cart.getTotalCents());
+    }
+
+    private static int item(String name, String unitPrice) {
+        int id = ITEM_IDS.intern(name);
+        UNIT_PRICES.put(id, new BigDecimal(unitPrice));
+        return id;
+    }
+}
@@ -0,0 +1,70 @@
+package com.cart.model.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemIdsTest {
+    private final Map<Integer, BigDecimal> unitPrices = new ConcurrentHashMap<>();
+    private final ItemIds itemIds = new ItemIds(unitPrices::get);
+
+    @Test
+    void internShouldReturnStableDenseIds() {
+        int first = itemIds.intern("INTERN-A");
+        int second = itemIds.intern("INTERN-B");
+
+        assertEquals(0, first);
+        assertEquals(first, itemIds.intern("INTERN-A"));
+        assertEquals(first + 1, second);
+        assertEquals("INTERN-B", itemIds.name(second));
+        assertEquals(second, itemIds.find("INTERN-B"));
+        assertEquals(2, itemIds.size());
+    }
+
+    @Test
+    void unitPriceShouldComeFromThePriceSource() {
+        int id = itemIds.intern("INTERN-C");
+        unitPrices.put(id, new BigDecimal("1.00"));
+        assertEquals(new BigDecimal("1.00"), itemIds.unitPrice(id));
+
+        unitPrices.put(id, new BigDecimal("1.25"));
+        assertEquals(new BigDecimal("1.25"), itemIds.unitPrice(id));
+    }
+
+    @Test
+    void registryWithoutPricesShouldAnswerNull() {
+        ItemIds unpriced = new ItemIds();
+
+        assertNull(unpriced.unitPrice(unpriced.intern("UNPRICED")));
+    }
+
+    @Test
+    void unknownNameShouldNotBeAssignedAnId() {
+        assertEquals(ItemIds.UNKNOWN, itemIds.find("NEVER-INTERNED"));
+    }
+
+    @Test
+    void registriesShouldNotShareIds() {
+        ItemIds other = new ItemIds();
+        itemIds.intern("SHARED-A");
+
+        assertEquals(ItemIds.UNKNOWN, other.find("SHARED-A"));
+        assertEquals(0, other.intern("SHARED-B"));
+    }
+
+    @Test
+    void shouldGrowPastInitialCapacity() {
+        int firstId = itemIds.intern("GROW-0");
+        for (int i = 1; i < 100; i++) {
+            itemIds.intern("GROW-" + i);
+        }
+
+        assertEquals("GROW-99", itemIds.name(itemIds.find("GROW-99")));
+        assertEquals("GROW-0", itemIds.name(firstId));
+        assertEquals(100, itemIds.size());
+    }
+}
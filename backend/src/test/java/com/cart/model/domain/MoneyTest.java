@@ -0,0 +1,34 @@
+package com.cart.model.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void shouldConvertBetweenCentsAndAmounts() {
+        assertEquals(new BigDecimal("0.35"), Money.toAmount(35));
+        assertEquals(BigDecimal.ZERO, Money.toAmount(0));
+        assertEquals(35, Money.toCents(new BigDecimal("0.35")));
+        assertEquals(36, Money.toCents(new BigDecimal("0.355")));
+    }
+
+    @Test
+    void shouldDetectSubPennyAmounts() {
+        assertTrue(Money.isWholeCents(new BigDecimal("1.50")));
+        assertTrue(Money.isWholeCents(new BigDecimal("1.500")));
+        assertFalse(Money.isWholeCents(new BigDecimal("1.505")));
+    }
+
+    @Test
+    void mulDivShouldRoundHalfAwayFromZero() {
+        assertEquals(3, Money.mulDivHalfUp(5, 1, 2));
+        assertEquals(-3, Money.mulDivHalfUp(-5, 1, 2));
+        assertEquals(2, Money.mulDivHalfUp(7, 1, 3));
+        assertEquals(-2, Money.mulDivHalfUp(-7, 1, 3));
+        assertEquals(203, Money.mulDivHalfUp(225, 90, 100));
+    }
+}
@@ -0,0 +1,44 @@
+package com.cart.model.domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OperationWindowTest {
+
+    @Test
+    void shouldRememberRecordedIds() {
+        OperationWindow window = new OperationWindow(4);
+        window.record("op-1");
+
+        assertTrue(window.contains("op-1"));
+        assertFalse(window.contains("op-2"));
+    }
+
+    @Test
+    void shouldForgetOldestIdsOnceFull() {
+        OperationWindow window = new OperationWindow(3);
+        for (int i = 1; i <= 4; i++) {
+            window.record("op-" + i);
+        }
+
+        assertFalse(window.contains("op-1"));
+        assertTrue(window.contains("op-2"));
+        assertTrue(window.contains("op-4"));
+    }
+
+    @Test
+    void fingerprintShouldNeverBeEmptyMarker() {
+        assertNotEquals(0L, OperationWindow.fingerprint(""));
+        assertNotEquals(0L, OperationWindow.fingerprint("op-1"));
+    }
+
+    @Test
+    void cartShouldAllocateWindowLazilyOnce() {
+        Cart cart = new Cart();
+        OperationWindow window = cart.operationWindow(8);
+
+        assertSame(window, cart.operationWindow(16));
+        assertEquals(8, window.capacity());
+    }
+}
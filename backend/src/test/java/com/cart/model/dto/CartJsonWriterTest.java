@@ -0,0 +1,111 @@
+package com.cart.model.dto;
+
+import com.cart.model.domain.Cart;
+import com.cart.model.domain.ItemIds;
+import com.cart.model.event.CartEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartJsonWriterTest {
+    private static final Map<Integer, BigDecimal> UNIT_PRICES = new ConcurrentHashMap<>();
+    private static final ItemIds ITEM_IDS = new ItemIds(UNIT_PRICES::get);
+    private static final int APPLE = item("APPLE", "0.35");
+    private static final int MELON = item("MELON", "0.50");
+    private static final int MANGO = item("MANGO", "1.00");
+    private static final int QUOTED = item("\"Odd\" é item", "12");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CartJsonWriter writer = new CartJsonWriter(objectMapper.getFactory(), ITEM_IDS);
+
+    @Test
+    void cartShouldMatchObjectMapperOutputByteForByte() throws Exception {
+        for (Cart cart : sampleCarts()) {
+            assertEquals(objectMapper.writeValueAsString(CartResponse.from(cart, ITEM_IDS)),
+                         new String(writer.write(cart), "UTF-8"));
+        }
+    }
+
+    @Test
+    void eventShouldMatchObjectMapperOutputByteForByte() throws Exception {
+        List<CartEvent> events = List.of(
+            new CartEvent("c-1", CartEvent.CartEventType.ITEM_ADDED, "APPLE", 3, new BigDecimal("1.05"), 4),
+            new CartEvent("c-1", CartEvent.CartEventType.CART_CLEARED, null, 0, BigDecimal.ZERO, 5),
+            new CartEvent("c-1", CartEvent.CartEventType.PRICE_UPDATED, "MANGO", 7, new BigDecimal("1E+3"), 9),
+            new CartEvent(null, null, "\"quoted\"", -1, null, 0)
+        );
+        for (CartEvent event : events) {
+            assertArrayEquals(objectMapper.writeValueAsBytes(event), writer.write(event));
+        }
+    }
+
+    @Test
+    void changedUnitPriceShouldBeReencoded() throws Exception {
+        int kiwi = item("KIWI", "0.25");
+        Cart cart = new Cart();
+        cart.putLine(kiwi, 1, 25);
+        writer.write(cart);
+
+        UNIT_PRICES.put(kiwi, new BigDecimal("0.30"));
+
+        assertEquals(objectMapper.writeValueAsString(CartResponse.from(cart, ITEM_IDS)), new String(writer.write(cart), "UTF-8"));
+    }
+
+    @Test
+    void concurrentWritersShouldNotShareBuffers() throws Exception {
+        List<Cart> carts = sampleCarts();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        Cart cart = carts.get(i % carts.size());
+                        assertArrayEquals(objectMapper.writeValueAsBytes(CartResponse.from(cart, ITEM_IDS)), writer.write(cart));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static List<Cart> sampleCarts() {
+        Cart empty = new Cart();
+
+        Cart regular = new Cart();
+        regular.putLine(APPLE, 3, 105);
+        regular.putLine(MELON, 2, 50);
+        regular.incrementVersion();
+
+        Cart edgeAmounts = new Cart();
+        edgeAmounts.putLine(MELON, 2, 0);
+        edgeAmounts.putLine(MANGO, 1_000, 1_234_567_805L);
+        edgeAmounts.putLine(APPLE, 1, 5);
+        edgeAmounts.putLine(QUOTED, 1, 1200);
+        edgeAmounts.setVersion(Long.MAX_VALUE);
+
+        return List.of(empty, regular, edgeAmounts);
+    }
+
+    private static int item(String name, String unitPrice) {
+        int id = ITEM_IDS.intern(name);
+        UNIT_PRICES.put(id, new BigDecimal(unitPrice));
+        return id;
+    }
+}
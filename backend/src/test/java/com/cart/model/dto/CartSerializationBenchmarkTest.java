@@ -0,0 +1,71 @@
+package com.cart.model.dto;
+
+import com.cart.model.domain.Cart;
+import com.cart.model.domain.ItemIds;
+import com.cart.model.event.CartEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Compares {@code CartResponse.from} + {@code ObjectMapper} against
+ * {@link CartJsonWriter} for carts and events. Only checks that both produce
+ * the same bytes; the timings are logged, not asserted.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+class CartSerializationBenchmarkTest {
+    private static final String[] ITEMS = {"BENCH_A", "BENCH_B", "BENCH_C", "BENCH_D", "BENCH_E"};
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 200_000;
+    private static final BigDecimal UNIT_PRICE = new BigDecimal("0.35");
+
+    // A registry of its own, so the benchmark's prices never reach a real catalog
+    private final ItemIds itemIds = new ItemIds(id -> UNIT_PRICE);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CartJsonWriter writer = new CartJsonWriter(objectMapper.getFactory(), itemIds);
+
+    @Test
+    void compareCartSerialization() throws Exception {
+        Cart cart = new Cart();
+        for (int i = 0; i < ITEMS.length; i++) {
+            int id = itemIds.intern(ITEMS[i]);
+            cart.putLine(id, i + 1, 35L * (i + 1));
+        }
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(CartResponse.from(cart, itemIds)), writer.write(cart));
+        measure("CartResponse.from + ObjectMapper",
+                () -> objectMapper.writeValueAsBytes(CartResponse.from(cart, itemIds)));
+        measure("CartJsonWriter (cart)", () -> writer.write(cart));
+    }
+
+    @Test
+    void compareEventSerialization() throws Exception {
+        CartEvent event = new CartEvent("3f2b8c1e-4d5a-4e6f-9a7b-8c9d0e1f2a3b", CartEvent.CartEventType.ITEM_ADDED,
+                                        "MELON", 4, new BigDecimal("12.75"), 42);
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(event), writer.write(event));
+        measure("ObjectMapper (event)", () -> objectMapper.writeValueAsBytes(event));
+        measure("CartJsonWriter (event)", () -> writer.write(event));
+    }
+
+    private static void measure(String name, Callable<byte[]> task) throws Exception {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += task.call().length;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += task.call().length;
+        }
+        double nanosPerOp = (System.nanoTime() - start) / (double) ITERATIONS;
+        log.info("{}: {} ns/op (checksum {})", name, String.format("%.1f", nanosPerOp), sink);
+    }
+}
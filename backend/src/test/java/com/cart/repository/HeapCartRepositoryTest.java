@@ -0,0 +1,221 @@
+package com.cart.repository;
+
+import com.cart.config.CartRetentionProperties;
+import com.cart.model.domain.Cart;
+import com.cart.model.event.CartEvictedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeapCartRepositoryTest {
+
+    private HeapCartRepository repository;
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final List<CartEvictedEvent> events = new ArrayList<>();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        repository = new HeapCartRepository();
+    }
+
+    @Test
+    void updateShouldApplyMutationWhenVersionMatches() {
+        Cart cart = repository.save(new Cart());
+
+        CartUpdateResult result = repository.update(cart.getId(), 1L, c -> {
+            c.incrementVersion();
+            return true;
+        });
+
+        assertTrue(result.isApplied());
+        assertEquals(2L, result.getCurrentVersion());
+        assertSame(cart, result.getCart());
+    }
+
+    @Test
+    void updateShouldReportConflictForStaleVersion() {
+        Cart cart = repository.save(new Cart());
+        cart.incrementVersion();
+
+        CartUpdateResult result = repository.update(cart.getId(), 1L, c -> {
+            fail("Mutation must not run on conflict");
+            return true;
+        });
+
+        assertTrue(result.isConflict());
+        assertEquals(2L, result.getCurrentVersion());
+    }
+
+    @Test
+    void updateShouldSkipVersionCheckWhenExpectedVersionIsNull() {
+        Cart cart = repository.save(new Cart());
+        cart.incrementVersion();
+
+        CartUpdateResult result = repository.update(cart.getId(), null, c -> false);
+
+        assertEquals(CartUpdateResult.Status.UNCHANGED, result.getStatus());
+    }
+
+    @Test
+    void updateShouldReportMissingCart() {
+        CartUpdateResult result = repository.update("missing", null, c -> true);
+
+        assertTrue(result.isNotFound());
+        assertNull(result.getCart());
+    }
+
+    @Test
+    void onlyOneClientHoldingSameVersionShouldWin() throws Exception {
+        Cart cart = repository.save(new Cart());
+        long clientVersion = cart.getVersion();
+        AtomicInteger applied = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 32; i++) {
+            pool.submit(() -> {
+                CartUpdateResult result = repository.update(cart.getId(), clientVersion, c -> {
+                    c.incrementVersion();
+                    return true;
+                });
+                (result.isApplied() ? applied : conflicts).incrementAndGet();
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, applied.get());
+        assertEquals(31, conflicts.get());
+        assertEquals(clientVersion + 1, cart.getVersion());
+    }
+
+    @Test
+    void idleCartShouldBeEvictedOnceItsTtlPasses() {
+        HeapCartRepository store = retainingRepository(60_000, 0, 0);
+        Cart cart = store.save(new Cart());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        assertEquals(0, store.evictExpired());
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertEquals(1, store.evictExpired());
+
+        assertFalse(store.exists(cart.getId()));
+        assertEquals(List.of(new CartEvictedEvent(cart.getId(), CartEvictedEvent.Reason.IDLE)), events);
+        assertEquals(1.0, registry.counter("cart.evictions", "reason", "idle").count());
+    }
+
+    @Test
+    void accessShouldPushBackIdleExpiry() {
+        HeapCartRepository store = retainingRepository(60_000, 0, 0);
+        Cart cart = store.save(new Cart());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(45));
+        store.findById(cart.getId());
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(45));
+        assertEquals(0, store.evictExpired());
+        store.update(cart.getId(), null, c -> false);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(45));
+        assertEquals(0, store.evictExpired());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(16));
+        assertEquals(1, store.evictExpired());
+        assertFalse(store.exists(cart.getId()));
+    }
+
+    @Test
+    void absoluteTtlShouldEvictActiveCart() {
+        HeapCartRepository store = retainingRepository(60_000, 120_000, 0);
+        Cart cart = store.save(new Cart());
+
+        for (int i = 0; i < 5; i++) {
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+            store.findById(cart.getId());
+            store.evictExpired();
+        }
+
+        assertFalse(store.exists(cart.getId()));
+        assertEquals(CartEvictedEvent.Reason.EXPIRED, events.get(0).getReason());
+    }
+
+    @Test
+    void capacityBoundShouldEvictLeastRecentlyUsed() {
+        HeapCartRepository store = retainingRepository(0, 0, 4);
+        List<Cart> saved = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            clock.addAndGet(1_000);
+            saved.add(store.save(new Cart()));
+        }
+        clock.addAndGet(1_000);
+        for (int i = 1; i < 4; i++) {
+            store.findById(saved.get(i).getId());
+        }
+
+        clock.addAndGet(1_000);
+        store.save(new Cart());
+
+        assertEquals(4, store.count());
+        assertFalse(store.exists(saved.get(0).getId()));
+        assertEquals(CartEvictedEvent.Reason.CAPACITY, events.get(0).getReason());
+        assertEquals(4.0, registry.get("cart.count").gauge().value());
+    }
+
+    @Test
+    void deletedCartShouldNotBeEvictedLater() {
+        HeapCartRepository store = retainingRepository(60_000, 0, 0);
+        Cart cart = store.save(new Cart());
+        store.deleteById(cart.getId());
+
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(5));
+
+        assertEquals(0, store.evictExpired());
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void resavingSameCartShouldKeepItsEntry() {
+        HeapCartRepository store = retainingRepository(60_000, 0, 0);
+        Cart cart = store.save(new Cart());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(50));
+        store.save(cart);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(50));
+
+        assertEquals(0, store.evictExpired());
+        assertTrue(store.exists(cart.getId()));
+    }
+
+    @Test
+    void forEachShouldVisitEveryStoredCart() {
+        Cart first = repository.save(new Cart());
+        Cart second = repository.save(new Cart());
+        repository.save(new Cart());
+        repository.deleteById(second.getId());
+
+        List<Cart> visited = new ArrayList<>();
+        repository.forEach(visited::add);
+
+        assertEquals(2, visited.size());
+        assertTrue(visited.contains(first));
+        assertFalse(visited.contains(second));
+    }
+
+    private HeapCartRepository retainingRepository(long idleTtlMs, long absoluteTtlMs, int maxCarts) {
+        CartRetentionProperties retention = new CartRetentionProperties();
+        retention.setIdleTtlMs(idleTtlMs);
+        retention.setAbsoluteTtlMs(absoluteTtlMs);
+        retention.setMaxCarts(maxCarts);
+        return new HeapCartRepository(retention, event -> events.add((CartEvictedEvent) event),
+                                  registry, clock::get);
+    }
+}
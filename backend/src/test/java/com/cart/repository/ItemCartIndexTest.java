@@ -0,0 +1,134 @@
+package com.cart.repository;
+
+import com.cart.model.domain.Cart;
+import com.cart.model.domain.ItemIds;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemCartIndexTest {
+    private static final ItemIds ITEM_IDS = new ItemIds();
+    private static final int APPLE = ITEM_IDS.intern("APPLE");
+    private static final int MELON = ITEM_IDS.intern("MELON");
+
+    private final HeapCartRepository repository = new HeapCartRepository();
+    private final ItemCartIndex index = new ItemCartIndex(repository, ITEM_IDS);
+
+    @Test
+    void shouldTrackCartsPerItem() {
+        index.add("c-1", APPLE);
+        index.add("c-1", MELON);
+        index.add("c-2", APPLE);
+        index.add("c-2", APPLE);
+
+        assertEquals(2, index.count(APPLE));
+        assertEquals(1, index.count("MELON"));
+        assertEquals(Set.of("c-1", "c-2"), cartsHolding(APPLE));
+
+        index.remove("c-1", APPLE);
+        assertEquals(Set.of("c-2"), cartsHolding(APPLE));
+        assertEquals(Set.of("c-1"), cartsHolding(MELON));
+        assertEquals(2, index.cartCount());
+    }
+
+    @Test
+    void unknownItemsAndCartsShouldBeEmpty() {
+        index.remove("nope", APPLE);
+        index.removeCart("nope");
+
+        assertEquals(0, index.count(ItemIds.UNKNOWN));
+        assertEquals(0, index.count("NOT_AN_ITEM"));
+        index.forEachCart(ItemIds.UNKNOWN, cartId -> fail("Nothing is indexed"));
+    }
+
+    @Test
+    void removedCartsShouldReleaseTheirSlots() {
+        index.add("c-1", APPLE);
+        index.add("c-1", MELON);
+        index.removeCart("c-1");
+        index.add("c-2", MELON);
+
+        assertEquals(0, index.count(APPLE));
+        assertEquals(Set.of("c-2"), cartsHolding(MELON));
+        assertEquals(1, index.cartCount());
+    }
+
+    @Test
+    void shouldSpanSeveralContainers() {
+        int carts = 200_000;
+        for (int i = 0; i < carts; i++) {
+            index.add("c-" + i, i % 3 == 0 ? MELON : APPLE);
+        }
+        for (int i = 0; i < carts; i += 2) {
+            index.removeCart("c-" + i);
+        }
+
+        Set<String> melons = cartsHolding(MELON);
+        assertEquals(melons.size(), index.count(MELON));
+        for (int i = 0; i < carts; i++) {
+            assertEquals(i % 2 == 1 && i % 3 == 0, melons.contains("c-" + i));
+        }
+        assertEquals(carts / 2, index.count(APPLE) + index.count(MELON));
+    }
+
+    @Test
+    void concurrentUpdatesToDifferentCartsShouldNotLoseBits() throws Exception {
+        int threads = 4;
+        int cartsPerThread = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String prefix = "t" + t + "-";
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < cartsPerThread; i++) {
+                        index.add(prefix + i, APPLE);
+                        if (i % 4 == 0) {
+                            index.removeCart(prefix + i);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        int expected = threads * cartsPerThread * 3 / 4;
+        assertEquals(expected, index.count(APPLE));
+        assertEquals(expected, cartsHolding(APPLE).size());
+    }
+
+    @Test
+    void startupShouldIndexCartsAlreadyInTheStore() {
+        Cart cart = new Cart();
+        cart.putLine(APPLE, 1, 35);
+        cart.putLine(MELON, 2, 50);
+        repository.save(cart);
+        repository.save(new Cart());
+
+        index.afterSingletonsInstantiated();
+
+        assertEquals(Set.of(cart.getId()), cartsHolding(APPLE));
+        assertEquals(Set.of(cart.getId()), cartsHolding(MELON));
+        assertEquals(1, index.cartCount());
+    }
+
+    private Set<String> cartsHolding(int itemId) {
+        Set<String> cartIds = new HashSet<>();
+        index.forEachCart(itemId, cartId -> assertTrue(cartIds.add(cartId), "Reported twice: " + cartId));
+        return cartIds;
+    }
+}
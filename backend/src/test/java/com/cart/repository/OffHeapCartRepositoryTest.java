@@ -0,0 +1,274 @@
+package com.cart.repository;
+
+import com.cart.config.CartStoreProperties;
+import com.cart.model.domain.Cart;
+import com.cart.model.domain.ItemIds;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapCartRepositoryTest {
+    private static final ItemIds ITEM_IDS = new ItemIds();
+    private static final int APPLE = ITEM_IDS.intern("APPLE");
+
+    private OffHeapCartRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        CartStoreProperties properties = new CartStoreProperties();
+        properties.setSlabSizeBytes(64 * 1024);
+        properties.setInitialCapacity(16);
+        repository = new OffHeapCartRepository(properties);
+    }
+
+    @Test
+    void savedCartShouldBeMaterializedAsEqualCopy() {
+        Cart cart = new Cart();
+        cart.putLine(APPLE, 2, 70);
+
+        repository.save(cart);
+        Cart found = repository.findById(cart.getId()).orElseThrow();
+
+        assertNotSame(cart, found);
+        assertEquals(cart, found);
+        assertEquals(70, found.getTotalCents());
+        assertTrue(repository.exists(cart.getId()));
+        assertFalse(repository.findById("missing").isPresent());
+    }
+
+    @Test
+    void updateShouldPersistAppliedMutation() {
+        Cart cart = repository.save(new Cart());
+
+        CartUpdateResult result = repository.update(cart.getId(), 1L, c -> {
+            c.putLine(APPLE, 1, 35);
+            c.incrementVersion();
+            return true;
+        });
+
+        assertTrue(result.isApplied());
+        Cart stored = repository.findById(cart.getId()).orElseThrow();
+        assertEquals(2L, stored.getVersion());
+        assertEquals(1, stored.quantityOf(APPLE));
+    }
+
+    @Test
+    void updateShouldReportConflictWithoutWriting() {
+        Cart cart = new Cart();
+        cart.incrementVersion();
+        repository.save(cart);
+
+        CartUpdateResult result = repository.update(cart.getId(), 1L, c -> {
+            fail("Mutation must not run on conflict");
+            return true;
+        });
+
+        assertTrue(result.isConflict());
+        assertEquals(2L, result.getCurrentVersion());
+        assertTrue(repository.update("missing", null, c -> true).isNotFound());
+    }
+
+    @Test
+    void growingCartShouldMoveToLargerSlot() {
+        Cart cart = repository.save(new Cart());
+        for (int i = 0; i < 200; i++) {
+            int itemId = ITEM_IDS.intern("GROW" + i);
+            repository.update(cart.getId(), null, c -> {
+                c.putLine(itemId, 1, 100);
+                return true;
+            });
+        }
+        repository.update(cart.getId(), null, c -> {
+            c.operationWindow(256).record("op-1");
+            return true;
+        });
+
+        Cart stored = repository.findById(cart.getId()).orElseThrow();
+        assertEquals(200, stored.lineCount());
+        assertEquals(20_000, stored.getTotalCents());
+        assertTrue(stored.operationWindow(256).contains("op-1"));
+
+        repository.update(cart.getId(), null, c -> {
+            c.clearLines();
+            return true;
+        });
+        assertEquals(0, repository.findById(cart.getId()).orElseThrow().lineCount());
+    }
+
+    @Test
+    void deletesShouldKeepRemainingCartsReachable() {
+        List<Cart> carts = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            carts.add(repository.save(new Cart()));
+        }
+        for (int i = 0; i < carts.size(); i += 2) {
+            repository.deleteById(carts.get(i).getId());
+        }
+
+        assertEquals(500, repository.count());
+        for (int i = 0; i < carts.size(); i++) {
+            assertEquals(i % 2 == 1, repository.exists(carts.get(i).getId()), "cart " + i);
+        }
+
+        Cart replacement = repository.save(new Cart());
+        assertTrue(repository.exists(replacement.getId()));
+        assertEquals(501, repository.count());
+    }
+
+    @Test
+    void concurrentUpdatesToSameCartShouldNotLoseWrites() throws Exception {
+        Cart cart = repository.save(new Cart());
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            pool.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    CartUpdateResult result = repository.update(cart.getId(), null, c -> {
+                        c.putLine(APPLE, c.quantityOf(APPLE) + 1, 35L * (c.quantityOf(APPLE) + 1));
+                        c.incrementVersion();
+                        return true;
+                    });
+                    if (!result.isApplied()) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        Cart stored = repository.findById(cart.getId()).orElseThrow();
+        assertEquals(0, failures.get());
+        assertEquals(2_000, stored.quantityOf(APPLE));
+        assertEquals(2_001, stored.getVersion());
+    }
+
+    @Test
+    void updateShouldNotBlockCartsInOtherSegments() throws Exception {
+        CartStoreProperties properties = new CartStoreProperties();
+        properties.setSlabSizeBytes(64 * 1024);
+        properties.setIndexSegments(2);
+        OffHeapCartRepository twoSegments = new OffHeapCartRepository(properties);
+        Cart held = twoSegments.save(new Cart());
+        List<Cart> others = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            others.add(twoSegments.save(new Cart()));
+        }
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(1 + others.size());
+        try {
+            Future<CartUpdateResult> slow = pool.submit(() -> twoSegments.update(held.getId(), null, c -> {
+                holding.countDown();
+                awaitUninterruptibly(release);
+                return true;
+            }));
+            assertTrue(holding.await(5, TimeUnit.SECONDS));
+            List<Future<CartUpdateResult>> updates = new ArrayList<>();
+            for (Cart other : others) {
+                updates.add(pool.submit(() -> twoSegments.update(other.getId(), null, c -> true)));
+            }
+
+            // Twenty carts all hashing into the held segment is a one in a million chance
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (updates.stream().noneMatch(Future::isDone) && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertFalse(slow.isDone());
+            assertTrue(updates.stream().anyMatch(Future::isDone), "Another segment should not wait");
+
+            release.countDown();
+            assertTrue(slow.get(5, TimeUnit.SECONDS).isApplied());
+            for (Future<CartUpdateResult> update : updates) {
+                assertTrue(update.get(5, TimeUnit.SECONDS).isApplied());
+            }
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentWritesAcrossCartsShouldKeepEveryCart() throws Exception {
+        int threads = 4;
+        int cartsPerThread = 2_000;
+        List<List<String>> ids = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            List<String> written = new ArrayList<>();
+            ids.add(written);
+            writers.add(pool.submit(() -> {
+                for (int i = 0; i < cartsPerThread; i++) {
+                    Cart cart = repository.save(new Cart());
+                    // Grows the record past its first slot while other threads allocate
+                    repository.update(cart.getId(), null, c -> {
+                        for (int line = 0; line < 8; line++) {
+                            c.putLine(line == 0 ? APPLE : ITEM_IDS.intern("LINE" + line), 1, 100);
+                        }
+                        return true;
+                    });
+                    if (i % 4 == 0) {
+                        repository.deleteById(cart.getId());
+                    } else {
+                        written.add(cart.getId());
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        Set<String> expected = new HashSet<>();
+        ids.forEach(expected::addAll);
+        Set<String> visited = new HashSet<>();
+        repository.forEach(cart -> {
+            assertEquals(800, cart.getTotalCents());
+            visited.add(cart.getId());
+        });
+        assertEquals(expected, visited);
+        assertEquals(expected.size(), repository.count());
+    }
+
+    @Test
+    void forEachShouldVisitEveryStoredCart() {
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            Cart cart = repository.save(new Cart());
+            if (i % 3 == 0) {
+                repository.deleteById(cart.getId());
+            } else {
+                expected.add(cart.getId());
+            }
+        }
+
+        Set<String> visited = new HashSet<>();
+        repository.forEach(cart -> visited.add(cart.getId()));
+
+        assertEquals(expected, visited);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
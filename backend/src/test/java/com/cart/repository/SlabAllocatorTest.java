@@ -0,0 +1,64 @@
+package com.cart.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlabAllocatorTest {
+
+    @Test
+    void shouldRoundUpToPowerOfTwoSlots() {
+        SlabAllocator allocator = new SlabAllocator(4096);
+
+        assertEquals(64, allocator.capacity(allocator.allocate(1)));
+        assertEquals(64, allocator.capacity(allocator.allocate(64)));
+        assertEquals(128, allocator.capacity(allocator.allocate(65)));
+        assertEquals(4096, allocator.capacity(allocator.allocate(4000)));
+    }
+
+    @Test
+    void slotsShouldNotOverlap() {
+        SlabAllocator allocator = new SlabAllocator(1024);
+        long first = allocator.allocate(100);
+        long second = allocator.allocate(100);
+
+        allocator.buffer(first).putLong(allocator.offset(first), 1L);
+        allocator.buffer(second).putLong(allocator.offset(second), 2L);
+
+        assertEquals(1L, allocator.buffer(first).getLong(allocator.offset(first)));
+        assertEquals(2L, allocator.buffer(second).getLong(allocator.offset(second)));
+    }
+
+    @Test
+    void freedSlotShouldBeReused() {
+        SlabAllocator allocator = new SlabAllocator(1024);
+        long address = allocator.allocate(100);
+        allocator.allocate(100);
+
+        allocator.free(address);
+
+        assertEquals(address, allocator.allocate(90));
+    }
+
+    @Test
+    void shouldAddSlabsAsSizeClassFills() {
+        SlabAllocator allocator = new SlabAllocator(1024);
+        for (int i = 0; i < 16; i++) {
+            allocator.allocate(64);
+        }
+        assertEquals(1024, allocator.reservedBytes());
+
+        long overflow = allocator.allocate(64);
+
+        assertEquals(2048, allocator.reservedBytes());
+        assertEquals(0, allocator.offset(overflow));
+    }
+
+    @Test
+    void shouldRejectRecordsLargerThanSlab() {
+        SlabAllocator allocator = new SlabAllocator(1024);
+
+        assertThrows(IllegalArgumentException.class, () -> allocator.allocate(1025));
+        assertThrows(IllegalArgumentException.class, () -> new SlabAllocator(1000));
+    }
+}
@@ -0,0 +1,114 @@
+package com.cart.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+
+    @Test
+    void shouldFireExactlyAtDeadline() {
+        TimerWheel<String> wheel = new TimerWheel<>(0);
+        TimerWheel.Node<String> node = new TimerWheel.Node<>("a");
+        wheel.schedule(node, 10);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(9, n -> fired.add(n.getValue()));
+        assertTrue(fired.isEmpty());
+
+        wheel.advance(10, n -> fired.add(n.getValue()));
+        assertEquals(List.of("a"), fired);
+        assertFalse(node.isScheduled());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void shouldCascadeDeadlinesFromCoarserLevels() {
+        long start = 1_000;
+        TimerWheel<Long> wheel = new TimerWheel<>(start);
+        Random random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            long deadline = start + 1 + random.nextInt(300_000);
+            deadlines.add(deadline);
+            wheel.schedule(new TimerWheel.Node<>(deadline), deadline);
+        }
+        List<Long> late = new ArrayList<>();
+        int[] fired = new int[1];
+
+        long end = start + 300_001;
+        for (long tick = start; tick < end; ) {
+            tick = Math.min(tick + 997, end);
+            long now = tick;
+            wheel.advance(now, n -> {
+                fired[0]++;
+                if (n.getValue() > now || n.getValue() <= now - 997) {
+                    late.add(n.getValue());
+                }
+            });
+        }
+
+        assertEquals(deadlines.size(), fired[0]);
+        assertTrue(late.isEmpty(), "Fired outside their tick window: " + late);
+    }
+
+    @Test
+    void cancelledNodeShouldNotFire() {
+        TimerWheel<String> wheel = new TimerWheel<>(0);
+        TimerWheel.Node<String> node = new TimerWheel.Node<>("a");
+        wheel.schedule(node, 5_000);
+        wheel.cancel(node);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(10_000, n -> fired.add(n.getValue()));
+
+        assertTrue(fired.isEmpty());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void reschedulingShouldMoveTheNode() {
+        TimerWheel<String> wheel = new TimerWheel<>(0);
+        TimerWheel.Node<String> node = new TimerWheel.Node<>("a");
+        wheel.schedule(node, 5);
+        wheel.schedule(node, 200);
+        List<Long> firedAt = new ArrayList<>();
+
+        for (long tick = 1; tick <= 300; tick++) {
+            long now = tick;
+            wheel.advance(now, n -> firedAt.add(now));
+        }
+
+        assertEquals(List.of(200L), firedAt);
+        assertEquals(1, wheel.size() + firedAt.size());
+    }
+
+    @Test
+    void pastDeadlineShouldFireOnNextTick() {
+        TimerWheel<String> wheel = new TimerWheel<>(100);
+        wheel.schedule(new TimerWheel.Node<>("late"), 50);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(101, n -> fired.add(n.getValue()));
+
+        assertEquals(List.of("late"), fired);
+    }
+
+    @Test
+    void deadlineBeyondWheelSpanShouldBeReplacedUntilDue() {
+        TimerWheel<String> wheel = new TimerWheel<>(0);
+        long far = (1L << 24) + 100;
+        wheel.schedule(new TimerWheel.Node<>("far"), far);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(far - 1, n -> fired.add(n.getValue()));
+        assertTrue(fired.isEmpty());
+
+        wheel.advance(far, n -> fired.add(n.getValue()));
+        assertEquals(List.of("far"), fired);
+    }
+}
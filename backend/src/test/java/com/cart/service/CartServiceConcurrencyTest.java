@@ -0,0 +1,167 @@
+package com.cart.service;
+
+import com.cart.config.CartConcurrencyProperties;
+import com.cart.config.CartSyncProperties;
+import com.cart.config.CartTotalsProperties;
+import com.cart.config.PricingProperties;
+import com.cart.journal.NoOpCartJournal;
+import com.cart.model.domain.Cart;
+import com.cart.repository.HeapCartRepository;
+import com.cart.repository.ItemCartIndex;
+import com.cart.service.concurrency.StripedCartExecutor;
+import com.cart.service.pricing.PricingCatalog;
+import com.cart.service.pricing.PricingStrategy;
+import com.cart.service.pricing.RegularPricingStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class CartServiceConcurrencyTest {
+    private static final int OPS_PER_CART = 2_000;
+    private static final int SCALING_OPS_PER_CART = 50_000;
+    private static final int SCALING_ROUNDS = 3;
+    // Two threads on separate carts must beat one by this much when they have cores to run on
+    private static final double MIN_SPEED_UP = 1.3;
+
+    private CartService cartService;
+    private PricingCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        PricingProperties.StrategyConfig regular = new PricingProperties.StrategyConfig();
+        regular.setType("REGULAR");
+        PricingProperties.ItemConfig apple = new PricingProperties.ItemConfig();
+        apple.setBasePrice(new BigDecimal("0.35"));
+        apple.setStrategies(List.of(regular));
+        PricingProperties pricingProperties = new PricingProperties();
+        pricingProperties.setItems(Map.of("APPLE", apple));
+        // A single line collects every thread's adds
+        pricingProperties.setMaxQuantity(Integer.MAX_VALUE);
+
+        Map<String, PricingStrategy> strategies = Map.of("REGULAR", new RegularPricingStrategy());
+        HeapCartRepository repository = new HeapCartRepository();
+        catalog = new PricingCatalog(pricingProperties, strategies);
+        cartService = new CartService(
+            repository,
+            catalog,
+            event -> { },
+            new StripedCartExecutor(1024),
+            new CartConcurrencyProperties(),
+            new CartTotalsProperties(),
+            new CartSyncProperties(),
+            new NoOpCartJournal(),
+            new ItemCartIndex(repository, catalog.getItemIds())
+        );
+    }
+
+    @Test
+    void concurrentAddsToSameCartShouldNotLoseUpdates() throws Exception {
+        Cart cart = cartService.createCart();
+        int threads = 8;
+
+        runConcurrently(threads, t -> {
+            for (int i = 0; i < OPS_PER_CART; i++) {
+                cartService.addItem(cart, "APPLE");
+            }
+        });
+
+        int expectedQuantity = threads * OPS_PER_CART;
+        assertEquals(expectedQuantity, cart.getItems(catalog.getItemIds()).get("APPLE").getQuantity());
+        assertEquals(1L + expectedQuantity, cart.getVersion());
+        assertEquals(new BigDecimal("0.35").multiply(BigDecimal.valueOf(expectedQuantity))
+                                           .setScale(2), cart.getTotal());
+    }
+
+    /**
+     * Wall-clock speedup depends on the machine, so this runs only with
+     * {@code -Pbenchmark}; that distinct carts do not block each other is
+     * checked by {@code StripedCartExecutorTest}.
+     */
+    @Test
+    @Tag("benchmark")
+    void writesToDistinctCartsShouldScaleAcrossThreads() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int maxThreads = Math.max(2, Math.min(8, cores));
+
+        // Warm up so the first measurement isn't dominated by JIT compilation
+        measureThroughput(maxThreads);
+
+        double single = 0;
+        double parallel = 0;
+        for (int round = 0; round < SCALING_ROUNDS; round++) {
+            single = Math.max(single, measureThroughput(1));
+            parallel = Math.max(parallel, measureThroughput(maxThreads));
+        }
+        log.info("Distinct-cart throughput: 1 thread = {} ops/s, {} threads = {} ops/s ({}x)",
+                 (long) single, maxThreads, (long) parallel, String.format("%.2f", parallel / single));
+
+        if (cores > 1) {
+            assertTrue(parallel >= single * MIN_SPEED_UP,
+                       String.format("Expected at least %.1fx on %d cores, got %.2fx",
+                                     MIN_SPEED_UP, cores, parallel / single));
+        }
+    }
+
+    private double measureThroughput(int threads) throws Exception {
+        List<Cart> carts = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            carts.add(cartService.createCart());
+        }
+
+        long start = System.nanoTime();
+        runConcurrently(threads, t -> {
+            Cart cart = carts.get(t);
+            for (int i = 0; i < SCALING_OPS_PER_CART; i++) {
+                cartService.addItem(cart, "APPLE");
+            }
+        });
+        long elapsed = System.nanoTime() - start;
+
+        BigDecimal expectedTotal = new BigDecimal("0.35").multiply(BigDecimal.valueOf(SCALING_OPS_PER_CART))
+                                                         .setScale(2);
+        for (Cart cart : carts) {
+            assertEquals(SCALING_OPS_PER_CART, cart.getItems(catalog.getItemIds()).get("APPLE").getQuantity());
+            assertEquals(1L + SCALING_OPS_PER_CART, cart.getVersion());
+            assertEquals(expectedTotal, cart.getTotal());
+        }
+        return threads * (double) SCALING_OPS_PER_CART * TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+
+    private void runConcurrently(int threads, ThreadBody body) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                body.run(index);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+
+    @FunctionalInterface
+    private interface ThreadBody {
+        void run(int threadIndex);
+    }
+}
@@ -1,13 +1,27 @@
 package com.cart.service;
 
+import com.cart.config.CartConcurrencyProperties;
+import com.cart.config.CartSyncProperties;
+import com.cart.config.CartTotalsProperties;
 import com.cart.config.PricingProperties;
+import com.cart.exception.CartException;
+import com.cart.journal.CartJournal;
+import com.cart.journal.JournalEntry;
 import com.cart.model.domain.Cart;
+import com.cart.model.dto.SyncRequest;
 import com.cart.model.event.CartEvent;
+import com.cart.model.event.CartEvictedEvent;
+import com.cart.repository.CartMutation;
 import com.cart.repository.CartRepository;
+import com.cart.repository.CartUpdateResult;
+import com.cart.repository.ItemCartIndex;
+import com.cart.service.concurrency.StripedCartExecutor;
 import com.cart.service.pricing.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.context.ApplicationEventPublisher;
@@ -16,10 +30,13 @@ import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,12 +44,18 @@ class CartServiceTest {
     @Mock
     private CartRepository cartRepository;
     @Mock
-    private PricingProperties pricingProperties;
-    @Mock
     private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private CartJournal cartJournal;
+    @Mock
+    private ItemCartIndex itemIndex;
 
     private CartService cartService;
+    private PricingCatalog catalog;
     private Map<String, PricingStrategy> strategies;
+    private CartConcurrencyProperties concurrencyProperties;
+    private PricingProperties pricingProperties;
+    private CartSyncProperties syncProperties;
 
     @BeforeEach
     void setUp() {
@@ -40,15 +63,13 @@ class CartServiceTest {
         strategies.put("REGULAR", new RegularPricingStrategy());
         strategies.put("BOGO", new BOGOPricingStrategy());
         strategies.put("THREE_FOR_TWO", new ThreeForTwoPricingStrategy());
+        concurrencyProperties = new CartConcurrencyProperties();
+        syncProperties = new CartSyncProperties();
+        pricingProperties = new PricingProperties();
+        pricingProperties.setItems(new HashMap<>());
+        cartService = newCartService();
 
-        cartService = new CartService(
-            cartRepository,
-            strategies,
-            pricingProperties,
-            eventPublisher
-        );
-
-        when(cartRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+        lenient().when(cartRepository.save(any())).thenAnswer(i -> i.getArgument(0));
     }
 
     @Test
@@ -57,7 +78,7 @@ class CartServiceTest {
 
         assertNotNull(cart.getId());
         assertEquals(BigDecimal.ZERO, cart.getTotal());
-        assertTrue(cart.getItems().isEmpty());
+        assertTrue(cart.getItems(catalog.getItemIds()).isEmpty());
         assertEquals(1L, cart.getVersion());
         verify(cartRepository).save(cart);
     }
@@ -67,10 +88,11 @@ class CartServiceTest {
         setupItemConfig("APPLE", "0.35", "REGULAR");
 
         Cart cart = new Cart();
+        stubUpdate(cart);
         Cart updatedCart = cartService.addItem(cart, "APPLE");
 
         assertEquals(new BigDecimal("0.35"), updatedCart.getTotal());
-        assertEquals(1, updatedCart.getItems().get("APPLE").getQuantity());
+        assertEquals(1, updatedCart.getItems(catalog.getItemIds()).get("APPLE").getQuantity());
         verify(eventPublisher).publishEvent(any(CartEvent.class));
     }
 
@@ -79,6 +101,7 @@ class CartServiceTest {
         setupItemConfig("MELON", "0.50", "BOGO");
 
         Cart cart = new Cart();
+        stubUpdate(cart);
         cart = cartService.addItem(cart, "MELON");
         assertEquals(new BigDecimal("0.50"), cart.getTotal());
 
@@ -91,12 +114,339 @@ class CartServiceTest {
         setupItemConfig("LIME", "0.15", "THREE_FOR_TWO");
 
         Cart cart = new Cart();
+        stubUpdate(cart);
         for (int i = 0; i < 3; i++) {
             cart = cartService.addItem(cart, "LIME");
         }
         assertEquals(new BigDecimal("0.30"), cart.getTotal());
     }
 
+    @Test
+    void removeItemShouldSubtractLineFromTotal() {
+        setupItemConfig("APPLE", "0.35", "REGULAR");
+        pricingProperties.getItems().put("LIME", pricingProperties.getItems().get("APPLE"));
+        cartService = newCartService();
+
+        Cart cart = new Cart();
+        stubUpdate(cart);
+        cartService.addItem(cart, "APPLE");
+        cartService.addItem(cart, "LIME");
+        cart = cartService.removeItem(cart, "APPLE");
+
+        assertEquals(new BigDecimal("0.35"), cart.getTotal());
+        assertEquals(4L, cart.getVersion());
+    }
+
+    @Test
+    void versionedAddShouldReturnConflictWithoutPublishing() {
+        setupItemConfig("APPLE", "0.35", "REGULAR");
+        Cart cart = new Cart();
+        when(cartRepository.update(eq(cart.getId()), eq(0L), any()))
+            .thenReturn(CartUpdateResult.conflict(cart));
+
+        CartUpdateResult result = cartService.addItem(cart.getId(), "APPLE", 0L);
+
+        assertTrue(result.isConflict());
+        assertEquals(cart.getVersion(), result.getCurrentVersion());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void versionedRemoveShouldRetryAgainstLatestVersionWhenEnabled() {
+        concurrencyProperties.setRetryIdempotentOnConflict(true);
+        Cart cart = new Cart();
+        cart.incrementVersion();
+        when(cartRepository.update(eq(cart.getId()), eq(1L), any()))
+            .thenReturn(CartUpdateResult.conflict(cart));
+        when(cartRepository.update(eq(cart.getId()), eq(2L), any()))
+            .thenReturn(CartUpdateResult.applied(cart));
+
+        CartUpdateResult result = cartService.removeItem(cart.getId(), "APPLE", 1L);
+
+        assertTrue(result.isApplied());
+        verify(eventPublisher).publishEvent(any(CartEvent.class));
+    }
+
+    @Test
+    void versionedRemoveShouldNotRetryWhenDisabled() {
+        Cart cart = new Cart();
+        cart.incrementVersion();
+        when(cartRepository.update(eq(cart.getId()), eq(1L), any()))
+            .thenReturn(CartUpdateResult.conflict(cart));
+
+        CartUpdateResult result = cartService.removeItem(cart.getId(), "APPLE", 1L);
+
+        assertTrue(result.isConflict());
+        verify(cartRepository, times(1)).update(anyString(), any(), any());
+    }
+
+    @Test
+    void bulkAddShouldPriceOnceAtTheFinalQuantity() {
+        setupItemConfig("LIME", "0.15", "THREE_FOR_TWO");
+        Cart cart = new Cart();
+        stubUpdate(cart);
+
+        CartUpdateResult result = cartService.addItem(cart.getId(), "LIME", 50, null);
+
+        assertTrue(result.isApplied());
+        assertEquals(50, cart.getItems(catalog.getItemIds()).get("LIME").getQuantity());
+        assertEquals(new BigDecimal("5.10"), cart.getTotal());
+        assertEquals(2L, cart.getVersion());
+        verify(cartJournal).append(JournalEntry.add(cart.getId(), "LIME", 50, 510, 2));
+        verify(eventPublisher, times(1)).publishEvent(any(CartEvent.class));
+    }
+
+    @Test
+    void addShouldRejectNonPositiveAndOverLimitQuantities() {
+        setupItemConfig("APPLE", "0.35", "REGULAR");
+        Cart cart = new Cart();
+        stubUpdate(cart);
+
+        assertThrows(CartException.class, () -> cartService.addItem(cart.getId(), "APPLE", 0, null));
+        cartService.addItem(cart.getId(), "APPLE", pricingProperties.getMaxQuantity(), null);
+        assertThrows(CartException.class, () -> cartService.addItem(cart.getId(), "APPLE", 1, null));
+
+        assertEquals(pricingProperties.getMaxQuantity(), cart.getItems(catalog.getItemIds()).get("APPLE").getQuantity());
+        verify(eventPublisher, times(1)).publishEvent(any(CartEvent.class));
+    }
+
+    @Test
+    void setQuantityShouldDecrementAndRemoveAtZero() {
+        setupItemConfig("MELON", "0.50", "BOGO");
+        Cart cart = new Cart();
+        stubUpdate(cart);
+        cartService.addItem(cart.getId(), "MELON", 5, null);
+
+        cartService.setItemQuantity(cart.getId(), "MELON", 2, null);
+        assertEquals(2, cart.getItems(catalog.getItemIds()).get("MELON").getQuantity());
+        assertEquals(new BigDecimal("0.50"), cart.getTotal());
+        verify(cartJournal).append(JournalEntry.add(cart.getId(), "MELON", 2, 50, 3));
+
+        cartService.setItemQuantity(cart.getId(), "MELON", 0, null);
+        assertTrue(cart.getItems(catalog.getItemIds()).isEmpty());
+        assertEquals(BigDecimal.ZERO, cart.getTotal());
+        assertEquals(4L, cart.getVersion());
+    }
+
+    @Test
+    void settingTheCurrentQuantityShouldNotBumpTheVersion() {
+        setupItemConfig("APPLE", "0.35", "REGULAR");
+        Cart cart = new Cart();
+        stubUpdate(cart);
+        cartService.addItem(cart.getId(), "APPLE", 3, null);
+
+        CartUpdateResult result = cartService.setItemQuantity(cart.getId(), "APPLE", 3, null);
+
+        assertFalse(result.isApplied());
+        assertEquals(2L, cart.getVersion());
+        verify(eventPublisher, times(1)).publishEvent(any(CartEvent.class));
+    }
+
+    @Test
+    void setQuantityShouldPublishItemUpdated() {
+        setupItemConfig("APPLE", "0.35", "REGULAR");
+        Cart cart = new Cart();
+        stubUpdate(cart);
+
+        cartService.setItemQuantity(cart.getId(), "APPLE", 4, null);
+
+        verify(eventPublisher).publishEvent(new CartEvent(cart.getId(), CartEvent.CartEventType.ITEM_UPDATED,
+                                                          "APPLE", 4, new BigDecimal("1.40"), 2L));
+    }
+
+    @Test
+    void mutationShouldBeJournaledBeforeItIsPublished() {
+        setupItemConfig("APPLE", "0.35", "REGULAR");
+        Cart cart = new Cart();
+        stubUpdate(cart);
+        when(cartJournal.append(any())).thenReturn(42L);
+        when(cartJournal.position()).thenReturn(42L);
+
+        cartService.addItem(cart, "APPLE");
+        cartService.addItem(cart, "APPLE");
+
+        InOrder inOrder = inOrder(cartJournal, eventPublisher);
+        inOrder.verify(cartJournal).append(JournalEntry.add(cart.getId(), "APPLE", 1, 35, 2));
+        inOrder.verify(eventPublisher).publishEvent(any(CartEvent.class));
+        inOrder.verify(cartJournal).append(JournalEntry.add(cart.getId(), "APPLE", 2, 70, 3));
+        inOrder.verify(eventPublisher).publishEvent(any(CartEvent.class));
+        verify(cartJournal, times(2)).awaitDurable(42L);
+    }
+
+    @Test
+    void asyncMutationShouldCompleteOnceItIsDurable() {
+        setupItemConfig("APPLE", "0.35", "REGULAR");
+        Cart cart = new Cart();
+        stubUpdate(cart);
+        CompletableFuture<Void> flushed = new CompletableFuture<>();
+        when(cartJournal.position()).thenReturn(42L);
+        when(cartJournal.whenDurable(42L)).thenReturn(flushed);
+
+        CompletableFuture<CartUpdateResult> result = cartService.addItemAsync(cart.getId(), "APPLE", 2, null);
+
+        assertEquals(2, cart.quantityOf(catalog.getItemIds().find("APPLE")));
+        assertFalse(result.isDone());
+        flushed.complete(null);
+        assertTrue(result.join().isApplied());
+        verify(cartJournal, never()).awaitDurable(anyLong());
+    }
+
+    @Test
+    void asyncMutationShouldFailWithTheCartException() {
+        setupItemConfig("APPLE", "0.35", "REGULAR");
+        Cart cart = new Cart();
+        stubUpdate(cart);
+        pricingProperties.setMaxQuantity(3);
+        cartService = newCartService();
+        cartService.addItem(cart.getId(), "APPLE", 3, null);
+
+        CompletableFuture<CartUpdateResult> result = cartService.addItemAsync(cart.getId(), "APPLE", 1, null);
+
+        CompletionException ex = assertThrows(CompletionException.class, result::join);
+        assertTrue(ex.getCause() instanceof CartException);
+    }
+
+    @Test
+    void mutationsShouldKeepTheItemIndexInStep() {
+        setupItemConfig("APPLE", "0.35", "REGULAR");
+        pricingProperties.getItems().put("LIME", pricingProperties.getItems().get("APPLE"));
+        cartService = newCartService();
+        Cart cart = new Cart();
+        stubUpdate(cart);
+        int apple = catalog.getItemIds().find("APPLE");
+        int lime = catalog.getItemIds().find("LIME");
+
+        cartService.addItem(cart.getId(), "APPLE", 2, null);
+        cartService.addItem(cart.getId(), "LIME", 1, null);
+        cartService.removeItem(cart.getId(), "APPLE", null);
+        verify(itemIndex).add(cart.getId(), apple);
+        verify(itemIndex).add(cart.getId(), lime);
+        verify(itemIndex).remove(cart.getId(), apple);
+
+        cartService.removeItem(cart.getId(), "LIME", null);
+        verify(itemIndex).removeCart(cart.getId());
+
+        cartService.addItem(cart.getId(), "LIME", 1, null);
+        cartService.clearCart(cart.getId(), null);
+        verify(itemIndex, times(2)).removeCart(cart.getId());
+    }
+
+    @Test
+    void batchSyncShouldJournalOneEntryWithEveryLineAndTheAppliedOperationIds() {
+        setupItemConfig("APPLE", "0.35", "REGULAR");
+        setupItemConfig("MELON", "0.50", "BOGO");
+        Cart cart = new Cart();
+        stubUpdate(cart);
+        cartService.addItem(cart.getId(), "MELON", 1, null);
+
+        cartService.syncOperations(cart.getId(), List.of(syncOp("op-1", "ADD", "APPLE"),
+                                                         syncOp("op-2", "ADD", "APPLE"),
+                                                         syncOp("op-3", "ADD", "KIWI")));
+
+        verify(cartJournal).append(JournalEntry.sync(cart.getId(),
+                                                     List.of(new JournalEntry.Line("APPLE", 2, 70),
+                                                             new JournalEntry.Line("MELON", 1, 50)),
+                                                     List.of("op-1", "op-2"), 3));
+        verify(cartJournal, times(2)).append(any());
+    }
+
+    @Test
+    void multiLineEventsShouldCarryTheCartsLines() {
+        setupItemConfig("APPLE", "0.35", "REGULAR");
+        setupItemConfig("MELON", "0.50", "BOGO");
+        Cart cart = new Cart();
+        stubUpdate(cart);
+        cartService.addItem(cart.getId(), "MELON", 1, null);
+
+        cartService.syncOperations(cart.getId(), List.of(syncOp("op-1", "ADD", "APPLE")));
+        cartService.clearCart(cart.getId(), null);
+
+        ArgumentCaptor<CartEvent> events = ArgumentCaptor.forClass(CartEvent.class);
+        verify(eventPublisher, times(3)).publishEvent(events.capture());
+        assertNull(events.getAllValues().get(0).getLines());
+        assertEquals(List.of(new CartEvent.Line("APPLE", 1, 35), new CartEvent.Line("MELON", 1, 50)),
+                     events.getAllValues().get(1).getLines());
+        assertEquals(List.of(), events.getAllValues().get(2).getLines());
+    }
+
+    @Test
+    void syncThatOnlyRecordsOperationIdsShouldStillJournalThem() {
+        setupItemConfig("APPLE", "0.35", "REGULAR");
+        Cart cart = new Cart();
+        stubUpdate(cart);
+
+        cartService.syncOperations(cart.getId(), List.of(syncOp("op-1", "REMOVE", "APPLE")));
+
+        verify(cartJournal).append(JournalEntry.sync(cart.getId(), List.of(), List.of("op-1"), 1));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void mutationTheJournalRejectsShouldLeaveTheCartAsItWas() {
+        setupItemConfig("APPLE", "0.35", "REGULAR");
+        Cart cart = new Cart();
+        stubUpdate(cart);
+        cartService.addItem(cart.getId(), "APPLE", 1, null);
+        when(cartJournal.append(any())).thenThrow(new CartException("Journal entry field exceeds 65534 bytes"));
+
+        assertThrows(CartException.class, () -> cartService.addItem(cart.getId(), "APPLE", 2, null));
+        assertThrows(CartException.class, () -> cartService.syncOperations(
+            cart.getId(), List.of(syncOp("op-1", "ADD", "APPLE"))));
+
+        assertEquals(1, cart.quantityOf(catalog.getItemIds().find("APPLE")));
+        assertEquals(35, cart.getTotalCents());
+        assertEquals(2L, cart.getVersion());
+        assertNull(cart.getRecentOperations());
+        verify(eventPublisher, times(1)).publishEvent(any(CartEvent.class));
+    }
+
+    @Test
+    void createTheJournalRejectsShouldNotKeepTheCart() {
+        when(cartJournal.append(any())).thenThrow(new IllegalStateException("Journal is closed"));
+
+        assertThrows(IllegalStateException.class, () -> cartService.createCart());
+
+        verify(cartRepository).deleteById(anyString());
+    }
+
+    @Test
+    void evictionShouldDropTheCartFromTheItemIndex() {
+        cartService.handleCartEvicted(new CartEvictedEvent("c-1", CartEvictedEvent.Reason.IDLE));
+
+        verify(cartJournal).append(JournalEntry.delete("c-1"));
+        verify(itemIndex).removeCart("c-1");
+    }
+
+    private void stubUpdate(Cart cart) {
+        lenient().when(cartRepository.update(eq(cart.getId()), any(), any())).thenAnswer(invocation -> {
+            CartMutation mutation = invocation.getArgument(2);
+            return mutation.apply(cart) ? CartUpdateResult.applied(cart) : CartUpdateResult.unchanged(cart);
+        });
+    }
+
+    private static SyncRequest.PendingOperation syncOp(String operationId, String type, String item) {
+        SyncRequest.PendingOperation op = new SyncRequest.PendingOperation();
+        op.setOperationId(operationId);
+        op.setType(type);
+        op.setItem(item);
+        return op;
+    }
+
+    private CartService newCartService() {
+        catalog = new PricingCatalog(pricingProperties, strategies);
+        return new CartService(
+            cartRepository,
+            catalog,
+            eventPublisher,
+            new StripedCartExecutor(16),
+            concurrencyProperties,
+            new CartTotalsProperties(),
+            syncProperties,
+            cartJournal,
+            itemIndex
+        );
+    }
+
     private void setupItemConfig(String itemName, String price, String strategyType) {
         PricingProperties.ItemConfig config = new PricingProperties.ItemConfig();
         config.setBasePrice(new BigDecimal(price));
@@ -104,9 +454,7 @@ class CartServiceTest {
         strategyConfig.setType(strategyType);
         config.setStrategies(List.of(strategyConfig));
 
-        when(pricingProperties.getItems())
-            .thenReturn(Map.of(itemName, config));
-        when(pricingProperties.getItemStrategies(anyString()))
-            .thenReturn(config.getStrategies());
+        pricingProperties.getItems().put(itemName, config);
+        cartService = newCartService();
     }
 }
@@ -0,0 +1,296 @@
+package com.cart.service;
+
+import com.cart.config.CartConcurrencyProperties;
+import com.cart.config.CartSyncProperties;
+import com.cart.config.CartTotalsProperties;
+import com.cart.config.PricingProperties;
+import com.cart.exception.CartException;
+import com.cart.journal.NoOpCartJournal;
+import com.cart.model.domain.Cart;
+import com.cart.model.dto.SyncRequest;
+import com.cart.model.dto.SyncResponse;
+import com.cart.model.event.CartEvent;
+import com.cart.repository.HeapCartRepository;
+import com.cart.repository.ItemCartIndex;
+import com.cart.service.concurrency.StripedCartExecutor;
+import com.cart.service.pricing.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static com.cart.model.dto.SyncResponse.OperationStatus.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartSyncTest {
+    private static final List<String> ITEMS = List.of("APPLE", "MELON", "LIME", "MANGO");
+
+    private PricingCatalog catalog;
+    private List<Object> batchEvents;
+    private List<Object> sequentialEvents;
+    private CartService batchService;
+    private CartService sequentialService;
+    private Map<CartService, HeapCartRepository> repositories;
+
+    @BeforeEach
+    void setUp() {
+        PricingProperties properties = new PricingProperties();
+        properties.setItems(new HashMap<>());
+        properties.getItems().put("APPLE", item("0.35", "REGULAR"));
+        properties.getItems().put("MELON", item("0.50", "BOGO"));
+        properties.getItems().put("LIME", item("0.15", "THREE_FOR_TWO"));
+        properties.getItems().put("MANGO", item("1.00", "BULK_DISCOUNT", "SEASONAL"));
+        Map<String, PricingStrategy> strategies = Map.of(
+            "REGULAR", new RegularPricingStrategy(),
+            "BOGO", new BOGOPricingStrategy(),
+            "THREE_FOR_TWO", new ThreeForTwoPricingStrategy(),
+            "BULK_DISCOUNT", new BulkDiscountStrategy(),
+            "SEASONAL", new SeasonalDiscountStrategy()
+        );
+        catalog = new PricingCatalog(properties, strategies);
+
+        repositories = new HashMap<>();
+        batchEvents = new ArrayList<>();
+        sequentialEvents = new ArrayList<>();
+        batchService = newService(true, batchEvents);
+        sequentialService = newService(false, sequentialEvents);
+    }
+
+    @Test
+    void batchShouldMatchSequentialReplay() {
+        Random random = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            List<SyncRequest.PendingOperation> ops = randomOperations(random, 1 + random.nextInt(60));
+            Cart batchCart = batchService.createCart();
+            Cart sequentialCart = sequentialService.createCart();
+            seed(batchService, batchCart);
+            seed(sequentialService, sequentialCart);
+
+            batchService.syncOperations(batchCart.getId(), ops);
+            sequentialService.syncOperations(sequentialCart.getId(), ops);
+
+            assertEquals(lines(sequentialCart), lines(batchCart), () -> "Diverged for " + ops);
+            assertEquals(sequentialCart.getTotalCents(), batchCart.getTotalCents());
+        }
+    }
+
+    @Test
+    void batchShouldSaveOnceAndPublishOneEvent() {
+        Cart cart = batchService.createCart();
+        List<SyncRequest.PendingOperation> ops = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ops.add(op("ADD", ITEMS.get(i % ITEMS.size())));
+        }
+        long before = cart.getVersion();
+
+        SyncResponse response = batchService.syncOperations(cart.getId(), ops);
+
+        assertEquals(200, response.getSyncedOperations());
+        assertEquals(before + 1, response.getVersion());
+        assertEquals(1, batchEvents.size());
+        assertEquals(CartEvent.CartEventType.CART_SYNCED, ((CartEvent) batchEvents.get(0)).getType());
+        assertEquals(50, cart.getItems(catalog.getItemIds()).get("LIME").getQuantity());
+    }
+
+    @Test
+    void invalidOperationsShouldBeRejectedWithoutStoppingTheSync() {
+        Cart batchCart = batchService.createCart();
+        Cart sequentialCart = sequentialService.createCart();
+        List<SyncRequest.PendingOperation> ops = List.of(
+            op("ADD", "APPLE"), op("ADD", "KIWI"), op("TOSS", "APPLE"), op("ADD", "LIME"));
+
+        SyncResponse batch = batchService.syncOperations(batchCart.getId(), ops);
+        SyncResponse sequential = sequentialService.syncOperations(sequentialCart.getId(), ops);
+
+        for (SyncResponse response : List.of(batch, sequential)) {
+            assertEquals("partial", response.getStatus());
+            assertEquals(2, response.getSyncedOperations());
+            assertEquals(List.of(APPLIED, REJECTED, REJECTED, APPLIED), statuses(response));
+            assertEquals("Invalid item: KIWI", response.getResults().get(1).getReason());
+        }
+        assertEquals(lines(sequentialCart), lines(batchCart));
+        assertTrue(batchCart.getItems(catalog.getItemIds()).containsKey("LIME"));
+    }
+
+    @Test
+    void retriedSyncShouldSkipAlreadyAppliedOperations() {
+        for (CartService service : List.of(batchService, sequentialService)) {
+            Cart cart = service.createCart();
+            List<SyncRequest.PendingOperation> firstAttempt = List.of(
+                op("op-1", "ADD", "APPLE"), op("op-2", "ADD", "MELON"));
+            List<SyncRequest.PendingOperation> retry = List.of(
+                op("op-1", "ADD", "APPLE"), op("op-2", "ADD", "MELON"), op("op-3", "ADD", "APPLE"));
+
+            service.syncOperations(cart.getId(), firstAttempt);
+            long versionAfterFirst = cart.getVersion();
+            SyncResponse response = service.syncOperations(cart.getId(), retry);
+
+            assertEquals(List.of(SKIPPED, SKIPPED, APPLIED), statuses(response));
+            assertEquals(1, response.getSyncedOperations());
+            assertEquals(2, cart.getItems(catalog.getItemIds()).get("APPLE").getQuantity());
+            assertEquals(1, cart.getItems(catalog.getItemIds()).get("MELON").getQuantity());
+            assertEquals(versionAfterFirst + 1, cart.getVersion());
+        }
+    }
+
+    @Test
+    void duplicateIdsWithinOneSyncShouldApplyOnce() {
+        Cart cart = batchService.createCart();
+
+        SyncResponse response = batchService.syncOperations(cart.getId(), List.of(
+            op("op-1", "ADD", "LIME"), op("op-1", "ADD", "LIME")));
+
+        assertEquals(List.of(APPLIED, SKIPPED), statuses(response));
+        assertEquals(1, cart.getItems(catalog.getItemIds()).get("LIME").getQuantity());
+    }
+
+    @Test
+    void fullyDuplicateSyncShouldNotTouchCart() {
+        Cart cart = batchService.createCart();
+        batchService.syncOperations(cart.getId(), List.of(op("op-1", "ADD", "LIME")));
+        long version = cart.getVersion();
+        batchEvents.clear();
+
+        SyncResponse response = batchService.syncOperations(cart.getId(), List.of(op("op-1", "ADD", "LIME")));
+
+        assertEquals("success", response.getStatus());
+        assertEquals(version, response.getVersion());
+        assertTrue(batchEvents.isEmpty());
+    }
+
+    @Test
+    void batchOfNoOpsShouldNotBumpVersion() {
+        Cart cart = batchService.createCart();
+
+        SyncResponse response = batchService.syncOperations(cart.getId(), List.of(op("REMOVE", "APPLE")));
+
+        assertEquals(1, response.getSyncedOperations());
+        assertEquals(1L, response.getVersion());
+        assertTrue(batchEvents.isEmpty());
+    }
+
+    @Test
+    void addsPastTheLineLimitShouldBeRejectedInBothModes() {
+        Cart batchCart = batchService.createCart();
+        Cart sequentialCart = sequentialService.createCart();
+        int max = catalog.getMaxQuantity();
+        List<SyncRequest.PendingOperation> ops = List.of(
+            op("ADD", "LIME", max - 1), op("ADD", "LIME", 2), op("ADD", "LIME"), op("ADD", "APPLE", 0));
+
+        SyncResponse batch = batchService.syncOperations(batchCart.getId(), ops);
+        SyncResponse sequential = sequentialService.syncOperations(sequentialCart.getId(), ops);
+
+        for (SyncResponse response : List.of(batch, sequential)) {
+            assertEquals(List.of(APPLIED, REJECTED, APPLIED, REJECTED), statuses(response));
+        }
+        assertEquals(lines(sequentialCart), lines(batchCart));
+        assertEquals(max, batchCart.getItems(catalog.getItemIds()).get("LIME").getQuantity());
+    }
+
+    @Test
+    void syncShouldNotBringBackAnEvictedCart() {
+        for (CartService service : List.of(batchService, sequentialService)) {
+            Cart cart = service.createCart();
+            HeapCartRepository repository = repositories.get(service);
+            repository.deleteById(cart.getId());
+
+            assertThrows(CartException.class,
+                         () -> service.syncOperations(cart.getId(), List.of(op("ADD", "APPLE"))));
+            assertFalse(repository.exists(cart.getId()));
+        }
+    }
+
+    private void seed(CartService service, Cart cart) {
+        service.addItem(cart, "APPLE");
+        service.addItem(cart, "LIME");
+        service.addItem(cart, "LIME");
+    }
+
+    private List<SyncRequest.PendingOperation> randomOperations(Random random, int count) {
+        List<SyncRequest.PendingOperation> ops = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int roll = random.nextInt(20);
+            String item = ITEMS.get(random.nextInt(ITEMS.size()));
+            if (roll == 0) {
+                ops.add(op("CLEAR", null));
+            } else if (roll < 5) {
+                ops.add(op("REMOVE", item));
+            } else if (roll < 8) {
+                ops.add(op("ADD", item, 1 + random.nextInt(9)));
+            } else {
+                ops.add(op("ADD", item));
+            }
+        }
+        return ops;
+    }
+
+    private Map<String, String> lines(Cart cart) {
+        Map<String, String> lines = new TreeMap<>();
+        cart.getItems(catalog.getItemIds()).forEach((name, line) ->
+            lines.put(name, line.getQuantity() + "@" + line.getUnitPrice() + "=" + line.getTotalPriceCents()));
+        return lines;
+    }
+
+    private CartService newService(boolean batch, List<Object> events) {
+        CartSyncProperties syncProperties = new CartSyncProperties();
+        syncProperties.setBatch(batch);
+        HeapCartRepository repository = new HeapCartRepository();
+        CartService service = new CartService(
+            repository,
+            catalog,
+            events::add,
+            new StripedCartExecutor(16),
+            new CartConcurrencyProperties(),
+            new CartTotalsProperties(),
+            syncProperties,
+            new NoOpCartJournal(),
+            new ItemCartIndex(repository, catalog.getItemIds())
+        );
+        repositories.put(service, repository);
+        return service;
+    }
+
+    private static List<SyncResponse.OperationStatus> statuses(SyncResponse response) {
+        List<SyncResponse.OperationStatus> statuses = new ArrayList<>();
+        response.getResults().forEach(result -> statuses.add(result.getStatus()));
+        return statuses;
+    }
+
+    private static SyncRequest.PendingOperation op(String type, String item) {
+        return op(null, type, item);
+    }
+
+    private static SyncRequest.PendingOperation op(String type, String item, int quantity) {
+        SyncRequest.PendingOperation op = op(null, type, item);
+        op.setQuantity(quantity);
+        return op;
+    }
+
+    private static SyncRequest.PendingOperation op(String operationId, String type, String item) {
+        SyncRequest.PendingOperation op = new SyncRequest.PendingOperation();
+        op.setOperationId(operationId);
+        op.setType(type);
+        op.setItem(item);
+        return op;
+    }
+
+    private static PricingProperties.ItemConfig item(String price, String... types) {
+        PricingProperties.ItemConfig config = new PricingProperties.ItemConfig();
+        config.setBasePrice(new BigDecimal(price));
+        List<PricingProperties.StrategyConfig> strategies = new ArrayList<>();
+        for (int i = 0; i < types.length; i++) {
+            PricingProperties.StrategyConfig strategy = new PricingProperties.StrategyConfig();
+            strategy.setType(types[i]);
+            strategy.setPriority(i + 1);
+            strategies.add(strategy);
+        }
+        config.setStrategies(strategies);
+        return config;
+    }
+}
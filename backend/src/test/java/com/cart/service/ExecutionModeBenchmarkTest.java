@@ -0,0 +1,154 @@
+package com.cart.service;
+
+import com.cart.config.CartConcurrencyProperties;
+import com.cart.config.CartSyncProperties;
+import com.cart.config.CartTotalsProperties;
+import com.cart.config.PricingProperties;
+import com.cart.journal.NoOpCartJournal;
+import com.cart.model.domain.Cart;
+import com.cart.repository.CartUpdateResult;
+import com.cart.repository.HeapCartRepository;
+import com.cart.repository.ItemCartIndex;
+import com.cart.service.concurrency.CartExecutor;
+import com.cart.service.concurrency.ShardedCartExecutor;
+import com.cart.service.concurrency.StripedCartExecutor;
+import com.cart.service.pricing.PricingCatalog;
+import com.cart.service.pricing.RegularPricingStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Add-item throughput with request threads taking per-cart locks (striped)
+ * against request threads handing off to shard threads and moving on
+ * (sharded), at one and several shards. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+class ExecutionModeBenchmarkTest {
+    private static final List<String> ITEMS = List.of("BENCH_MODE_A", "BENCH_MODE_B", "BENCH_MODE_C");
+    private static final int CARTS = 10_000;
+    private static final int OPS_PER_THREAD = 200_000;
+    private static final int IN_FLIGHT_PER_THREAD = 64;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void compareStripedAndShardedExecution() throws Exception {
+        PricingCatalog catalog = new PricingCatalog(pricing(), Map.of("REGULAR", new RegularPricingStrategy()));
+        int cores = Runtime.getRuntime().availableProcessors();
+        int requestThreads = Math.max(4, cores * 2);
+        log.info("{} processors, {} request threads", cores, requestThreads);
+
+        measure("Striped (1024 stripes)", catalog, new StripedCartExecutor(1024), requestThreads, false);
+        List<Integer> shardCounts = new ArrayList<>(List.of(1));
+        for (int shards = 2; shards <= cores; shards *= 2) {
+            shardCounts.add(shards);
+        }
+        for (int shards : shardCounts) {
+            ShardedCartExecutor executor = new ShardedCartExecutor(shards);
+            try {
+                measure("Sharded (" + shards + " shards)", catalog, executor, requestThreads, true);
+            } finally {
+                executor.destroy();
+            }
+        }
+    }
+
+    private void measure(String mode, PricingCatalog catalog, CartExecutor executor, int requestThreads,
+                         boolean async) throws Exception {
+        HeapCartRepository repository = new HeapCartRepository();
+        CartService cartService = new CartService(repository, catalog, event -> { }, executor,
+                                                  new CartConcurrencyProperties(), new CartTotalsProperties(),
+                                                  new CartSyncProperties(), new NoOpCartJournal(),
+                                                  new ItemCartIndex(repository, catalog.getItemIds()));
+        String[] cartIds = new String[CARTS];
+        for (int i = 0; i < CARTS; i++) {
+            cartIds[i] = cartService.createCart().getId();
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(requestThreads);
+        try {
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                runRound(pool, cartService, cartIds, requestThreads, async);
+            }
+            long nanos = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                nanos += runRound(pool, cartService, cartIds, requestThreads, async);
+            }
+            long ops = (long) ROUNDS * requestThreads * OPS_PER_THREAD;
+            log.info("{}: {} adds/s, {} ns/add", mode, String.format("%,d", ops * 1_000_000_000L / nanos),
+                     String.format("%.1f", nanos / (double) ops));
+        } finally {
+            pool.shutdown();
+        }
+
+        long quantities = 0;
+        for (String cartId : cartIds) {
+            Cart cart = cartService.getCart(cartId);
+            for (String item : ITEMS) {
+                quantities += cart.quantityOf(catalog.get(item).getItemId());
+            }
+        }
+        assertEquals((long) (WARMUP_ROUNDS + ROUNDS) * requestThreads * OPS_PER_THREAD, quantities);
+    }
+
+    private static long runRound(ExecutorService pool, CartService cartService, String[] cartIds,
+                                 int requestThreads, boolean async) throws Exception {
+        List<Future<?>> threads = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < requestThreads; t++) {
+            Random random = new Random(t);
+            threads.add(pool.submit(() -> {
+                ArrayDeque<CompletableFuture<CartUpdateResult>> inFlight = new ArrayDeque<>();
+                for (int i = 0; i < OPS_PER_THREAD; i++) {
+                    String cartId = cartIds[random.nextInt(cartIds.length)];
+                    String item = ITEMS.get(random.nextInt(ITEMS.size()));
+                    if (!async) {
+                        cartService.addItem(cartId, item, null);
+                        continue;
+                    }
+                    // A released request thread takes the next request; cap what one thread has outstanding
+                    if (inFlight.size() == IN_FLIGHT_PER_THREAD) {
+                        inFlight.poll().join();
+                    }
+                    inFlight.add(cartService.addItemAsync(cartId, item, 1, null));
+                }
+                inFlight.forEach(CompletableFuture::join);
+            }));
+        }
+        for (Future<?> thread : threads) {
+            thread.get();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static PricingProperties pricing() {
+        PricingProperties properties = new PricingProperties();
+        properties.setMaxQuantity(Integer.MAX_VALUE);
+        properties.setItems(new HashMap<>());
+        for (String item : ITEMS) {
+            PricingProperties.StrategyConfig strategy = new PricingProperties.StrategyConfig();
+            strategy.setType("REGULAR");
+            PricingProperties.ItemConfig config = new PricingProperties.ItemConfig();
+            config.setBasePrice(new BigDecimal("0.25"));
+            config.setStrategies(List.of(strategy));
+            properties.getItems().put(item, config);
+        }
+        return properties;
+    }
+}
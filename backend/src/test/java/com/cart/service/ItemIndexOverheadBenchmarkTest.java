@@ -0,0 +1,196 @@
+package com.cart.service;
+
+import com.cart.config.CartConcurrencyProperties;
+import com.cart.config.CartSyncProperties;
+import com.cart.config.CartTotalsProperties;
+import com.cart.config.PricingProperties;
+import com.cart.journal.NoOpCartJournal;
+import com.cart.model.domain.Cart;
+import com.cart.model.domain.ItemIds;
+import com.cart.repository.HeapCartRepository;
+import com.cart.repository.ItemCartIndex;
+import com.cart.service.concurrency.StripedCartExecutor;
+import com.cart.service.pricing.PricingCatalog;
+import com.cart.service.pricing.RegularPricingStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Write-path cost of keeping the item index in step: the same add/remove/clear
+ * mix through {@link CartService} with the index and with a no-op index, plus
+ * the index updates on their own. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+class ItemIndexOverheadBenchmarkTest {
+    private static final List<String> ITEMS = List.of("BENCH_INDEX_A", "BENCH_INDEX_B", "BENCH_INDEX_C",
+                                                      "BENCH_INDEX_D");
+    private static final int CARTS = 100_000;
+    private static final int OPS = 1_000_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+    // Generous ceiling on index work per mutation; it is a map lookup and a CAS
+    private static final double MAX_INDEX_NANOS_PER_OP = 500;
+
+    @Test
+    void measureIndexMaintenanceOverhead() {
+        PricingCatalog catalog = new PricingCatalog(pricing(), Map.of("REGULAR", new RegularPricingStrategy()));
+        Random random = new Random(11);
+        int[] carts = new int[OPS];
+        int[] items = new int[OPS];
+        int[] kinds = new int[OPS];
+        for (int i = 0; i < OPS; i++) {
+            carts[i] = random.nextInt(CARTS);
+            items[i] = random.nextInt(ITEMS.size());
+            int roll = random.nextInt(100);
+            kinds[i] = roll < 70 ? 0 : roll < 98 ? 1 : 2;
+        }
+
+        Workload indexed = new Workload(catalog, false);
+        Workload plain = new Workload(catalog, true);
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            indexed.run(carts, items, kinds);
+            plain.run(carts, items, kinds);
+        }
+        long indexedNanos = 0;
+        long plainNanos = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            indexedNanos += indexed.run(carts, items, kinds);
+            plainNanos += plain.run(carts, items, kinds);
+        }
+        assertEquals(plain.totalCents(), indexed.totalCents());
+
+        String[] cartIds = indexed.cartIds;
+        int[] itemIds = indexed.itemIds;
+        ItemCartIndex index = new ItemCartIndex(new HeapCartRepository(), catalog.getItemIds());
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            indexOnly(index, cartIds, itemIds, carts, items, kinds);
+        }
+        long indexNanos = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            indexNanos += indexOnly(index, cartIds, itemIds, carts, items, kinds);
+        }
+
+        double indexedPerOp = indexedNanos / (double) ROUNDS / OPS;
+        double plainPerOp = plainNanos / (double) ROUNDS / OPS;
+        double indexPerOp = indexNanos / (double) ROUNDS / OPS;
+        log.info("Mutations without index: {} ns/op", String.format("%.1f", plainPerOp));
+        log.info("Mutations with index:    {} ns/op ({}% overhead)", String.format("%.1f", indexedPerOp),
+                 String.format("%.1f", (indexedPerOp - plainPerOp) * 100 / plainPerOp));
+        log.info("Index updates alone:     {} ns/op", String.format("%.1f", indexPerOp));
+        assertTrue(indexPerOp < MAX_INDEX_NANOS_PER_OP, "Index updates cost " + indexPerOp + " ns/op");
+    }
+
+    private static long indexOnly(ItemCartIndex index, String[] cartIds, int[] itemIds,
+                                  int[] carts, int[] items, int[] kinds) {
+        long start = System.nanoTime();
+        for (int i = 0; i < carts.length; i++) {
+            String cartId = cartIds[carts[i]];
+            switch (kinds[i]) {
+                case 0:
+                    index.add(cartId, itemIds[items[i]]);
+                    break;
+                case 1:
+                    index.remove(cartId, itemIds[items[i]]);
+                    break;
+                default:
+                    index.removeCart(cartId);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static final class Workload {
+        private final CartService cartService;
+        private final String[] cartIds = new String[CARTS];
+        private final Cart[] carts = new Cart[CARTS];
+        private final int[] itemIds = new int[ITEMS.size()];
+
+        private Workload(PricingCatalog catalog, boolean withoutIndex) {
+            for (int i = 0; i < itemIds.length; i++) {
+                itemIds[i] = catalog.get(ITEMS.get(i)).getItemId();
+            }
+            HeapCartRepository repository = new HeapCartRepository();
+            ItemCartIndex index = withoutIndex ? new NoOpItemCartIndex(repository, catalog.getItemIds())
+                                               : new ItemCartIndex(repository, catalog.getItemIds());
+            cartService = new CartService(repository, catalog, event -> { }, new StripedCartExecutor(1024),
+                                          new CartConcurrencyProperties(), new CartTotalsProperties(),
+                                          new CartSyncProperties(), new NoOpCartJournal(), index);
+            for (int i = 0; i < CARTS; i++) {
+                carts[i] = cartService.createCart();
+                cartIds[i] = carts[i].getId();
+            }
+        }
+
+        private long run(int[] cartIndexes, int[] items, int[] kinds) {
+            long start = System.nanoTime();
+            for (int i = 0; i < cartIndexes.length; i++) {
+                String cartId = cartIds[cartIndexes[i]];
+                String item = ITEMS.get(items[i]);
+                switch (kinds[i]) {
+                    case 0:
+                        cartService.addItem(cartId, item, null);
+                        break;
+                    case 1:
+                        if (carts[cartIndexes[i]].quantityOf(itemIds[items[i]]) > 0) {
+                            cartService.removeItem(cartId, item, null);
+                        }
+                        break;
+                    default:
+                        cartService.clearCart(cartId, null);
+                }
+            }
+            return System.nanoTime() - start;
+        }
+
+        private long totalCents() {
+            long total = 0;
+            for (Cart cart : carts) {
+                total += cart.getTotalCents();
+            }
+            return total;
+        }
+    }
+
+    private static final class NoOpItemCartIndex extends ItemCartIndex {
+        private NoOpItemCartIndex(HeapCartRepository repository, ItemIds itemIds) {
+            super(repository, itemIds);
+        }
+
+        @Override
+        public void add(String cartId, int itemId) {
+        }
+
+        @Override
+        public void remove(String cartId, int itemId) {
+        }
+
+        @Override
+        public void removeCart(String cartId) {
+        }
+    }
+
+    private static PricingProperties pricing() {
+        PricingProperties properties = new PricingProperties();
+        properties.setItems(new HashMap<>());
+        for (String item : ITEMS) {
+            PricingProperties.StrategyConfig strategy = new PricingProperties.StrategyConfig();
+            strategy.setType("REGULAR");
+            PricingProperties.ItemConfig config = new PricingProperties.ItemConfig();
+            config.setBasePrice(new BigDecimal("0.25"));
+            config.setStrategies(List.of(strategy));
+            properties.getItems().put(item, config);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,112 @@
+package com.cart.service;
+
+import com.cart.config.CartClusterProperties;
+import com.cart.config.CartConcurrencyProperties;
+import com.cart.config.CartRepriceProperties;
+import com.cart.config.CartSyncProperties;
+import com.cart.config.CartTotalsProperties;
+import com.cart.config.PricingProperties;
+import com.cart.journal.NoOpCartJournal;
+import com.cart.model.domain.Cart;
+import com.cart.model.dto.RepriceReport;
+import com.cart.repository.HeapCartRepository;
+import com.cart.repository.ItemCartIndex;
+import com.cart.service.concurrency.StripedCartExecutor;
+import com.cart.service.pricing.BOGOPricingStrategy;
+import com.cart.service.pricing.PricingCatalog;
+import com.cart.service.pricing.PricingFile;
+import com.cart.service.pricing.PricingStrategy;
+import com.cart.service.pricing.RegularPricingStrategy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Reprice time and throughput for a pricing reload over 1M live carts, half
+ * of which hold the changed item. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+class PricingReloadBenchmarkTest {
+    private static final int CARTS = 1_000_000;
+    private static final String CHANGED = "BENCH_RELOAD_A";
+    private static final String UNCHANGED = "BENCH_RELOAD_B";
+
+    private final Map<String, PricingStrategy> strategies = Map.of(
+        "REGULAR", new RegularPricingStrategy(),
+        "BOGO", new BOGOPricingStrategy()
+    );
+
+    @Test
+    void repriceOneMillionCarts() {
+        PricingCatalog catalog = new PricingCatalog(pricing("0.35", "REGULAR"), strategies);
+        HeapCartRepository repository = new HeapCartRepository();
+        int changedId = catalog.get(CHANGED).getItemId();
+        int unchangedId = catalog.get(UNCHANGED).getItemId();
+        for (int i = 0; i < CARTS; i++) {
+            Cart cart = new Cart();
+            if (i % 2 == 0) {
+                cart.putLine(changedId, 1 + i % 7, 35L * (1 + i % 7));
+            }
+            cart.putLine(unchangedId, 2, 40);
+            repository.save(cart);
+        }
+        ItemCartIndex itemIndex = new ItemCartIndex(repository, catalog.getItemIds());
+        itemIndex.afterSingletonsInstantiated();
+
+        CartService cartService = new CartService(repository, catalog, event -> { }, new StripedCartExecutor(1024),
+                                                  new CartConcurrencyProperties(), new CartTotalsProperties(),
+                                                  new CartSyncProperties(), new NoOpCartJournal(), itemIndex);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CartRepriceProperties properties = new CartRepriceProperties();
+        PricingReloadService reloadService = new PricingReloadService(catalog, cartService, itemIndex,
+                                                                      new NoOpCartJournal(),
+                                                                      new PricingFile(properties, new ObjectMapper()),
+                                                                      properties, new CartClusterProperties(),
+                                                                      meterRegistry);
+        try {
+            String[] prices = {"0.40", "0.45", "0.50", "0.55"};
+            for (String price : prices) {
+                RepriceReport report = reloadService.reload(pricing(price, "BOGO"));
+                assertEquals(CARTS / 2, report.getCartsRepriced());
+                log.info("Repriced {} of {} matched carts in {} ms ({} carts/s, {} workers)", report.getCartsRepriced(),
+                         report.getCartsMatched(), report.getDurationMs(),
+                         report.getCartsRepriced() * 1000 / Math.max(report.getDurationMs(), 1),
+                         Runtime.getRuntime().availableProcessors());
+            }
+            log.info("cart.reprice.duration mean {} ms over {} reloads",
+                     String.format("%.1f", meterRegistry.timer("cart.reprice.duration")
+                                                        .mean(TimeUnit.MILLISECONDS)),
+                     prices.length);
+        } finally {
+            reloadService.destroy();
+        }
+    }
+
+    private static PricingProperties pricing(String changedPrice, String changedStrategy) {
+        PricingProperties properties = new PricingProperties();
+        properties.setItems(new HashMap<>());
+        properties.getItems().put(CHANGED, item(changedPrice, changedStrategy));
+        properties.getItems().put(UNCHANGED, item("0.20", "REGULAR"));
+        return properties;
+    }
+
+    private static PricingProperties.ItemConfig item(String price, String type) {
+        PricingProperties.StrategyConfig strategy = new PricingProperties.StrategyConfig();
+        strategy.setType(type);
+        PricingProperties.ItemConfig config = new PricingProperties.ItemConfig();
+        config.setBasePrice(new BigDecimal(price));
+        config.setStrategies(List.of(strategy));
+        return config;
+    }
+}
@@ -0,0 +1,258 @@
+package com.cart.service;
+
+import com.cart.config.CartClusterProperties;
+import com.cart.config.CartConcurrencyProperties;
+import com.cart.config.CartRepriceProperties;
+import com.cart.config.CartSyncProperties;
+import com.cart.config.CartTotalsProperties;
+import com.cart.config.PricingProperties;
+import com.cart.exception.CartException;
+import com.cart.journal.CartJournal;
+import com.cart.journal.JournalEntry;
+import com.cart.model.domain.Cart;
+import com.cart.model.dto.RepriceReport;
+import com.cart.model.event.CartEvent;
+import com.cart.repository.CartUpdateResult;
+import com.cart.repository.HeapCartRepository;
+import com.cart.repository.ItemCartIndex;
+import com.cart.service.concurrency.StripedCartExecutor;
+import com.cart.service.pricing.BOGOPricingStrategy;
+import com.cart.service.pricing.PricingCatalog;
+import com.cart.service.pricing.PricingFile;
+import com.cart.service.pricing.PricingStrategy;
+import com.cart.service.pricing.RegularPricingStrategy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PricingReloadServiceTest {
+    // Names of their own: item unit prices are process-wide
+    private static final String PEAR = "RELOAD_PEAR";
+    private static final String PLUM = "RELOAD_PLUM";
+
+    private final Map<String, PricingStrategy> strategies = Map.of(
+        "REGULAR", new RegularPricingStrategy(),
+        "BOGO", new BOGOPricingStrategy()
+    );
+    private final List<CartEvent> events = Collections.synchronizedList(new ArrayList<>());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path directory;
+
+    private HeapCartRepository repository;
+    private CartJournal journal;
+    private ItemCartIndex itemIndex;
+    private PricingCatalog catalog;
+    private CartService cartService;
+    private CartRepriceProperties properties;
+    private PricingFile pricingFile;
+    private PricingReloadService reloadService;
+
+    @BeforeEach
+    void setUp() {
+        repository = new HeapCartRepository();
+        journal = mock(CartJournal.class);
+        catalog = new PricingCatalog(pricing("0.40", "0.25", "REGULAR"), strategies);
+        itemIndex = new ItemCartIndex(repository, catalog.getItemIds());
+        cartService = new CartService(repository, catalog, event -> events.add((CartEvent) event),
+                                      new StripedCartExecutor(16), new CartConcurrencyProperties(),
+                                      new CartTotalsProperties(), new CartSyncProperties(), journal, itemIndex);
+        properties = new CartRepriceProperties();
+        properties.setParallelism(4);
+        properties.setBatchSize(8);
+        properties.setPricingFile(directory.resolve("pricing.json").toString());
+        pricingFile = new PricingFile(properties, new ObjectMapper());
+        reloadService = new PricingReloadService(catalog, cartService, itemIndex, journal, pricingFile, properties,
+                                                 new CartClusterProperties(), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reloadService.destroy();
+    }
+
+    @Test
+    void reloadShouldRepriceOnlyCartsHoldingChangedItems() {
+        List<Cart> pearCarts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Cart cart = cartService.createCart();
+            cartService.addItem(cart.getId(), PEAR, 1 + i % 5, null);
+            cartService.addItem(cart.getId(), PLUM, 2, null);
+            pearCarts.add(cart);
+        }
+        Cart plumOnly = cartService.createCart();
+        cartService.addItem(plumOnly.getId(), PLUM, 3, null);
+        long plumOnlyVersion = plumOnly.getVersion();
+        events.clear();
+
+        RepriceReport report = reloadService.reload(pricing("0.50", "0.25", "BOGO"));
+
+        assertEquals(List.of(PEAR), report.getChangedItems());
+        assertEquals(100, report.getCartsMatched());
+        assertEquals(100, report.getCartsRepriced());
+        for (Cart cart : pearCarts) {
+            int pears = cart.quantityOf(catalog.getItemIds().find(PEAR));
+            assertEquals(50L * ((pears + 1) / 2), cart.lineTotalCents(catalog.getItemIds().find(PEAR)));
+            assertEquals(cart.lineTotalCents(catalog.getItemIds().find(PEAR)) + 50, cart.getTotalCents());
+            assertEquals(4L, cart.getVersion());
+        }
+        assertEquals(plumOnlyVersion, plumOnly.getVersion());
+        assertEquals(100, events.size());
+        assertTrue(events.stream().allMatch(event -> event.getType() == CartEvent.CartEventType.PRICE_UPDATED));
+        assertEquals(new BigDecimal("0.50"), catalog.getItemIds().unitPrice(catalog.getItemIds().find(PEAR)));
+        assertEquals(100.0, meterRegistry.counter("cart.reprice.carts").count());
+        assertEquals(1L, meterRegistry.timer("cart.reprice.duration").count());
+    }
+
+    @Test
+    void repriceShouldJournalEveryLineAndWaitOnce() {
+        Cart cart = cartService.createCart();
+        cartService.addItem(cart.getId(), PEAR, 3, null);
+        cartService.addItem(cart.getId(), PLUM, 1, null);
+        reset(journal);
+        when(journal.position()).thenReturn(7L);
+
+        reloadService.reload(pricing("0.30", "0.20", "REGULAR"));
+
+        verify(journal).append(JournalEntry.add(cart.getId(), PEAR, 3, 90, 4));
+        verify(journal).append(JournalEntry.add(cart.getId(), PLUM, 1, 20, 4));
+        verify(journal, times(1)).awaitDurable(7L);
+    }
+
+    @Test
+    void lineIndexedAfterTheReloadScannedTheIndexShouldStillBeRepriced() {
+        // The swap lands after the add priced its line and before it indexed it
+        AtomicBoolean swapped = new AtomicBoolean();
+        ItemCartIndex racingIndex = new ItemCartIndex(repository, catalog.getItemIds()) {
+            @Override
+            public void add(String cartId, int itemId) {
+                if (swapped.compareAndSet(false, true)) {
+                    catalog.reload(pricing("0.50", "0.25", "REGULAR"));
+                }
+                super.add(cartId, itemId);
+            }
+        };
+        CartService racingService = new CartService(repository, catalog, event -> events.add((CartEvent) event),
+                                                    new StripedCartExecutor(16), new CartConcurrencyProperties(),
+                                                    new CartTotalsProperties(), new CartSyncProperties(), journal,
+                                                    racingIndex);
+        Cart cart = racingService.createCart();
+
+        CartUpdateResult result = racingService.addItem(cart.getId(), PEAR, 2, null);
+
+        assertEquals(100L, cart.lineTotalCents(catalog.getItemIds().find(PEAR)));
+        assertEquals(100L, cart.getTotalCents());
+        assertEquals(3L, result.getCart().getVersion());
+        assertEquals(CartEvent.CartEventType.PRICE_UPDATED, events.get(events.size() - 1).getType());
+    }
+
+    @Test
+    void unchangedConfigShouldNotTouchCarts() {
+        Cart cart = cartService.createCart();
+        cartService.addItem(cart.getId(), PEAR, 1, null);
+        events.clear();
+
+        RepriceReport report = reloadService.reload(pricing("0.40", "0.25", "REGULAR"));
+
+        assertTrue(report.getChangedItems().isEmpty());
+        assertEquals(2L, cart.getVersion());
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void invalidConfigShouldBeRejectedWithoutPublishingPrices() {
+        PricingProperties invalid = pricing("0.99", "0.25", "HALF_PRICE");
+
+        CartException ex = assertThrows(CartException.class, () -> reloadService.reload(invalid));
+
+        assertTrue(ex.getMessage().contains("HALF_PRICE"));
+        assertEquals(new BigDecimal("0.40"), catalog.getItemIds().unitPrice(catalog.getItemIds().find(PEAR)));
+        assertEquals(40, catalog.get(PEAR).calculatePriceCents(1));
+    }
+
+    @Test
+    void reloadShouldNotChangeTheItemSet() {
+        PricingProperties withoutPlum = pricing("0.40", "0.25", "REGULAR");
+        withoutPlum.getItems().remove(PLUM);
+
+        assertThrows(CartException.class, () -> reloadService.reload(withoutPlum));
+        assertNotNull(catalog.get(PLUM));
+        verify(journal, never()).awaitDurable(anyLong());
+        verify(journal, never()).append(any());
+    }
+
+    @Test
+    void reloadedPricingShouldBeWhatTheNextStartPricesWith() {
+        reloadService.reload(pricing("0.50", "0.30", "BOGO"));
+
+        PricingCatalog restarted = new PricingCatalog(pricing("0.40", "0.25", "REGULAR"), strategies, pricingFile);
+
+        assertEquals(50, restarted.get(PEAR).calculatePriceCents(2));
+        assertEquals(30, restarted.get(PLUM).calculatePriceCents(1));
+    }
+
+    @Test
+    void rejectedReloadShouldNotBePersisted() {
+        reloadService.reload(pricing("0.50", "0.25", "REGULAR"));
+
+        assertThrows(CartException.class, () -> reloadService.reload(pricing("0.99", "0.25", "HALF_PRICE")));
+
+        PricingCatalog restarted = new PricingCatalog(pricing("0.40", "0.25", "REGULAR"), strategies, pricingFile);
+        assertEquals(50, restarted.get(PEAR).calculatePriceCents(1));
+        assertFalse(Files.exists(directory.resolve("pricing.json.tmp")));
+    }
+
+    @Test
+    void reloadShouldBeRejectedInClusterMode() {
+        CartClusterProperties cluster = new CartClusterProperties();
+        cluster.setEnabled(true);
+        PricingReloadService clustered = new PricingReloadService(catalog, cartService, itemIndex, journal,
+                                                                  pricingFile, properties, cluster, meterRegistry);
+        try {
+            CartException ex = assertThrows(CartException.class,
+                                            () -> clustered.reload(pricing("0.50", "0.25", "REGULAR")));
+
+            assertEquals(HttpStatus.CONFLICT, ex.getStatus());
+            assertEquals(40, catalog.get(PEAR).calculatePriceCents(1));
+            assertFalse(pricingFile.load().isPresent());
+        } finally {
+            clustered.destroy();
+        }
+    }
+
+    private static PricingProperties pricing(String pearPrice, String plumPrice, String pearStrategy) {
+        PricingProperties properties = new PricingProperties();
+        properties.setItems(new HashMap<>());
+        properties.getItems().put(PEAR, item(pearPrice, pearStrategy));
+        properties.getItems().put(PLUM, item(plumPrice, "REGULAR"));
+        return properties;
+    }
+
+    private static PricingProperties.ItemConfig item(String price, String type) {
+        PricingProperties.StrategyConfig strategy = new PricingProperties.StrategyConfig();
+        strategy.setType(type);
+        PricingProperties.ItemConfig config = new PricingProperties.ItemConfig();
+        config.setBasePrice(new BigDecimal(price));
+        config.setStrategies(List.of(strategy));
+        return config;
+    }
+}
@@ -0,0 +1,178 @@
+package com.cart.service.concurrency;
+
+import com.cart.exception.CartException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedCartExecutorTest {
+    private final List<ShardedCartExecutor> started = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        started.forEach(ShardedCartExecutor::destroy);
+    }
+
+    @Test
+    void shouldRejectNonPositiveShardCount() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardedCartExecutor(0));
+    }
+
+    @Test
+    void shouldRunEveryTaskForACartOnOneThread() throws Exception {
+        ShardedCartExecutor executor = start(4);
+        List<CompletableFuture<String>> threads = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            threads.add(executor.submit("cart-1", () -> Thread.currentThread().getName()));
+        }
+
+        String shardThread = threads.get(0).get(5, TimeUnit.SECONDS);
+        assertTrue(shardThread.startsWith("cart-shard-"));
+        for (CompletableFuture<String> thread : threads) {
+            assertEquals(shardThread, thread.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void shouldSerializeTasksForSameCart() throws Exception {
+        ShardedCartExecutor executor = start(4);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            for (int i = 0; i < 200; i++) {
+                pool.submit(() -> executor.run("cart-1", () -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    Thread.yield();
+                    inFlight.decrementAndGet();
+                }));
+            }
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, maxInFlight.get());
+    }
+
+    @Test
+    void shouldNotBlockCartsOnDifferentShards() throws Exception {
+        ShardedCartExecutor executor = start(4);
+        String cartA = "cart-a";
+        String cartB = findCartOnOtherShard(executor, cartA);
+
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.submit(cartA, () -> {
+                holding.countDown();
+                awaitQuietly(release);
+                return null;
+            });
+            assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+            assertEquals("done", executor.submit(cartB, () -> "done").get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void shouldRunNestedWorkForTheSameCartInline() {
+        ShardedCartExecutor executor = start(2);
+        String result = executor.execute("cart-1", () -> executor.execute("cart-1", () -> "nested"));
+        assertEquals("nested", result);
+    }
+
+    @Test
+    void executeShouldRethrowTheTaskException() {
+        ShardedCartExecutor executor = start(2);
+        CartException ex = assertThrows(CartException.class, () -> executor.execute("cart-1", () -> {
+            throw new CartException("Invalid item: KIWI");
+        }));
+        assertEquals("Invalid item: KIWI", ex.getMessage());
+    }
+
+    @Test
+    void shouldKeepUpWithManyProducers() throws Exception {
+        ShardedCartExecutor executor = start(4);
+        int producers = 8;
+        int tasksPerProducer = 10_000;
+        long[] counts = new long[64];
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        try {
+            List<Future<?>> submitted = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                submitted.add(pool.submit(() -> {
+                    List<CompletableFuture<Void>> futures = new ArrayList<>();
+                    for (int i = 0; i < tasksPerProducer; i++) {
+                        int cart = i % counts.length;
+                        // Unsynchronized on purpose: each cart has a single writer
+                        futures.add(executor.submit("cart-" + cart, () -> {
+                            counts[cart]++;
+                            return null;
+                        }));
+                    }
+                    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+                }));
+            }
+            for (Future<?> future : submitted) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        long total = 0;
+        for (int cart = 0; cart < counts.length; cart++) {
+            int index = cart;
+            total += executor.execute("cart-" + cart, () -> counts[index]);
+        }
+        assertEquals((long) producers * tasksPerProducer, total);
+    }
+
+    @Test
+    void tasksSubmittedAfterShutdownShouldFail() {
+        ShardedCartExecutor executor = start(2);
+        executor.destroy();
+
+        ExecutionException ex = assertThrows(ExecutionException.class,
+                                             () -> executor.submit("cart-1", () -> "late").get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof CartException);
+    }
+
+    private ShardedCartExecutor start(int shards) {
+        ShardedCartExecutor executor = new ShardedCartExecutor(shards);
+        started.add(executor);
+        return executor;
+    }
+
+    private String findCartOnOtherShard(ShardedCartExecutor executor, String cartId) {
+        int shard = executor.shardIndex(cartId);
+        for (int i = 0; ; i++) {
+            String candidate = "cart-" + i;
+            if (executor.shardIndex(candidate) != shard) {
+                return candidate;
+            }
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
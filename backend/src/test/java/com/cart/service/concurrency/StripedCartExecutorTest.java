@@ -0,0 +1,98 @@
+package com.cart.service.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedCartExecutorTest {
+
+    @Test
+    void shouldRoundStripeCountUpToPowerOfTwo() {
+        assertEquals(1, new StripedCartExecutor(1).stripeCount());
+        assertEquals(8, new StripedCartExecutor(5).stripeCount());
+        assertEquals(1024, new StripedCartExecutor(1024).stripeCount());
+    }
+
+    @Test
+    void shouldRejectNonPositiveStripeCount() {
+        assertThrows(IllegalArgumentException.class, () -> new StripedCartExecutor(0));
+    }
+
+    @Test
+    void shouldSerializeTasksForSameCart() throws Exception {
+        StripedCartExecutor executor = new StripedCartExecutor(64);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            for (int i = 0; i < 200; i++) {
+                pool.submit(() -> executor.run("cart-1", () -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    Thread.yield();
+                    inFlight.decrementAndGet();
+                }));
+            }
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertEquals(1, maxInFlight.get());
+    }
+
+    @Test
+    void shouldNotBlockCartsOnDifferentStripes() throws Exception {
+        StripedCartExecutor executor = new StripedCartExecutor(64);
+        String cartA = "cart-a";
+        String cartB = findCartOnOtherStripe(executor, cartA);
+
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            pool.submit(() -> executor.run(cartA, () -> {
+                holding.countDown();
+                awaitQuietly(release);
+            }));
+            assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+            Future<String> other = pool.submit(() -> executor.execute(cartB, () -> "done"));
+            assertEquals("done", other.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void shouldAllowReentrantExecutionForSameCart() {
+        StripedCartExecutor executor = new StripedCartExecutor(4);
+        String result = executor.execute("cart-1",
+                                         () -> executor.execute("cart-1", () -> "nested"));
+        assertEquals("nested", result);
+    }
+
+    private String findCartOnOtherStripe(StripedCartExecutor executor, String cartId) {
+        int stripe = executor.stripeIndex(cartId);
+        for (int i = 0; ; i++) {
+            String candidate = "cart-" + i;
+            if (executor.stripeIndex(candidate) != stripe) {
+                return candidate;
+            }
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.cart.service.pricing;
+
+import com.cart.config.PricingProperties;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The minor-unit path must agree to the penny with the {@code BigDecimal}
+ * strategies it shadows, including every {@code HALF_UP} tie.
+ */
+class CentsPricingEquivalenceTest {
+    private static final int MAX_QUANTITY = 120;
+    private static final int MAX_BASE_CENTS = 1_000;
+
+    private final Map<String, PricingStrategy> strategies = Map.of(
+        "REGULAR", new RegularPricingStrategy(),
+        "BOGO", new BOGOPricingStrategy(),
+        "THREE_FOR_TWO", new ThreeForTwoPricingStrategy(),
+        "BULK_DISCOUNT", new BulkDiscountStrategy(),
+        "SEASONAL", new SeasonalDiscountStrategy()
+    );
+
+    @Test
+    void everyStrategyShouldMatchBigDecimalPath() {
+        strategies.forEach((type, strategy) -> {
+            for (long baseCents = 0; baseCents <= MAX_BASE_CENTS; baseCents++) {
+                BigDecimal basePrice = BigDecimal.valueOf(baseCents, 2);
+                for (int quantity = 0; quantity <= MAX_QUANTITY; quantity++) {
+                    long expected = strategy.calculatePrice(quantity, basePrice).unscaledValue().longValueExact();
+                    assertEquals(expected, strategy.calculatePriceCents(quantity, baseCents),
+                                 () -> type + " diverged");
+                }
+            }
+        });
+    }
+
+    @Test
+    void discountStrategiesShouldRoundTiesUp() {
+        // 0.45 * 5 * 0.90 = 2.025 -> 2.03; 0.10 * 1 * 0.95 = 0.095 -> 0.10
+        assertEquals(203, new BulkDiscountStrategy().calculatePriceCents(5, 45));
+        assertEquals(10, new SeasonalDiscountStrategy().calculatePriceCents(1, 10));
+    }
+
+    @Test
+    void chainedPipelineShouldMatchBigDecimalPath() {
+        PricingProperties properties = new PricingProperties();
+        properties.setItems(new HashMap<>());
+        properties.getItems().put("MANGO", item("1.00", strategy("BULK_DISCOUNT", 1), strategy("SEASONAL", 2)));
+        properties.getItems().put("ODD", item("0.37", strategy("SEASONAL", 1), strategy("BOGO", 2)));
+        // Sub-penny base price falls back to the BigDecimal chain
+        properties.getItems().put("FINE", item("0.333", strategy("BULK_DISCOUNT", 1)));
+        PricingCatalog catalog = new PricingCatalog(properties, strategies);
+
+        for (PricingPipeline pipeline : catalog.getPipelines().values()) {
+            for (int quantity = 0; quantity <= MAX_QUANTITY; quantity++) {
+                long expected = pipeline.calculatePrice(quantity).unscaledValue().longValueExact();
+                assertEquals(expected, pipeline.calculatePriceCents(quantity),
+                             () -> pipeline.getItemName() + " diverged");
+            }
+        }
+    }
+
+    @Test
+    void defaultImplementationShouldDelegateToBigDecimalPath() {
+        PricingStrategy halfPrice = (quantity, basePrice) ->
+            basePrice.multiply(BigDecimal.valueOf(quantity)).divide(BigDecimal.valueOf(2));
+
+        assertEquals(53, halfPrice.calculatePriceCents(3, 35));
+    }
+
+    private PricingProperties.ItemConfig item(String price, PricingProperties.StrategyConfig... configs) {
+        PricingProperties.ItemConfig config = new PricingProperties.ItemConfig();
+        config.setBasePrice(new BigDecimal(price));
+        config.setStrategies(List.of(configs));
+        return config;
+    }
+
+    private PricingProperties.StrategyConfig strategy(String type, int priority) {
+        PricingProperties.StrategyConfig config = new PricingProperties.StrategyConfig();
+        config.setType(type);
+        config.setPriority(priority);
+        return config;
+    }
+}
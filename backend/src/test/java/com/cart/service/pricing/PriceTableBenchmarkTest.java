@@ -0,0 +1,111 @@
+package com.cart.service.pricing;
+
+import com.cart.config.PricingProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Per-add pricing cost with live strategy evaluation against the precomputed
+ * price tables. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+class PriceTableBenchmarkTest {
+    private static final List<String> ITEMS = List.of("APPLE", "MELON", "LIME", "MANGO", "FINE");
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 50;
+    private static final int OPS = 1_000_000;
+
+    private final Map<String, PricingStrategy> strategies = Map.of(
+        "REGULAR", new RegularPricingStrategy(),
+        "BOGO", new BOGOPricingStrategy(),
+        "THREE_FOR_TWO", new ThreeForTwoPricingStrategy(),
+        "BULK_DISCOUNT", new BulkDiscountStrategy(),
+        "SEASONAL", new SeasonalDiscountStrategy()
+    );
+
+    @Test
+    void comparePerAddPricing() {
+        PricingPipeline[] live = pipelines(0);
+        PricingPipeline[] tabled = pipelines(1_000);
+
+        // Adds mostly land on small quantities; one in ten passes the table
+        Random random = new Random(7);
+        int[] items = new int[OPS];
+        int[] quantities = new int[OPS];
+        for (int i = 0; i < OPS; i++) {
+            items[i] = random.nextInt(ITEMS.size());
+            quantities[i] = random.nextInt(10) == 0 ? 1_000 + random.nextInt(9_000) : 1 + random.nextInt(20);
+        }
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            price(live, items, quantities);
+            price(tabled, items, quantities);
+        }
+        long liveNanos = 0;
+        long tableNanos = 0;
+        long liveSum = 0;
+        long tableSum = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            liveSum += price(live, items, quantities);
+            liveNanos += System.nanoTime() - start;
+            start = System.nanoTime();
+            tableSum += price(tabled, items, quantities);
+            tableNanos += System.nanoTime() - start;
+        }
+
+        assertEquals(liveSum, tableSum);
+        log.info("Live pipeline: {} ns/add", String.format("%.2f", liveNanos / (double) ROUNDS / OPS));
+        log.info("Price table:   {} ns/add", String.format("%.2f", tableNanos / (double) ROUNDS / OPS));
+    }
+
+    private static long price(PricingPipeline[] pipelines, int[] items, int[] quantities) {
+        long sum = 0;
+        for (int i = 0; i < items.length; i++) {
+            sum += pipelines[items[i]].calculatePriceCents(quantities[i]);
+        }
+        return sum;
+    }
+
+    private PricingPipeline[] pipelines(int tableMaxQuantity) {
+        PricingProperties properties = new PricingProperties();
+        properties.setPriceTableMaxQuantity(tableMaxQuantity);
+        properties.setItems(new HashMap<>());
+        properties.getItems().put("APPLE", item("0.35", "REGULAR"));
+        properties.getItems().put("MELON", item("0.50", "BOGO"));
+        properties.getItems().put("LIME", item("0.15", "THREE_FOR_TWO"));
+        properties.getItems().put("MANGO", item("1.00", "BULK_DISCOUNT", "SEASONAL"));
+        // Sub-penny base price: live pricing goes through BigDecimal
+        properties.getItems().put("FINE", item("0.333", "BULK_DISCOUNT"));
+        PricingCatalog catalog = new PricingCatalog(properties, strategies);
+
+        PricingPipeline[] pipelines = new PricingPipeline[ITEMS.size()];
+        for (int i = 0; i < pipelines.length; i++) {
+            pipelines[i] = catalog.get(ITEMS.get(i));
+        }
+        return pipelines;
+    }
+
+    private static PricingProperties.ItemConfig item(String price, String... types) {
+        PricingProperties.ItemConfig config = new PricingProperties.ItemConfig();
+        config.setBasePrice(new BigDecimal(price));
+        PricingProperties.StrategyConfig[] configs = new PricingProperties.StrategyConfig[types.length];
+        for (int i = 0; i < types.length; i++) {
+            configs[i] = new PricingProperties.StrategyConfig();
+            configs[i].setType(types[i]);
+            configs[i].setPriority(i + 1);
+        }
+        config.setStrategies(List.of(configs));
+        return config;
+    }
+}
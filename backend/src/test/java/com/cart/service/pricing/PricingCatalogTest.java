@@ -0,0 +1,180 @@
+package com.cart.service.pricing;
+
+import com.cart.config.PricingProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingCatalogTest {
+    private Map<String, PricingStrategy> strategies;
+    private PricingProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        strategies = new HashMap<>();
+        strategies.put("REGULAR", new RegularPricingStrategy());
+        strategies.put("BOGO", new BOGOPricingStrategy());
+        strategies.put("BULK_DISCOUNT", new BulkDiscountStrategy());
+        strategies.put("SEASONAL", new SeasonalDiscountStrategy());
+
+        properties = new PricingProperties();
+        properties.setItems(new HashMap<>());
+    }
+
+    @Test
+    void shouldCompilePipelinePerItem() {
+        addItem("APPLE", "0.35", strategy("REGULAR", null));
+        addItem("MELON", "0.50", strategy("BOGO", 1));
+
+        PricingCatalog catalog = new PricingCatalog(properties, strategies);
+
+        assertTrue(catalog.contains("APPLE"));
+        assertEquals(new BigDecimal("0.70"), catalog.get("APPLE").calculatePrice(2));
+        assertEquals(new BigDecimal("0.50"), catalog.get("MELON").calculatePrice(2));
+        assertNull(catalog.get("KIWI"));
+    }
+
+    @Test
+    void shouldOrderStrategiesByPriorityAtCompileTime() {
+        // Declared out of order: bulk discount must still run first
+        addItem("MANGO", "1.00", strategy("SEASONAL", 2), strategy("BULK_DISCOUNT", 1));
+
+        PricingPipeline mango = new PricingCatalog(properties, strategies).get("MANGO");
+
+        assertEquals(2, mango.size());
+        assertEquals(referencePrice("MANGO", 5), mango.calculatePrice(5));
+    }
+
+    @Test
+    void shouldFailFastOnUnknownStrategy() {
+        addItem("APPLE", "0.35", strategy("HALF_PRICE", null));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                                                () -> new PricingCatalog(properties, strategies));
+        assertTrue(ex.getMessage().contains("HALF_PRICE"));
+    }
+
+    @Test
+    void shouldFailFastOnItemWithoutStrategies() {
+        addItem("APPLE", "0.35");
+
+        assertThrows(IllegalStateException.class, () -> new PricingCatalog(properties, strategies));
+    }
+
+    @Test
+    void shouldMatchPerRequestSortingForAllQuantities() {
+        addItem("MANGO", "1.00", strategy("BULK_DISCOUNT", 1), strategy("SEASONAL", 2));
+        addItem("MELON", "0.50", strategy("BOGO", 1));
+        PricingCatalog catalog = new PricingCatalog(properties, strategies);
+
+        for (String item : List.of("MANGO", "MELON")) {
+            for (int quantity = 0; quantity <= 50; quantity++) {
+                assertEquals(referencePrice(item, quantity), catalog.get(item).calculatePrice(quantity));
+            }
+        }
+    }
+
+    @Test
+    void priceTableShouldMatchLivePricingOnBothSidesOfItsBound() {
+        properties.setPriceTableMaxQuantity(20);
+        addItem("MANGO", "1.00", strategy("BULK_DISCOUNT", 1), strategy("SEASONAL", 2));
+        addItem("FINE", "0.333", strategy("BULK_DISCOUNT", 1));
+        PricingCatalog catalog = new PricingCatalog(properties, strategies);
+
+        for (PricingPipeline pipeline : catalog.getPipelines().values()) {
+            assertEquals(20, pipeline.getTableMaxQuantity());
+            for (int quantity = 0; quantity <= 40; quantity++) {
+                assertEquals(pipeline.computePriceCents(quantity), pipeline.calculatePriceCents(quantity));
+                assertEquals(pipeline.calculatePrice(quantity).unscaledValue().longValueExact(),
+                             pipeline.calculatePriceCents(quantity));
+            }
+        }
+    }
+
+    @Test
+    void priceTableShouldNotOutgrowTheLineLimit() {
+        properties.setMaxQuantity(50);
+        addItem("APPLE", "0.35", strategy("REGULAR", null));
+
+        assertEquals(50, new PricingCatalog(properties, strategies).get("APPLE").getTableMaxQuantity());
+    }
+
+    @Test
+    void reloadShouldSwapPipelinesAndReportChangedItems() {
+        addItem("CATALOG_FIG", "0.35", strategy("REGULAR", null));
+        addItem("CATALOG_DATE", "0.50", strategy("BOGO", 1));
+        PricingCatalog catalog = new PricingCatalog(properties, strategies);
+        PricingPipeline date = catalog.get("CATALOG_DATE");
+
+        addItem("CATALOG_FIG", "0.35", strategy("BULK_DISCOUNT", null));
+        addItem("CATALOG_DATE", "0.50", strategy("BOGO", 1));
+        BitSet changed = catalog.reload(properties);
+
+        assertEquals(1, changed.cardinality());
+        assertTrue(changed.get(catalog.get("CATALOG_FIG").getItemId()));
+        assertEquals(new BigDecimal("1.58"), catalog.get("CATALOG_FIG").calculatePrice(5));
+        assertNotSame(date, catalog.get("CATALOG_DATE"));
+    }
+
+    @Test
+    void unitPriceShouldChangeWithThePipelineAtReload() {
+        addItem("CATALOG_LIME", "0.15", strategy("REGULAR", null));
+        PricingCatalog catalog = new PricingCatalog(properties, strategies);
+        int lime = catalog.get("CATALOG_LIME").getItemId();
+
+        addItem("CATALOG_LIME", "0.20", strategy("REGULAR", null));
+        catalog.reload(properties);
+
+        assertEquals(new BigDecimal("0.20"), catalog.get("CATALOG_LIME").getBasePrice());
+        assertEquals(new BigDecimal("0.20"), catalog.getItemIds().unitPrice(lime));
+    }
+
+    @Test
+    void failedReloadShouldLeaveCatalogUntouched() {
+        addItem("CATALOG_KIWI", "0.35", strategy("REGULAR", null));
+        PricingCatalog catalog = new PricingCatalog(properties, strategies);
+        PricingPipeline kiwi = catalog.get("CATALOG_KIWI");
+
+        addItem("CATALOG_KIWI", "0.99", strategy("HALF_PRICE", null));
+        assertThrows(IllegalStateException.class, () -> catalog.reload(properties));
+
+        assertSame(kiwi, catalog.get("CATALOG_KIWI"));
+        assertEquals(new BigDecimal("0.35"), catalog.getItemIds().unitPrice(kiwi.getItemId()));
+    }
+
+    /**
+     * The request-time algorithm the pipelines replace.
+     */
+    private BigDecimal referencePrice(String item, int quantity) {
+        PricingProperties.ItemConfig config = properties.getItems().get(item);
+        List<PricingProperties.StrategyConfig> sorted = new ArrayList<>(config.getStrategies());
+        sorted.sort((a, b) -> Integer.compare(a.getPriority(), b.getPriority()));
+        BigDecimal price = config.getBasePrice();
+        for (PricingProperties.StrategyConfig sc : sorted) {
+            price = strategies.get(sc.getType()).calculatePrice(quantity, price);
+        }
+        return price.setScale(2, java.math.RoundingMode.HALF_UP);
+    }
+
+    private void addItem(String name, String price, PricingProperties.StrategyConfig... configs) {
+        PricingProperties.ItemConfig config = new PricingProperties.ItemConfig();
+        config.setBasePrice(new BigDecimal(price));
+        config.setStrategies(List.of(configs));
+        properties.getItems().put(name, config);
+    }
+
+    private PricingProperties.StrategyConfig strategy(String type, Integer priority) {
+        PricingProperties.StrategyConfig config = new PricingProperties.StrategyConfig();
+        config.setType(type);
+        config.setPriority(priority);
+        return config;
+    }
+}
@@ -0,0 +1,155 @@
+package com.cart.snapshot;
+
+import com.cart.config.CartJournalProperties;
+import com.cart.config.CartSnapshotProperties;
+import com.cart.config.CartSyncProperties;
+import com.cart.journal.JournalEntry;
+import com.cart.journal.MappedCartJournal;
+import com.cart.journal.NoOpCartJournal;
+import com.cart.model.domain.Cart;
+import com.cart.model.domain.ItemIds;
+import com.cart.model.domain.OperationWindow;
+import com.cart.repository.HeapCartRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartRecoveryServiceTest {
+    private static final ItemIds ITEM_IDS = new ItemIds();
+    private static final int APPLE = ITEM_IDS.intern("APPLE");
+    private static final int MELON = ITEM_IDS.intern("MELON");
+
+    @TempDir
+    Path directory;
+
+    private CartJournalProperties journalProperties;
+    private CartSnapshotProperties snapshotProperties;
+    private MappedCartJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        journalProperties = new CartJournalProperties();
+        journalProperties.setEnabled(true);
+        journalProperties.setDirectory(directory.resolve("journal").toString());
+        journalProperties.setSegmentSizeBytes(64 * 1024);
+        journalProperties.setDurability(CartJournalProperties.Durability.ASYNC);
+        snapshotProperties = new CartSnapshotProperties();
+        snapshotProperties.setEnabled(true);
+        snapshotProperties.setDirectory(directory.resolve("snapshots").toString());
+        snapshotProperties.setIntervalMs(3_600_000);
+        journal = new MappedCartJournal(journalProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.destroy();
+    }
+
+    @Test
+    void journalAloneShouldRebuildCarts() {
+        journal.append(JournalEntry.create("c-1", 1));
+        journal.append(JournalEntry.add("c-1", "APPLE", 1, 35, 2));
+        journal.append(JournalEntry.add("c-1", "APPLE", 2, 70, 3));
+        journal.append(JournalEntry.add("c-1", "MELON", 1, 50, 4));
+        journal.append(JournalEntry.remove("c-1", "MELON", 5));
+        journal.append(JournalEntry.create("c-2", 1));
+        journal.append(JournalEntry.delete("c-2"));
+
+        HeapCartRepository restored = recoverInto();
+
+        Cart cart = restored.findById("c-1").orElseThrow();
+        assertEquals(2, cart.quantityOf(APPLE));
+        assertEquals(0, cart.quantityOf(MELON));
+        assertEquals(70, cart.getTotalCents());
+        assertEquals(5, cart.getVersion());
+        assertFalse(restored.exists("c-2"));
+    }
+
+    @Test
+    void syncEntryShouldReplaceLinesAndRestoreTheDedupWindow() {
+        journal.append(JournalEntry.create("c-1", 1));
+        journal.append(JournalEntry.add("c-1", "APPLE", 1, 35, 2));
+        journal.append(JournalEntry.sync("c-1", List.of(new JournalEntry.Line("MELON", 2, 50),
+                                                        new JournalEntry.Line("RETIRED", 1, 99)),
+                                         List.of("op-1", "op-2"), 3));
+
+        Cart cart = recoverInto().findById("c-1").orElseThrow();
+
+        assertEquals(0, cart.quantityOf(APPLE));
+        assertEquals(2, cart.quantityOf(MELON));
+        assertEquals(50, cart.getTotalCents());
+        assertEquals(3, cart.getVersion());
+        OperationWindow window = cart.operationWindow(new CartSyncProperties().getDedupWindow());
+        assertTrue(window.contains("op-1"));
+        assertTrue(window.contains("op-2"));
+        assertFalse(window.contains("op-3"));
+    }
+
+    @Test
+    void snapshotPlusJournalTailShouldRebuildCartsAndCompactSegments() throws Exception {
+        HeapCartRepository live = new HeapCartRepository();
+        Cart cart = live.save(new Cart("c-1"));
+        journal.append(JournalEntry.create("c-1", 1));
+        cart.putLine(APPLE, 1, 35);
+        cart.setVersion(2);
+        journal.append(JournalEntry.add("c-1", "APPLE", 1, 35, 2));
+
+        CartRecoveryService service = newService(live);
+        assertEquals(1, service.snapshot());
+
+        // Written after the snapshot, so only the journal has it
+        journal.append(JournalEntry.add("c-1", "MELON", 3, 150, 3));
+        journal.append(JournalEntry.create("c-2", 1));
+
+        assertEquals(1, countFiles(directory.resolve("journal")));
+        assertEquals(1, countFiles(directory.resolve("snapshots")));
+
+        HeapCartRepository restored = recoverInto();
+        Cart recovered = restored.findById("c-1").orElseThrow();
+        assertEquals(1, recovered.quantityOf(APPLE));
+        assertEquals(3, recovered.quantityOf(MELON));
+        assertEquals(185, recovered.getTotalCents());
+        assertEquals(3, recovered.getVersion());
+        assertTrue(restored.exists("c-2"));
+    }
+
+    @Test
+    void disabledRecoveryShouldLeaveStoreEmpty() {
+        journal.append(JournalEntry.create("c-1", 1));
+        journalProperties.setEnabled(false);
+        snapshotProperties.setEnabled(false);
+
+        HeapCartRepository restored = new HeapCartRepository();
+        new CartRecoveryService(restored, ITEM_IDS, new NoOpCartJournal(), journalProperties, snapshotProperties,
+                                new CartSyncProperties(), new SimpleMeterRegistry()).recover();
+
+        assertEquals(0, restored.count());
+    }
+
+    private static long countFiles(Path path) throws Exception {
+        try (Stream<Path> files = Files.list(path)) {
+            return files.count();
+        }
+    }
+
+    private HeapCartRepository recoverInto() {
+        HeapCartRepository restored = new HeapCartRepository();
+        newService(restored).recover();
+        return restored;
+    }
+
+    private CartRecoveryService newService(HeapCartRepository repository) {
+        return new CartRecoveryService(repository, ITEM_IDS, journal, journalProperties, snapshotProperties,
+                                       new CartSyncProperties(), new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,116 @@
+package com.cart.snapshot;
+
+import com.cart.model.domain.Cart;
+import com.cart.model.domain.ItemIds;
+import com.cart.repository.HeapCartRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFileTest {
+    private static final ItemIds ITEM_IDS = new ItemIds();
+    private static final int APPLE = ITEM_IDS.intern("APPLE");
+    private static final int MELON = ITEM_IDS.intern("MELON");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void snapshotShouldRoundTripEveryCartAcrossChunks() {
+        HeapCartRepository repository = new HeapCartRepository();
+        for (int i = 0; i < 1_000; i++) {
+            Cart cart = new Cart();
+            cart.putLine(APPLE, i % 7 + 1, 35L * (i % 7 + 1));
+            if (i % 2 == 0) {
+                cart.putLine(MELON, 1, 50);
+            }
+            cart.setVersion(i + 1);
+            repository.save(cart);
+        }
+        Path file = directory.resolve("carts.snap");
+
+        assertEquals(1_000, SnapshotFile.write(file, 42, repository, ITEM_IDS, 64));
+
+        Map<String, Cart> loaded = new ConcurrentHashMap<>();
+        SnapshotFile.Header header = SnapshotFile.read(file, ITEM_IDS, 4, cart -> loaded.put(cart.getId(), cart));
+
+        assertEquals(42, header.getJournalSegment());
+        assertEquals(1_000, header.getCartCount());
+        assertEquals(1_000, loaded.size());
+        repository.forEach(cart -> assertEquals(cart, loaded.get(cart.getId())));
+    }
+
+    @Test
+    void snapshotTakenWhileCartsChangeShouldStayReadable() throws Exception {
+        HeapCartRepository repository = new HeapCartRepository();
+        List<Cart> carts = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Cart cart = new Cart();
+            repository.save(cart);
+            carts.add(cart);
+        }
+        int[] items = new int[16];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = ITEM_IDS.intern("CHURN-" + i);
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        // One writer per cart, as under the cart executor; lines grow and shrink throughout
+        Thread writer = new Thread(() -> {
+            for (int round = 0; !done.get(); round++) {
+                for (Cart cart : carts) {
+                    if (round % items.length == items.length - 1) {
+                        cart.clearLines();
+                    } else {
+                        cart.putLine(items[round % items.length], round % 5 + 1, 100L);
+                    }
+                    cart.incrementVersion();
+                }
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 50; i++) {
+                Path file = directory.resolve("churn-" + i + ".snap");
+                assertEquals(200, SnapshotFile.write(file, i, repository, ITEM_IDS, 16));
+
+                Map<String, Cart> loaded = new ConcurrentHashMap<>();
+                SnapshotFile.read(file, ITEM_IDS, 2, cart -> loaded.put(cart.getId(), cart));
+
+                assertEquals(200, loaded.size());
+                for (Cart cart : carts) {
+                    assertTrue(loaded.containsKey(cart.getId()));
+                }
+            }
+        } finally {
+            done.set(true);
+            writer.join();
+        }
+    }
+
+    @Test
+    void emptyStoreShouldWriteLoadableSnapshot() {
+        Path file = directory.resolve("empty.snap");
+
+        assertEquals(0, SnapshotFile.write(file, 0, new HeapCartRepository(), ITEM_IDS, 64));
+
+        assertEquals(0, SnapshotFile.read(file, ITEM_IDS, 2, cart -> fail("No carts expected")).getCartCount());
+    }
+
+    @Test
+    void foreignFileShouldBeRejected() throws Exception {
+        Path file = directory.resolve("junk.snap");
+        Files.write(file, new byte[64]);
+
+        assertThrows(IllegalStateException.class, () -> SnapshotFile.read(file, ITEM_IDS, 1, cart -> { }));
+    }
+}
@@ -0,0 +1,104 @@
+package com.cart.snapshot;
+
+import com.cart.config.CartJournalProperties;
+import com.cart.config.CartSnapshotProperties;
+import com.cart.config.CartSyncProperties;
+import com.cart.journal.JournalEntry;
+import com.cart.journal.MappedCartJournal;
+import com.cart.model.domain.Cart;
+import com.cart.model.domain.ItemIds;
+import com.cart.repository.HeapCartRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Measures startup recovery: loading a snapshot of N carts plus replaying a
+ * journal tail of 100k entries. Each run holds two stores of N carts, so the
+ * 10M case needs a large heap, e.g.
+ * {@code mvn test -Pbenchmark -DargLine=-Xmx16g}; it is skipped otherwise.
+ */
+@Slf4j
+@Tag("benchmark")
+class SnapshotStartupBenchmarkTest {
+    private static final ItemIds ITEM_IDS = new ItemIds();
+    private static final long BYTES_PER_CART = 700;
+    private static final int TAIL_ENTRIES = 100_000;
+    private static final int APPLE = ITEM_IDS.intern("APPLE");
+    private static final int MELON = ITEM_IDS.intern("MELON");
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1_000_000, 10_000_000})
+    void recoverSnapshotAndJournalTail(int carts) throws Exception {
+        assumeTrue(Runtime.getRuntime().maxMemory() > carts * BYTES_PER_CART,
+                   "Heap too small for " + carts + " carts");
+
+        CartJournalProperties journalProperties = new CartJournalProperties();
+        journalProperties.setEnabled(true);
+        journalProperties.setDirectory(directory.resolve("journal").toString());
+        journalProperties.setDurability(CartJournalProperties.Durability.ASYNC);
+        CartSnapshotProperties snapshotProperties = new CartSnapshotProperties();
+        snapshotProperties.setEnabled(true);
+        snapshotProperties.setDirectory(directory.resolve("snapshots").toString());
+        MappedCartJournal journal = new MappedCartJournal(journalProperties);
+
+        HeapCartRepository live = new HeapCartRepository();
+        String[] ids = new String[carts];
+        for (int i = 0; i < carts; i++) {
+            Cart cart = new Cart();
+            cart.putLine(APPLE, 1 + i % 5, 35L * (1 + i % 5));
+            if (i % 3 == 0) {
+                cart.putLine(MELON, 2, 50);
+            }
+            ids[i] = live.save(cart).getId();
+        }
+
+        CartRecoveryService writer = new CartRecoveryService(live, ITEM_IDS, journal, journalProperties, snapshotProperties,
+                                                             new CartSyncProperties(), new SimpleMeterRegistry());
+        long writeStart = System.nanoTime();
+        writer.snapshot();
+        long writeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - writeStart);
+        for (int i = 0; i < TAIL_ENTRIES; i++) {
+            journal.append(JournalEntry.add(ids[i % carts], "APPLE", 6, 210, 10 + i));
+        }
+        journal.destroy();
+        live = null;
+        System.gc();
+
+        long snapshotBytes;
+        try (Stream<Path> files = Files.list(directory.resolve("snapshots"))) {
+            snapshotBytes = files.mapToLong(path -> path.toFile().length()).sum();
+        }
+
+        MappedCartJournal reopened = new MappedCartJournal(journalProperties);
+        HeapCartRepository restored = new HeapCartRepository();
+        CartRecoveryService reader = new CartRecoveryService(restored, ITEM_IDS, reopened, journalProperties,
+                                                             snapshotProperties, new CartSyncProperties(),
+                                                             new SimpleMeterRegistry());
+        long recoverStart = System.nanoTime();
+        reader.recover();
+        long recoverMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - recoverStart);
+        reopened.destroy();
+
+        log.info("{} carts: snapshot {} MB written in {} ms; recovery with {} tail entries took {} ms "
+                 + "on {} processors", carts, snapshotBytes >> 20, writeMs, TAIL_ENTRIES, recoverMs,
+                 Runtime.getRuntime().availableProcessors());
+        assertEquals(carts, restored.count());
+        assertEquals(6, restored.findById(ids[0]).orElseThrow().quantityOf(APPLE));
+    }
+}
@@ -0,0 +1,91 @@
+package com.cart.websocket;
+
+import com.cart.model.event.CartEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartEventConflatorTest {
+    private final List<CartEvent> flushed = new ArrayList<>();
+    private SimpleMeterRegistry registry;
+    private CartEventConflator conflator;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        conflator = new CartEventConflator(flushed::add, new WebSocketMetrics(registry));
+    }
+
+    @Test
+    void burstShouldFlushOnlyTheNewestVersionPerCart() {
+        for (long version = 2; version <= 101; version++) {
+            conflator.submit(event("cart-1", version));
+        }
+        conflator.submit(event("cart-2", 7));
+
+        conflator.flush();
+
+        assertEquals(2, flushed.size());
+        assertEquals(101, versionOf("cart-1"));
+        assertEquals(7, versionOf("cart-2"));
+        assertEquals(99.0, registry.counter("cart.ws.events.conflated").count());
+        assertEquals(0, conflator.pendingCount());
+    }
+
+    @Test
+    void lateOlderEventShouldNotReplaceNewerOne() {
+        conflator.submit(event("cart-1", 5));
+        conflator.submit(event("cart-1", 4));
+
+        conflator.flush();
+
+        assertEquals(5, versionOf("cart-1"));
+    }
+
+    @Test
+    void emptyFlushShouldDeliverNothing() {
+        conflator.flush();
+        conflator.submit(event("cart-1", 2));
+        conflator.flush();
+        conflator.flush();
+
+        assertEquals(1, flushed.size());
+    }
+
+    @Test
+    void sinkFailureShouldNotStopOtherCarts() {
+        List<String> delivered = new ArrayList<>();
+        CartEventConflator failing = new CartEventConflator(event -> {
+            if (event.getCartId().equals("bad")) {
+                throw new IllegalStateException("boom");
+            }
+            delivered.add(event.getCartId());
+        }, new WebSocketMetrics(registry));
+        failing.submit(event("bad", 2));
+        failing.submit(event("good", 2));
+
+        failing.flush();
+
+        assertEquals(List.of("good"), delivered);
+        assertEquals(0, failing.pendingCount());
+    }
+
+    private long versionOf(String cartId) {
+        return flushed.stream()
+                      .filter(event -> event.getCartId().equals(cartId))
+                      .findFirst()
+                      .orElseThrow()
+                      .getVersion();
+    }
+
+    private static CartEvent event(String cartId, long version) {
+        return new CartEvent(cartId, CartEvent.CartEventType.ITEM_ADDED, "APPLE", 1,
+                             new BigDecimal("0.35"), version);
+    }
+}
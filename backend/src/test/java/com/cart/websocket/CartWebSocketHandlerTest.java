@@ -0,0 +1,256 @@
+package com.cart.websocket;
+
+import com.cart.config.PricingProperties;
+import com.cart.config.WebSocketProperties;
+import com.cart.eventbus.CartEventBus;
+import com.cart.model.domain.Cart;
+import com.cart.model.event.CartEvent;
+import com.cart.model.event.CartEvictedEvent;
+import com.cart.service.CartService;
+import com.cart.service.pricing.PricingCatalog;
+import com.cart.service.pricing.RegularPricingStrategy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class CartWebSocketHandlerTest {
+    private CartService cartService;
+    private CartWebSocketHandler handler;
+    private PricingCatalog pricingCatalog;
+    private Cart cart;
+    private CartEventBus eventBus;
+
+    @BeforeEach
+    void setUp() {
+        cartService = mock(CartService.class);
+        eventBus = mock(CartEventBus.class);
+        cart = new Cart();
+        when(cartService.getCart(anyString())).thenReturn(cart);
+        pricingCatalog = pricingCatalog("APPLE", "MELON");
+        handler = new CartWebSocketHandler(cartService, new ObjectMapper(), pricingCatalog,
+                                           new WebSocketProperties(), new SimpleMeterRegistry(), eventBus);
+    }
+
+    @AfterEach
+    void tearDown() {
+        handler.destroy();
+    }
+
+    @Test
+    void shouldFanOutOneSerializedFrameToEverySubscriber() throws Exception {
+        WebSocketSession tab = openSession("tab");
+        WebSocketSession phone = openSession("phone");
+        handler.afterConnectionEstablished(tab);
+        handler.afterConnectionEstablished(phone);
+
+        handler.handleCartEvent(event(2L));
+
+        WebSocketMessage<?> toTab = lastMessage(tab, 2);
+        WebSocketMessage<?> toPhone = lastMessage(phone, 2);
+        assertSame(toTab, toPhone);
+        assertTrue(((TextMessage) toTab).getPayload().contains("\"version\":2"));
+    }
+
+    @Test
+    void closingOneSessionShouldKeepOtherSubscribed() throws Exception {
+        WebSocketSession tab = openSession("tab");
+        WebSocketSession phone = openSession("phone");
+        handler.afterConnectionEstablished(tab);
+        handler.afterConnectionEstablished(phone);
+
+        handler.afterConnectionClosed(tab, CloseStatus.NORMAL);
+        handler.handleCartEvent(event(2L));
+
+        lastMessage(phone, 2);
+        verify(tab, after(200).times(1)).sendMessage(any());
+        assertEquals(1, handler.getSubscriptions().subscriberCount(cart.getId()));
+    }
+
+    @Test
+    void subscriptionsShouldBeAnnouncedOnTheEventBus() throws Exception {
+        WebSocketSession tab = openSession("tab");
+        WebSocketSession phone = openSession("phone");
+        handler.afterConnectionEstablished(tab);
+        handler.afterConnectionEstablished(phone);
+        handler.afterConnectionClosed(tab, CloseStatus.NORMAL);
+        verify(eventBus, never()).unsubscribe(anyString());
+
+        handler.afterConnectionClosed(phone, CloseStatus.NORMAL);
+
+        verify(eventBus, times(1)).subscribe(cart.getId());
+        verify(eventBus, times(1)).unsubscribe(cart.getId());
+    }
+
+    @Test
+    void localEventsShouldBePublishedAndRemoteOnesOnlyDelivered() throws Exception {
+        ArgumentCaptor<Consumer<CartEvent>> receiver = ArgumentCaptor.forClass(Consumer.class);
+        verify(eventBus).setReceiver(receiver.capture());
+        WebSocketSession tab = openSession("tab");
+        handler.afterConnectionEstablished(tab);
+
+        handler.handleCartEvent(event(2L));
+        handler.flush();
+        receiver.getValue().accept(event(3L));
+
+        verify(eventBus, times(1)).publish(any());
+        assertTrue(((TextMessage) lastMessage(tab, 3)).getPayload().contains("\"version\":3"));
+    }
+
+    @Test
+    void eventsShouldBePublishedAndEncodedOffTheMutatingThread() throws Exception {
+        List<String> publishers = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> publishers.add(Thread.currentThread().getName())).when(eventBus).publish(any());
+        WebSocketSession tab = openSession("tab");
+        handler.afterConnectionEstablished(tab);
+
+        for (long version = 2; version <= 20; version++) {
+            handler.handleCartEvent(event(version));
+        }
+        handler.flush();
+
+        assertEquals(19, publishers.size());
+        assertFalse(publishers.contains(Thread.currentThread().getName()));
+        assertTrue(((TextMessage) lastMessage(tab, 20)).getPayload().contains("\"version\":20"));
+    }
+
+    @Test
+    void eventsForUnwatchedCartsShouldBeIgnored() {
+        handler.handleCartEvent(event(2L));
+
+        assertTrue(handler.getSubscriptions().cartIds().isEmpty());
+    }
+
+    @Test
+    void conflationShouldSendOnlyNewestVersionOfABurst() throws Exception {
+        handler.destroy();
+        WebSocketProperties properties = new WebSocketProperties();
+        properties.setConflate(true);
+        properties.setFlushIntervalMs(60_000);
+        handler = new CartWebSocketHandler(cartService, new ObjectMapper(), pricingCatalog,
+                                           properties, new SimpleMeterRegistry(), eventBus);
+        WebSocketSession tab = openSession("tab");
+        handler.afterConnectionEstablished(tab);
+
+        for (long version = 2; version <= 100; version++) {
+            handler.handleCartEvent(event(version));
+        }
+        handler.flush();
+
+        WebSocketMessage<?> last = lastMessage(tab, 2);
+        assertTrue(((TextMessage) last).getPayload().contains("\"version\":100"));
+        verify(tab, after(200).times(2)).sendMessage(any());
+    }
+
+    @Test
+    void evictedCartShouldCloseItsSessions() throws Exception {
+        WebSocketSession tab = openSession("tab");
+        WebSocketSession phone = openSession("phone");
+        handler.afterConnectionEstablished(tab);
+        handler.afterConnectionEstablished(phone);
+
+        handler.handleCartEvicted(new CartEvictedEvent(cart.getId(), CartEvictedEvent.Reason.IDLE));
+
+        verify(tab).close(argThat(status -> status.getCode() == CloseStatus.NORMAL.getCode()));
+        verify(phone).close(argThat(status -> status.getCode() == CloseStatus.NORMAL.getCode()));
+    }
+
+    @Test
+    void shouldAdvertiseBinarySubprotocol() {
+        assertEquals(List.of(CartWireCodec.SUBPROTOCOL), handler.getSubProtocols());
+    }
+
+    @Test
+    void binarySessionShouldReceiveCompactFramesAlongsideJsonSession() throws Exception {
+        WebSocketSession json = openSession("json");
+        WebSocketSession binary = openSession("binary");
+        when(binary.getAcceptedProtocol()).thenReturn(CartWireCodec.SUBPROTOCOL);
+        handler.afterConnectionEstablished(json);
+        handler.afterConnectionEstablished(binary);
+
+        handler.handleCartEvent(event(2L));
+
+        assertTrue(lastMessage(json, 2) instanceof TextMessage);
+        WebSocketMessage<?> frame = lastMessage(binary, 2);
+        assertTrue(frame instanceof BinaryMessage);
+        WireReader in = new WireReader(((BinaryMessage) frame).getPayload().array());
+        assertEquals(CartWireCodec.EVENT_FRAME, in.readByte());
+        assertEquals(2, in.readVarLong());
+    }
+
+    @Test
+    void encodingFailureShouldOnlySkipSessionsOfThatFormat() throws Exception {
+        WebSocketSession firstBinary = openSession("binary-1");
+        WebSocketSession secondBinary = openSession("binary-2");
+        WebSocketSession json = openSession("json");
+        when(firstBinary.getAcceptedProtocol()).thenReturn(CartWireCodec.SUBPROTOCOL);
+        when(secondBinary.getAcceptedProtocol()).thenReturn(CartWireCodec.SUBPROTOCOL);
+        handler.afterConnectionEstablished(firstBinary);
+        handler.afterConnectionEstablished(secondBinary);
+        handler.afterConnectionEstablished(json);
+
+        // The binary dictionary has no id for this item; JSON needs none
+        handler.handleCartEvent(new CartEvent(cart.getId(), CartEvent.CartEventType.ITEM_ADDED, "BANANA", 1,
+                                              new BigDecimal("0.35"), 2L));
+
+        assertTrue(lastMessage(json, 2) instanceof TextMessage);
+        verify(firstBinary, after(200).times(1)).sendMessage(any());
+        verify(secondBinary, times(1)).sendMessage(any());
+    }
+
+    private WebSocketMessage<?> lastMessage(WebSocketSession session, int expectedCount) throws Exception {
+        ArgumentCaptor<WebSocketMessage<?>> captor = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(session, timeout(5_000).times(expectedCount)).sendMessage(captor.capture());
+        List<WebSocketMessage<?>> messages = captor.getAllValues();
+        return messages.get(messages.size() - 1);
+    }
+
+    private CartEvent event(long version) {
+        return new CartEvent(cart.getId(), CartEvent.CartEventType.ITEM_ADDED, "APPLE", 1,
+                             new BigDecimal("0.35"), version);
+    }
+
+    private static PricingCatalog pricingCatalog(String... itemNames) {
+        PricingProperties properties = new PricingProperties();
+        properties.setItems(new HashMap<>());
+        for (String itemName : itemNames) {
+            PricingProperties.StrategyConfig regular = new PricingProperties.StrategyConfig();
+            regular.setType("REGULAR");
+            PricingProperties.ItemConfig item = new PricingProperties.ItemConfig();
+            item.setBasePrice(new BigDecimal("0.35"));
+            item.setStrategies(List.of(regular));
+            properties.getItems().put(itemName, item);
+        }
+        return new PricingCatalog(properties, Map.of("REGULAR", new RegularPricingStrategy()));
+    }
+
+    private WebSocketSession openSession(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        when(session.getUri()).thenReturn(URI.create("ws://localhost/cart-ws/" + cart.getId()));
+        when(session.getAttributes()).thenReturn(new HashMap<>());
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+}
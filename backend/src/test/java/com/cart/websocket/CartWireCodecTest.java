@@ -0,0 +1,168 @@
+package com.cart.websocket;
+
+import com.cart.model.domain.Cart;
+import com.cart.model.domain.ItemIds;
+import com.cart.model.event.CartEvent;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartWireCodecTest {
+    private static final Map<Integer, BigDecimal> UNIT_PRICES = new ConcurrentHashMap<>();
+    private static final ItemIds ITEM_IDS = new ItemIds(UNIT_PRICES::get);
+    private final CartWireCodec codec = new CartWireCodec(List.of("MELON", "APPLE", "LIME"), ITEM_IDS);
+
+    @Test
+    void shouldAssignDenseIdsInNameOrder() {
+        assertEquals(List.of("APPLE", "LIME", "MELON"), codec.getItemNames());
+    }
+
+    @Test
+    void eventFrameShouldCarryChangedLineInMinorUnits() {
+        CartEvent event = new CartEvent("cart-1", CartEvent.CartEventType.ITEM_ADDED, "MELON", 3,
+                                        new BigDecimal("1.00"), 300);
+
+        WireReader in = new WireReader(codec.encodeEvent(event));
+
+        assertEquals(CartWireCodec.EVENT_FRAME, in.readByte());
+        assertEquals(300, in.readVarLong());
+        assertEquals(CartEvent.CartEventType.ITEM_ADDED.ordinal(), in.readVarLong());
+        assertEquals(3, in.readVarLong());
+        assertEquals(3, in.readVarLong());
+        assertEquals(100, in.readVarLong());
+        assertTrue(in.exhausted());
+    }
+
+    @Test
+    void eventWithoutItemShouldUseIdZero() {
+        CartEvent event = new CartEvent("cart-1", CartEvent.CartEventType.CART_CLEARED, null, 0,
+                                        BigDecimal.ZERO, 2, List.of());
+
+        WireReader in = new WireReader(codec.encodeEvent(event));
+        in.readByte();
+        in.readVarLong();
+        in.readVarLong();
+
+        assertEquals(0, in.readVarLong());
+        assertEquals(7, codec.encodeEvent(event).length);
+    }
+
+    @Test
+    void clearedEventShouldCarryNoLines() {
+        CartEvent event = new CartEvent("cart-1", CartEvent.CartEventType.CART_CLEARED, null, 0,
+                                        BigDecimal.ZERO, 4, List.of());
+
+        WireReader in = readHeader(event, 4, CartEvent.CartEventType.CART_CLEARED, 0);
+
+        assertEquals(0, in.readVarLong());
+        assertTrue(in.exhausted());
+    }
+
+    @Test
+    void syncedEventShouldCarryEveryLine() {
+        CartEvent event = new CartEvent("cart-1", CartEvent.CartEventType.CART_SYNCED, null, 0,
+                                        new BigDecimal("1.20"), 6,
+                                        List.of(new CartEvent.Line("APPLE", 2, 70), new CartEvent.Line("MELON", 3, 100)));
+
+        WireReader in = readHeader(event, 6, CartEvent.CartEventType.CART_SYNCED, 120);
+
+        assertEquals(2, in.readVarLong());
+        assertLine(in, 1, 2, 70);
+        assertLine(in, 3, 3, 100);
+        assertTrue(in.exhausted());
+    }
+
+    @Test
+    void priceUpdatedEventShouldCarryEveryLine() {
+        CartEvent event = new CartEvent("cart-1", CartEvent.CartEventType.PRICE_UPDATED, null, 0,
+                                        new BigDecimal("0.60"), 9, List.of(new CartEvent.Line("LIME", 4, 60)));
+
+        WireReader in = readHeader(event, 9, CartEvent.CartEventType.PRICE_UPDATED, 60);
+
+        assertEquals(1, in.readVarLong());
+        assertLine(in, 2, 4, 60);
+        assertTrue(in.exhausted());
+    }
+
+    @Test
+    void multiLineEventWithoutLinesShouldBeRejected() {
+        CartEvent event = new CartEvent("cart-1", CartEvent.CartEventType.PRICE_UPDATED, null, 0,
+                                        BigDecimal.ONE, 2);
+
+        assertThrows(IllegalArgumentException.class, () -> codec.encodeEvent(event));
+    }
+
+    @Test
+    void snapshotShouldCarryDictionaryAndLines() {
+        Cart cart = new Cart();
+        cart.putLine(item("APPLE", "0.35"), 2, 70);
+        cart.setVersion(5);
+
+        WireReader in = new WireReader(codec.encodeSnapshot(cart));
+
+        assertEquals(CartWireCodec.SNAPSHOT_FRAME, in.readByte());
+        assertEquals(5, in.readVarLong());
+        assertEquals(70, in.readVarLong());
+        assertEquals(3, in.readVarLong());
+        assertEquals("APPLE", in.readString());
+        assertEquals("LIME", in.readString());
+        assertEquals("MELON", in.readString());
+        assertEquals(1, in.readVarLong());
+        assertEquals(1, in.readVarLong());
+        assertEquals(2, in.readVarLong());
+        assertEquals(35, in.readVarLong());
+        assertEquals(70, in.readVarLong());
+        assertTrue(in.exhausted());
+    }
+
+    @Test
+    void largeValuesShouldUseMultiByteVarints() {
+        CartEvent event = new CartEvent("cart-1", CartEvent.CartEventType.ITEM_ADDED, "APPLE", 200,
+                                        new BigDecimal("123456.78"), 1L << 40);
+
+        WireReader in = new WireReader(codec.encodeEvent(event));
+        in.readByte();
+
+        assertEquals(1L << 40, in.readVarLong());
+        in.readVarLong();
+        in.readVarLong();
+        assertEquals(200, in.readVarLong());
+        assertEquals(12_345_678, in.readVarLong());
+    }
+
+    @Test
+    void unknownItemShouldBeRejected() {
+        CartEvent event = new CartEvent("cart-1", CartEvent.CartEventType.ITEM_ADDED, "KIWI", 1,
+                                        BigDecimal.ONE, 2);
+
+        assertThrows(IllegalArgumentException.class, () -> codec.encodeEvent(event));
+    }
+
+    private WireReader readHeader(CartEvent event, long version, CartEvent.CartEventType type, long totalCents) {
+        WireReader in = new WireReader(codec.encodeEvent(event));
+        assertEquals(CartWireCodec.EVENT_FRAME, in.readByte());
+        assertEquals(version, in.readVarLong());
+        assertEquals(type.ordinal(), in.readVarLong());
+        assertEquals(0, in.readVarLong());
+        assertEquals(0, in.readVarLong());
+        assertEquals(totalCents, in.readVarLong());
+        return in;
+    }
+
+    private static void assertLine(WireReader in, long itemId, long quantity, long lineTotalCents) {
+        assertEquals(itemId, in.readVarLong());
+        assertEquals(quantity, in.readVarLong());
+        assertEquals(lineTotalCents, in.readVarLong());
+    }
+
+    private static int item(String name, String unitPrice) {
+        int id = ITEM_IDS.intern(name);
+        UNIT_PRICES.put(id, new BigDecimal(unitPrice));
+        return id;
+    }
+}
@@ -0,0 +1,196 @@
+package com.cart.websocket;
+
+import com.cart.config.WebSocketProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SessionOutboxTest {
+    private ExecutorService dispatcher;
+    private ExecutorService closer;
+    private WebSocketProperties properties;
+    private SimpleMeterRegistry registry;
+    private WebSocketMetrics metrics;
+    private WebSocketSession session;
+    private List<String> delivered;
+    private CountDownLatch releaseSend;
+    private CountDownLatch sendStarted;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dispatcher = Executors.newFixedThreadPool(2);
+        closer = Executors.newSingleThreadExecutor();
+        properties = new WebSocketProperties();
+        registry = new SimpleMeterRegistry();
+        metrics = new WebSocketMetrics(registry);
+        delivered = new CopyOnWriteArrayList<>();
+        releaseSend = new CountDownLatch(0);
+        sendStarted = new CountDownLatch(1);
+
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("s-1");
+        doAnswer(invocation -> {
+            sendStarted.countDown();
+            releaseSend.await(10, TimeUnit.SECONDS);
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            delivered.add((String) message.getPayload());
+            return null;
+        }).when(session).sendMessage(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseSend.countDown();
+        dispatcher.shutdownNow();
+        closer.shutdownNow();
+    }
+
+    @Test
+    void shouldDeliverInOrderOffThePublishingThread() throws Exception {
+        SessionOutbox outbox = new SessionOutbox(session, dispatcher, closer, properties, metrics);
+
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(outbox.offer(new TextMessage("v" + i)));
+        }
+
+        awaitDelivered(5);
+        assertEquals(List.of("v1", "v2", "v3", "v4", "v5"), delivered);
+        assertEquals(5, registry.timer("cart.ws.send.latency").count());
+        assertEquals(0, metrics.getQueueDepth());
+    }
+
+    @Test
+    void slowClientShouldNotBlockProducer() throws Exception {
+        releaseSend = new CountDownLatch(1);
+        SessionOutbox outbox = new SessionOutbox(session, dispatcher, closer, properties, metrics);
+        outbox.offer(new TextMessage("v1"));
+        assertTrue(sendStarted.await(5, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        for (int i = 2; i <= 100; i++) {
+            outbox.offer(new TextMessage("v" + i));
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMs < 1_000, "Producer blocked for " + elapsedMs + "ms");
+        assertEquals(99, outbox.depth());
+        assertEquals(99, metrics.getQueueDepth());
+        releaseSend.countDown();
+        awaitDelivered(100);
+    }
+
+    @Test
+    void dropOldestShouldKeepNewestFramesWithinBuffer() throws Exception {
+        releaseSend = new CountDownLatch(1);
+        properties.setBufferSizeLimit(10);
+        SessionOutbox outbox = new SessionOutbox(session, dispatcher, closer, properties, metrics);
+        outbox.offer(new TextMessage("v0"));
+        assertTrue(sendStarted.await(5, TimeUnit.SECONDS));
+
+        for (int i = 1; i <= 9; i++) {
+            outbox.offer(new TextMessage("v" + i));
+        }
+        releaseSend.countDown();
+
+        awaitDelivered(6);
+        assertEquals(List.of("v0", "v5", "v6", "v7", "v8", "v9"), delivered);
+        assertEquals(4.0, registry.counter("cart.ws.messages.dropped").count());
+    }
+
+    @Test
+    void closePolicyShouldDisconnectOverflowingSession() throws Exception {
+        releaseSend = new CountDownLatch(1);
+        properties.setBufferSizeLimit(4);
+        properties.setOverflowPolicy(WebSocketProperties.OverflowPolicy.CLOSE);
+        SessionOutbox outbox = new SessionOutbox(session, dispatcher, closer, properties, metrics);
+        outbox.offer(new TextMessage("v0"));
+        assertTrue(sendStarted.await(5, TimeUnit.SECONDS));
+
+        assertTrue(outbox.offer(new TextMessage("v1")));
+        assertTrue(outbox.offer(new TextMessage("v2")));
+        assertFalse(outbox.offer(new TextMessage("v3")));
+        assertFalse(outbox.offer(new TextMessage("v4")));
+
+        verify(session, timeout(5_000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(1.0, registry.counter("cart.ws.sessions.slow.closed").count());
+        assertEquals(0, metrics.getQueueDepth());
+    }
+
+    @Test
+    void stalledSendShouldMarkSessionAsSlowConsumer() throws Exception {
+        releaseSend = new CountDownLatch(1);
+        properties.setSendTimeLimitMs(50);
+        SessionOutbox outbox = new SessionOutbox(session, dispatcher, closer, properties, metrics);
+        outbox.offer(new TextMessage("v0"));
+        assertTrue(sendStarted.await(5, TimeUnit.SECONDS));
+
+        Thread.sleep(100);
+
+        assertFalse(outbox.offer(new TextMessage("v1")));
+        verify(session, timeout(5_000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    @Test
+    void watchdogShouldCloseStalledSessionWhileDispatcherIsBlocked() throws Exception {
+        releaseSend = new CountDownLatch(1);
+        properties.setSendTimeLimitMs(50);
+        dispatcher.shutdownNow();
+        dispatcher = Executors.newSingleThreadExecutor();
+        SessionOutbox outbox = new SessionOutbox(session, dispatcher, closer, properties, metrics);
+        outbox.offer(new TextMessage("v0"));
+        assertTrue(sendStarted.await(5, TimeUnit.SECONDS));
+
+        assertFalse(outbox.closeIfSendStalled());
+        Thread.sleep(100);
+
+        // No further offer arrives and the only dispatcher thread is still stuck in the send
+        assertTrue(outbox.closeIfSendStalled());
+        verify(session, timeout(5_000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertFalse(outbox.closeIfSendStalled());
+        assertEquals(1.0, registry.counter("cart.ws.sessions.slow.closed").count());
+    }
+
+    @Test
+    void replaceableFramesShouldCollapseWhileSocketIsBusy() throws Exception {
+        releaseSend = new CountDownLatch(1);
+        SessionOutbox outbox = new SessionOutbox(session, dispatcher, closer, properties, metrics);
+        outbox.offer(new TextMessage("snapshot"));
+        assertTrue(sendStarted.await(5, TimeUnit.SECONDS));
+
+        outbox.offer(new TextMessage("pinned"));
+        for (int i = 1; i <= 50; i++) {
+            outbox.offer(new TextMessage("v" + i), true);
+        }
+        assertEquals(2, outbox.depth());
+        releaseSend.countDown();
+
+        awaitDelivered(3);
+        assertEquals(List.of("snapshot", "pinned", "v50"), delivered);
+        assertEquals(49.0, registry.counter("cart.ws.events.conflated").count());
+        assertEquals(0, metrics.getQueueDepth());
+    }
+
+    private void awaitDelivered(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (delivered.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, delivered.size());
+    }
+}
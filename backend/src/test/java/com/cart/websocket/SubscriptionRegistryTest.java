@@ -0,0 +1,71 @@
+package com.cart.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class SubscriptionRegistryTest {
+
+    @Test
+    void shouldKeepEverySubscriberOfACart() {
+        SubscriptionRegistry registry = new SubscriptionRegistry();
+        SessionOutbox tab = mock(SessionOutbox.class);
+        SessionOutbox phone = mock(SessionOutbox.class);
+
+        registry.add("cart-1", tab);
+        registry.add("cart-1", phone);
+
+        assertEquals(2, registry.subscriberCount("cart-1"));
+        assertTrue(registry.subscribers("cart-1").contains(tab));
+        assertTrue(registry.subscribers("cart-1").contains(phone));
+    }
+
+    @Test
+    void removingOneSubscriberShouldKeepTheOthers() {
+        SubscriptionRegistry registry = new SubscriptionRegistry();
+        SessionOutbox tab = mock(SessionOutbox.class);
+        SessionOutbox phone = mock(SessionOutbox.class);
+        registry.add("cart-1", tab);
+        registry.add("cart-1", phone);
+
+        registry.remove("cart-1", tab);
+
+        assertEquals(1, registry.subscriberCount("cart-1"));
+        assertTrue(registry.subscribers("cart-1").contains(phone));
+    }
+
+    @Test
+    void lastSubscriberRemovalShouldDropTheCartEntry() {
+        SubscriptionRegistry registry = new SubscriptionRegistry();
+        SessionOutbox tab = mock(SessionOutbox.class);
+        registry.add("cart-1", tab);
+
+        registry.remove("cart-1", tab);
+        registry.remove("cart-2", tab);
+
+        assertFalse(registry.hasSubscribers("cart-1"));
+        assertTrue(registry.subscribers("cart-1").isEmpty());
+        assertTrue(registry.cartIds().isEmpty());
+    }
+
+    @Test
+    void onlyTheFirstAndLastSubscriberShouldBeReported() {
+        List<String> reports = new ArrayList<>();
+        SubscriptionRegistry registry = new SubscriptionRegistry(cartId -> reports.add("+" + cartId),
+                                                                 cartId -> reports.add("-" + cartId));
+        SessionOutbox tab = mock(SessionOutbox.class);
+        SessionOutbox phone = mock(SessionOutbox.class);
+
+        registry.add("cart-1", tab);
+        registry.add("cart-1", phone);
+        registry.remove("cart-1", tab);
+        registry.remove("cart-1", phone);
+        registry.remove("cart-1", phone);
+
+        assertEquals(List.of("+cart-1", "-cart-1"), reports);
+    }
+}
@@ -0,0 +1,81 @@
+package com.cart.websocket;
+
+import com.cart.model.domain.ItemIds;
+import com.cart.model.event.CartEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares bytes per event and encode time of the JSON and binary wire formats.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+class WireFormatBenchmarkTest {
+    private static final List<String> ITEMS = List.of("APPLE", "BANANA", "MELON", "LIME");
+    private static final int EVENTS = 1_024;
+    private static final int ROUNDS = 200;
+
+    @Test
+    void compareJsonAndBinaryEventEncoding() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        CartWireCodec codec = new CartWireCodec(ITEMS, new ItemIds());
+        CartEvent[] events = sampleEvents();
+
+        long jsonBytes = 0;
+        long binaryBytes = 0;
+        for (CartEvent event : events) {
+            jsonBytes += objectMapper.writeValueAsBytes(event).length;
+            binaryBytes += codec.encodeEvent(event).length;
+        }
+
+        long jsonNanos = time(() -> {
+            for (CartEvent event : events) {
+                objectMapper.writeValueAsBytes(event);
+            }
+        });
+        long binaryNanos = time(() -> {
+            for (CartEvent event : events) {
+                codec.encodeEvent(event);
+            }
+        });
+
+        long encoded = (long) EVENTS * ROUNDS;
+        log.info("JSON:   {} bytes/event, {} ns/event", jsonBytes / EVENTS, jsonNanos / encoded);
+        log.info("Binary: {} bytes/event, {} ns/event", binaryBytes / EVENTS, binaryNanos / encoded);
+        assertTrue(binaryBytes * 4 < jsonBytes, "Binary frames should be a fraction of the JSON size");
+    }
+
+    private static CartEvent[] sampleEvents() {
+        CartEvent[] events = new CartEvent[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            int quantity = 1 + i % 12;
+            events[i] = new CartEvent("3f2b8c1e-4d5a-4e6f-9a7b-8c9d0e1f2a3b",
+                                      CartEvent.CartEventType.ITEM_ADDED, ITEMS.get(i % ITEMS.size()),
+                                      quantity, BigDecimal.valueOf(35L * quantity + i, 2), i + 2L);
+        }
+        return events;
+    }
+
+    private static long time(ThrowingRunnable round) throws Exception {
+        for (int i = 0; i < ROUNDS; i++) {
+            round.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            round.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
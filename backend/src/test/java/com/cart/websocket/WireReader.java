@@ -0,0 +1,42 @@
+package com.cart.websocket;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Test-side decoder for {@link CartWireCodec} frames.
+ */
+class WireReader {
+    private final byte[] bytes;
+    private int position;
+
+    WireReader(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    int readByte() {
+        return bytes[position++];
+    }
+
+    long readVarLong() {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[position++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    String readString() {
+        int length = (int) readVarLong();
+        String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    boolean exhausted() {
+        return position == bytes.length;
+    }
+}